@@ -0,0 +1,74 @@
+package twitter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Measures the accuracy and cost of ApproximateSocialNetwork against the
+ * exact SocialNetwork.guessFollowsGraph on a generated corpus, for several
+ * signature sizes and band counts, and the error of its HyperLogLog count of
+ * mentioned users against Extract.getMentionedUsers.
+ * 
+ * Precision is the fraction of the approximate graph's edges that the exact
+ * graph has; recall is the fraction of the exact graph's edges that the
+ * approximate graph has.
+ * 
+ * Usage: ApproximateFollowsGraphBenchmark [tweets]
+ */
+public class ApproximateFollowsGraphBenchmark {
+
+    public static void main(String[] args) {
+        final int size = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        final List<Tweet> tweets = TweetGenerator.generate(1, size, size / 20 + 1, 0.5, 2_000);
+        
+        final long exactStart = System.nanoTime();
+        final Map<String, Set<String>> exact = SocialNetwork.guessFollowsGraph(tweets);
+        System.out.printf("%-30s %10.0f ms %12d edges%n", "exact",
+                (System.nanoTime() - exactStart) / 1e6, edges(exact));
+        
+        final int[][] configurations = { { 4, 1 }, { 8, 1 }, { 16, 1 }, { 24, 1 }, { 32, 1 }, { 32, 8 }, { 64, 1 } };
+        for (int[] configuration : configurations) {
+            final long start = System.nanoTime();
+            final Map<String, Set<String>> approximate =
+                    ApproximateSocialNetwork.guessFollowsGraph(tweets, configuration[0], configuration[1]);
+            final double millis = (System.nanoTime() - start) / 1e6;
+            final long common = commonEdges(exact, approximate);
+            System.out.printf("%-30s %10.0f ms %12d edges  precision %.3f  recall %.3f%n",
+                    "signature " + configuration[0] + ", bands " + configuration[1], millis,
+                    edges(approximate), (double) common / Math.max(1, edges(approximate)),
+                    (double) common / Math.max(1, edges(exact)));
+        }
+        
+        final long mentioned = Extract.getMentionedUsers(tweets).size();
+        for (int precision : new int[] { 8, 12, 16 }) {
+            final long estimate = ApproximateSocialNetwork.countMentionedUsers(tweets, precision);
+            System.out.printf("%-30s %12d estimated %12d exact  error %+.2f%%%n",
+                    "HyperLogLog precision " + precision, estimate, mentioned,
+                    100.0 * (estimate - mentioned) / mentioned);
+        }
+    }
+    
+    private static long edges(Map<String, Set<String>> followsGraph) {
+        long edges = 0;
+        for (Set<String> follows : followsGraph.values()) {
+            edges += follows.size();
+        }
+        return edges;
+    }
+    
+    private static long commonEdges(Map<String, Set<String>> a, Map<String, Set<String>> b) {
+        long common = 0;
+        for (Map.Entry<String, Set<String>> entry : a.entrySet()) {
+            final Set<String> other = b.get(entry.getKey());
+            if (other != null) {
+                for (String followed : entry.getValue()) {
+                    if (other.contains(followed)) {
+                        common++;
+                    }
+                }
+            }
+        }
+        return common;
+    }
+}
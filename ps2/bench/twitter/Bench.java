@@ -0,0 +1,88 @@
+package twitter;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.function.Supplier;
+
+/**
+ * Bench is a minimal timing harness for the benchmarks in this folder: it
+ * warms an operation up, then reports the mean wall-clock time per call,
+ * throughput, the bytes allocated per call by the calling thread, and the
+ * garbage collections during the timed calls.
+ * 
+ * Run a benchmark's main() with -server and a fixed heap (e.g. -Xms4g -Xmx4g)
+ * so results are comparable between runs. Allocation is measured with the
+ * HotSpot-specific com.sun.management.ThreadMXBean, and is reported as n/a
+ * on JVMs without it; it does not include allocation by other threads, such
+ * as those of a parallel operation's ForkJoinPool.
+ */
+public class Bench {
+
+    /*
+     * Results are written here so the JIT cannot eliminate the measured work.
+     */
+    private static volatile Object sink;
+    
+    /**
+     * Time an operation and print the result.
+     * 
+     * @param name
+     *            label printed with the result
+     * @param warmups
+     *            number of untimed calls made first, requires >= 0
+     * @param iterations
+     *            number of timed calls, requires > 0
+     * @param operation
+     *            operation to time
+     * @return mean nanoseconds per timed call
+     */
+    public static double run(String name, int warmups, int iterations, Supplier<?> operation) {
+        for (int i = 0; i < warmups; i++) {
+            sink = operation.get();
+        }
+        final long gcCountBefore = gcCount();
+        final long gcMillisBefore = gcMillis();
+        final long allocatedBefore = allocatedBytes();
+        final long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink = operation.get();
+        }
+        final double nanosPerOp = (double) (System.nanoTime() - start) / iterations;
+        final long allocatedAfter = allocatedBytes();
+        final String bytesPerOp = allocatedBefore < 0 || allocatedAfter < 0 ? "n/a"
+                : String.format("%,.0f", (double) (allocatedAfter - allocatedBefore) / iterations);
+        System.out.printf("%-50s %,16.1f ns/op %,14.1f ops/s %18s B/op %4d gc %6d ms%n", name,
+                nanosPerOp, 1e9 / nanosPerOp, bytesPerOp,
+                gcCount() - gcCountBefore, gcMillis() - gcMillisBefore);
+        return nanosPerOp;
+    }
+
+    /*
+     * Bytes allocated so far by the current thread, or -1 if the JVM cannot
+     * tell.
+     */
+    private static long allocatedBytes() {
+        final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, collector.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, collector.getCollectionTime());
+        }
+        return millis;
+    }
+}
@@ -0,0 +1,45 @@
+package twitter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Measures how SocialNetwork.guessFollowsGraph scales from 1 to N threads.
+ * 
+ * Usage: FollowsGraphScalingBenchmark [sizes [maxThreads]]
+ *   sizes       comma-separated corpus sizes, default 1000000,10000000
+ *               (10M tweets need a heap of about 8 GB)
+ *   maxThreads  largest thread count, default the number of processors;
+ *               thread counts double from 1 up to it
+ */
+public class FollowsGraphScalingBenchmark {
+
+    public static void main(String[] args) {
+        final String sizes = args.length > 0 ? args[0] : "1000000,10000000";
+        final int maxThreads = args.length > 1 ? Integer.parseInt(args[1])
+                : Runtime.getRuntime().availableProcessors();
+        
+        for (String sizeArg : sizes.split(",")) {
+            final int size = Integer.parseInt(sizeArg.trim());
+            final List<Tweet> tweets = TweetGenerator.generate(1, size, size / 20 + 1, 1.0, 10_000);
+            
+            final double sequential = Bench.run(size + " tweets, sequential", 1, 3,
+                    () -> SocialNetwork.guessFollowsGraph(tweets));
+            final Map<String, Set<String>> expected = SocialNetwork.guessFollowsGraph(tweets);
+            for (int threads = 1; threads <= maxThreads; threads = nextThreadCount(threads, maxThreads)) {
+                final int parallelism = threads;
+                final double parallel = Bench.run(size + " tweets, " + threads + " threads", 1, 3,
+                        () -> SocialNetwork.guessFollowsGraph(tweets, Integer.MAX_VALUE, parallelism));
+                System.out.printf("%-50s %16.2fx%n", "  speedup over sequential", sequential / parallel);
+            }
+            if (!expected.equals(SocialNetwork.guessFollowsGraph(tweets, Integer.MAX_VALUE, maxThreads))) {
+                throw new AssertionError("parallel follows graph differs from sequential");
+            }
+        }
+    }
+    
+    private static int nextThreadCount(int threads, int maxThreads) {
+        return threads == maxThreads ? maxThreads + 1 : Math.min(threads * 2, maxThreads);
+    }
+}
@@ -0,0 +1,64 @@
+package twitter;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Baseline for the public operations of Extract, Filter and SocialNetwork,
+ * on generated corpora of increasing size. For each size it reports time,
+ * throughput, allocation and garbage collection per call (see Bench).
+ *
+ * The largest default size needs a large heap; run with e.g. -Xmx12g, or
+ * pass smaller sizes.
+ *
+ * Usage: HotPathsBenchmark [sizes [authors [mentionsPerTweet [hashtags [hashtagSkew]]]]]
+ * where sizes is a comma-separated list, by default
+ * 1000,10000,100000,1000000,10000000.
+ */
+public class HotPathsBenchmark {
+
+    public static void main(String[] args) {
+        final int[] sizes = Arrays.stream((args.length > 0 ? args[0] : "1000,10000,100000,1000000,10000000")
+                .split(",")).mapToInt(Integer::parseInt).toArray();
+        final int authors = args.length > 1 ? Integer.parseInt(args[1]) : 0;
+        final double mentionsPerTweet = args.length > 2 ? Double.parseDouble(args[2]) : 1.0;
+        final int hashtags = args.length > 3 ? Integer.parseInt(args[3]) : 10_000;
+        final double hashtagSkew = args.length > 4 ? Double.parseDouble(args[4]) : 1.0;
+
+        for (int size : sizes) {
+            // by default, one author per ten tweets
+            final int authorCount = authors > 0 ? authors : size / 10 + 1;
+            System.out.printf("%n%,d tweets, %,d authors, %.1f mentions/tweet, %,d hashtags, skew %.1f%n",
+                    size, authorCount, mentionsPerTweet, hashtags, hashtagSkew);
+            final List<Tweet> tweets =
+                    TweetGenerator.generate(1, size, authorCount, mentionsPerTweet, hashtags, hashtagSkew);
+            run(tweets);
+        }
+    }
+
+    private static void run(List<Tweet> tweets) {
+        // keep total work per benchmark roughly constant across sizes
+        final int iterations = Math.max(3, 10_000_000 / Math.max(1, tweets.size()));
+        final int warmups = Math.max(2, iterations / 2);
+        final Timespan hour = new Timespan(Instant.parse("2016-02-17T10:00:00Z"),
+                Instant.parse("2016-02-17T11:00:00Z"));
+        final List<String> words = Arrays.asList("rivest", "obama", "#tag1");
+
+        Bench.run("Extract.getTimespan", warmups, iterations, () -> Extract.getTimespan(tweets));
+        Bench.run("Extract.getMentionedUsers", warmups, iterations, () -> Extract.getMentionedUsers(tweets));
+        Bench.run("Filter.writtenBy", warmups, iterations, () -> Filter.writtenBy(tweets, "user1"));
+        Bench.run("Filter.inTimespan", warmups, iterations, () -> Filter.inTimespan(tweets, hour));
+        Bench.run("Filter.containing", warmups, iterations, () -> Filter.containing(tweets, words));
+
+        // graph construction is superlinear, so run it less
+        final int graphIterations = Math.max(1, iterations / 10);
+        Bench.run("SocialNetwork.guessFollowsGraph", Math.min(warmups, 2), graphIterations,
+                () -> SocialNetwork.guessFollowsGraph(tweets));
+        final Map<String, Set<String>> followsGraph = SocialNetwork.guessFollowsGraph(tweets);
+        Bench.run("SocialNetwork.influencers", warmups, iterations,
+                () -> SocialNetwork.influencers(followsGraph));
+    }
+}
@@ -0,0 +1,49 @@
+package twitter;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Times InfluenceRank's power iteration on a random graph with skewed
+ * in-degrees, at thread counts doubling up to maxThreads. The default graph
+ * has 10M edges; run with a large heap (e.g. -Xmx6g).
+ * 
+ * Usage: InfluenceRankBenchmark [users [followsPerUser [maxThreads]]]
+ */
+public class InfluenceRankBenchmark {
+
+    public static void main(String[] args) {
+        final int users = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        final int followsPerUser = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        final int maxThreads = args.length > 2 ? Integer.parseInt(args[2])
+                : Runtime.getRuntime().availableProcessors();
+        
+        final Random random = new Random(1);
+        final Map<String, Set<String>> followsGraph = new HashMap<>();
+        for (int user = 0; user < users; user++) {
+            final Set<String> follows = new HashSet<>();
+            while (follows.size() < Math.min(followsPerUser, users - 1)) {
+                // squaring a uniform draw skews follows toward low-numbered users
+                final double r = random.nextDouble();
+                final int followed = (int) (r * r * users);
+                if (followed != user) {
+                    follows.add("user" + followed);
+                }
+            }
+            followsGraph.put("user" + user, follows);
+        }
+        final CompactFollowsGraph graph = CompactFollowsGraph.fromMap(followsGraph);
+        followsGraph.clear();
+        System.out.println(graph);
+        
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            final int parallelism = threads;
+            Bench.run("InfluenceRank.scores, 20 iterations, " + threads + " threads", 1, 3,
+                    () -> InfluenceRank.scores(graph, 0, 20, parallelism));
+        }
+        Bench.run("CompactFollowsGraph.influencers()", 1, 3, () -> graph.influencers());
+    }
+}
@@ -0,0 +1,30 @@
+package twitter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compares ranking every user with SocialNetwork.influencers against taking
+ * only the top k with a bounded heap.
+ * 
+ * Usage: InfluencersBenchmark [tweets [k]]
+ */
+public class InfluencersBenchmark {
+
+    public static void main(String[] args) {
+        final int size = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        final int k = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        final List<Tweet> tweets = TweetGenerator.generate(1, size, size / 10 + 1, 1.5, 10_000);
+        final Map<String, Set<String>> followsGraph = SocialNetwork.guessFollowsGraph(tweets, 1000);
+        final CompactFollowsGraph compact = CompactFollowsGraph.fromMap(followsGraph);
+        System.out.println(compact);
+        
+        Bench.run("influencers(graph), full sort", 5, 10,
+                () -> SocialNetwork.influencers(followsGraph));
+        Bench.run("influencers(graph, " + k + "), bounded heap", 5, 10,
+                () -> SocialNetwork.influencers(followsGraph, k));
+        Bench.run("compact.influencers()", 5, 10, () -> compact.influencers());
+        Bench.run("compact.influencers(" + k + ")", 5, 10, () -> compact.influencers(k));
+    }
+}
@@ -0,0 +1,50 @@
+package twitter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+/**
+ * Compares a compiled KeywordFilter with the per-word String.contains scan
+ * that Filter.containing used before it, for watchlists of 10, 100 and 5,000
+ * words.
+ * 
+ * Usage: KeywordFilterBenchmark [tweets]
+ */
+public class KeywordFilterBenchmark {
+
+    public static void main(String[] args) {
+        final int size = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        final List<Tweet> tweets = TweetGenerator.generate(1, size, 1000, 1.0, 10_000);
+        final Random random = new Random(2);
+        
+        for (int count : new int[] { 10, 100, 5000 }) {
+            final List<String> words = new ArrayList<>(count);
+            for (int w = 0; w < count; w++) {
+                words.add("#tag" + random.nextInt(1_000_000));
+            }
+            Bench.run(count + " words, contains per word", 2, 5, () -> containsPerWord(tweets, words));
+            Bench.run(count + " words, compile + KeywordFilter", 2, 5,
+                    () -> new KeywordFilter(words).filter(tweets));
+            final KeywordFilter compiled = new KeywordFilter(words);
+            Bench.run(count + " words, precompiled KeywordFilter", 2, 5, () -> compiled.filter(tweets));
+        }
+    }
+    
+    /*
+     * The previous implementation: lowercases each tweet, then rescans it once
+     * per word.
+     */
+    private static List<Tweet> containsPerWord(List<Tweet> tweets, List<String> words) {
+        final List<String> lowerWords = words.stream()
+                .map(String::toLowerCase)
+                .collect(Collectors.toList());
+        return tweets.stream()
+                .filter(tweet -> {
+                    String text = tweet.getText().toLowerCase();
+                    return lowerWords.stream().anyMatch(text::contains);
+                })
+                .collect(Collectors.toList());
+    }
+}
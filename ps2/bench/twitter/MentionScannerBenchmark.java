@@ -0,0 +1,61 @@
+package twitter;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares TweetScanner.addMentions with the regex-based mention extraction
+ * that Extract.getMentionedUsers used before it.
+ * 
+ * Usage: MentionScannerBenchmark [tweets]
+ */
+public class MentionScannerBenchmark {
+
+    public static void main(String[] args) {
+        final int size = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        final List<Tweet> tweets = TweetGenerator.generate(1, size, size / 10 + 1, 1.5, 1000);
+        
+        Bench.run("regex, one tweet per call", 10, 20, () -> {
+            Set<String> mentioned = new HashSet<>();
+            for (Tweet tweet : tweets) {
+                mentioned.addAll(regexMentions(tweet.getText()));
+            }
+            return mentioned;
+        });
+        Bench.run("scanner, one tweet per call", 10, 20, () -> {
+            Set<String> mentioned = new HashSet<>();
+            for (Tweet tweet : tweets) {
+                TweetScanner.addMentions(tweet.getText(), mentioned);
+            }
+            return mentioned;
+        });
+    }
+    
+    /*
+     * The previous implementation: compiles the pattern on every call and
+     * checks mention boundaries after matching.
+     */
+    private static Set<String> regexMentions(String text) {
+        Set<String> mentioned = new HashSet<>();
+        Matcher matcher = Pattern.compile("@([a-zA-Z0-9_-]+)").matcher(text);
+        while (matcher.find()) {
+            int start = matcher.start();
+            int end = matcher.end();
+            if (start > 0 && isBoundaryChar(text.charAt(start - 1))) {
+                continue;
+            }
+            if (end < text.length() && isBoundaryChar(text.charAt(end))) {
+                continue;
+            }
+            mentioned.add(matcher.group(1).toLowerCase());
+        }
+        return mentioned;
+    }
+    
+    private static boolean isBoundaryChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '-' || c == '_';
+    }
+}
@@ -0,0 +1,49 @@
+package twitter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Compares cold-starting from a Snapshot file with rebuilding the tweet
+ * store and follows graph from the tweets, and reports the file size.
+ * 
+ * Usage: SnapshotBenchmark [tweets]
+ */
+public class SnapshotBenchmark {
+
+    private static Snapshot rebuild(List<Tweet> tweets) {
+        return new Snapshot(new TweetStore(tweets),
+                CompactFollowsGraph.fromMap(SocialNetwork.guessFollowsGraph(tweets, 1000)));
+    }
+    
+    public static void main(String[] args) throws IOException {
+        final int size = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        final List<Tweet> tweets = TweetGenerator.generate(1, size, size / 10 + 1, 1.5, 10_000);
+        final Path file = Files.createTempFile("snapshot", ".bin");
+        try {
+            Bench.run("rebuild store and graph", 0, 1, () -> rebuild(tweets));
+            final Snapshot snapshot = rebuild(tweets);
+            Bench.run("Snapshot.write", 0, 1, () -> {
+                try {
+                    snapshot.write(file);
+                    return file;
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            System.out.printf("%-50s %,16d bytes (%.1f per tweet)%n", "snapshot file",
+                    Files.size(file), (double) Files.size(file) / size);
+            Bench.run("Snapshot.read", 2, 5, () -> {
+                try {
+                    return Snapshot.read(file);
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
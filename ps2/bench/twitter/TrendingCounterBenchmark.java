@@ -0,0 +1,30 @@
+package twitter;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Measures how many tweets per second TrendingCounter can count on one
+ * thread, and the cost of a top-k query over every kept bucket.
+ * 
+ * Usage: TrendingCounterBenchmark [tweets]
+ */
+public class TrendingCounterBenchmark {
+
+    public static void main(String[] args) {
+        final int size = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        final List<Tweet> tweets = TweetGenerator.generate(1, size, 100_000, 1.0, 100_000);
+        
+        final double nanos = Bench.run("TrendingCounter.addAll, " + size + " tweets", 2, 5, () -> {
+            final TrendingCounter counter = new TrendingCounter(Duration.ofMinutes(1), 60);
+            counter.addAll(tweets);
+            return counter;
+        });
+        System.out.printf("%-50s %,16.0f tweets/s%n", "throughput", size / (nanos / 1e9));
+        
+        final TrendingCounter counter = new TrendingCounter(Duration.ofMinutes(1), 60);
+        counter.addAll(tweets);
+        Bench.run("trendingHashtags(1 hour, 10)", 5, 20,
+                () -> counter.trendingHashtags(Duration.ofHours(1), 10));
+    }
+}
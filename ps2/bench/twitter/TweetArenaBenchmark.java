@@ -0,0 +1,43 @@
+package twitter;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compares the heap footprint of a List<Tweet> with a TweetArena holding the
+ * same tweets, and the cost of finding a user's tweets, and the tweets
+ * containing some words, in each. The list stays reachable while the arena
+ * is measured, so the arena's footprint is the growth beyond the list's.
+ * 
+ * Usage: TweetArenaBenchmark [tweets]
+ */
+public class TweetArenaBenchmark {
+
+    public static void main(String[] args) {
+        final int size = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        
+        final long baseline = usedHeap();
+        final List<Tweet> tweets = TweetGenerator.generate(1, size, size / 10 + 1, 1.5, 10_000);
+        final long listBytes = usedHeap() - baseline;
+        final TweetArena arena = new TweetArena(tweets);
+        final long withArena = usedHeap();
+        
+        Bench.run("Filter.writtenBy(list)", 5, 20, () -> Filter.writtenBy(tweets, "user7"));
+        Bench.run("arena.positionsWrittenBy", 5, 20, () -> arena.positionsWrittenBy("user7"));
+        final List<String> words = Arrays.asList("Rivest", "obama");
+        Bench.run("Filter.containing(list)", 5, 20, () -> Filter.containing(tweets, words));
+        Bench.run("arena.positionsContaining", 5, 20, () -> arena.positionsContaining(words));
+        
+        final long arenaBytes = withArena - baseline - listBytes;
+        System.out.printf("%-50s %,16.1f bytes/tweet%n", "List<Tweet>", (double) listBytes / size);
+        System.out.printf("%-50s %,16.1f bytes/tweet%n", "TweetArena", (double) arenaBytes / size);
+    }
+    
+    private static long usedHeap() {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
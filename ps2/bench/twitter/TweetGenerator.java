@@ -0,0 +1,110 @@
+package twitter;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * TweetGenerator makes reproducible synthetic tweet corpora for benchmarks.
+ */
+public class TweetGenerator {
+
+    private static final String[] WORDS = {
+        "the", "talk", "about", "rivest", "mit", "obama", "java", "lunch",
+        "today", "is", "it", "so", "much", "in", "30", "minutes", "great",
+    };
+    private static final Instant EPOCH = Instant.parse("2016-02-17T00:00:00Z");
+    
+    /**
+     * Generate a corpus with hashtags chosen uniformly.
+     * 
+     * @param seed
+     *            random seed; equal arguments generate equal corpora
+     * @param size
+     *            number of tweets, requires >= 0
+     * @param authors
+     *            number of distinct authors, requires > 0
+     * @param mentionsPerTweet
+     *            mean number of @-mentions in a tweet, requires >= 0
+     * @param hashtags
+     *            number of distinct hashtags, requires > 0
+     * @return size tweets with ids 0..size-1 spread over one day, written by
+     *         and mentioning users named "user0".."user{authors-1}"
+     */
+    public static List<Tweet> generate(long seed, int size, int authors,
+            double mentionsPerTweet, int hashtags) {
+        return generate(seed, size, authors, mentionsPerTweet, hashtags, 0);
+    }
+    
+    /**
+     * Generate a corpus.
+     * 
+     * @param seed
+     *            random seed; equal arguments generate equal corpora
+     * @param size
+     *            number of tweets, requires >= 0
+     * @param authors
+     *            number of distinct authors, requires > 0
+     * @param mentionsPerTweet
+     *            mean number of @-mentions in a tweet, requires >= 0
+     * @param hashtags
+     *            number of distinct hashtags, requires > 0
+     * @param hashtagSkew
+     *            Zipf exponent of hashtag popularity: hashtag #tag{r} is
+     *            chosen with probability proportional to 1 / (r+1)^skew.
+     *            0 is uniform; about 1 is typical of real hashtags.
+     *            Requires >= 0
+     * @return size tweets with ids 0..size-1 spread over one day, written by
+     *         and mentioning users named "user0".."user{authors-1}"
+     */
+    public static List<Tweet> generate(long seed, int size, int authors,
+            double mentionsPerTweet, int hashtags, double hashtagSkew) {
+        final Random random = new Random(seed);
+        final double[] cumulative = hashtagSkew == 0 ? null : zipfCumulative(hashtags, hashtagSkew);
+        final List<Tweet> tweets = new ArrayList<>(size);
+        final StringBuilder text = new StringBuilder();
+        for (int id = 0; id < size; id++) {
+            text.setLength(0);
+            for (int w = 0; w < 8; w++) {
+                if (random.nextDouble() < mentionsPerTweet / 8) {
+                    text.append("@User").append(random.nextInt(authors));
+                } else if (w == 7) {
+                    text.append("#tag").append(cumulative == null ? random.nextInt(hashtags)
+                            : zipfSample(cumulative, random.nextDouble()));
+                } else {
+                    text.append(WORDS[random.nextInt(WORDS.length)]);
+                }
+                text.append(' ');
+            }
+            tweets.add(new Tweet(id, "user" + random.nextInt(authors), text.toString(),
+                    EPOCH.plusMillis(random.nextInt(24 * 60 * 60 * 1000))));
+        }
+        return tweets;
+    }
+    
+    /*
+     * Cumulative Zipf distribution over ranks 0..n-1, normalized to end at 1.
+     */
+    private static double[] zipfCumulative(int n, double skew) {
+        final double[] cumulative = new double[n];
+        double sum = 0;
+        for (int r = 0; r < n; r++) {
+            sum += 1 / Math.pow(r + 1, skew);
+            cumulative[r] = sum;
+        }
+        for (int r = 0; r < n; r++) {
+            cumulative[r] /= sum;
+        }
+        return cumulative;
+    }
+    
+    /*
+     * Rank whose cumulative probability first reaches u, for u in [0, 1).
+     */
+    private static int zipfSample(double[] cumulative, double u) {
+        final int index = Arrays.binarySearch(cumulative, u);
+        return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+    }
+}
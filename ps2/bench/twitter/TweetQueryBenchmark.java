@@ -0,0 +1,56 @@
+package twitter;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares answering many saved searches with chained Filter calls, with one
+ * TweetQuery.run each, and with one shared TweetQuery.runAll scan.
+ * 
+ * Usage: TweetQueryBenchmark [tweets [queries]]
+ */
+public class TweetQueryBenchmark {
+
+    public static void main(String[] args) {
+        final int size = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        final int count = args.length > 1 ? Integer.parseInt(args[1]) : 3_000;
+        final List<Tweet> tweets = TweetGenerator.generate(1, size, 1000, 1.0, 10_000);
+        
+        final Random random = new Random(2);
+        final Instant day = Instant.parse("2016-02-17T00:00:00Z");
+        final List<TweetQuery> queries = new ArrayList<>();
+        final List<String> authors = new ArrayList<>();
+        final List<Timespan> spans = new ArrayList<>();
+        final List<List<String>> words = new ArrayList<>();
+        for (int q = 0; q < count; q++) {
+            final String author = "user" + random.nextInt(1000);
+            final Instant start = day.plusSeconds(random.nextInt(86_400));
+            final Timespan span = new Timespan(start, start.plusSeconds(3600));
+            final List<String> hashtags = Arrays.asList("#tag" + random.nextInt(10_000), "#tag" + random.nextInt(10_000));
+            authors.add(author);
+            spans.add(span);
+            words.add(hashtags);
+            queries.add(TweetQuery.by(author).in(span).containing(hashtags));
+        }
+        
+        Bench.run("Filter chain x " + count, 0, 1, () -> {
+            final List<List<Tweet>> results = new ArrayList<>();
+            for (int q = 0; q < count; q++) {
+                results.add(Filter.containing(Filter.inTimespan(Filter.writtenBy(tweets, authors.get(q)),
+                        spans.get(q)), words.get(q)));
+            }
+            return results;
+        });
+        Bench.run("TweetQuery.run x " + count, 0, 1, () -> {
+            final List<List<Tweet>> results = new ArrayList<>();
+            for (TweetQuery query : queries) {
+                results.add(query.run(tweets));
+            }
+            return results;
+        });
+        Bench.run("TweetQuery.runAll, " + count + " queries", 1, 3, () -> TweetQuery.runAll(queries, tweets));
+    }
+}
@@ -0,0 +1,350 @@
+package twitter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * ApproximateSocialNetwork guesses social networks, as defined by
+ * SocialNetwork, from corpora too large for SocialNetwork.guessFollowsGraph,
+ * trading exactness for memory and time that grow linearly with the corpus.
+ *
+ * Mentions are followed exactly. The shared-hashtags evidence is sampled:
+ * each author's hashtag set is summarized by a bottom-k MinHash signature,
+ * the signatureSize smallest 64-bit hashes of its hashtags, and authors are
+ * bucketed (locality-sensitive hashing) by every pair of entries of their
+ * signatures. Two authors in the same bucket share both hashtags of its
+ * pair, so every edge found is an edge of the exact graph (barring 64-bit
+ * hash collisions); an edge is missed only if no two of the shared hashtags
+ * are among both authors' signatures, which cannot happen to authors with
+ * at most signatureSize hashtags. Buckets of more than maxBucketSize
+ * authors are skipped, the way SocialNetwork.guessFollowsGraph(tweets,
+ * maxHashtagUsers) ignores popular hashtags, so authors who share only a
+ * popular pair of hashtags do not cost time quadratic in their number.
+ *
+ * On ApproximateFollowsGraphBenchmark's corpus of 50,000 tweets by 2,501
+ * authors, with about 19 hashtags each, where the exact graph takes 245 ms:
+ * <pre>
+ *   signatureSize  bands     time  precision  recall
+ *               4      1   100 ms      1.000   0.241
+ *               8      1    70 ms      1.000   0.308
+ *              16      1    80 ms      1.000   0.618
+ *              24      1   105 ms      1.000   0.948
+ *              32      1   112 ms      1.000   0.999
+ *              32      8   245 ms      1.000   0.999
+ *              64      1   110 ms      1.000   1.000
+ * </pre>
+ */
+public class ApproximateSocialNetwork {
+
+    /**
+     * Default number of MinHash entries per author.
+     */
+    public static final int DEFAULT_SIGNATURE_SIZE = 32;
+
+    /**
+     * Default number of LSH bands, each holding a share of the buckets.
+     */
+    public static final int DEFAULT_BANDS = 1;
+
+    /**
+     * Default largest LSH bucket whose authors are made to follow each other.
+     */
+    public static final int DEFAULT_MAX_BUCKET_SIZE = 1000;
+
+    /**
+     * Guess who might follow whom, with the default signature size, bands and
+     * bucket size.
+     *
+     * @param tweets
+     *            a list of tweets providing the evidence, not modified by this
+     *            method.
+     * @return guessFollowsGraph(tweets, DEFAULT_SIGNATURE_SIZE,
+     *         DEFAULT_BANDS, DEFAULT_MAX_BUCKET_SIZE)
+     */
+    public static Map<String, Set<String>> guessFollowsGraph(List<Tweet> tweets) {
+        return guessFollowsGraph(tweets, DEFAULT_SIGNATURE_SIZE, DEFAULT_BANDS);
+    }
+
+    /**
+     * Guess who might follow whom, with the default bucket size.
+     *
+     * @param tweets
+     *            a list of tweets providing the evidence, not modified by this
+     *            method.
+     * @param signatureSize
+     *            number of MinHash entries per author, requires > 0
+     * @param bands
+     *            number of LSH bands, requires > 0
+     * @return guessFollowsGraph(tweets, signatureSize, bands,
+     *         DEFAULT_MAX_BUCKET_SIZE)
+     * @throws IllegalArgumentException
+     *             if signatureSize or bands is out of range
+     */
+    public static Map<String, Set<String>> guessFollowsGraph(List<Tweet> tweets, int signatureSize,
+            int bands) {
+        return guessFollowsGraph(tweets, signatureSize, bands, DEFAULT_MAX_BUCKET_SIZE);
+    }
+
+    /**
+     * Guess who might follow whom, approximating SocialNetwork's evidence.
+     *
+     * Larger signatures find more of the authors who share two hashtags
+     * (higher recall): all of them among authors with at most signatureSize
+     * hashtags. Each author costs time and bucket entries quadratic in
+     * min(signatureSize, its number of hashtags). Bands split the buckets
+     * by the smaller hashtag of their pair into that many passes over the
+     * signatures, so only a share of them is in memory at a time; they do
+     * not change the result.
+     *
+     * Buckets take time quadratic in their size, so buckets of more than
+     * maxBucketSize authors are skipped: their authors share a popular pair
+     * of hashtags, which, like the hashtags
+     * SocialNetwork.guessFollowsGraph(tweets, maxHashtagUsers) ignores, says
+     * little about any two of them.
+     *
+     * @param tweets
+     *            a list of tweets providing the evidence, not modified by this
+     *            method.
+     * @param signatureSize
+     *            number of MinHash entries per author, requires > 0
+     * @param bands
+     *            number of LSH bands, requires > 0
+     * @param maxBucketSize
+     *            largest bucket whose authors follow each other, requires > 0
+     * @return a social network in which Ernie follows Bert if Ernie
+     *         @-mentioned Bert in a tweet, or if the signatures of Ernie and
+     *         Bert share a pair of hashtags shared by at most maxBucketSize
+     *         authors' signatures. All the authors of tweets are keys. Every
+     *         mention edge of SocialNetwork.guessFollowsGraph(tweets) is
+     *         present, and every other edge is an edge of it; its edges
+     *         between authors with at most signatureSize hashtags are all
+     *         present unless skipped for their bucket sizes.
+     * @throws IllegalArgumentException
+     *             if signatureSize, bands or maxBucketSize is out of range
+     */
+    public static Map<String, Set<String>> guessFollowsGraph(List<Tweet> tweets, int signatureSize,
+            int bands, int maxBucketSize) {
+        if (signatureSize <= 0 || bands <= 0) {
+            throw new IllegalArgumentException("requires signatureSize > 0 and bands > 0");
+        }
+        if (maxBucketSize <= 0) {
+            throw new IllegalArgumentException("requires maxBucketSize > 0");
+        }
+        final Map<String, Set<String>> followsGraph = new HashMap<>();
+        final Map<String, Integer> authorIds = new HashMap<>();
+        final List<String> authors = new ArrayList<>();
+        long[] signatures = new long[16 * signatureSize];
+        final List<String> hashtags = new ArrayList<>();
+        for (Tweet tweet : tweets) {
+            final String author = tweet.getAuthor().toLowerCase();
+            Integer id = authorIds.get(author);
+            if (id == null) {
+                id = authors.size();
+                authors.add(author);
+                authorIds.put(author, id);
+                followsGraph.put(author, new HashSet<>());
+                if ((id + 1) * signatureSize > signatures.length) {
+                    signatures = Arrays.copyOf(signatures, signatures.length * 2);
+                }
+                Arrays.fill(signatures, id * signatureSize, (id + 1) * signatureSize, EMPTY);
+            }
+            final Set<String> follows = followsGraph.get(author);
+            TweetScanner.addMentions(tweet.getText(), follows);
+            follows.remove(author);
+
+            TweetScanner.addHashtags(tweet.getText(), hashtags);
+            for (String hashtag : hashtags) {
+                addToSignature(signatures, id * signatureSize, signatureSize, HyperLogLog.hash64(hashtag));
+            }
+            hashtags.clear();
+        }
+
+        for (int band = 0; band < bands; band++) {
+            final Buckets buckets = new Buckets();
+            for (int user = 0; user < authors.size(); user++) {
+                final int start = user * signatureSize;
+                for (int i = start; i < start + signatureSize && signatures[i] != EMPTY; i++) {
+                    if (Math.floorMod(signatures[i], bands) != band) {
+                        continue;
+                    }
+                    for (int j = i + 1; j < start + signatureSize && signatures[j] != EMPTY; j++) {
+                        buckets.add(pairHash(signatures[i], signatures[j]), user);
+                    }
+                }
+            }
+            final int[] bucket = new int[Math.min(maxBucketSize, authors.size())];
+            for (int slot = 0; slot < buckets.heads.length; slot++) {
+                final int size = buckets.sizes[slot];
+                if (size < 2 || size > maxBucketSize) {
+                    continue; // nobody to follow, or a popular pair of hashtags
+                }
+                int k = 0;
+                for (int entry = buckets.heads[slot]; entry >= 0; entry = buckets.next[entry]) {
+                    bucket[k++] = buckets.users[entry];
+                }
+                for (int i = 0; i < size; i++) {
+                    final Set<String> follows = followsGraph.get(authors.get(bucket[i]));
+                    for (int j = 0; j < size; j++) {
+                        if (j != i) {
+                            follows.add(authors.get(bucket[j]));
+                        }
+                    }
+                }
+            }
+        }
+        return followsGraph;
+    }
+
+    /*
+     * The LSH buckets of one band: a hash table from bucket keys to lists of
+     * users, in arrays rather than boxed maps and lists, since there is an
+     * entry for every pair of entries of every signature.
+     */
+    private static class Buckets {
+        private long[] keys = new long[1024];
+        private int[] heads = new int[1024];
+        private int[] sizes = new int[1024];
+        private int bucketCount;
+        private int[] users = new int[1024];
+        private int[] next = new int[1024];
+        private int entryCount;
+        /*
+         * Rep invariant:
+         *    keys, heads and sizes have equal lengths, a power of two
+         *      > 2 * bucketCount
+         *    slot i holds a bucket iff sizes[i] > 0; bucketCount such slots,
+         *      with distinct keys, each reached by probing forward from the
+         *      slot of its key without passing an empty slot
+         *    heads[i] starts a list of sizes[i] entries linked by next and
+         *      ending at -1; users and next have equal lengths >= entryCount,
+         *      and every entry below entryCount is in exactly one list
+         *
+         * Abstraction function:
+         *    maps keys[i] to the users in the list at heads[i], for each
+         *      slot i with sizes[i] > 0
+         *
+         * Safety from rep exposure:
+         *    the class is private to ApproximateSocialNetwork, which only
+         *    reads the arrays after adding
+         */
+
+        /*
+         * Add user to the bucket of key, creating the bucket if absent.
+         */
+        void add(long key, int user) {
+            int slot = find(keys, sizes, key);
+            if (sizes[slot] == 0) {
+                if (2 * (bucketCount + 1) >= keys.length) {
+                    grow();
+                    slot = find(keys, sizes, key);
+                }
+                keys[slot] = key;
+                heads[slot] = -1;
+                bucketCount++;
+            }
+            if (entryCount == users.length) {
+                users = Arrays.copyOf(users, 2 * entryCount);
+                next = Arrays.copyOf(next, 2 * entryCount);
+            }
+            users[entryCount] = user;
+            next[entryCount] = heads[slot];
+            heads[slot] = entryCount++;
+            sizes[slot]++;
+        }
+
+        private void grow() {
+            final long[] oldKeys = keys;
+            final int[] oldHeads = heads;
+            final int[] oldSizes = sizes;
+            keys = new long[2 * oldKeys.length];
+            heads = new int[keys.length];
+            sizes = new int[keys.length];
+            for (int old = 0; old < oldKeys.length; old++) {
+                if (oldSizes[old] > 0) {
+                    final int slot = find(keys, sizes, oldKeys[old]);
+                    keys[slot] = oldKeys[old];
+                    heads[slot] = oldHeads[old];
+                    sizes[slot] = oldSizes[old];
+                }
+            }
+        }
+
+        // slot holding key, or the empty slot where it belongs; keys are
+        // well-mixed hashes, so their low bits index the table directly
+        private static int find(long[] keys, int[] sizes, long key) {
+            final int mask = keys.length - 1;
+            int slot = (int) key & mask;
+            while (sizes[slot] > 0 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+    }
+
+    /*
+     * Signature entry past the end of an author's hashtags. Hashes are
+     * 64-bit, so a real one equals it with negligible probability.
+     */
+    private static final long EMPTY = Long.MAX_VALUE;
+
+    /*
+     * Add one hashtag's hash to the signature at signatures[start..start+size),
+     * which holds the smallest distinct hashes added so far in increasing
+     * order, followed by EMPTY entries.
+     */
+    private static void addToSignature(long[] signatures, int start, int size, long hash) {
+        final int end = start + size;
+        if (hash >= signatures[end - 1]) {
+            return; // not among the smallest, or EMPTY itself
+        }
+        int i = end - 1;
+        while (i > start && signatures[i - 1] > hash) {
+            i--;
+        }
+        if (i > start && signatures[i - 1] == hash) {
+            return; // already present
+        }
+        System.arraycopy(signatures, i, signatures, i + 1, end - 1 - i);
+        signatures[i] = hash;
+    }
+
+    /*
+     * Bucket key of an ordered pair of hashtag hashes.
+     */
+    private static long pairHash(long smaller, long larger) {
+        long h = smaller * 0x9e3779b97f4a7c15L + larger;
+        h ^= h >>> 32;
+        h *= 0xd6e8feb86659fd93L;
+        h ^= h >>> 32;
+        return h;
+    }
+
+    /**
+     * Estimate the number of distinct users mentioned in a list of tweets,
+     * in memory that does not grow with the number of users.
+     *
+     * @param tweets
+     *            a list of tweets, not modified by this method
+     * @param precision
+     *            HyperLogLog precision, requires 4 <= precision <= 18; the
+     *            relative standard error is about 1.04 / sqrt(2^precision)
+     * @return an estimate of Extract.getMentionedUsers(tweets).size()
+     */
+    public static long countMentionedUsers(List<Tweet> tweets, int precision) {
+        final HyperLogLog mentioned = new HyperLogLog(precision);
+        final List<String> found = new ArrayList<>();
+        for (Tweet tweet : tweets) {
+            TweetScanner.addMentions(tweet.getText(), found);
+            for (String user : found) {
+                mentioned.add(user);
+            }
+            found.clear();
+        }
+        return mentioned.estimate();
+    }
+}
@@ -0,0 +1,352 @@
+package twitter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * CompactFollowsGraph is an immutable social network, as defined by
+ * SocialNetwork, stored in compressed sparse row (CSR) form: usernames are
+ * interned to int ids, and each user's follows set is a slice of one shared
+ * int array.
+ *
+ * User ids are assigned in increasing alphabetical (String.compareTo) order
+ * of username, so comparing two ids compares the usernames.
+ */
+public class CompactFollowsGraph {
+
+    private final String[] names;
+    private final BitSet keys;
+    private final int[] offsets;
+    private final int[] targets;
+    /*
+     * Rep invariant:
+     *    names is strictly increasing by String.compareTo
+     *    offsets.length = names.length + 1, offsets[0] = 0,
+     *      offsets is nondecreasing, offsets[names.length] = targets.length
+     *    for each user u, targets[offsets[u]..offsets[u+1]) is strictly
+     *      increasing, lies in 0..names.length-1, and excludes u
+     *    keys only has bits in 0..names.length-1
+     *    every user either is in keys or is followed by some user
+     *
+     * Abstraction function:
+     *    represents the social network that maps names[u], for each u in
+     *      keys, to { names[v] | v in targets[offsets[u]..offsets[u+1]) }
+     *
+     * Safety from rep exposure:
+     *    all fields are private and final; no array is returned or kept from
+     *    a caller, and Strings are immutable.
+     */
+
+    private CompactFollowsGraph(String[] names, BitSet keys, int[] offsets, int[] targets) {
+        this.names = names;
+        this.keys = keys;
+        this.offsets = offsets;
+        this.targets = targets;
+        checkRep();
+    }
+
+    private void checkRep() {
+        assert offsets.length == names.length + 1;
+        assert offsets[0] == 0 && offsets[names.length] == targets.length;
+        assert keys.length() <= names.length;
+    }
+
+    /**
+     * Make a compact copy of a social network.
+     *
+     * @param followsGraph
+     *            a social network as defined by SocialNetwork, not modified
+     *            by this method; users must not follow themselves
+     * @return a graph representing the same social network, with the same
+     *         keys
+     */
+    public static CompactFollowsGraph fromMap(Map<String, Set<String>> followsGraph) {
+        final Set<String> users = new HashSet<>(followsGraph.keySet());
+        int edges = 0;
+        for (Set<String> follows : followsGraph.values()) {
+            users.addAll(follows);
+            edges += follows.size();
+        }
+        final String[] names = users.toArray(new String[0]);
+        Arrays.sort(names);
+
+        final BitSet keys = new BitSet(names.length);
+        final int[] offsets = new int[names.length + 1];
+        final int[] targets = new int[edges];
+        for (Map.Entry<String, Set<String>> entry : followsGraph.entrySet()) {
+            final int user = Arrays.binarySearch(names, entry.getKey());
+            keys.set(user);
+            offsets[user + 1] = entry.getValue().size();
+        }
+        for (int user = 0; user < names.length; user++) {
+            offsets[user + 1] += offsets[user];
+        }
+        for (Map.Entry<String, Set<String>> entry : followsGraph.entrySet()) {
+            final int user = Arrays.binarySearch(names, entry.getKey());
+            int next = offsets[user];
+            for (String followed : entry.getValue()) {
+                targets[next++] = Arrays.binarySearch(names, followed);
+            }
+            Arrays.sort(targets, offsets[user], next);
+        }
+        return new CompactFollowsGraph(names, keys, offsets, targets);
+    }
+
+    /*
+     * Make a graph from its rep, which must satisfy the rep invariant; takes
+     * ownership of the arguments.
+     */
+    static CompactFollowsGraph fromCsr(String[] names, BitSet keys, int[] offsets, int[] targets) {
+        return new CompactFollowsGraph(names, keys, offsets, targets);
+    }
+
+    /**
+     * @return a new, mutable social network as defined by SocialNetwork,
+     *         equal to the one this graph was made from
+     */
+    public Map<String, Set<String>> toMap() {
+        final Map<String, Set<String>> followsGraph = new HashMap<>(keys.cardinality() * 4 / 3 + 1);
+        for (int user = keys.nextSetBit(0); user >= 0; user = keys.nextSetBit(user + 1)) {
+            final Set<String> follows = new HashSet<>((offsets[user + 1] - offsets[user]) * 4 / 3 + 1);
+            for (int k = offsets[user]; k < offsets[user + 1]; k++) {
+                follows.add(names[targets[k]]);
+            }
+            followsGraph.put(names[user], follows);
+        }
+        return followsGraph;
+    }
+
+    /**
+     * @return number of distinct users in this graph, whether following or
+     *         followed
+     */
+    public int userCount() {
+        return names.length;
+    }
+
+    /**
+     * @return number of (follower, followed) pairs in this graph
+     */
+    public int edgeCount() {
+        return targets.length;
+    }
+
+    /**
+     * @param username
+     *            a username
+     * @return the id of username in this graph, in 0..userCount()-1, or a
+     *         negative number if username is not in this graph
+     */
+    public int id(String username) {
+        final int id = Arrays.binarySearch(names, username);
+        return id >= 0 ? id : -1;
+    }
+
+    /**
+     * @param id
+     *            a user id, requires 0 <= id < userCount()
+     * @return the username with that id
+     */
+    public String name(int id) {
+        return names[id];
+    }
+
+    /*
+     * True iff the user with this id is a key of the social network.
+     */
+    boolean isKey(int id) {
+        return keys.get(id);
+    }
+
+    /*
+     * Increasing ids of the users that the user with this id follows, in a
+     * new array.
+     */
+    int[] follows(int id) {
+        return Arrays.copyOfRange(targets, offsets[id], offsets[id + 1]);
+    }
+
+    /**
+     * @return for each user id, the number of users who follow that user
+     */
+    public int[] followerCounts() {
+        final int[] counts = new int[names.length];
+        for (int target : targets) {
+            counts[target]++;
+        }
+        return counts;
+    }
+
+    /*
+     * For each user id, the number of users that user follows.
+     */
+    int[] followsCounts() {
+        final int[] counts = new int[names.length];
+        for (int user = 0; user < names.length; user++) {
+            counts[user] = offsets[user + 1] - offsets[user];
+        }
+        return counts;
+    }
+
+    /*
+     * The graph with every edge reversed, in CSR form: returns { offsets,
+     * sources } where sources[offsets[v]..offsets[v+1]) are the increasing
+     * ids of the users who follow v. Both arrays are new.
+     */
+    int[][] followersCsr() {
+        final int[] reverseOffsets = new int[names.length + 1];
+        for (int target : targets) {
+            reverseOffsets[target + 1]++;
+        }
+        for (int user = 0; user < names.length; user++) {
+            reverseOffsets[user + 1] += reverseOffsets[user];
+        }
+        final int[] next = Arrays.copyOf(reverseOffsets, names.length);
+        final int[] sources = new int[targets.length];
+        // visiting followers in increasing id order keeps each slice sorted
+        for (int user = 0; user < names.length; user++) {
+            for (int k = offsets[user]; k < offsets[user + 1]; k++) {
+                sources[next[targets[k]]++] = user;
+            }
+        }
+        return new int[][] { reverseOffsets, sources };
+    }
+
+    /**
+     * Find the people in this graph who have the greatest influence, in the
+     * sense that they have the most followers.
+     *
+     * @return a list of all distinct usernames in this graph, in descending
+     *         order of follower count, and alphabetically among users with
+     *         equal counts, as SocialNetwork.influencers orders them
+     */
+    public List<String> influencers() {
+        final int[] counts = followerCounts();
+        int maxCount = 0;
+        for (int count : counts) {
+            maxCount = Math.max(maxCount, count);
+        }
+        // counting sort by descending count; ids ascend within each count
+        final int[] start = new int[maxCount + 2];
+        for (int count : counts) {
+            start[maxCount - count + 1]++;
+        }
+        for (int k = 1; k < start.length; k++) {
+            start[k] += start[k - 1];
+        }
+        final String[] ranked = new String[names.length];
+        for (int user = 0; user < names.length; user++) {
+            ranked[start[maxCount - counts[user]]++] = names[user];
+        }
+        return new ArrayList<>(Arrays.asList(ranked));
+    }
+
+    /**
+     * Find the k people in this graph who have the greatest influence, in
+     * O(E + V log k) time.
+     *
+     * @param k
+     *            number of users wanted, requires k >= 0
+     * @return the first min(k, userCount()) usernames of influencers()
+     */
+    public List<String> influencers(int k) {
+        // ids are in alphabetical order, which breaks ties between equal counts
+        final int[] top = top(followerCounts(), null, k);
+        final List<String> ranked = new ArrayList<>(top.length);
+        for (int user : top) {
+            ranked.add(names[user]);
+        }
+        return ranked;
+    }
+
+    /*
+     * Find the k users with the most followers, in O(n log k) time and O(k)
+     * space, with a bounded min-heap.
+     *
+     * @param counts follower count of each user 0..n-1
+     * @param names username of each user 0..n-1, or null if user ids are in
+     *              alphabetical order of username
+     * @param k number of users wanted, requires >= 0
+     * @return the first min(k, n) users in descending order of count, and
+     *         alphabetically among users with equal counts
+     */
+    static int[] top(int[] counts, String[] names, int k) {
+        // min-heap of the best k users seen so far, worst user at the root
+        final int[] heap = new int[Math.min(k, counts.length)];
+        int size = 0;
+        for (int user = 0; user < counts.length; user++) {
+            if (size < heap.length) {
+                heap[size] = user;
+                siftUp(heap, size++, counts, names);
+            } else if (size > 0 && ranksBefore(user, heap[0], counts, names)) {
+                heap[0] = user;
+                siftDown(heap, 0, size, counts, names);
+            }
+        }
+        // pop worst-first into the back of the result
+        final int[] ranked = new int[size];
+        while (size > 0) {
+            ranked[size - 1] = heap[0];
+            heap[0] = heap[--size];
+            siftDown(heap, 0, size, counts, names);
+        }
+        return ranked;
+    }
+
+    /*
+     * True iff user a comes before user b in influencers(): more followers,
+     * or as many followers and alphabetically earlier.
+     */
+    private static boolean ranksBefore(int a, int b, int[] counts, String[] names) {
+        return counts[a] > counts[b] || (counts[a] == counts[b]
+                && (names == null ? a < b : names[a].compareTo(names[b]) < 0));
+    }
+
+    private static void siftUp(int[] heap, int index, int[] counts, String[] names) {
+        final int user = heap[index];
+        while (index > 0) {
+            final int parent = (index - 1) >>> 1;
+            if (!ranksBefore(heap[parent], user, counts, names)) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = user;
+    }
+
+    private static void siftDown(int[] heap, int index, int size, int[] counts, String[] names) {
+        if (index >= size) {
+            return;
+        }
+        final int user = heap[index];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && ranksBefore(heap[child], heap[child + 1], counts, names)) {
+                child++;
+            }
+            if (!ranksBefore(user, heap[child], counts, names)) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = user;
+    }
+
+    /*
+     * @see Object.toString()
+     */
+    @Override public String toString() {
+        return "CompactFollowsGraph(" + names.length + " users, " + targets.length + " edges)";
+    }
+}
@@ -4,8 +4,6 @@ import java.time.Instant;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Extract consists of methods that extract information from a list of tweets.
@@ -61,47 +59,12 @@ public class Extract {
      *         include a username at most once.
      */
     public static Set<String> getMentionedUsers(List<Tweet> tweets) {
-    	 Set<String> mentionedUsers = new HashSet<>();
-         Pattern pattern = Pattern.compile("@([a-zA-Z0-9_-]+)");
-         
-         for (Tweet tweet : tweets) {
-             String text = tweet.getText();
-             Matcher matcher = pattern.matcher(text);
-             
-             while (matcher.find()) {
-                 String username = matcher.group(1).toLowerCase();
-                 if (isValidMention(matcher, text)) {
-                     mentionedUsers.add(username);
-                 }
-             }
-         }
-         
-         return mentionedUsers;
-    }
-    
-    private static boolean isValidMention(Matcher matcher, String text) {
-        int start = matcher.start();
-        int end = matcher.end();
-        
-        // Check character before @
-        if (start > 0) {
-            char before = text.charAt(start - 1);
-            if (Character.isLetterOrDigit(before) || before == '-' || before == '_') {
-                return false;
-            }
-        }
-        
-        // Check character after username
-        if (end < text.length()) {
-            char after = text.charAt(end);
-            if (Character.isLetterOrDigit(after) || after == '-' || after == '_') {
-                return false;
-            }
+        Set<String> mentionedUsers = new HashSet<>();
+        for (Tweet tweet : tweets) {
+            TweetScanner.addMentions(tweet.getText(), mentionedUsers);
         }
-        
-        return true;
+        return mentionedUsers;
     }
-    
 
     /* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
      * Redistribution of original or derived work requires explicit permission.
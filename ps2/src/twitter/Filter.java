@@ -63,16 +63,7 @@ public class Filter {
      *         same order as in the input list.
      */
     public static List<Tweet> containing(List<Tweet> tweets, List<String> words) {
-    	List<String> lowerWords = words.stream()
-                .map(String::toLowerCase)
-                .collect(Collectors.toList());
-                
-            return tweets.stream()
-                .filter(tweet -> {
-                    String text = tweet.getText().toLowerCase();
-                    return lowerWords.stream().anyMatch(text::contains);
-                })
-                .collect(Collectors.toList());
+        return new KeywordFilter(words).filter(tweets);
     }
 
     /* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
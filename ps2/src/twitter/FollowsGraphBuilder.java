@@ -0,0 +1,275 @@
+package twitter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * FollowsGraphBuilder is a mutable social network, as defined by
+ * SocialNetwork, that is guessed from a growing stream of tweets. Each tweet
+ * added updates the graph and the influencer ranking in time proportional to
+ * the evidence in that tweet, instead of rebuilding from every tweet so far.
+ *
+ * After any sequence of additions, the graph equals
+ * SocialNetwork.guessFollowsGraph(tweets, maxHashtagUsers) on all the tweets
+ * added so far, in any order.
+ */
+public class FollowsGraphBuilder {
+
+    private final int maxHashtagUsers;
+    private final Map<String, Set<String>> followsGraph = new HashMap<>();
+    private final Map<String, Set<String>> mentions = new HashMap<>();
+    private final Map<String, Set<String>> userHashtags = new HashMap<>();
+    private final Map<String, Set<String>> hashtagUsers = new HashMap<>();
+    private final Map<String, Map<String, Integer>> sharedHashtags = new HashMap<>();
+    private final Map<String, int[]> followerCounts = new HashMap<>();
+    private final TreeSet<String> ranking = new TreeSet<>(this::compareInfluence);
+    /*
+     * Rep invariant:
+     *    maxHashtagUsers > 0
+     *    followsGraph, mentions, userHashtags have the same keys: the
+     *      lowercased authors of the tweets added so far
+     *    mentions[a] is the set of users a @-mentioned, excluding a
+     *    userHashtags[a] is the set of lowercased hashtags a used
+     *    hashtagUsers[h] = { a | h in userHashtags[a] }
+     *    a hashtag h is counted iff hashtagUsers[h].size() <= maxHashtagUsers
+     *    sharedHashtags[a][b], for a < b, is the number of counted hashtags
+     *      a and b both used, and is present iff that number is > 0
+     *    followsGraph[a] = mentions[a] union { b | a and b share >= 2
+     *      counted hashtags }
+     *    followerCounts[u][0] = |{ a | u in followsGraph[a] }|, for every
+     *      user u that is a key of followsGraph or in one of its sets
+     *    ranking holds exactly the keys of followerCounts
+     *
+     * Abstraction function:
+     *    represents the social network followsGraph, guessed from tweets
+     *      whose evidence is summarized by mentions and userHashtags,
+     *      counting only hashtags used by at most maxHashtagUsers authors
+     *
+     * Safety from rep exposure:
+     *    all fields are private; followsGraph() returns a deep copy, and
+     *    follows() and influencers() return unmodifiable or fresh objects.
+     */
+
+    /**
+     * Make a builder with no tweets, that counts every hashtag as evidence.
+     */
+    public FollowsGraphBuilder() {
+        this(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Make a builder with no tweets.
+     *
+     * @param maxHashtagUsers
+     *            hashtags used by more than this many authors are not counted
+     *            as evidence, as in SocialNetwork.guessFollowsGraph(tweets,
+     *            maxHashtagUsers); requires > 0
+     */
+    public FollowsGraphBuilder(int maxHashtagUsers) {
+        if (maxHashtagUsers <= 0) {
+            throw new IllegalArgumentException("requires maxHashtagUsers > 0");
+        }
+        this.maxHashtagUsers = maxHashtagUsers;
+        checkRep();
+    }
+
+    private void checkRep() {
+        assert maxHashtagUsers > 0;
+        assert followsGraph.size() == mentions.size();
+        assert followsGraph.size() == userHashtags.size();
+        assert ranking.size() == followerCounts.size();
+    }
+
+    /**
+     * Add the evidence in one tweet.
+     *
+     * @param tweet
+     *            a tweet whose id differs from every tweet added so far
+     */
+    public void add(Tweet tweet) {
+        final String author = tweet.getAuthor().toLowerCase();
+        if (!followsGraph.containsKey(author)) {
+            followsGraph.put(author, new HashSet<>());
+            mentions.put(author, new HashSet<>());
+            userHashtags.put(author, new HashSet<>());
+            addUser(author);
+        }
+
+        final List<String> found = new ArrayList<>();
+        TweetScanner.addMentions(tweet.getText(), found);
+        final Set<String> mentioned = mentions.get(author);
+        for (String user : found) {
+            if (!user.equals(author) && mentioned.add(user)) {
+                addEdge(author, user);
+            }
+        }
+
+        found.clear();
+        TweetScanner.addHashtags(tweet.getText(), found);
+        final Set<String> used = userHashtags.get(author);
+        for (String hashtag : found) {
+            if (used.add(hashtag)) {
+                addHashtagUser(hashtag, author);
+            }
+        }
+        checkRep();
+    }
+
+    /**
+     * Add the evidence in several tweets.
+     *
+     * @param tweets
+     *            tweets with distinct ids that differ from every tweet added
+     *            so far, not modified by this method
+     */
+    public void addAll(List<Tweet> tweets) {
+        for (Tweet tweet : tweets) {
+            add(tweet);
+        }
+    }
+
+    /**
+     * @return a new, mutable social network equal to
+     *         SocialNetwork.guessFollowsGraph(tweets, maxHashtagUsers), where
+     *         tweets are all the tweets added so far
+     */
+    public Map<String, Set<String>> followsGraph() {
+        final Map<String, Set<String>> copy = new HashMap<>();
+        for (Map.Entry<String, Set<String>> entry : followsGraph.entrySet()) {
+            copy.put(entry.getKey(), new HashSet<>(entry.getValue()));
+        }
+        return copy;
+    }
+
+    /**
+     * @param username
+     *            a Twitter username
+     * @return unmodifiable view of the set of users that username follows in
+     *         followsGraph(), empty if username is not a key of it
+     */
+    public Set<String> follows(String username) {
+        final Set<String> follows = followsGraph.get(username.toLowerCase());
+        return follows == null ? Collections.emptySet() : Collections.unmodifiableSet(follows);
+    }
+
+    /**
+     * @return SocialNetwork.influencers(followsGraph()), kept up to date as
+     *         tweets are added rather than recomputed
+     */
+    public List<String> influencers() {
+        return new ArrayList<>(ranking);
+    }
+
+    /**
+     * @param k
+     *            number of users wanted, requires k >= 0
+     * @return the first min(k, n) users of influencers(), where n is its
+     *         length, in O(k) time
+     */
+    public List<String> influencers(int k) {
+        final List<String> top = new ArrayList<>(Math.min(k, ranking.size()));
+        final Iterator<String> users = ranking.iterator();
+        while (top.size() < k && users.hasNext()) {
+            top.add(users.next());
+        }
+        return top;
+    }
+
+    /*
+     * Record that user used hashtag for the first time, updating the shared
+     * hashtag counts of every pair of users this affects.
+     */
+    private void addHashtagUser(String hashtag, String user) {
+        final Set<String> users = hashtagUsers.computeIfAbsent(hashtag, h -> new HashSet<>());
+        if (users.size() < maxHashtagUsers) {
+            for (String other : users) {
+                if (changeSharedCount(user, other, +1) == 2) {
+                    addEdge(user, other);
+                    addEdge(other, user);
+                }
+            }
+        } else if (users.size() == maxHashtagUsers) {
+            // hashtag just became too popular to count: retract it
+            final List<String> previous = new ArrayList<>(users);
+            for (int i = 0; i < previous.size(); i++) {
+                for (int j = i + 1; j < previous.size(); j++) {
+                    final String a = previous.get(i);
+                    final String b = previous.get(j);
+                    if (changeSharedCount(a, b, -1) == 1) {
+                        removeHashtagEdge(a, b);
+                        removeHashtagEdge(b, a);
+                    }
+                }
+            }
+        }
+        users.add(user);
+    }
+
+    /*
+     * Add delta to the number of counted hashtags users a and b share, and
+     * return the new number.
+     */
+    private int changeSharedCount(String a, String b, int delta) {
+        final String low = a.compareTo(b) < 0 ? a : b;
+        final String high = low == a ? b : a;
+        final Map<String, Integer> counts = sharedHashtags.computeIfAbsent(low, u -> new HashMap<>());
+        final int count = counts.getOrDefault(high, 0) + delta;
+        if (count == 0) {
+            counts.remove(high);
+            if (counts.isEmpty()) {
+                sharedHashtags.remove(low);
+            }
+        } else {
+            counts.put(high, count);
+        }
+        return count;
+    }
+
+    private void addEdge(String follower, String followed) {
+        if (followsGraph.get(follower).add(followed)) {
+            addUser(followed);
+            changeFollowerCount(followed, +1);
+        }
+    }
+
+    /*
+     * Remove an edge that was evidenced by shared hashtags, unless a mention
+     * also evidences it.
+     */
+    private void removeHashtagEdge(String follower, String followed) {
+        if (!mentions.get(follower).contains(followed)
+                && followsGraph.get(follower).remove(followed)) {
+            changeFollowerCount(followed, -1);
+        }
+    }
+
+    private void addUser(String user) {
+        if (!followerCounts.containsKey(user)) {
+            followerCounts.put(user, new int[1]);
+            ranking.add(user);
+        }
+    }
+
+    private void changeFollowerCount(String user, int delta) {
+        // reposition user in the ranking, which is ordered by this count
+        ranking.remove(user);
+        followerCounts.get(user)[0] += delta;
+        ranking.add(user);
+    }
+
+    /*
+     * Order of users in influencers(): descending follower count, then
+     * alphabetical, as in SocialNetwork.influencers.
+     */
+    private int compareInfluence(String a, String b) {
+        final int byCount = Integer.compare(followerCounts.get(b)[0], followerCounts.get(a)[0]);
+        return byCount != 0 ? byCount : a.compareTo(b);
+    }
+}
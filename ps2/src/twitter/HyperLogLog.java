@@ -0,0 +1,126 @@
+package twitter;
+
+/**
+ * HyperLogLog is a mutable, fixed-size estimate of the number of distinct
+ * strings added to it. With precision p it uses 2^p bytes, and its estimates
+ * have a relative standard error of about 1.04 / sqrt(2^p).
+ *
+ * HyperLogLog is not safe for use by multiple threads.
+ */
+public class HyperLogLog {
+
+    private final int precision;
+    private final byte[] registers;
+    /*
+     * Rep invariant:
+     *    4 <= precision <= 18, registers.length = 2^precision
+     *    0 <= registers[j] <= 65 - precision
+     *
+     * Abstraction function:
+     *    represents a multiset of strings S, summarized by registers: for
+     *      each j, registers[j] is the largest rank (1 + leading zero bits
+     *      after the first precision bits) of hash64(s) over the strings s
+     *      in S whose hash begins with the bits of j, or 0 if none does
+     *
+     * Safety from rep exposure:
+     *    all fields are private and never returned.
+     */
+
+    /**
+     * Make an empty estimate.
+     *
+     * @param precision
+     *            number of index bits, requires 4 <= precision <= 18
+     * @throws IllegalArgumentException
+     *             if precision is out of range
+     */
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 18) {
+            throw new IllegalArgumentException("requires 4 <= precision <= 18");
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+        checkRep();
+    }
+
+    private void checkRep() {
+        assert registers.length == 1 << precision;
+    }
+
+    /**
+     * @param value
+     *            a string to count
+     */
+    public void add(String value) {
+        final long hash = hash64(value);
+        final int register = (int) (hash >>> (64 - precision));
+        final int rank = Math.min(Long.numberOfLeadingZeros(hash << precision), 64 - precision) + 1;
+        if (rank > registers[register]) {
+            registers[register] = (byte) rank;
+        }
+    }
+
+    /**
+     * Add every string counted by another estimate to this one.
+     *
+     * @param other
+     *            an estimate with the same precision as this one
+     * @throws IllegalArgumentException
+     *             if other's precision differs
+     */
+    public void addAll(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("requires equal precisions");
+        }
+        for (int j = 0; j < registers.length; j++) {
+            registers[j] = (byte) Math.max(registers[j], other.registers[j]);
+        }
+    }
+
+    /**
+     * @return estimated number of distinct strings added so far
+     */
+    public long estimate() {
+        final int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        final double alpha = 0.7213 / (1 + 1.079 / m);
+        final double raw = alpha * m * m / sum;
+        if (raw <= 2.5 * m && zeros > 0) {
+            // linear counting is more accurate for small cardinalities
+            return Math.round(m * Math.log((double) m / zeros));
+        }
+        return Math.round(raw);
+    }
+
+    /*
+     * 64-bit hash of a string: FNV-1a over its chars, then the MurmurHash3
+     * finalizer to spread the bits.
+     */
+    static long hash64(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /*
+     * @see Object.toString()
+     */
+    @Override public String toString() {
+        return "HyperLogLog(~" + estimate() + ")";
+    }
+}
@@ -0,0 +1,184 @@
+package twitter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * InfluenceRank scores the users of a social network, as defined by
+ * SocialNetwork, with PageRank: a user is influential if influential users
+ * follow them, so a user followed by many accounts that nobody follows gains
+ * much less than under SocialNetwork.influencers' raw follower counts.
+ *
+ * A user who follows nobody spreads their score evenly over every user.
+ */
+public class InfluenceRank {
+
+    /**
+     * Probability of following an edge rather than jumping to a random user,
+     * as in the original PageRank paper.
+     */
+    public static final double DAMPING = 0.85;
+
+    /**
+     * Default convergence tolerance: iteration stops once the scores change
+     * by less than this in total (L1 norm).
+     */
+    public static final double DEFAULT_TOLERANCE = 1e-9;
+
+    /**
+     * Default cap on the number of iterations.
+     */
+    public static final int DEFAULT_MAX_ITERATIONS = 100;
+
+    /*
+     * Number of chunks each thread's share of the users is split into, as in
+     * SocialNetwork.guessFollowsGraph.
+     */
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    /**
+     * Rank the users of a social network by influence, with the default
+     * tolerance and iteration cap, using every available processor.
+     *
+     * @param followsGraph
+     *            a social network as defined by SocialNetwork
+     * @return a list of all distinct usernames in followsGraph, in descending
+     *         order of influence score, and alphabetically among users with
+     *         equal scores
+     */
+    public static List<String> influencers(Map<String, Set<String>> followsGraph) {
+        return influencers(CompactFollowsGraph.fromMap(followsGraph), DEFAULT_TOLERANCE,
+                DEFAULT_MAX_ITERATIONS, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Rank the users of a graph by influence.
+     *
+     * @param graph
+     *            a social network
+     * @param tolerance
+     *            stop once an iteration changes the scores by less than this
+     *            in total, requires >= 0
+     * @param maxIterations
+     *            stop after this many iterations even if not converged,
+     *            requires > 0
+     * @param parallelism
+     *            number of threads to use, requires > 0
+     * @return a list of all distinct usernames in graph, in descending order
+     *         of scores(graph, tolerance, maxIterations, parallelism), and
+     *         alphabetically among users with equal scores
+     */
+    public static List<String> influencers(CompactFollowsGraph graph, double tolerance, int maxIterations,
+            int parallelism) {
+        final double[] scores = scores(graph, tolerance, maxIterations, parallelism);
+        final Integer[] users = new Integer[scores.length];
+        for (int user = 0; user < users.length; user++) {
+            users[user] = user;
+        }
+        // stable sort, so ids (which are alphabetical) break ties
+        Arrays.sort(users, (a, b) -> Double.compare(scores[b], scores[a]));
+        final List<String> ranked = new ArrayList<>(users.length);
+        for (int user : users) {
+            ranked.add(graph.name(user));
+        }
+        return ranked;
+    }
+
+    /**
+     * Compute the PageRank of every user in a graph by power iteration.
+     *
+     * @param graph
+     *            a social network
+     * @param tolerance
+     *            stop once an iteration changes the scores by less than this
+     *            in total (L1 norm), requires >= 0
+     * @param maxIterations
+     *            stop after this many iterations even if not converged,
+     *            requires > 0
+     * @param parallelism
+     *            number of threads to use, requires > 0
+     * @return for each user id of graph, that user's score; scores are
+     *         positive and sum to 1 (up to rounding)
+     * @throws IllegalArgumentException
+     *             if tolerance, maxIterations or parallelism is out of range
+     */
+    public static double[] scores(CompactFollowsGraph graph, double tolerance, int maxIterations,
+            int parallelism) {
+        if (!(tolerance >= 0) || maxIterations <= 0 || parallelism <= 0) {
+            throw new IllegalArgumentException("requires tolerance >= 0, maxIterations > 0, parallelism > 0");
+        }
+        final ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.submit(() -> iterate(graph, tolerance, maxIterations,
+                    parallelism * CHUNKS_PER_THREAD)).join();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /*
+     * Body of scores(), run inside its ForkJoinPool so that parallel streams
+     * use that pool. Each iteration pulls scores along reversed edges, so
+     * every chunk of users writes only its own slice of next.
+     */
+    private static double[] iterate(CompactFollowsGraph graph, double tolerance, int maxIterations,
+            int chunks) {
+        final int n = graph.userCount();
+        if (n == 0) {
+            return new double[0];
+        }
+        final int[] followsCounts = graph.followsCounts();
+        final int[][] followers = graph.followersCsr();
+        final int[] offsets = followers[0];
+        final int[] sources = followers[1];
+        final int chunkSize = Math.max(1, (n + chunks - 1) / chunks);
+        final int chunkCount = (n + chunkSize - 1) / chunkSize;
+
+        double[] scores = new double[n];
+        double[] next = new double[n];
+        final double[] shares = new double[n];
+        Arrays.fill(scores, 1.0 / n);
+        for (int iteration = 0; iteration < maxIterations; iteration++) {
+            final double[] current = scores;
+            final double[] updated = next;
+            // what each user passes to each user they follow, and the total
+            // held by users who follow nobody
+            final double dangling = IntStream.range(0, chunkCount).parallel().mapToDouble(chunk -> {
+                double sum = 0;
+                for (int u = chunk * chunkSize, end = Math.min(n, u + chunkSize); u < end; u++) {
+                    if (followsCounts[u] == 0) {
+                        shares[u] = 0;
+                        sum += current[u];
+                    } else {
+                        shares[u] = current[u] / followsCounts[u];
+                    }
+                }
+                return sum;
+            }).sum();
+            final double base = (1 - DAMPING) / n + DAMPING * dangling / n;
+            final double change = IntStream.range(0, chunkCount).parallel().mapToDouble(chunk -> {
+                double sum = 0;
+                for (int v = chunk * chunkSize, end = Math.min(n, v + chunkSize); v < end; v++) {
+                    double received = 0;
+                    for (int k = offsets[v]; k < offsets[v + 1]; k++) {
+                        received += shares[sources[k]];
+                    }
+                    updated[v] = base + DAMPING * received;
+                    sum += Math.abs(updated[v] - current[v]);
+                }
+                return sum;
+            }).sum();
+            next = current;
+            scores = updated;
+            if (change < tolerance) {
+                break;
+            }
+        }
+        return scores;
+    }
+}
@@ -0,0 +1,234 @@
+package twitter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.IntPredicate;
+
+/**
+ * KeywordFilter is an immutable, compiled form of a list of words that finds
+ * the tweets containing any of them in one pass over each tweet's text, no
+ * matter how many words there are.
+ *
+ * It is an Aho-Corasick automaton over the case-folded words: a trie of the
+ * words whose failure links let the scan continue after a mismatch without
+ * backing up in the text.
+ */
+public class KeywordFilter {
+
+    private final int[] edgeStart;
+    private final char[] edgeLabels;
+    private final int[] edgeTargets;
+    private final int[] failure;
+    private final int[] wordLength;
+    private final int[] wordIndex;
+    private final int[] outputLink;
+    /*
+     * Rep invariant:
+     *    states are 0..n-1, where n = failure.length, and 0 is the root
+     *    edgeStart.length = n + 1, and the edges out of state s are
+     *      edgeLabels/edgeTargets[edgeStart[s]..edgeStart[s+1]), with
+     *      labels strictly increasing
+     *    every state s != 0 is the target of exactly one edge; its depth is
+     *      the length of the string spelled by the edges from the root
+     *    failure[s] is the state spelling the longest proper suffix of s's
+     *      string that is a state, and failure[0] = 0
+     *    wordLength[s] > 0 iff s's string is one of the words, and then is
+     *      its length, and wordIndex[s] is the index in the constructor's
+     *      list of the last word that folds to s's string
+     *    outputLink[s] is the nearest state t != s on the failure chain from s
+     *      with wordLength[t] > 0, or 0 if there is none
+     *
+     * Abstraction function:
+     *    represents the set of words { string of s | wordLength[s] > 0 },
+     *      compared case-insensitively
+     *
+     * Safety from rep exposure:
+     *    all fields are private, final, and never returned.
+     */
+
+    /**
+     * Compile a list of words.
+     *
+     * @param words
+     *            words to search for. A word is a nonempty sequence of nonspace
+     *            characters, as in Filter.containing; empty words are ignored.
+     */
+    public KeywordFilter(List<String> words) {
+        // build the trie with sorted children, then flatten it into arrays
+        final List<TreeMap<Character, Integer>> children = new ArrayList<>();
+        final List<Integer> lengths = new ArrayList<>();
+        final Map<Integer, Integer> indices = new TreeMap<>();
+        children.add(new TreeMap<>());
+        lengths.add(0);
+        for (int w = 0; w < words.size(); w++) {
+            final String word = words.get(w);
+            if (word.isEmpty()) {
+                continue;
+            }
+            int state = 0;
+            for (int i = 0; i < word.length(); i++) {
+                final char c = fold(word.charAt(i));
+                Integer next = children.get(state).get(c);
+                if (next == null) {
+                    next = children.size();
+                    children.add(new TreeMap<>());
+                    lengths.add(0);
+                    children.get(state).put(c, next);
+                }
+                state = next;
+            }
+            lengths.set(state, word.length());
+            indices.put(state, w);
+        }
+
+        final int states = children.size();
+        this.edgeStart = new int[states + 1];
+        this.edgeLabels = new char[states - 1];
+        this.edgeTargets = new int[states - 1];
+        this.wordLength = new int[states];
+        this.wordIndex = new int[states];
+        int edge = 0;
+        for (int state = 0; state < states; state++) {
+            edgeStart[state] = edge;
+            for (Map.Entry<Character, Integer> child : children.get(state).entrySet()) {
+                edgeLabels[edge] = child.getKey();
+                edgeTargets[edge] = child.getValue();
+                edge++;
+            }
+            wordLength[state] = lengths.get(state);
+            wordIndex[state] = indices.getOrDefault(state, -1);
+        }
+        edgeStart[states] = edge;
+
+        // failure and output links, breadth-first so shallower states are done first
+        this.failure = new int[states];
+        this.outputLink = new int[states];
+        final Deque<Integer> queue = new ArrayDeque<>();
+        for (int e = edgeStart[0]; e < edgeStart[1]; e++) {
+            queue.add(edgeTargets[e]);
+        }
+        while (!queue.isEmpty()) {
+            final int state = queue.remove();
+            for (int e = edgeStart[state]; e < edgeStart[state + 1]; e++) {
+                final int child = edgeTargets[e];
+                int fallback = failure[state];
+                while (fallback != 0 && transition(fallback, edgeLabels[e]) < 0) {
+                    fallback = failure[fallback];
+                }
+                final int target = transition(fallback, edgeLabels[e]);
+                failure[child] = target >= 0 ? target : 0;
+                outputLink[child] = wordLength[failure[child]] > 0 ? failure[child] : outputLink[failure[child]];
+                queue.add(child);
+            }
+        }
+        checkRep();
+    }
+
+    private void checkRep() {
+        assert edgeStart.length == failure.length + 1;
+        assert edgeLabels.length == failure.length - 1;
+        assert failure[0] == 0 && wordLength[0] == 0;
+    }
+
+    /**
+     * Test whether a tweet text contains any of the words.
+     *
+     * @param text
+     *            tweet text
+     * @return true iff text, represented as a sequence of nonempty words
+     *         bounded by space characters and the ends of the string,
+     *         includes at least one of the words, compared case-insensitively
+     */
+    public boolean matches(String text) {
+        return scan(text, word -> true);
+    }
+
+    /*
+     * Report the words that text contains, as in matches(), by calling
+     * onMatch with the index of each in the constructor's list of words
+     * (the last index, for words that differ only in case), in the order the
+     * matches end in text; a word contained twice may be reported twice.
+     * Stops as soon as onMatch returns true.
+     * Returns true iff onMatch returned true.
+     */
+    boolean scan(String text, IntPredicate onMatch) {
+        final int length = text.length();
+        int state = 0;
+        for (int i = 0; i < length; i++) {
+            final char c = fold(text.charAt(i));
+            int next = transition(state, c);
+            while (next < 0 && state != 0) {
+                state = failure[state];
+                next = transition(state, c);
+            }
+            state = next < 0 ? 0 : next;
+            // a word can only end where a text word ends
+            if (i + 1 < length && !Character.isWhitespace(text.charAt(i + 1))) {
+                continue;
+            }
+            for (int match = wordLength[state] > 0 ? state : outputLink[state]; match != 0;
+                    match = outputLink[match]) {
+                final int start = i + 1 - wordLength[match];
+                if ((start == 0 || Character.isWhitespace(text.charAt(start - 1)))
+                        && onMatch.test(wordIndex[match])) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Find tweets that contain any of the words.
+     *
+     * @param tweets
+     *            a list of tweets with distinct ids, not modified by this
+     *            method.
+     * @return all and only the tweets in the list whose text matches(), in
+     *         the same order as in the input list, as specified by
+     *         Filter.containing
+     */
+    public List<Tweet> filter(List<Tweet> tweets) {
+        final List<Tweet> matching = new ArrayList<>();
+        for (Tweet tweet : tweets) {
+            if (matches(tweet.getText())) {
+                matching.add(tweet);
+            }
+        }
+        return matching;
+    }
+
+    /*
+     * Target of the edge labeled c out of state, or -1 if there is none.
+     */
+    private int transition(int state, char c) {
+        final int index = Arrays.binarySearch(edgeLabels, edgeStart[state], edgeStart[state + 1], c);
+        return index >= 0 ? edgeTargets[index] : -1;
+    }
+
+    /*
+     * A word case-folded as the automaton compares it.
+     */
+    static String foldWord(String word) {
+        final char[] folded = new char[word.length()];
+        for (int i = 0; i < folded.length; i++) {
+            folded[i] = fold(word.charAt(i));
+        }
+        return new String(folded);
+    }
+
+    /*
+     * Case folding used for both words and text.
+     */
+    private static char fold(char c) {
+        if (c < 0x80) {
+            return (c >= 'A' && c <= 'Z') ? (char) (c + ('a' - 'A')) : c;
+        }
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+}
@@ -0,0 +1,555 @@
+package twitter;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Snapshot is an immutable pair of a tweet corpus and the follows graph
+ * computed from it, that can be saved to a compact binary file and loaded
+ * back much faster than re-parsing the tweets and re-running
+ * SocialNetwork.guessFollowsGraph.
+ *
+ * File format, all integers big-endian, "varint" meaning an unsigned LEB128
+ * variable-length integer and "zigzag" a signed one mapped to unsigned:
+ *
+ * <pre>
+ * header:  int MAGIC, int VERSION
+ * tweets:  varint n
+ *          varint d, then d authors, each varint length + UTF-8 bytes
+ *          n tweets, each: zigzag (id - previous id),
+ *                          varint author index,
+ *                          zigzag (epoch nanos - previous epoch nanos),
+ *                          varint length + UTF-8 text
+ * graph:   varint u, then u usernames in increasing order, each front-coded
+ *            as varint (length of prefix shared with the previous name) +
+ *            varint length + UTF-8 bytes of the rest
+ *          varint k, then the k key ids, each as varint (id - previous id)
+ *          for each of the u users: varint number followed, then the
+ *            followed ids, each as varint (id - previous id - 1), the
+ *            previous id starting at -1
+ * trailer: int CRC-32 of every byte before the trailer
+ * </pre>
+ *
+ * Loading maps the file into memory a window at a time, as TweetReader
+ * does, and decodes the columns straight from the mapping, without reading
+ * it into an intermediate buffer or parsing any text, so files may be larger
+ * than the 2 GB one mapping can hold.  Saving writes a temporary file next
+ * to the target, forces it to the storage device, and renames it over the
+ * target, so a crash while saving leaves any previous snapshot intact.
+ */
+public class Snapshot {
+
+    /**
+     * First four bytes of a snapshot file: "TWSN" in ASCII.
+     */
+    public static final int MAGIC = 0x5457534e;
+
+    /**
+     * Version of the file format written by write().
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Size of each memory-mapped window of the file.
+     */
+    static final int WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final TweetStore tweets;
+    private final CompactFollowsGraph followsGraph;
+    /*
+     * Rep invariant:
+     *    true
+     *
+     * Abstraction function:
+     *    represents the corpus tweets together with the social network
+     *      followsGraph
+     *
+     * Safety from rep exposure:
+     *    all fields are private and final, and refer to immutable objects.
+     */
+
+    /**
+     * Make a snapshot.
+     *
+     * @param tweets
+     *            a tweet corpus
+     * @param followsGraph
+     *            a social network, usually guessed from tweets
+     */
+    public Snapshot(TweetStore tweets, CompactFollowsGraph followsGraph) {
+        this.tweets = tweets;
+        this.followsGraph = followsGraph;
+    }
+
+    /**
+     * @return the tweet corpus of this snapshot
+     */
+    public TweetStore tweets() {
+        return tweets;
+    }
+
+    /**
+     * @return the follows graph of this snapshot
+     */
+    public CompactFollowsGraph followsGraph() {
+        return followsGraph;
+    }
+
+    /**
+     * Save this snapshot, atomically replacing any existing file: if writing
+     * fails, the file is left as it was.
+     *
+     * @param file
+     *            path of the file to write; its directory must also allow
+     *            creating the file's name followed by ".tmp"
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    public void write(Path file) throws IOException {
+        final Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                final Output out = new Output(channel);
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                writeTweets(out);
+                writeFollowsGraph(out);
+                out.writeTrailer();
+                channel.force(true);
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        forceDirectory(file.toAbsolutePath().getParent());
+    }
+
+    // make a rename in directory durable
+    private static void forceDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // some platforms cannot open directories; the rename is still atomic
+        }
+    }
+
+    private void writeTweets(Output out) throws IOException {
+        final int n = tweets.size();
+        final Map<String, Integer> authorIndex = new HashMap<>();
+        final List<String> authors = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if (authorIndex.putIfAbsent(tweets.getAuthor(i), authors.size()) == null) {
+                authors.add(tweets.getAuthor(i));
+            }
+        }
+        out.writeVarint(n);
+        out.writeVarint(authors.size());
+        for (String author : authors) {
+            out.writeString(author);
+        }
+        long previousId = 0;
+        long previousNanos = 0;
+        for (int i = 0; i < n; i++) {
+            out.writeVarint(zigzag(tweets.getId(i) - previousId));
+            out.writeVarint(authorIndex.get(tweets.getAuthor(i)));
+            out.writeVarint(zigzag(tweets.getEpochNanos(i) - previousNanos));
+            out.writeString(tweets.getText(i));
+            previousId = tweets.getId(i);
+            previousNanos = tweets.getEpochNanos(i);
+        }
+    }
+
+    private void writeFollowsGraph(Output out) throws IOException {
+        final int users = followsGraph.userCount();
+        out.writeVarint(users);
+        byte[] previous = new byte[0];
+        for (int user = 0; user < users; user++) {
+            final byte[] name = followsGraph.name(user).getBytes(StandardCharsets.UTF_8);
+            int shared = 0;
+            while (shared < previous.length && shared < name.length && previous[shared] == name[shared]) {
+                shared++;
+            }
+            out.writeVarint(shared);
+            out.writeVarint(name.length - shared);
+            out.writeBytes(name, shared, name.length - shared);
+            previous = name;
+        }
+        int keys = 0;
+        for (int user = 0; user < users; user++) {
+            keys += followsGraph.isKey(user) ? 1 : 0;
+        }
+        out.writeVarint(keys);
+        int previousKey = 0;
+        for (int user = 0; user < users; user++) {
+            if (followsGraph.isKey(user)) {
+                out.writeVarint(user - previousKey);
+                previousKey = user;
+            }
+        }
+        for (int user = 0; user < users; user++) {
+            final int[] follows = followsGraph.follows(user);
+            out.writeVarint(follows.length);
+            int previousTarget = -1;
+            for (int target : follows) {
+                out.writeVarint(target - previousTarget - 1);
+                previousTarget = target;
+            }
+        }
+    }
+
+    /**
+     * Load a snapshot saved by write().
+     *
+     * @param file
+     *            path of a snapshot file
+     * @return a snapshot equal to the one that was written
+     * @throws IOException
+     *             if the file cannot be read, is not a snapshot file, has a
+     *             different format version, or is corrupt or truncated
+     */
+    public static Snapshot read(Path file) throws IOException {
+        return read(file, WINDOW_SIZE);
+    }
+
+    /*
+     * read(file), mapping windowSize bytes of the file at a time.
+     */
+    static Snapshot read(Path file, int windowSize) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size < 12) {
+                throw new IOException("not a snapshot file: " + file);
+            }
+            final Source in = new Source(channel, size - 4, windowSize);
+            if (in.getInt() != MAGIC) {
+                throw new IOException("not a snapshot file: " + file);
+            }
+            final int version = in.getInt();
+            if (version != VERSION) {
+                throw new IOException("unsupported snapshot version " + version + ": " + file);
+            }
+            if (in.checksum() != channel.map(FileChannel.MapMode.READ_ONLY, size - 4, 4).getInt()) {
+                throw new IOException("snapshot checksum mismatch: " + file);
+            }
+            try {
+                final TweetStore tweets = readTweets(in);
+                final CompactFollowsGraph followsGraph = readFollowsGraph(in);
+                if (in.hasRemaining()) {
+                    throw new IOException("unexpected data at byte " + in.position() + ": " + file);
+                }
+                return new Snapshot(tweets, followsGraph);
+            } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+                throw new IOException("corrupt snapshot: " + file, e);
+            }
+        }
+    }
+
+    private static TweetStore readTweets(Source in) throws IOException {
+        final int n = readLength(in);
+        final String[] dictionary = new String[readLength(in)];
+        final Input strings = new Input();
+        for (int a = 0; a < dictionary.length; a++) {
+            dictionary[a] = strings.readString(in, readLength(in));
+        }
+        final long[] ids = new long[n];
+        final long[] epochNanos = new long[n];
+        final String[] authors = new String[n];
+        final String[] texts = new String[n];
+        long previousId = 0;
+        long previousNanos = 0;
+        for (int i = 0; i < n; i++) {
+            ids[i] = previousId += unzigzag(readVarint(in));
+            authors[i] = dictionary[readLength(in)];
+            epochNanos[i] = previousNanos += unzigzag(readVarint(in));
+            texts[i] = strings.readString(in, readLength(in));
+        }
+        return new TweetStore(ids, epochNanos, authors, texts);
+    }
+
+    private static CompactFollowsGraph readFollowsGraph(Source in) throws IOException {
+        final int users = readLength(in);
+        final String[] names = new String[users];
+        final Input strings = new Input();
+        for (int user = 0; user < users; user++) {
+            names[user] = strings.readFrontCoded(in, readLength(in), readLength(in));
+        }
+        final BitSet keys = new BitSet(users);
+        final int keyCount = readLength(in);
+        int key = 0;
+        for (int k = 0; k < keyCount; k++) {
+            key += readLength(in);
+            if (key >= users) {
+                throw new IOException("bad key id at byte " + in.position());
+            }
+            keys.set(key);
+        }
+        final int[] offsets = new int[users + 1];
+        int[] targets = new int[Math.max(16, users)];
+        int edges = 0;
+        for (int user = 0; user < users; user++) {
+            final int count = readLength(in);
+            if (edges + count > targets.length) {
+                targets = Arrays.copyOf(targets, Math.max(edges + count, targets.length * 2));
+            }
+            int target = -1;
+            for (int k = 0; k < count; k++) {
+                target += readLength(in) + 1;
+                if (target >= users || target < 0) {
+                    throw new IOException("bad user id at byte " + in.position());
+                }
+                targets[edges++] = target;
+            }
+            offsets[user + 1] = edges;
+        }
+        return CompactFollowsGraph.fromCsr(names, keys, offsets, Arrays.copyOf(targets, edges));
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long readVarint(Source in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final byte b = in.get();
+            value |= (long) (b & 0x7f) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("varint too long at byte " + in.position());
+    }
+
+    /*
+     * Read a varint that must be a count or index in 0..Integer.MAX_VALUE.
+     */
+    private static int readLength(Source in) throws IOException {
+        final long value = readVarint(in);
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new IOException("bad length " + value + " at byte " + in.position());
+        }
+        return (int) value;
+    }
+
+    /*
+     * Buffered writer of snapshot data to a channel, keeping a running
+     * CRC-32 of everything written.
+     */
+    private static class Output {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private final CRC32 crc = new CRC32();
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            crc.update(buffer.duplicate());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        void writeInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+        }
+
+        void writeVarint(long value) throws IOException {
+            ensure(10);
+            while ((value & ~0x7fL) != 0) {
+                buffer.put((byte) ((value & 0x7f) | 0x80));
+                value >>>= 7;
+            }
+            buffer.put((byte) value);
+        }
+
+        void writeBytes(byte[] bytes, int offset, int length) throws IOException {
+            while (length > 0) {
+                ensure(1);
+                final int chunk = Math.min(length, buffer.remaining());
+                buffer.put(bytes, offset, chunk);
+                offset += chunk;
+                length -= chunk;
+            }
+        }
+
+        void writeString(String value) throws IOException {
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length);
+            writeBytes(bytes, 0, bytes.length);
+        }
+
+        /*
+         * Flush everything written so far, then write its CRC-32.
+         */
+        void writeTrailer() throws IOException {
+            flush();
+            buffer.putInt((int) crc.getValue());
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /*
+     * Reader of the bytes of a file before its end, mapping windowSize bytes
+     * at a time, with the relative get methods of ByteBuffer.
+     */
+    private static class Source {
+        private final FileChannel channel;
+        private final long end;
+        private final int windowSize;
+        private MappedByteBuffer window;
+        private long windowStart = 0;
+        /*
+         * Rep invariant:
+         *    0 <= windowStart <= end, and window maps the
+         *      min(windowSize, end - windowStart) bytes of channel from
+         *      windowStart
+         *
+         * Abstraction function:
+         *    represents the bytes of channel in [0, end), read up to
+         *      windowStart + window.position()
+         */
+
+        Source(FileChannel channel, long end, int windowSize) throws IOException {
+            this.channel = channel;
+            this.end = end;
+            this.windowSize = windowSize;
+            map(0);
+        }
+
+        private void map(long position) throws IOException {
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                    Math.min(windowSize, end - position));
+            windowStart = position;
+        }
+
+        /*
+         * Move to the next window if this one is used up.
+         * @throws BufferUnderflowException if there are no more bytes
+         */
+        private void ensure() throws IOException {
+            if (!window.hasRemaining()) {
+                if (windowStart + window.limit() >= end) {
+                    throw new BufferUnderflowException();
+                }
+                map(windowStart + window.limit());
+            }
+        }
+
+        /*
+         * @return CRC-32 of every byte, leaving the position unchanged
+         */
+        int checksum() throws IOException {
+            final long position = position();
+            final CRC32 crc = new CRC32();
+            for (long start = 0; start < end; start += windowSize) {
+                map(start);
+                crc.update(window);
+            }
+            map(position - position % windowSize);
+            window.position((int) (position % windowSize));
+            return (int) crc.getValue();
+        }
+
+        long position() {
+            return windowStart + window.position();
+        }
+
+        boolean hasRemaining() {
+            return position() < end;
+        }
+
+        byte get() throws IOException {
+            ensure();
+            return window.get();
+        }
+
+        int getInt() throws IOException {
+            int value = 0;
+            for (int k = 0; k < 4; k++) {
+                value = value << 8 | get() & 0xff;
+            }
+            return value;
+        }
+
+        void get(byte[] bytes, int offset, int length) throws IOException {
+            while (length > 0) {
+                ensure();
+                final int chunk = Math.min(length, window.remaining());
+                window.get(bytes, offset, chunk);
+                offset += chunk;
+                length -= chunk;
+            }
+        }
+    }
+
+    /*
+     * Decoder of UTF-8 strings from a source, reusing one scratch array.
+     */
+    private static class Input {
+        private byte[] scratch = new byte[256];
+        private int used = 0;
+
+        private void ensure(int length) {
+            if (length > scratch.length) {
+                scratch = Arrays.copyOf(scratch, Math.max(length, scratch.length * 2));
+            }
+        }
+
+        String readString(Source in, int length) throws IOException {
+            ensure(length);
+            in.get(scratch, 0, length);
+            used = length;
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+
+        /*
+         * Read a name stored as its first shared bytes of the previous name
+         * read, followed by suffixLength bytes from in.
+         */
+        String readFrontCoded(Source in, int shared, int suffixLength) throws IOException {
+            if (shared > used) {
+                throw new IOException("bad name prefix at byte " + in.position());
+            }
+            ensure(shared + suffixLength);
+            in.get(scratch, shared, suffixLength);
+            used = shared + suffixLength;
+            return new String(scratch, 0, used, StandardCharsets.UTF_8);
+        }
+    }
+}
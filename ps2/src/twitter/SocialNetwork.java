@@ -5,12 +5,13 @@ import java.util.Map;
 import java.util.Set;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.Comparator;
-import java.util.regex.Pattern;
-import java.util.regex.Matcher;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * SocialNetwork provides methods that operate on a social network.
@@ -45,7 +46,26 @@ public class SocialNetwork {
      *         All the Twitter usernames in the returned social network must be
      *         either authors or @-mentions in the list of tweets.
      */
-	public static Map<String, Set<String>> guessFollowsGraph(List<Tweet> tweets) {
+    public static Map<String, Set<String>> guessFollowsGraph(List<Tweet> tweets) {
+        return guessFollowsGraph(tweets, Integer.MAX_VALUE);
+    }
+    
+    /**
+     * Guess who might follow whom, from evidence found in tweets, ignoring
+     * hashtags so popular that sharing them says little about two users.
+     * 
+     * @param tweets
+     *            a list of tweets providing the evidence, not modified by this
+     *            method.
+     * @param maxHashtagUsers
+     *            hashtags used by more than this many authors are not counted
+     *            as evidence. Integer.MAX_VALUE counts every hashtag.
+     * @return a social network as specified by guessFollowsGraph(tweets), in
+     *         which Ernie follows Bert if Ernie @-mentions Bert, or if Ernie
+     *         and Bert are distinct authors who both used at least 2 of the
+     *         same counted hashtags (case-insensitively).
+     */
+    public static Map<String, Set<String>> guessFollowsGraph(List<Tweet> tweets, int maxHashtagUsers) {
         Map<String, Set<String>> followsGraph = new HashMap<>();
         
         if (tweets.isEmpty()) {
@@ -65,54 +85,179 @@ public class SocialNetwork {
         // Process each tweet to find mentions
         for (Tweet tweet : tweets) {
             String author = tweet.getAuthor().toLowerCase();
-            Set<String> mentionedUsers = Extract.getMentionedUsers(Arrays.asList(tweet));
+            Set<String> follows = followsGraph.get(author);
             
-            // Add each mentioned user to the author's following set
-            for (String mentioned : mentionedUsers) {
-                if (!mentioned.equalsIgnoreCase(author)) {
-                    followsGraph.get(author).add(mentioned.toLowerCase());
-                }
-            }
+            // Add each mentioned user to the author's following set,
+            // except the author, who can't follow themselves
+            TweetScanner.addMentions(tweet.getText(), follows);
+            follows.remove(author);
         }
         
         // Additional evidence: common hashtags
-        Map<String, Set<String>> userHashtags = getUserHashtags(tweets);
-        for (String user1 : userHashtags.keySet()) {
-            for (String user2 : userHashtags.keySet()) {
-                if (!user1.equals(user2)) {
-                    // If users share at least 2 hashtags, consider them connected
-                    Set<String> commonHashtags = new HashSet<>(userHashtags.get(user1));
-                    commonHashtags.retainAll(userHashtags.get(user2));
-                    if (commonHashtags.size() >= 2) {
-                        followsGraph.get(user1).add(user2);
-                        followsGraph.get(user2).add(user1);
-                    }
-                }
-            }
-        }
+        addCommonHashtagEdges(followsGraph, getUserHashtags(tweets), maxHashtagUsers);
         
         return followsGraph;
     }
 	
-	/**
-     * Helper method to extract hashtags used by each user
+    /**
+     * Guess who might follow whom, from evidence found in tweets, using
+     * several threads.
+     * 
+     * @param tweets
+     *            a list of tweets providing the evidence, not modified by this
+     *            method.
+     * @param maxHashtagUsers
+     *            hashtags used by more than this many authors are not counted
+     *            as evidence. Integer.MAX_VALUE counts every hashtag.
+     * @param parallelism
+     *            number of threads to use, requires > 0
+     * @return a social network equal to guessFollowsGraph(tweets,
+     *         maxHashtagUsers). Its sets are thread-safe.
+     */
+    public static Map<String, Set<String>> guessFollowsGraph(List<Tweet> tweets, int maxHashtagUsers,
+            int parallelism) {
+        final ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.submit(() -> guessFollowsGraphInParallel(tweets, maxHashtagUsers,
+                    parallelism * CHUNKS_PER_THREAD)).join();
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+    /*
+     * Number of chunks each thread's share of the work is split into, so
+     * threads that finish early can steal work from the rest.
+     */
+    private static final int CHUNKS_PER_THREAD = 4;
+    
+    /*
+     * Body of the parallel guessFollowsGraph, run inside its ForkJoinPool so
+     * that parallel streams use that pool. Each chunk of tweets adds its
+     * evidence straight into concurrent maps and sets, which is what merges
+     * the per-chunk results.
+     */
+    private static Map<String, Set<String>> guessFollowsGraphInParallel(List<Tweet> tweets,
+            int maxHashtagUsers, int chunks) {
+        final Map<String, Set<String>> followsGraph = new ConcurrentHashMap<>();
+        final Map<String, Set<String>> userHashtags = new ConcurrentHashMap<>();
+        final int chunkSize = Math.max(1, (tweets.size() + chunks - 1) / chunks);
+        IntStream.range(0, (tweets.size() + chunkSize - 1) / chunkSize).parallel().forEach(chunk -> {
+            final int end = Math.min(tweets.size(), (chunk + 1) * chunkSize);
+            for (Tweet tweet : tweets.subList(chunk * chunkSize, end)) {
+                final String author = tweet.getAuthor().toLowerCase();
+                final Set<String> follows =
+                        followsGraph.computeIfAbsent(author, a -> ConcurrentHashMap.newKeySet());
+                TweetScanner.addMentions(tweet.getText(), follows);
+                follows.remove(author);
+                TweetScanner.addHashtags(tweet.getText(),
+                        userHashtags.computeIfAbsent(author, a -> ConcurrentHashMap.newKeySet()));
+            }
+        });
+        
+        final String[] users = userHashtags.keySet().toArray(new String[0]);
+        final List<List<int[]>> userLists = sharingLists(users, userHashtags, maxHashtagUsers);
+        final ThreadLocal<int[][]> scratch =
+                ThreadLocal.withInitial(() -> new int[2][users.length]);
+        // stride through users, since lower-numbered users have more pairs to count
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            final int[][] arrays = scratch.get();
+            for (int user = chunk; user < users.length; user += chunks) {
+                addCommonHashtagEdges(followsGraph, users, userLists, user, arrays[0], arrays[1]);
+            }
+        });
+        return followsGraph;
+    }
+    
+    /*
+     * Make every two users who share at least 2 hashtags follow each other,
+     * counting only hashtags used by at most maxHashtagUsers users.
+     * 
+     * Rather than intersect the hashtag sets of every pair of users, invert
+     * userHashtags into hashtag -> users and count, for each user, how many
+     * hashtags each later user shares with them, so the work is proportional
+     * to the number of (user, user, shared hashtag) triples.
+     */
+    private static void addCommonHashtagEdges(Map<String, Set<String>> followsGraph,
+            Map<String, Set<String>> userHashtags, int maxHashtagUsers) {
+        final String[] users = userHashtags.keySet().toArray(new String[0]);
+        final List<List<int[]>> userLists = sharingLists(users, userHashtags, maxHashtagUsers);
+        final int[] shared = new int[users.length];
+        final int[] touched = new int[users.length];
+        for (int user = 0; user < users.length; user++) {
+            addCommonHashtagEdges(followsGraph, users, userLists, user, shared, touched);
+        }
+    }
+    
+    /*
+     * For each user (an index into users), the increasing lists of users who
+     * share one of its counted hashtags.
+     */
+    private static List<List<int[]>> sharingLists(String[] users,
+            Map<String, Set<String>> userHashtags, int maxHashtagUsers) {
+        final Map<String, List<Integer>> hashtagUsers = new HashMap<>();
+        for (int user = 0; user < users.length; user++) {
+            for (String hashtag : userHashtags.get(users[user])) {
+                hashtagUsers.computeIfAbsent(hashtag, h -> new ArrayList<>()).add(user);
+            }
+        }
+        
+        final List<List<int[]>> userLists = new ArrayList<>(users.length);
+        for (int user = 0; user < users.length; user++) {
+            userLists.add(new ArrayList<>());
+        }
+        for (List<Integer> sharing : hashtagUsers.values()) {
+            if (sharing.size() < 2 || sharing.size() > maxHashtagUsers) {
+                continue;
+            }
+            final int[] sorted = new int[sharing.size()];
+            for (int k = 0; k < sorted.length; k++) {
+                sorted[k] = sharing.get(k);
+            }
+            for (int user : sorted) {
+                userLists.get(user).add(sorted);
+            }
+        }
+        return userLists;
+    }
+    
+    /*
+     * Add the edges between user and every higher-numbered user sharing at
+     * least 2 counted hashtags with it. shared and touched are scratch arrays
+     * of length users.length; shared must be all zero, and is left that way.
+     */
+    private static void addCommonHashtagEdges(Map<String, Set<String>> followsGraph, String[] users,
+            List<List<int[]>> userLists, int user, int[] shared, int[] touched) {
+        int touchedCount = 0;
+        for (int[] sharing : userLists.get(user)) {
+            // count each pair once, from its lower-numbered user
+            for (int k = Arrays.binarySearch(sharing, user) + 1; k < sharing.length; k++) {
+                final int other = sharing[k];
+                if (shared[other] == 0) {
+                    touched[touchedCount++] = other;
+                }
+                if (++shared[other] == 2) {
+                    followsGraph.get(users[user]).add(users[other]);
+                    followsGraph.get(users[other]).add(users[user]);
+                }
+            }
+        }
+        for (int k = 0; k < touchedCount; k++) {
+            shared[touched[k]] = 0;
+        }
+    }
+    
+    /*
+     * Map each author (lowercased) to the set of hashtags (lowercased,
+     * without "#") used in their tweets.
      */
     private static Map<String, Set<String>> getUserHashtags(List<Tweet> tweets) {
         Map<String, Set<String>> userHashtags = new HashMap<>();
-        Pattern hashtagPattern = Pattern.compile("#([a-zA-Z0-9]+)");
-        
         for (Tweet tweet : tweets) {
             String author = tweet.getAuthor().toLowerCase();
-            String text = tweet.getText().toLowerCase();
-            Matcher matcher = hashtagPattern.matcher(text);
-            
-            userHashtags.putIfAbsent(author, new HashSet<>());
-            
-            while (matcher.find()) {
-                userHashtags.get(author).add(matcher.group(1));
-            }
+            TweetScanner.addHashtags(tweet.getText(),
+                    userHashtags.computeIfAbsent(author, a -> new HashSet<>()));
         }
-        
         return userHashtags;
     }
 
@@ -126,26 +271,123 @@ public class SocialNetwork {
      *         descending order of follower count.
      */
     public static List<String> influencers(Map<String, Set<String>> followsGraph) {
-    	Map<String, Integer> influenceCount = new HashMap<>();
-        
-        // Count how many times each user is followed
-        for (Set<String> followers : followsGraph.values()) {
-            for (String user : followers) {
-                influenceCount.put(user, influenceCount.getOrDefault(user, 0) + 1);
+        // Count followers in a primitive array over interned user ids; ids are
+        // in alphabetical order, which breaks ties between equal counts
+        return CompactFollowsGraph.fromMap(followsGraph).influencers();
+    }
+
+    /**
+     * Find the k people in a social network who have the greatest influence,
+     * without ranking everyone else.
+     * 
+     * @param followsGraph
+     *            a social network (as defined above)
+     * @param k
+     *            number of users wanted, requires k >= 0
+     * @return the first k usernames of influencers(followsGraph), or all of
+     *         them if there are fewer than k, with users who have equal
+     *         follower counts in alphabetical order.
+     */
+    public static List<String> influencers(Map<String, Set<String>> followsGraph, int k) {
+        // Count followers in one pass over the map, then keep the best k in
+        // a bounded heap; only the k survivors are ever put in order
+        final FollowerCounts followers = new FollowerCounts(followsGraph.size());
+        for (Map.Entry<String, Set<String>> entry : followsGraph.entrySet()) {
+            followers.add(entry.getKey(), 0);
+            for (String followed : entry.getValue()) {
+                followers.add(followed, 1);
             }
         }
-        
-        // Include all users who might have 0 followers
-        for (String user : followsGraph.keySet()) {
-            influenceCount.putIfAbsent(user, 0);
+        final String[] names = new String[followers.size];
+        final int[] counts = new int[followers.size];
+        int user = 0;
+        for (int slot = 0; slot < followers.names.length; slot++) {
+            if (followers.names[slot] != null) {
+                names[user] = followers.names[slot];
+                counts[user++] = followers.counts[slot];
+            }
+        }
+        final int[] top = CompactFollowsGraph.top(counts, names, k);
+        final List<String> ranked = new ArrayList<>(top.length);
+        for (int best : top) {
+            ranked.add(names[best]);
+        }
+        return ranked;
+    }
+
+    /*
+     * Follower counts by username, in an open-addressing hash table with
+     * linear probing, so that counting makes no object per user.
+     */
+    private static class FollowerCounts {
+        private String[] names;
+        private int[] counts;
+        private int size;
+        /*
+         * Rep invariant:
+         *    names.length = counts.length, a power of two > 2 * size
+         *    size = number of non-null names, which are distinct
+         *    counts[i] = 0 wherever names[i] = null
+         *    each non-null names[i] is reached by probing forward from the
+         *      slot of its hash without passing a null
+         *
+         * Abstraction function:
+         *    maps names[i] to counts[i], for each i with names[i] != null
+         *
+         * Safety from rep exposure:
+         *    the class is private to SocialNetwork, which only reads the
+         *    arrays after counting
+         */
+
+        FollowerCounts(int expectedUsers) {
+            int capacity = 16;
+            while (capacity <= 2 * expectedUsers) {
+                capacity *= 2;
+            }
+            names = new String[capacity];
+            counts = new int[capacity];
+        }
+
+        /*
+         * Add n to name's count, adding name with count 0 first if absent.
+         */
+        void add(String name, int n) {
+            int slot = find(names, name);
+            if (names[slot] == null) {
+                if (2 * (size + 1) >= names.length) {
+                    grow();
+                    slot = find(names, name);
+                }
+                names[slot] = name;
+                size++;
+            }
+            counts[slot] += n;
+        }
+
+        private void grow() {
+            final String[] oldNames = names;
+            final int[] oldCounts = counts;
+            names = new String[2 * oldNames.length];
+            counts = new int[names.length];
+            for (int old = 0; old < oldNames.length; old++) {
+                if (oldNames[old] != null) {
+                    final int slot = find(names, oldNames[old]);
+                    names[slot] = oldNames[old];
+                    counts[slot] = oldCounts[old];
+                }
+            }
+        }
+
+        // slot holding name, or the null slot where it belongs
+        private static int find(String[] names, String name) {
+            final int mask = names.length - 1;
+            int h = name.hashCode() * 0x9e3779b9;
+            int slot = (h ^ (h >>> 16)) & mask;
+            while (names[slot] != null && !names[slot].equals(name)) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
         }
-        
-        // Sort by influence count descending, then alphabetically
-        return influenceCount.entrySet().stream()
-            .sorted(Comparator.<Map.Entry<String, Integer>>comparingInt(entry -> -entry.getValue())
-                .thenComparing(Map.Entry::getKey))
-            .map(Map.Entry::getKey)
-            .collect(Collectors.toList());
     }
 
     /* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
@@ -0,0 +1,400 @@
+package twitter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * TrendingCounter is a mutable, bounded-memory summary of the hashtags and
+ * mentions in a stream of tweets, that answers "what is trending" for recent
+ * windows of time.
+ *
+ * Time is divided into buckets of a fixed width, aligned to the epoch, and
+ * only the newest few buckets are kept, in a ring. Each bucket counts
+ * hashtags and mentions approximately, in a Count-Min Sketch, and keeps the
+ * most frequent of them as heavy-hitter candidates, so memory does not grow
+ * with the number of distinct hashtags or users. Counts are numbers of
+ * tweets: a hashtag used twice in one tweet counts once. They may
+ * overestimate, but never underestimate, the true counts in the kept buckets.
+ *
+ * Queries round windows outward to whole buckets, and ignore buckets that
+ * have left the ring.
+ *
+ * TrendingCounter is not safe for use by multiple threads.
+ */
+public class TrendingCounter {
+
+    private static final int DEFAULT_SKETCH_WIDTH = 4096;
+    private static final int DEFAULT_SKETCH_DEPTH = 4;
+    private static final int DEFAULT_HEAVY_HITTERS = 64;
+
+    private final long bucketNanos;
+    private final Ring hashtags;
+    private final Ring mentions;
+    private long newestBucket = Long.MIN_VALUE;
+    private final List<String> found = new ArrayList<>();
+    /*
+     * Rep invariant:
+     *    bucketNanos > 0
+     *    hashtags and mentions have the same number of buckets
+     *    newestBucket is the largest bucket number of any tweet added, or
+     *      Long.MIN_VALUE if none has been
+     *    found is scratch space, empty between calls
+     *
+     * Abstraction function:
+     *    represents, for each of the newest hashtags.buckets bucket numbers
+     *      b <= newestBucket, the number of tweets sent during
+     *      [b * bucketNanos, (b+1) * bucketNanos) nanoseconds since the epoch
+     *      that used each hashtag (in hashtags) and that mentioned each user
+     *      (in mentions), as approximated by those rings
+     *
+     * Safety from rep exposure:
+     *    all fields are private; queries return new lists of immutable
+     *    Strings.
+     */
+
+    /**
+     * Make a counter with no tweets, using default sketch sizes.
+     *
+     * @param bucketWidth
+     *            length of time each bucket covers, requires at least 1ns
+     * @param buckets
+     *            number of buckets to keep, requires > 0
+     */
+    public TrendingCounter(Duration bucketWidth, int buckets) {
+        this(bucketWidth, buckets, DEFAULT_SKETCH_WIDTH, DEFAULT_SKETCH_DEPTH, DEFAULT_HEAVY_HITTERS);
+    }
+
+    /**
+     * Make a counter with no tweets.
+     *
+     * @param bucketWidth
+     *            length of time each bucket covers, requires at least 1ns
+     * @param buckets
+     *            number of buckets to keep, requires > 0
+     * @param sketchWidth
+     *            counters per row of each Count-Min Sketch, rounded up to a
+     *            power of two; more makes counts more accurate. Requires > 0
+     * @param sketchDepth
+     *            rows of each Count-Min Sketch; more makes a large error less
+     *            likely. Requires > 0
+     * @param heavyHitters
+     *            candidates kept per bucket; top-k queries are exact only for
+     *            k much smaller than this. Requires > 0
+     * @throws IllegalArgumentException
+     *             if an argument is out of range
+     */
+    public TrendingCounter(Duration bucketWidth, int buckets, int sketchWidth, int sketchDepth,
+            int heavyHitters) {
+        if (bucketWidth.isNegative() || bucketWidth.isZero() || buckets <= 0 || sketchWidth <= 0
+                || sketchDepth <= 0 || heavyHitters <= 0) {
+            throw new IllegalArgumentException("requires positive bucket width, buckets and sketch sizes");
+        }
+        this.bucketNanos = bucketWidth.toNanos();
+        int width = Integer.highestOneBit(sketchWidth);
+        if (width < sketchWidth) {
+            width <<= 1;
+        }
+        this.hashtags = new Ring(buckets, width, sketchDepth, heavyHitters);
+        this.mentions = new Ring(buckets, width, sketchDepth, heavyHitters);
+        checkRep();
+    }
+
+    private void checkRep() {
+        assert bucketNanos > 0;
+        assert hashtags.bucketNumbers.length == mentions.bucketNumbers.length;
+        assert found.isEmpty();
+    }
+
+    /**
+     * Count the hashtags and mentions in a tweet. Tweets may arrive out of
+     * time order; a tweet older than every kept bucket is ignored.
+     *
+     * @param tweet
+     *            a tweet whose timestamp can be represented as epoch
+     *            nanoseconds (years 1678 to 2261)
+     */
+    public void add(Tweet tweet) {
+        final long bucket = Math.floorDiv(TweetStore.toEpochNanos(tweet.getTimestamp()), bucketNanos);
+        if (bucket > newestBucket) {
+            newestBucket = bucket;
+        } else if (bucket <= newestBucket - hashtags.bucketNumbers.length) {
+            return;
+        }
+        TweetScanner.addHashtags(tweet.getText(), found);
+        countDistinct(hashtags, bucket);
+        TweetScanner.addMentions(tweet.getText(), found);
+        countDistinct(mentions, bucket);
+    }
+
+    /*
+     * Count each distinct string in found once in ring, and clear found.
+     */
+    private void countDistinct(Ring ring, long bucket) {
+        for (int i = 0; i < found.size(); i++) {
+            final String key = found.get(i);
+            if (found.indexOf(key) == i) {
+                ring.increment(bucket, key);
+            }
+        }
+        found.clear();
+    }
+
+    /**
+     * Count the hashtags and mentions in several tweets.
+     *
+     * @param tweets
+     *            tweets, not modified by this method
+     */
+    public void addAll(List<Tweet> tweets) {
+        for (Tweet tweet : tweets) {
+            add(tweet);
+        }
+    }
+
+    /**
+     * Find the hashtags used in the most tweets during a window.
+     *
+     * @param window
+     *            timespan, rounded outward to whole buckets
+     * @param k
+     *            number of hashtags wanted, requires k >= 0
+     * @return up to k lowercased hashtags, without "#", in descending order
+     *         of estimated count in the kept buckets that overlap window, and
+     *         alphabetically among equal counts
+     */
+    public List<String> trendingHashtags(Timespan window, int k) {
+        return hashtags.top(firstKept(firstBucket(window)), lastBucket(window), k);
+    }
+
+    /**
+     * Find the hashtags used in the most tweets recently.
+     *
+     * @param recent
+     *            length of the window, ending with the newest bucket and
+     *            rounded up to whole buckets; requires at least 1ns
+     * @param k
+     *            number of hashtags wanted, requires k >= 0
+     * @return as trendingHashtags(window, k), for that window
+     */
+    public List<String> trendingHashtags(Duration recent, int k) {
+        return hashtags.top(firstKept(firstRecentBucket(recent)), newestBucket, k);
+    }
+
+    /**
+     * Find the users mentioned in the most tweets during a window.
+     *
+     * @param window
+     *            timespan, rounded outward to whole buckets
+     * @param k
+     *            number of users wanted, requires k >= 0
+     * @return up to k lowercased usernames, in descending order of estimated
+     *         count in the kept buckets that overlap window, and
+     *         alphabetically among equal counts
+     */
+    public List<String> trendingMentions(Timespan window, int k) {
+        return mentions.top(firstKept(firstBucket(window)), lastBucket(window), k);
+    }
+
+    /**
+     * Find the users mentioned in the most tweets recently.
+     *
+     * @param recent
+     *            length of the window, ending with the newest bucket and
+     *            rounded up to whole buckets; requires at least 1ns
+     * @param k
+     *            number of users wanted, requires k >= 0
+     * @return as trendingMentions(window, k), for that window
+     */
+    public List<String> trendingMentions(Duration recent, int k) {
+        return mentions.top(firstKept(firstRecentBucket(recent)), newestBucket, k);
+    }
+
+    private long firstBucket(Timespan window) {
+        return Math.floorDiv(TweetStore.toEpochNanos(window.getStart()), bucketNanos);
+    }
+
+    private long lastBucket(Timespan window) {
+        return Math.floorDiv(TweetStore.toEpochNanos(window.getEnd()), bucketNanos);
+    }
+
+    private long firstRecentBucket(Duration recent) {
+        final long buckets = (recent.toNanos() + bucketNanos - 1) / bucketNanos;
+        return newestBucket - buckets + 1;
+    }
+
+    /*
+     * The later of first and the oldest bucket still in the ring. After a
+     * gap in the timeline, slots can still hold buckets older than that, and
+     * those must not be counted.
+     */
+    private long firstKept(long first) {
+        final int buckets = hashtags.bucketNumbers.length;
+        if (newestBucket < Long.MIN_VALUE + buckets) {
+            return first;
+        }
+        return Math.max(first, newestBucket - buckets + 1);
+    }
+
+    /*
+     * Ring of buckets, each with a Count-Min Sketch and heavy-hitter
+     * candidates, for one kind of key.
+     */
+    private static class Ring {
+        private final long[] bucketNumbers;
+        private final int[][] sketches;
+        private final List<Map<String, Integer>> candidates;
+        private final int[] minCandidate;
+        private final int width;
+        private final int depth;
+        private final int heavyHitters;
+        private final long[] seeds;
+        private final int shift;
+        /*
+         * Rep invariant:
+         *    slot s holds bucket number bucketNumbers[s], with
+         *      bucketNumbers[s] mod bucketNumbers.length = s, or
+         *      Long.MIN_VALUE if it has held none
+         *    sketches[s] has depth rows of width counters; row r of the
+         *      sketch is sketches[s][r * width .. (r+1) * width)
+         *    candidates[s] has at most heavyHitters keys, each mapped to its
+         *      estimate in sketches[s] when it was last counted
+         *    minCandidate[s] <= the smallest value in candidates[s]
+         *    seeds has depth odd entries; shift = 64 - log2(width)
+         */
+
+        Ring(int buckets, int width, int depth, int heavyHitters) {
+            this.bucketNumbers = new long[buckets];
+            Arrays.fill(bucketNumbers, Long.MIN_VALUE);
+            this.sketches = new int[buckets][width * depth];
+            this.candidates = new ArrayList<>(buckets);
+            for (int s = 0; s < buckets; s++) {
+                candidates.add(new HashMap<>());
+            }
+            this.minCandidate = new int[buckets];
+            this.width = width;
+            this.depth = depth;
+            this.heavyHitters = heavyHitters;
+            this.seeds = new long[depth];
+            long seed = 0;
+            for (int row = 0; row < depth; row++) {
+                // SplitMix64, so the rows' multipliers are unrelated
+                seed += 0x9e3779b97f4a7c15L;
+                long z = seed;
+                z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+                z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+                seeds[row] = (z ^ (z >>> 31)) | 1;
+            }
+            this.shift = 64 - Integer.numberOfTrailingZeros(width);
+        }
+
+        void increment(long bucket, String key) {
+            final int slot = (int) Math.floorMod(bucket, (long) bucketNumbers.length);
+            if (bucketNumbers[slot] != bucket) {
+                // reuse the slot of a bucket that has left the ring
+                bucketNumbers[slot] = bucket;
+                Arrays.fill(sketches[slot], 0);
+                candidates.get(slot).clear();
+                minCandidate[slot] = 0;
+            }
+            final int[] sketch = sketches[slot];
+            final long hash = HyperLogLog.hash64(key);
+            int estimate = Integer.MAX_VALUE;
+            for (int row = 0; row < depth; row++) {
+                estimate = Math.min(estimate, ++sketch[row * width + index(hash, row)]);
+            }
+            offerCandidate(slot, key, estimate);
+        }
+
+        /*
+         * Space-Saving-style update of a slot's candidates: a key that is
+         * not a candidate replaces the smallest one if its estimate is
+         * larger.
+         */
+        private void offerCandidate(int slot, String key, int estimate) {
+            final Map<String, Integer> keys = candidates.get(slot);
+            if (keys.containsKey(key) || keys.size() < heavyHitters) {
+                keys.put(key, estimate);
+                return;
+            }
+            if (estimate <= minCandidate[slot]) {
+                return;
+            }
+            // minCandidate is only a lower bound; find the real minimum
+            String smallest = null;
+            int smallestEstimate = Integer.MAX_VALUE;
+            for (Map.Entry<String, Integer> candidate : keys.entrySet()) {
+                if (candidate.getValue() < smallestEstimate) {
+                    smallest = candidate.getKey();
+                    smallestEstimate = candidate.getValue();
+                }
+            }
+            if (estimate > smallestEstimate) {
+                keys.remove(smallest);
+                keys.put(key, estimate);
+            } else {
+                minCandidate[slot] = smallestEstimate;
+            }
+        }
+
+        /*
+         * Top k candidates of the kept buckets numbered first..last, by
+         * their summed sketch estimates.
+         */
+        List<String> top(long first, long last, int k) {
+            final List<Integer> slots = new ArrayList<>();
+            final Set<String> keys = new HashSet<>();
+            for (int slot = 0; slot < bucketNumbers.length; slot++) {
+                if (bucketNumbers[slot] != Long.MIN_VALUE
+                        && bucketNumbers[slot] >= first && bucketNumbers[slot] <= last) {
+                    slots.add(slot);
+                    keys.addAll(candidates.get(slot).keySet());
+                }
+            }
+            final Map<String, Integer> estimates = new HashMap<>();
+            for (String key : keys) {
+                estimates.put(key, estimate(slots, key));
+            }
+            final List<String> ranked = new ArrayList<>(keys);
+            ranked.sort((a, b) -> {
+                final int byCount = Integer.compare(estimates.get(b), estimates.get(a));
+                return byCount != 0 ? byCount : a.compareTo(b);
+            });
+            return new ArrayList<>(ranked.subList(0, Math.min(k, ranked.size())));
+        }
+
+        /*
+         * Count-Min estimate of key over several slots: the smallest row of
+         * the slots' summed sketches.
+         */
+        private int estimate(List<Integer> slots, String key) {
+            final long hash = HyperLogLog.hash64(key);
+            int estimate = Integer.MAX_VALUE;
+            for (int row = 0; row < depth; row++) {
+                final int counter = row * width + index(hash, row);
+                int sum = 0;
+                for (int slot : slots) {
+                    sum += sketches[slot][counter];
+                }
+                estimate = Math.min(estimate, sum);
+            }
+            return estimate;
+        }
+
+        /*
+         * Counter of a key in a row, given the key's 64-bit string hash: each
+         * row multiplies the hash by its own odd seed and keeps the top bits
+         * (multiply-shift hashing), so two keys share a counter in every row
+         * only if their whole 64-bit hashes collide, not merely their
+         * String.hashCode()s.
+         */
+        private int index(long hash, int row) {
+            return (int) ((hash * seeds[row]) >>> shift) & (width - 1);
+        }
+    }
+}
@@ -0,0 +1,435 @@
+package twitter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * TweetArena is a growable, append-only collection of tweets stored without a
+ * Tweet object per tweet: texts are UTF-8 slices of large shared byte pages,
+ * authors are dictionary-coded, and timestamps are primitive epoch
+ * nanoseconds.
+ *
+ * Tweets are identified by their position, in the order they were added.
+ * Tweet objects are created only on request, by get() or asList(), so code
+ * written against List<Tweet> keeps working on an arena. Author and keyword
+ * queries compare the stored bytes with ASCII case folding, without making
+ * lowercase copies.
+ *
+ * TweetArena is not safe for use by multiple threads.
+ */
+public class TweetArena {
+
+    /*
+     * Size of each byte page. A tweet's text must fit in one page.
+     */
+    private static final int PAGE_BITS = 20;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+    private final List<byte[]> pages = new ArrayList<>();
+    private int pageUsed = PAGE_SIZE;
+    private long[] ids = new long[16];
+    private long[] epochNanos = new long[16];
+    private int[] authorIds = new int[16];
+    private long[] textAddresses = new long[16];
+    private int[] textLengths = new int[16];
+    private int size = 0;
+    private final List<String> authors = new ArrayList<>();
+    private final Map<String, Integer> authorIdByName = new HashMap<>();
+    /*
+     * Rep invariant:
+     *    0 <= size <= ids.length, and epochNanos, authorIds, textAddresses,
+     *      textLengths have the same length as ids
+     *    for i < size, 0 <= authorIds[i] < authors.size(), and the UTF-8
+     *      bytes textLengths[i] bytes long at textAddresses[i] lie within
+     *      one page: page textAddresses[i] >> PAGE_BITS, starting at offset
+     *      textAddresses[i] & (PAGE_SIZE - 1)
+     *    authorIdByName[authors[a]] = a for every a, and authors has no
+     *      duplicates
+     *    0 <= pageUsed <= PAGE_SIZE, counting used bytes of the last page
+     *
+     * Abstraction function:
+     *    represents the list of tweets t_0..t_{size-1} where
+     *      t_i = Tweet(ids[i], authors[authorIds[i]], the text decoded from
+     *            the UTF-8 slice at textAddresses[i], epochNanos[i])
+     *
+     * Safety from rep exposure:
+     *    all fields are private; getters return primitives, immutable
+     *    Strings and Instants, or new Tweets; asList() is an unmodifiable
+     *    view that reads through those getters.
+     */
+
+    /**
+     * Make an empty arena.
+     */
+    public TweetArena() {
+        checkRep();
+    }
+
+    /**
+     * Make an arena holding a list of tweets.
+     *
+     * @param tweets
+     *            tweets to add, in order; not modified by this method
+     */
+    public TweetArena(List<Tweet> tweets) {
+        for (Tweet tweet : tweets) {
+            add(tweet);
+        }
+        checkRep();
+    }
+
+    private void checkRep() {
+        assert size <= ids.length;
+        assert epochNanos.length == ids.length && authorIds.length == ids.length;
+        assert textAddresses.length == ids.length && textLengths.length == ids.length;
+        assert authors.size() == authorIdByName.size();
+        assert pageUsed >= 0 && pageUsed <= PAGE_SIZE;
+    }
+
+    /**
+     * Add a tweet to the end of this arena.
+     *
+     * @param tweet
+     *            a tweet whose timestamp can be represented as epoch
+     *            nanoseconds (years 1678 to 2261), and whose text is at most
+     *            2^18 characters long
+     * @return the position of the tweet in this arena
+     */
+    public int add(Tweet tweet) {
+        return add(tweet.getId(), tweet.getAuthor(), tweet.getText(),
+                TweetStore.toEpochNanos(tweet.getTimestamp()));
+    }
+
+    /**
+     * Add a tweet to the end of this arena, without making a Tweet object.
+     *
+     * @param id
+     *            unique identifier for the tweet
+     * @param author
+     *            Twitter username who wrote the tweet
+     * @param text
+     *            text of the tweet, at most 2^18 characters long
+     * @param epochNanos
+     *            when the tweet was sent, in nanoseconds since the epoch
+     * @return the position of the tweet in this arena
+     */
+    public int add(long id, String author, String text, long epochNanos) {
+        final int maxBytes = text.length() * 4;
+        if (maxBytes > PAGE_SIZE) {
+            throw new IllegalArgumentException("text is too long for one arena page");
+        }
+        if (size == ids.length) {
+            grow();
+        }
+        if (pageUsed + maxBytes > PAGE_SIZE) {
+            pages.add(new byte[PAGE_SIZE]);
+            pageUsed = 0;
+        }
+        final int page = pages.size() - 1;
+        final int length = encodeUtf8(text, pages.get(page), pageUsed);
+
+        Integer authorId = authorIdByName.get(author);
+        if (authorId == null) {
+            authorId = authors.size();
+            authors.add(author);
+            authorIdByName.put(author, authorId);
+        }
+
+        ids[size] = id;
+        this.epochNanos[size] = epochNanos;
+        authorIds[size] = authorId;
+        textAddresses[size] = ((long) page << PAGE_BITS) | pageUsed;
+        textLengths[size] = length;
+        pageUsed += length;
+        return size++;
+    }
+
+    private void grow() {
+        final int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        epochNanos = Arrays.copyOf(epochNanos, capacity);
+        authorIds = Arrays.copyOf(authorIds, capacity);
+        textAddresses = Arrays.copyOf(textAddresses, capacity);
+        textLengths = Arrays.copyOf(textLengths, capacity);
+    }
+
+    /*
+     * Write text as UTF-8 into page starting at offset, which must have room
+     * for 4 bytes per char, and return the number of bytes written.
+     */
+    private static int encodeUtf8(String text, byte[] page, int offset) {
+        int out = offset;
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            if (c < 0x80) {
+                page[out++] = (byte) c;
+            } else if (c < 0x800) {
+                page[out++] = (byte) (0xc0 | (c >> 6));
+                page[out++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length()
+                    && Character.isLowSurrogate(text.charAt(i + 1))) {
+                final int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                page[out++] = (byte) (0xf0 | (codePoint >> 18));
+                page[out++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                page[out++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                page[out++] = (byte) (0x80 | (codePoint & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                page[out++] = (byte) '?'; // unpaired surrogate, as String.getBytes does
+            } else {
+                page[out++] = (byte) (0xe0 | (c >> 12));
+                page[out++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                page[out++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+        return out - offset;
+    }
+
+    /**
+     * @return number of tweets in this arena
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param position
+     *            position of a tweet, requires 0 <= position < size()
+     * @return unique identifier of that tweet
+     */
+    public long getId(int position) {
+        checkPosition(position);
+        return ids[position];
+    }
+
+    /**
+     * @param position
+     *            position of a tweet, requires 0 <= position < size()
+     * @return Twitter username who wrote that tweet; the same String object
+     *         for every tweet by that exact username
+     */
+    public String getAuthor(int position) {
+        checkPosition(position);
+        return authors.get(authorIds[position]);
+    }
+
+    /**
+     * @param position
+     *            position of a tweet, requires 0 <= position < size()
+     * @return text of that tweet, decoded afresh from its UTF-8 bytes
+     */
+    public String getText(int position) {
+        checkPosition(position);
+        final long address = textAddresses[position];
+        return new String(pages.get((int) (address >>> PAGE_BITS)), (int) (address & (PAGE_SIZE - 1)),
+                textLengths[position], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param position
+     *            position of a tweet, requires 0 <= position < size()
+     * @return when that tweet was sent, in nanoseconds since the epoch
+     */
+    public long getEpochNanos(int position) {
+        checkPosition(position);
+        return epochNanos[position];
+    }
+
+    /**
+     * @param position
+     *            position of a tweet, requires 0 <= position < size()
+     * @return date/time when that tweet was sent
+     */
+    public Instant getTimestamp(int position) {
+        return TweetStore.toInstant(getEpochNanos(position));
+    }
+
+    /**
+     * @param position
+     *            position of a tweet, requires 0 <= position < size()
+     * @return a new Tweet equal to the one added at that position
+     */
+    public Tweet get(int position) {
+        return new Tweet(getId(position), getAuthor(position), getText(position), getTimestamp(position));
+    }
+
+    /**
+     * @return an unmodifiable list view of the tweets in this arena, in
+     *         position order, that creates each Tweet when it is read and
+     *         reflects later additions
+     */
+    public List<Tweet> asList() {
+        return new ArenaList();
+    }
+
+    private class ArenaList extends AbstractList<Tweet> implements RandomAccess {
+        @Override public Tweet get(int index) {
+            return TweetArena.this.get(index);
+        }
+
+        @Override public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * Test whether a tweet was written by a user, without decoding or
+     * lowercasing anything.
+     *
+     * @param position
+     *            position of a tweet, requires 0 <= position < size()
+     * @param username
+     *            Twitter username, required to be a valid Twitter username as
+     *            defined by Tweet.getAuthor()'s spec
+     * @return true iff the tweet's author is username, ignoring case
+     */
+    public boolean isWrittenBy(int position, String username) {
+        checkPosition(position);
+        final String author = authors.get(authorIds[position]);
+        if (author.length() != username.length()) {
+            return false;
+        }
+        for (int i = 0; i < author.length(); i++) {
+            if (foldAscii(author.charAt(i)) != foldAscii(username.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Find tweets written by a particular user.
+     *
+     * @param username
+     *            Twitter username, required to be a valid Twitter username as
+     *            defined by Tweet.getAuthor()'s spec
+     * @return increasing positions of all and only the tweets in this arena
+     *         whose author is username, ignoring case
+     */
+    public int[] positionsWrittenBy(String username) {
+        // compare against each distinct author once, then scan the int codes
+        final boolean[] matching = new boolean[authors.size()];
+        boolean any = false;
+        for (int a = 0; a < authors.size(); a++) {
+            matching[a] = authors.get(a).equalsIgnoreCase(username);
+            any |= matching[a];
+        }
+        if (!any) {
+            return new int[0];
+        }
+        int count = 0;
+        final int[] positions = new int[size];
+        for (int i = 0; i < size; i++) {
+            if (matching[authorIds[i]]) {
+                positions[count++] = i;
+            }
+        }
+        return Arrays.copyOf(positions, count);
+    }
+
+    /**
+     * Find tweets that contain certain words, comparing the UTF-8 bytes of
+     * ASCII texts with ASCII case folding instead of decoding or lowercasing
+     * them. Only texts with other characters, or queries with non-ASCII
+     * words, are decoded and compared as Filter.containing compares them.
+     *
+     * @param words
+     *            words to search for, each a nonempty sequence of nonspace
+     *            characters
+     * @return increasing positions of all and only the tweets in this arena
+     *         that Filter.containing(asList(), words) returns
+     */
+    public int[] positionsContaining(List<String> words) {
+        // ASCII words, lowercased to bytes, or null if any word is not ASCII
+        byte[][] folded = new byte[words.size()][];
+        for (int w = 0; w < words.size() && folded != null; w++) {
+            final String word = words.get(w);
+            folded[w] = new byte[word.length()];
+            for (int i = 0; i < word.length(); i++) {
+                final char c = word.charAt(i);
+                if (c >= 0x80) {
+                    folded = null;
+                    break;
+                }
+                folded[w][i] = (byte) foldAscii(c);
+            }
+        }
+        KeywordFilter decoded = null;
+        int count = 0;
+        final int[] positions = new int[size];
+        for (int i = 0; i < size; i++) {
+            int match = folded == null ? -1 : containsAscii(i, folded);
+            if (match < 0) {
+                if (decoded == null) {
+                    decoded = new KeywordFilter(words);
+                }
+                match = decoded.matches(getText(i)) ? 1 : 0;
+            }
+            if (match > 0) {
+                positions[count++] = i;
+            }
+        }
+        return Arrays.copyOf(positions, count);
+    }
+
+    /*
+     * 1 if the text at position contains one of the lowercase ASCII words,
+     * 0 if not, or -1 if the text has a non-ASCII byte and must be decoded,
+     * since some non-ASCII characters fold to ASCII letters.
+     */
+    private int containsAscii(int position, byte[][] words) {
+        final long address = textAddresses[position];
+        final byte[] page = pages.get((int) (address >>> PAGE_BITS));
+        final int start = (int) (address & (PAGE_SIZE - 1));
+        final int end = start + textLengths[position];
+        int wordStart = start;
+        for (int i = start; i <= end; i++) {
+            final byte b = i < end ? page[i] : (byte) ' ';
+            if (b < 0) {
+                return -1;
+            }
+            if (!Character.isWhitespace(b)) {
+                continue;
+            }
+            if (i > wordStart && isOneOf(page, wordStart, i, words)) {
+                // bounded by ASCII whitespace or the ends, as decoded text would be
+                return 1;
+            }
+            wordStart = i + 1;
+        }
+        return 0;
+    }
+
+    // true iff page[start..end) equals one of the lowercase words, ignoring ASCII case
+    private static boolean isOneOf(byte[] page, int start, int end, byte[][] words) {
+        for (byte[] word : words) {
+            if (word.length != end - start) {
+                continue;
+            }
+            int i = 0;
+            while (i < word.length && foldAscii((char) page[start + i]) == word[i]) {
+                i++;
+            }
+            if (i == word.length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static char foldAscii(char c) {
+        return (c >= 'A' && c <= 'Z') ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    private void checkPosition(int position) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("position " + position + ", size " + size);
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package twitter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * TweetIndex is an immutable inverted index over a list of tweets, built once
+ * and then used to answer many Filter-style queries without rescanning the
+ * tweets.
+ *
+ * Every query method has the same spec as the Filter method of the same name,
+ * applied to the list of tweets the index was built from; in particular,
+ * results are in the same order as in that list.
+ */
+public class TweetIndex {
+
+    private final List<Tweet> tweets;
+    private final Map<String, int[]> wordPostings;
+    private final Map<String, int[]> authorPostings;
+    private final TweetStore store;
+    /*
+     * Rep invariant:
+     *    every posting list in wordPostings and authorPostings is nonempty,
+     *      strictly increasing, and holds indices into tweets
+     *    i is in wordPostings[w] iff the text of tweets[i], split into
+     *      words at space characters and lowercased, contains w
+     *    i is in authorPostings[a] iff tweets[i].getAuthor() lowercased is a
+     *    store represents the same list of tweets as tweets
+     *
+     * Abstraction function:
+     *    represents the list of tweets `tweets`
+     *
+     * Safety from rep exposure:
+     *    all fields are private and final; tweets is a private copy of the
+     *    caller's list and Tweet is immutable; queries return fresh lists.
+     */
+
+    /**
+     * Build an index.
+     *
+     * @param tweets
+     *            a list of tweets with distinct ids, not modified by this
+     *            method.
+     */
+    public TweetIndex(List<Tweet> tweets) {
+        this.tweets = new ArrayList<>(tweets);
+        final Map<String, Postings> words = new HashMap<>();
+        final Map<String, Postings> authors = new HashMap<>();
+        for (int i = 0; i < this.tweets.size(); i++) {
+            final Tweet tweet = this.tweets.get(i);
+            authors.computeIfAbsent(tweet.getAuthor().toLowerCase(), a -> new Postings()).add(i);
+            final String text = tweet.getText();
+            int start = 0;
+            while (start < text.length()) {
+                while (start < text.length() && Character.isWhitespace(text.charAt(start))) {
+                    start++;
+                }
+                int end = start;
+                while (end < text.length() && !Character.isWhitespace(text.charAt(end))) {
+                    end++;
+                }
+                if (end > start) {
+                    final String word = text.substring(start, end).toLowerCase();
+                    words.computeIfAbsent(word, w -> new Postings()).add(i);
+                }
+                start = end;
+            }
+        }
+        this.wordPostings = toArrays(words);
+        this.authorPostings = toArrays(authors);
+        this.store = new TweetStore(this.tweets);
+        checkRep();
+    }
+
+    private void checkRep() {
+        assert store.size() == tweets.size();
+    }
+
+    /**
+     * @return number of tweets in this index
+     */
+    public int size() {
+        return tweets.size();
+    }
+
+    /**
+     * Find tweets written by a particular user.
+     *
+     * @param username
+     *            Twitter username, required to be a valid Twitter username as
+     *            defined by Tweet.getAuthor()'s spec.
+     * @return all and only the indexed tweets whose author is username, in
+     *         the same order as in the indexed list.
+     */
+    public List<Tweet> writtenBy(String username) {
+        return select(authorPostings.get(username.toLowerCase()));
+    }
+
+    /**
+     * Find tweets that were sent during a particular timespan.
+     *
+     * @param timespan
+     *            timespan
+     * @return all and only the indexed tweets that were sent during the
+     *         timespan, in the same order as in the indexed list.
+     */
+    public List<Tweet> inTimespan(Timespan timespan) {
+        return select(store.positionsInTimespan(timespan));
+    }
+
+    /**
+     * Find tweets that contain certain words.
+     *
+     * @param words
+     *            a list of words to search for in the tweets. A word is a
+     *            nonempty sequence of nonspace characters.
+     * @return all and only the indexed tweets whose text includes *at least
+     *         one* of the words, compared case-insensitively as in
+     *         Filter.containing, in the same order as in the indexed list.
+     */
+    public List<Tweet> containing(List<String> words) {
+        final List<int[]> lists = new ArrayList<>();
+        postingsFor(words, lists);
+        int total = 0;
+        for (int[] list : lists) {
+            total += list.length;
+        }
+        final int[] union = new int[total];
+        int size = 0;
+        for (int[] list : lists) {
+            System.arraycopy(list, 0, union, size, list.length);
+            size += list.length;
+        }
+        Arrays.sort(union);
+        int distinct = 0;
+        for (int k = 0; k < union.length; k++) {
+            if (k == 0 || union[k] != union[k - 1]) {
+                union[distinct++] = union[k];
+            }
+        }
+        return select(Arrays.copyOf(union, distinct));
+    }
+
+    /**
+     * Find tweets that contain all of certain words.
+     *
+     * @param words
+     *            a nonempty list of words to search for in the tweets. A word
+     *            is a nonempty sequence of nonspace characters.
+     * @return all and only the indexed tweets whose text includes *every one*
+     *         of the words, compared case-insensitively as in
+     *         Filter.containing, in the same order as in the indexed list.
+     */
+    public List<Tweet> containingAll(List<String> words) {
+        final List<int[]> lists = new ArrayList<>();
+        if (!postingsFor(words, lists)) {
+            return new ArrayList<>();
+        }
+        // intersect starting from the shortest list, which bounds the result
+        lists.sort(Comparator.comparingInt(list -> list.length));
+        int[] result = lists.get(0);
+        for (int[] list : lists.subList(1, lists.size())) {
+            result = intersect(result, list);
+        }
+        return select(result);
+    }
+
+    /*
+     * Add the posting lists of the distinct lowercased words that occur in the
+     * index to lists, and return true iff every word occurs.
+     */
+    private boolean postingsFor(List<String> words, List<int[]> lists) {
+        boolean allFound = true;
+        for (String word : new HashSet<>(lowercase(words))) {
+            final int[] list = wordPostings.get(word);
+            if (list != null) {
+                lists.add(list);
+            } else {
+                allFound = false;
+            }
+        }
+        return allFound;
+    }
+
+    private static List<String> lowercase(List<String> words) {
+        final List<String> lower = new ArrayList<>(words.size());
+        for (String word : words) {
+            lower.add(word.toLowerCase());
+        }
+        return lower;
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        final int[] both = new int[Math.min(a.length, b.length)];
+        int size = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                both[size++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(both, size);
+    }
+
+    /*
+     * Tweets at the given increasing positions, or none if positions is null.
+     */
+    private List<Tweet> select(int[] positions) {
+        if (positions == null) {
+            return new ArrayList<>();
+        }
+        final List<Tweet> selected = new ArrayList<>(positions.length);
+        for (int position : positions) {
+            selected.add(tweets.get(position));
+        }
+        return selected;
+    }
+
+    private static Map<String, int[]> toArrays(Map<String, Postings> postings) {
+        final Map<String, int[]> arrays = new HashMap<>(postings.size() * 4 / 3 + 1);
+        for (Map.Entry<String, Postings> entry : postings.entrySet()) {
+            arrays.put(entry.getKey(), entry.getValue().toArray());
+        }
+        return Collections.unmodifiableMap(arrays);
+    }
+
+    /*
+     * Growable posting list used while building the index. Adding the same
+     * position twice in a row records it once, since each tweet is indexed in
+     * a single pass.
+     */
+    private static class Postings {
+        private int[] positions = new int[4];
+        private int size = 0;
+
+        void add(int position) {
+            if (size > 0 && positions[size - 1] == position) {
+                return;
+            }
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size * 2);
+            }
+            positions[size++] = position;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(positions, size);
+        }
+    }
+}
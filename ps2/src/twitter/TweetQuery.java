@@ -0,0 +1,262 @@
+package twitter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * TweetQuery is an immutable conjunction of the conditions in Filter: written
+ * by a user, sent during a timespan, and containing at least one of some
+ * words. For example,
+ *
+ * <pre>
+ * TweetQuery.by("alyssa").in(timespan).containing(Arrays.asList("mit", "rivest"))
+ * </pre>
+ *
+ * run() tests all of a query's conditions in one pass over a list of tweets,
+ * cheapest condition first, without building intermediate lists, and
+ * runAll() answers many queries with one shared pass.
+ */
+public class TweetQuery {
+
+    private final String author;
+    private final Timespan timespan;
+    private final List<String> words;
+    private final KeywordFilter keywords;
+    /*
+     * Rep invariant:
+     *    author is null or a lowercase Twitter username
+     *    words and keywords are both null, or keywords = new
+     *      KeywordFilter(words) and words is unmodifiable
+     *
+     * Abstraction function:
+     *    represents the condition on a tweet t that
+     *      (author = null or t is written by author, ignoring case) and
+     *      (timespan = null or t was sent during timespan) and
+     *      (words = null or t's text contains at least one of words, as in
+     *       Filter.containing)
+     *
+     * Safety from rep exposure:
+     *    all fields are private and final; Strings and Timespans are
+     *    immutable, words is an unmodifiable copy, and keywords is immutable
+     *    and never returned.
+     */
+
+    private TweetQuery(String author, Timespan timespan, List<String> words, KeywordFilter keywords) {
+        this.author = author;
+        this.timespan = timespan;
+        this.words = words;
+        this.keywords = keywords;
+        checkRep();
+    }
+
+    private void checkRep() {
+        assert author == null || author.equals(author.toLowerCase(Locale.ROOT));
+        assert (words == null) == (keywords == null);
+    }
+
+    /**
+     * @return a query that every tweet satisfies
+     */
+    public static TweetQuery all() {
+        return new TweetQuery(null, null, null, null);
+    }
+
+    /**
+     * @param username
+     *            Twitter username, required to be a valid Twitter username as
+     *            defined by Tweet.getAuthor()'s spec
+     * @return a query for the tweets written by username, as in
+     *         Filter.writtenBy
+     */
+    public static TweetQuery by(String username) {
+        return new TweetQuery(username.toLowerCase(Locale.ROOT), null, null, null);
+    }
+
+    /**
+     * @param timespan
+     *            timespan
+     * @return a query for the tweets that satisfy this query and were sent
+     *         during timespan, as in Filter.inTimespan
+     * @throws IllegalStateException
+     *             if this query already has a timespan
+     */
+    public TweetQuery in(Timespan timespan) {
+        if (this.timespan != null) {
+            throw new IllegalStateException("query already has a timespan");
+        }
+        return new TweetQuery(author, timespan, words, keywords);
+    }
+
+    /**
+     * @param words
+     *            a list of words to search for, as in Filter.containing; not
+     *            modified by this method
+     * @return a query for the tweets that satisfy this query and whose text
+     *         contains at least one of words, as in Filter.containing
+     * @throws IllegalStateException
+     *             if this query already has words
+     */
+    public TweetQuery containing(List<String> words) {
+        if (this.words != null) {
+            throw new IllegalStateException("query already has words");
+        }
+        final List<String> copy = Collections.unmodifiableList(new ArrayList<>(words));
+        return new TweetQuery(author, timespan, copy, new KeywordFilter(copy));
+    }
+
+    /**
+     * @param tweet
+     *            a tweet
+     * @return true iff tweet satisfies this query
+     */
+    public boolean matches(Tweet tweet) {
+        // cheapest first
+        return isByAuthor(tweet) && inTimespan(tweet)
+                && (keywords == null || keywords.matches(tweet.getText()));
+    }
+
+    private boolean isByAuthor(Tweet tweet) {
+        // a length check usually rejects other authors without comparing
+        return author == null || (tweet.getAuthor().length() == author.length()
+                && tweet.getAuthor().equalsIgnoreCase(author));
+    }
+
+    private boolean inTimespan(Tweet tweet) {
+        return timespan == null || (!tweet.getTimestamp().isBefore(timespan.getStart())
+                && !tweet.getTimestamp().isAfter(timespan.getEnd()));
+    }
+
+    /**
+     * Find the tweets that satisfy this query.
+     *
+     * @param tweets
+     *            a list of tweets with distinct ids, not modified by this
+     *            method
+     * @return all and only the tweets in the list that satisfy this query,
+     *         in the same order as in the input list
+     */
+    public List<Tweet> run(List<Tweet> tweets) {
+        final List<Tweet> matching = new ArrayList<>();
+        for (Tweet tweet : tweets) {
+            if (matches(tweet)) {
+                matching.add(tweet);
+            }
+        }
+        return matching;
+    }
+
+    /**
+     * Run many queries in one pass over a list of tweets.
+     *
+     * The words of all the queries are compiled into one KeywordFilter, so
+     * each tweet's text is scanned once no matter how many queries there
+     * are, and only the queries that one of its words or its author could
+     * satisfy are tested against a tweet.
+     *
+     * @param queries
+     *            queries to run, not modified by this method
+     * @param tweets
+     *            a list of tweets with distinct ids, not modified by this
+     *            method
+     * @return a list whose i-th element is queries.get(i).run(tweets)
+     */
+    public static List<List<Tweet>> runAll(List<TweetQuery> queries, List<Tweet> tweets) {
+        // queries with words are found through the words they contain;
+        // the rest through their author, or tested on every tweet
+        final List<String> allWords = new ArrayList<>();
+        final List<List<Integer>> queriesByWord = new ArrayList<>();
+        final Map<String, List<Integer>> queriesByAuthor = new HashMap<>();
+        final List<Integer> anyTweetQueries = new ArrayList<>();
+        for (int q = 0; q < queries.size(); q++) {
+            final TweetQuery query = queries.get(q);
+            if (query.words != null) {
+                for (String word : query.words) {
+                    allWords.add(word);
+                    queriesByWord.add(Collections.singletonList(q));
+                }
+            } else if (query.author != null) {
+                queriesByAuthor.computeIfAbsent(query.author, a -> new ArrayList<>()).add(q);
+            } else {
+                anyTweetQueries.add(q);
+            }
+        }
+        final KeywordFilter keywords = new KeywordFilter(allWords);
+        mergeQueriesOfEqualWords(allWords, queriesByWord);
+
+        final List<List<Tweet>> results = new ArrayList<>(queries.size());
+        for (int q = 0; q < queries.size(); q++) {
+            results.add(new ArrayList<>());
+        }
+        // lastTested[q] is 1 + the index of the last tweet query q was tested on
+        final int[] lastTested = new int[queries.size()];
+        for (int t = 0; t < tweets.size(); t++) {
+            final Tweet tweet = tweets.get(t);
+            final int stamp = t + 1;
+            for (int q : anyTweetQueries) {
+                testQuery(queries, results, q, tweet);
+            }
+            final List<Integer> byAuthor =
+                    queriesByAuthor.get(tweet.getAuthor().toLowerCase(Locale.ROOT));
+            if (byAuthor != null) {
+                for (int q : byAuthor) {
+                    testQuery(queries, results, q, tweet);
+                }
+            }
+            if (!allWords.isEmpty()) {
+                keywords.scan(tweet.getText(), word -> {
+                    for (int q : queriesByWord.get(word)) {
+                        if (lastTested[q] != stamp) {
+                            lastTested[q] = stamp;
+                            testQuery(queries, results, q, tweet);
+                        }
+                    }
+                    return false;
+                });
+            }
+        }
+        return results;
+    }
+
+    /*
+     * KeywordFilter reports only the last of several words that fold to the
+     * same string, so give that word the queries of all of them.
+     */
+    private static void mergeQueriesOfEqualWords(List<String> allWords, List<List<Integer>> queriesByWord) {
+        final Map<String, Integer> lastIndex = new HashMap<>();
+        for (int w = 0; w < allWords.size(); w++) {
+            lastIndex.put(KeywordFilter.foldWord(allWords.get(w)), w);
+        }
+        for (int w = 0; w < allWords.size(); w++) {
+            final int last = lastIndex.get(KeywordFilter.foldWord(allWords.get(w)));
+            if (last != w) {
+                final List<Integer> merged = new ArrayList<>(queriesByWord.get(last));
+                merged.addAll(queriesByWord.get(w));
+                queriesByWord.set(last, merged);
+            }
+        }
+    }
+
+    /*
+     * Test a candidate query on a tweet whose words the caller has already
+     * matched, if the query has any, and record the tweet if it matches.
+     */
+    private static void testQuery(List<TweetQuery> queries, List<List<Tweet>> results, int q, Tweet tweet) {
+        final TweetQuery query = queries.get(q);
+        if (query.isByAuthor(tweet) && query.inTimespan(tweet)) {
+            results.get(q).add(tweet);
+        }
+    }
+
+    /*
+     * @see Object.toString()
+     */
+    @Override public String toString() {
+        return "TweetQuery(by " + (author == null ? "anyone" : author)
+                + (timespan == null ? "" : ", in " + timespan)
+                + (words == null ? "" : ", containing " + words) + ")";
+    }
+}
@@ -0,0 +1,358 @@
+package twitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * TweetReader reads tweets lazily from newline-delimited JSON (NDJSON) files,
+ * one JSON object per line, such as
+ *
+ * <pre>
+ * {"id": 1, "author": "alyssa", "text": "#mit rocks", "timestamp": "2016-02-17T10:00:00Z"}
+ * </pre>
+ *
+ * The file is memory-mapped a window at a time, and each record is parsed
+ * only when the stream reaches it, so files much larger than the heap can be
+ * streamed through Extract-, Filter- and SocialNetwork-style computations
+ * (see TweetStreams).
+ */
+public class TweetReader {
+
+    /*
+     * Size of each memory-mapped window of the file. A record must be shorter
+     * than one window.
+     */
+    static final int WINDOW_SIZE = 64 * 1024 * 1024;
+
+    /**
+     * Open an NDJSON tweet file as a stream.
+     *
+     * @param file
+     *            path to a UTF-8 file in which every nonblank line is a JSON
+     *            object with at least the members "id" (an integer),
+     *            "author" (a Twitter username), "text" (a string) and
+     *            "timestamp" (an ISO-8601 instant string such as
+     *            "2016-02-17T10:00:00Z"); other members are ignored.
+     * @return a sequential, ordered stream of the tweets in the file, in file
+     *         order. The stream holds the file open until it is closed, so use
+     *         it in a try-with-resources statement. A malformed record makes
+     *         the stream throw UncheckedIOException when it reaches that
+     *         record.
+     * @throws IOException
+     *             if the file cannot be opened
+     */
+    public static Stream<Tweet> read(Path file) throws IOException {
+        return read(file, WINDOW_SIZE);
+    }
+
+    /*
+     * read(file), mapping windowSize bytes of the file at a time.
+     */
+    static Stream<Tweet> read(Path file, int windowSize) throws IOException {
+        final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        final Stream<Tweet> tweets =
+                StreamSupport.stream(new RecordSpliterator(channel, windowSize), false);
+        return tweets.onClose(() -> {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /*
+     * Walks the file a mapped window at a time, handing out one parsed tweet
+     * per nonblank line.
+     */
+    private static class RecordSpliterator extends Spliterators.AbstractSpliterator<Tweet> {
+        private final FileChannel channel;
+        private final long fileSize;
+        private final int windowSize;
+        private MappedByteBuffer window;
+        private long windowStart = 0;
+        private byte[] line = new byte[1024];
+
+        RecordSpliterator(FileChannel channel, int windowSize) throws IOException {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+            this.channel = channel;
+            this.fileSize = channel.size();
+            this.windowSize = windowSize;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Tweet> action) {
+            try {
+                while (true) {
+                    final long lineStart = nextLineStart();
+                    if (lineStart < 0) {
+                        return false;
+                    }
+                    final int length = readLine();
+                    if (!isBlank(line, length)) {
+                        action.accept(parse(new String(line, 0, length, StandardCharsets.UTF_8), lineStart));
+                        return true;
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /*
+         * Make sure the window holds the start of the next line, or return
+         * -1 at the end of the file; return the file offset of that line.
+         */
+        private long nextLineStart() throws IOException {
+            if (window == null || (!window.hasRemaining() && windowStart + window.limit() < fileSize)) {
+                final long position = window == null ? 0 : windowStart + window.limit();
+                map(position);
+            }
+            return window.hasRemaining() ? windowStart + window.position() : -1;
+        }
+
+        /*
+         * Copy the line at the window's position, without its line
+         * terminator, into line, and return its length. Remaps the window to
+         * start at the line if the line runs past the window's end.
+         */
+        private int readLine() throws IOException {
+            int length = 0;
+            while (true) {
+                while (window.hasRemaining()) {
+                    final byte b = window.get();
+                    if (b == '\n') {
+                        return trimCarriageReturn(length);
+                    }
+                    if (length == line.length) {
+                        line = Arrays.copyOf(line, length * 2);
+                    }
+                    line[length++] = b;
+                }
+                final long windowEnd = windowStart + window.limit();
+                if (windowEnd >= fileSize) {
+                    return trimCarriageReturn(length);
+                }
+                if (length >= windowSize) {
+                    throw new IOException("record at byte " + (windowEnd - length)
+                            + " is not shorter than " + windowSize + " bytes");
+                }
+                // continue the line in a window that starts where it starts
+                map(windowEnd - length);
+                window.position(length);
+            }
+        }
+
+        private int trimCarriageReturn(int length) {
+            return length > 0 && line[length - 1] == '\r' ? length - 1 : length;
+        }
+
+        private void map(long position) throws IOException {
+            final long size = Math.min(windowSize, fileSize - position);
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+            windowStart = position;
+        }
+    }
+
+    private static boolean isBlank(byte[] bytes, int length) {
+        for (int i = 0; i < length; i++) {
+            if (bytes[i] != ' ' && bytes[i] != '\t') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parse one NDJSON record.
+     *
+     * @param record
+     *            a JSON object with the members described by read()
+     * @param offset
+     *            byte offset of the record in its file, used in error messages
+     * @return the tweet the record describes
+     * @throws IOException
+     *             if record is not such a JSON object
+     */
+    static Tweet parse(String record, long offset) throws IOException {
+        final JsonObjectParser parser = new JsonObjectParser(record, offset);
+        Long id = null;
+        String author = null;
+        String text = null;
+        Instant timestamp = null;
+        parser.expect('{');
+        if (!parser.consume('}')) {
+            do {
+                final String name = parser.string();
+                parser.expect(':');
+                switch (name) {
+                case "id":
+                    id = parser.integer();
+                    break;
+                case "author":
+                    author = parser.string();
+                    break;
+                case "text":
+                    text = parser.string();
+                    break;
+                case "timestamp":
+                    final String instant = parser.string();
+                    try {
+                        timestamp = Instant.parse(instant);
+                    } catch (DateTimeParseException e) {
+                        throw parser.error("bad timestamp \"" + instant + "\"");
+                    }
+                    break;
+                default:
+                    parser.skipValue();
+                }
+            } while (parser.consume(','));
+            parser.expect('}');
+        }
+        parser.expectEnd();
+        if (id == null || author == null || text == null || timestamp == null) {
+            throw parser.error("record needs id, author, text and timestamp");
+        }
+        return new Tweet(id, author, text, timestamp);
+    }
+
+    /*
+     * Recursive-descent reader for the subset of JSON that tweet records
+     * need: objects, strings, integers, and skipping any other value.
+     */
+    private static class JsonObjectParser {
+        private final String json;
+        private final long offset;
+        private int position = 0;
+
+        JsonObjectParser(String json, long offset) {
+            this.json = json;
+            this.offset = offset;
+        }
+
+        IOException error(String message) {
+            return new IOException("malformed tweet record at byte " + offset + ": " + message);
+        }
+
+        private void skipWhitespace() {
+            while (position < json.length() && Character.isWhitespace(json.charAt(position))) {
+                position++;
+            }
+        }
+
+        boolean consume(char c) {
+            skipWhitespace();
+            if (position < json.length() && json.charAt(position) == c) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        void expect(char c) throws IOException {
+            if (!consume(c)) {
+                throw error("expected '" + c + "' at column " + position);
+            }
+        }
+
+        void expectEnd() throws IOException {
+            skipWhitespace();
+            if (position != json.length()) {
+                throw error("unexpected text at column " + position);
+            }
+        }
+
+        long integer() throws IOException {
+            skipWhitespace();
+            final int start = position;
+            if (position < json.length() && json.charAt(position) == '-') {
+                position++;
+            }
+            while (position < json.length() && Character.isDigit(json.charAt(position))) {
+                position++;
+            }
+            try {
+                return Long.parseLong(json.substring(start, position));
+            } catch (NumberFormatException e) {
+                throw error("expected an integer at column " + start);
+            }
+        }
+
+        String string() throws IOException {
+            expect('"');
+            final StringBuilder value = new StringBuilder();
+            while (position < json.length()) {
+                final char c = json.charAt(position++);
+                if (c == '"') {
+                    return value.toString();
+                } else if (c != '\\') {
+                    value.append(c);
+                } else if (position < json.length()) {
+                    final char escaped = json.charAt(position++);
+                    switch (escaped) {
+                    case 'b': value.append('\b'); break;
+                    case 'f': value.append('\f'); break;
+                    case 'n': value.append('\n'); break;
+                    case 'r': value.append('\r'); break;
+                    case 't': value.append('\t'); break;
+                    case 'u':
+                        if (position + 4 > json.length()) {
+                            throw error("truncated \\u escape");
+                        }
+                        try {
+                            value.append((char) Integer.parseInt(json.substring(position, position + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw error("bad \\u escape at column " + position);
+                        }
+                        position += 4;
+                        break;
+                    default: value.append(escaped);
+                    }
+                }
+            }
+            throw error("unterminated string");
+        }
+
+        void skipValue() throws IOException {
+            skipWhitespace();
+            if (position >= json.length()) {
+                throw error("expected a value");
+            }
+            final char c = json.charAt(position);
+            if (c == '"') {
+                string();
+            } else if (c == '{' || c == '[') {
+                final char close = c == '{' ? '}' : ']';
+                position++;
+                if (!consume(close)) {
+                    do {
+                        if (c == '{') {
+                            string();
+                            expect(':');
+                        }
+                        skipValue();
+                    } while (consume(','));
+                    expect(close);
+                }
+            } else {
+                // number, true, false or null
+                while (position < json.length() && ",}] \t".indexOf(json.charAt(position)) < 0) {
+                    position++;
+                }
+            }
+        }
+    }
+}
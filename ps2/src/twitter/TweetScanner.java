@@ -0,0 +1,105 @@
+package twitter;
+
+import java.util.Collection;
+import java.util.Locale;
+
+/**
+ * TweetScanner consists of methods that pick tokens such as @-mentions and
+ * #hashtags out of tweet text in a single left-to-right pass, without regular expressions.
+ *
+ * These scanners are the shared hot path behind Extract and SocialNetwork, so
+ * they never allocate anything except the strings they report.
+ */
+public class TweetScanner {
+
+    /**
+     * Find the usernames mentioned in a piece of tweet text.
+     *
+     * @param text
+     *            tweet text to scan
+     * @param mentionedUsers
+     *            collection to which every username-mention found in text is
+     *            added, converted to lowercase. A username-mention is "@"
+     *            followed by a Twitter username (as defined by
+     *            Tweet.getAuthor()'s spec) that is not immediately preceded or
+     *            followed by any character valid in a Twitter username, the
+     *            same rule Extract.getMentionedUsers specifies.
+     */
+    public static void addMentions(String text, Collection<? super String> mentionedUsers) {
+        final int length = text.length();
+        int i = text.indexOf('@');
+        while (i >= 0) {
+            int end = i + 1;
+            while (end < length && isUsernameChar(text.charAt(end))) {
+                end++;
+            }
+            if (end > i + 1
+                    && (i == 0 || !isWordChar(text.charAt(i - 1)))
+                    && (end == length || !isWordChar(text.charAt(end)))) {
+                mentionedUsers.add(toLowerAscii(text, i + 1, end));
+            }
+            i = text.indexOf('@', end);
+        }
+    }
+
+    /**
+     * Find the hashtags used in a piece of tweet text.
+     *
+     * @param text
+     *            tweet text to scan
+     * @param hashtags
+     *            collection to which every hashtag found in text is added,
+     *            without its "#" and converted to lowercase. A hashtag is "#"
+     *            followed by the longest possible nonempty run of letters A-Z,
+     *            a-z and digits 0-9.
+     */
+    public static void addHashtags(String text, Collection<? super String> hashtags) {
+        final int length = text.length();
+        int i = text.indexOf('#');
+        while (i >= 0) {
+            int end = i + 1;
+            while (end < length && isHashtagChar(text.charAt(end))) {
+                end++;
+            }
+            if (end > i + 1) {
+                hashtags.add(toLowerAscii(text, i + 1, end));
+            }
+            i = text.indexOf('#', end);
+        }
+    }
+
+    /**
+     * @param c
+     *            a character
+     * @return true iff c may appear in a Twitter username, as defined by
+     *         Tweet.getAuthor()'s spec
+     */
+    static boolean isUsernameChar(char c) {
+        return (c >= 'a' && c <= 'z')
+                || (c >= 'A' && c <= 'Z')
+                || (c >= '0' && c <= '9')
+                || c == '_' || c == '-';
+    }
+
+    private static boolean isHashtagChar(char c) {
+        return (c >= 'a' && c <= 'z')
+                || (c >= 'A' && c <= 'Z')
+                || (c >= '0' && c <= '9');
+    }
+
+    /*
+     * Boundary test for mentions: any letter or digit (including non-ASCII
+     * ones), underscore, or hyphen glued to a mention disqualifies it.
+     */
+    private static boolean isWordChar(char c) {
+        return isUsernameChar(c) || (c > 0x7f && Character.isLetterOrDigit(c));
+    }
+
+    /*
+     * Lowercase text[start..end), which must be all ASCII. toLowerCase returns
+     * the substring itself when it is already lowercase.
+     */
+    private static String toLowerAscii(String text, int start, int end) {
+        return text.substring(start, end).toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,261 @@
+package twitter;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * TweetStore is an immutable, column-oriented copy of a list of tweets that
+ * answers time-range queries by binary search instead of a linear scan.
+ *
+ * Tweets are identified by their position in the list the store was built
+ * from, and query results are in the same order as in that list.
+ */
+public class TweetStore {
+
+    private final long[] ids;
+    private final long[] epochNanos;
+    private final String[] authors;
+    private final String[] texts;
+    private final int[] byTime;
+    private final long[] sortedNanos;
+    private final Timespan timespan;
+    /*
+     * Rep invariant:
+     *    ids, epochNanos, authors, texts, byTime, sortedNanos all have the
+     *      same length n
+     *    byTime is a permutation of 0..n-1
+     *    sortedNanos[k] = epochNanos[byTime[k]], and sortedNanos is
+     *      nondecreasing
+     *    timespan is null iff n = 0, and otherwise spans exactly
+     *      sortedNanos[0]..sortedNanos[n-1]
+     *
+     * Abstraction function:
+     *    represents the list of tweets t_0..t_{n-1} where
+     *      t_i = Tweet(ids[i], authors[i], texts[i], epochNanos[i] as an Instant)
+     *
+     * Safety from rep exposure:
+     *    all fields are private and final, and no array is ever returned;
+     *    positions queries return fresh arrays, Timespan is immutable.
+     */
+
+    /**
+     * Build a store.
+     *
+     * @param tweets
+     *            a list of tweets with distinct ids, not modified by this
+     *            method. Every timestamp must be representable as a long
+     *            count of nanoseconds since the epoch (years 1678 to 2261).
+     */
+    public TweetStore(List<Tweet> tweets) {
+        this(tweets.stream().mapToLong(Tweet::getId).toArray(),
+                tweets.stream().mapToLong(tweet -> toEpochNanos(tweet.getTimestamp())).toArray(),
+                tweets.stream().map(Tweet::getAuthor).toArray(String[]::new),
+                tweets.stream().map(Tweet::getText).toArray(String[]::new));
+    }
+
+    /*
+     * Build a store from its columns, which must have equal lengths; takes
+     * ownership of the arrays.
+     */
+    TweetStore(long[] ids, long[] epochNanos, String[] authors, String[] texts) {
+        final int n = ids.length;
+        this.ids = ids;
+        this.epochNanos = epochNanos;
+        this.authors = authors;
+        this.texts = texts;
+
+        this.byTime = sortedByKey(epochNanos);
+        this.sortedNanos = new long[n];
+        for (int k = 0; k < n; k++) {
+            sortedNanos[k] = epochNanos[byTime[k]];
+        }
+        this.timespan = n == 0 ? null
+                : new Timespan(toInstant(sortedNanos[0]), toInstant(sortedNanos[n - 1]));
+        checkRep();
+    }
+
+    private void checkRep() {
+        final int n = ids.length;
+        assert epochNanos.length == n && authors.length == n && texts.length == n;
+        assert byTime.length == n && sortedNanos.length == n;
+        assert (timespan == null) == (n == 0);
+    }
+
+    /**
+     * @return number of tweets in this store
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * @param position
+     *            index of a tweet in this store, requires 0 <= position < size()
+     * @return the tweet at that position, equal to the tweet at the same
+     *         position in the list the store was built from
+     */
+    public Tweet getTweet(int position) {
+        return new Tweet(ids[position], authors[position], texts[position],
+                toInstant(epochNanos[position]));
+    }
+
+    /*
+     * Column accessors, requiring 0 <= position < size().
+     */
+    long getId(int position) {
+        return ids[position];
+    }
+
+    String getAuthor(int position) {
+        return authors[position];
+    }
+
+    String getText(int position) {
+        return texts[position];
+    }
+
+    /**
+     * @param position
+     *            index of a tweet in this store, requires 0 <= position < size()
+     * @return timestamp of the tweet at that position, in nanoseconds since
+     *         the epoch
+     */
+    public long getEpochNanos(int position) {
+        return epochNanos[position];
+    }
+
+    /**
+     * Get the time period spanned by the tweets, in constant time.
+     *
+     * @return a minimum-length time interval that contains the timestamp of
+     *         every tweet in this store, as specified by Extract.getTimespan
+     * @throws IllegalArgumentException
+     *             if this store is empty
+     */
+    public Timespan getTimespan() {
+        if (timespan == null) {
+            throw new IllegalArgumentException("List of tweets cannot be empty");
+        }
+        return timespan;
+    }
+
+    /**
+     * Find tweets that were sent during a particular timespan.
+     *
+     * @param timespan
+     *            timespan
+     * @return all and only the stored tweets that were sent during the
+     *         timespan, in the same order as in the list the store was built
+     *         from, as specified by Filter.inTimespan
+     */
+    public List<Tweet> inTimespan(Timespan timespan) {
+        final int[] positions = positionsInTimespan(timespan);
+        final List<Tweet> tweets = new ArrayList<>(positions.length);
+        for (int position : positions) {
+            tweets.add(getTweet(position));
+        }
+        return tweets;
+    }
+
+    /**
+     * Find the positions of tweets that were sent during a particular timespan.
+     *
+     * @param timespan
+     *            timespan
+     * @return increasing positions of all and only the stored tweets that
+     *         were sent during the timespan
+     */
+    public int[] positionsInTimespan(Timespan timespan) {
+        final int from = lowerBound(sortedNanos, toEpochNanos(timespan.getStart()));
+        final int to = lowerBound(sortedNanos, saturatedIncrement(toEpochNanos(timespan.getEnd())));
+        final int[] positions = Arrays.copyOfRange(byTime, from, to);
+        Arrays.sort(positions);
+        return positions;
+    }
+
+    /**
+     * Count the tweets that were sent during a particular timespan, in
+     * logarithmic time.
+     *
+     * @param timespan
+     *            timespan
+     * @return number of stored tweets that were sent during the timespan
+     */
+    public int countInTimespan(Timespan timespan) {
+        final int from = lowerBound(sortedNanos, toEpochNanos(timespan.getStart()));
+        final int to = lowerBound(sortedNanos, saturatedIncrement(toEpochNanos(timespan.getEnd())));
+        return to - from;
+    }
+
+    private static long saturatedIncrement(long value) {
+        return value == Long.MAX_VALUE ? value : value + 1;
+    }
+
+    /**
+     * Convert an instant to nanoseconds since the epoch, saturating at
+     * Long.MIN_VALUE and Long.MAX_VALUE for instants outside the range a long
+     * can count.
+     *
+     * @param instant
+     *            instant to convert
+     * @return nanoseconds from 1970-01-01T00:00:00Z to instant, saturated
+     */
+    static long toEpochNanos(Instant instant) {
+        try {
+            return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000_000L),
+                    instant.getNano());
+        } catch (ArithmeticException e) {
+            return instant.getEpochSecond() < 0 ? Long.MIN_VALUE : Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * @param epochNanos
+     *            nanoseconds since the epoch
+     * @return the instant epochNanos after 1970-01-01T00:00:00Z
+     */
+    static Instant toInstant(long epochNanos) {
+        return Instant.ofEpochSecond(Math.floorDiv(epochNanos, 1_000_000_000L),
+                Math.floorMod(epochNanos, 1_000_000_000L));
+    }
+
+    /*
+     * Positions 0..keys.length-1 stably sorted by keys, without boxing: sort
+     * a copy of the keys, then drop each position into the next free slot of
+     * its key's run in the sorted copy.
+     */
+    private static int[] sortedByKey(long[] keys) {
+        final int n = keys.length;
+        final long[] sorted = keys.clone();
+        Arrays.sort(sorted);
+        final int[] order = new int[n];
+        final int[] next = new int[n];
+        for (int k = 0; k < n; k++) {
+            next[k] = k;
+        }
+        for (int i = 0; i < n; i++) {
+            order[next[lowerBound(sorted, keys[i])]++] = i;
+        }
+        return order;
+    }
+
+    /*
+     * Index of the first element of sorted that is >= key, or sorted.length
+     * if there is none.
+     */
+    private static int lowerBound(long[] sorted, long key) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (sorted[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,106 @@
+package twitter;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * TweetStreams consists of one-pass variants of the Extract and Filter
+ * methods that consume a stream of tweets, such as one from TweetReader,
+ * instead of a fully materialized list.
+ *
+ * Each method has the spec of the Extract or Filter method of the same name,
+ * applied to the list of tweets the stream would produce, except that Filter
+ * variants return lazy streams rather than lists.
+ */
+public class TweetStreams {
+
+    /**
+     * Get the time period spanned by tweets, consuming the stream.
+     *
+     * @param tweets
+     *            stream of tweets with distinct ids
+     * @return a minimum-length time interval that contains the timestamp of
+     *         every tweet in the stream
+     * @throws IllegalArgumentException
+     *             if the stream is empty
+     */
+    public static Timespan getTimespan(Stream<Tweet> tweets) {
+        final Instant[] span = new Instant[2];
+        tweets.forEachOrdered(tweet -> {
+            final Instant timestamp = tweet.getTimestamp();
+            if (span[0] == null || timestamp.isBefore(span[0])) {
+                span[0] = timestamp;
+            }
+            if (span[1] == null || timestamp.isAfter(span[1])) {
+                span[1] = timestamp;
+            }
+        });
+        if (span[0] == null) {
+            throw new IllegalArgumentException("List of tweets cannot be empty");
+        }
+        return new Timespan(span[0], span[1]);
+    }
+
+    /**
+     * Get usernames mentioned in tweets, consuming the stream.
+     *
+     * @param tweets
+     *            stream of tweets with distinct ids
+     * @return the set of usernames who are mentioned in the text of the
+     *         tweets, lowercased, as specified by Extract.getMentionedUsers
+     */
+    public static Set<String> getMentionedUsers(Stream<Tweet> tweets) {
+        final Set<String> mentionedUsers = new HashSet<>();
+        tweets.forEachOrdered(tweet -> TweetScanner.addMentions(tweet.getText(), mentionedUsers));
+        return mentionedUsers;
+    }
+
+    /**
+     * Find tweets written by a particular user.
+     *
+     * @param tweets
+     *            stream of tweets with distinct ids
+     * @param username
+     *            Twitter username, required to be a valid Twitter username as
+     *            defined by Tweet.getAuthor()'s spec.
+     * @return lazy stream of all and only the tweets whose author is
+     *         username, in stream order
+     */
+    public static Stream<Tweet> writtenBy(Stream<Tweet> tweets, String username) {
+        return tweets.filter(tweet -> tweet.getAuthor().equalsIgnoreCase(username));
+    }
+
+    /**
+     * Find tweets that were sent during a particular timespan.
+     *
+     * @param tweets
+     *            stream of tweets with distinct ids
+     * @param timespan
+     *            timespan
+     * @return lazy stream of all and only the tweets that were sent during
+     *         the timespan, in stream order
+     */
+    public static Stream<Tweet> inTimespan(Stream<Tweet> tweets, Timespan timespan) {
+        return tweets.filter(tweet -> !tweet.getTimestamp().isBefore(timespan.getStart())
+                && !tweet.getTimestamp().isAfter(timespan.getEnd()));
+    }
+
+    /**
+     * Find tweets that contain certain words.
+     *
+     * @param tweets
+     *            stream of tweets with distinct ids
+     * @param words
+     *            a list of words to search for in the tweets. A word is a
+     *            nonempty sequence of nonspace characters.
+     * @return lazy stream of all and only the tweets that Filter.containing
+     *         would keep, in stream order
+     */
+    public static Stream<Tweet> containing(Stream<Tweet> tweets, List<String> words) {
+        final KeywordFilter filter = new KeywordFilter(words);
+        return tweets.filter(tweet -> filter.matches(tweet.getText()));
+    }
+}
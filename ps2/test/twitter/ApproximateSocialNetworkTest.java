@@ -0,0 +1,190 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class ApproximateSocialNetworkTest {
+
+    /*
+     * Testing strategy:
+     * 
+     * guessFollowsGraph:
+     *     mentions: present, self-mention, mixed case
+     *     hashtags: authors sharing 0, 1, >= 2 hashtags; identical sets;
+     *         author with no hashtags
+     *     signature size: default; smaller than some authors' hashtag
+     *         sets (edges a subset of exact); at least every author's
+     *         hashtag count (edges equal to exact); signatureSize <= 0
+     *     bands: 1, several, more than the signature size; bands <= 0
+     *     bucket size: buckets below, at and above maxBucketSize; one
+     *         pair of hashtags used by thousands of authors;
+     *         maxBucketSize <= 0
+     * countMentionedUsers: no mentions; repeated and case-varied mentions;
+     *     many distinct users
+     */
+    
+    private static final Instant d1 = Instant.parse("2016-02-17T10:00:00Z");
+    
+    private static Tweet tweet(long id, String author, String text) {
+        return new Tweet(id, author, text, d1);
+    }
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    @Test
+    public void testEmpty() {
+        assertTrue("expected empty graph",
+                ApproximateSocialNetwork.guessFollowsGraph(Collections.emptyList()).isEmpty());
+        assertEquals("expected no users", 0,
+                ApproximateSocialNetwork.countMentionedUsers(Collections.emptyList(), 10));
+    }
+    
+    @Test
+    public void testMentionsExact() {
+        List<Tweet> tweets = Arrays.asList(
+                tweet(1, "Alyssa", "hi @BBitdiddle and @alyssa"),
+                tweet(2, "bbitdiddle", "no mentions here"),
+                tweet(3, "charlie", "@ALYSSA @bbitdiddle"));
+        Map<String, Set<String>> followsGraph = ApproximateSocialNetwork.guessFollowsGraph(tweets);
+        
+        assertEquals("expected every author as a key",
+                new HashSet<>(Arrays.asList("alyssa", "bbitdiddle", "charlie")), followsGraph.keySet());
+        assertEquals("expected mention, not self", Collections.singleton("bbitdiddle"), followsGraph.get("alyssa"));
+        assertEquals("expected no follows", Collections.emptySet(), followsGraph.get("bbitdiddle"));
+        assertEquals("expected both mentions",
+                new HashSet<>(Arrays.asList("alyssa", "bbitdiddle")), followsGraph.get("charlie"));
+    }
+    
+    @Test
+    public void testSharedHashtags() {
+        List<Tweet> tweets = Arrays.asList(
+                tweet(1, "alyssa", "#mit #6031 #rivest"),
+                tweet(2, "bbitdiddle", "#MIT #6031"),
+                tweet(3, "bbitdiddle", "#rivest"),
+                tweet(4, "charlie", "#mit only"),
+                tweet(5, "dave", "#obama #hype"),
+                tweet(6, "eve", "no hashtags"));
+        for (int bands : new int[] { 1, 16, 64 }) {
+            Map<String, Set<String>> followsGraph = ApproximateSocialNetwork.guessFollowsGraph(tweets, 64, bands);
+            
+            assertEquals("expected identical sets to follow each other, bands " + bands,
+                    Collections.singleton("bbitdiddle"), followsGraph.get("alyssa"));
+            assertEquals("expected identical sets to follow each other, bands " + bands,
+                    Collections.singleton("alyssa"), followsGraph.get("bbitdiddle"));
+            assertEquals("expected one shared hashtag not enough", Collections.emptySet(), followsGraph.get("charlie"));
+            assertEquals("expected disjoint hashtags", Collections.emptySet(), followsGraph.get("dave"));
+            assertEquals("expected no hashtags", Collections.emptySet(), followsGraph.get("eve"));
+        }
+    }
+    
+    @Test
+    public void testMentionsSubsetOfExact() {
+        List<Tweet> tweets = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            tweets.add(tweet(i, "user" + (i % 20), "@user" + (i * 7 % 23) + " #tag" + (i % 5) + " #tag" + (i % 3)));
+        }
+        Map<String, Set<String>> exact = SocialNetwork.guessFollowsGraph(tweets);
+        Map<String, Set<String>> approximate = ApproximateSocialNetwork.guessFollowsGraph(tweets);
+        
+        assertEquals("expected same keys", exact.keySet(), approximate.keySet());
+        for (Tweet tweet : tweets) {
+            String mentioned = tweet.getText().substring(1, tweet.getText().indexOf(' '));
+            if (!mentioned.equals(tweet.getAuthor())) {
+                assertTrue("expected mention edge", approximate.get(tweet.getAuthor()).contains(mentioned));
+            }
+        }
+    }
+    
+    @Test
+    public void testSignatureSize() {
+        List<Tweet> tweets = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            tweets.add(tweet(i, "user" + (i % 20), "#tag" + (i * 7 % 31) + " #tag" + (i * 11 % 37)));
+        }
+        Map<String, Set<String>> exact = SocialNetwork.guessFollowsGraph(tweets);
+        
+        Map<String, Set<String>> small = ApproximateSocialNetwork.guessFollowsGraph(tweets, 4, 1);
+        int smallEdges = 0;
+        for (String user : exact.keySet()) {
+            assertTrue("expected only exact edges", exact.get(user).containsAll(small.get(user)));
+            smallEdges += small.get(user).size();
+        }
+        assertTrue("expected some edges", smallEdges > 0);
+        for (int bands : new int[] { 1, 3, 100 }) {
+            assertEquals("expected exact graph, bands " + bands, exact,
+                    ApproximateSocialNetwork.guessFollowsGraph(tweets, 64, bands));
+        }
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testSignatureSizeNotPositive() {
+        ApproximateSocialNetwork.guessFollowsGraph(Collections.emptyList(), 0, 1);
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testBandsNotPositive() {
+        ApproximateSocialNetwork.guessFollowsGraph(Collections.emptyList(), 64, 0);
+    }
+    
+    @Test
+    public void testMaxBucketSize() {
+        List<Tweet> tweets = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            tweets.add(tweet(i, "user" + i, "#mit #6031"));
+        }
+        Map<String, Set<String>> atMost = ApproximateSocialNetwork.guessFollowsGraph(tweets, 64, 16, 10);
+        Map<String, Set<String>> above = ApproximateSocialNetwork.guessFollowsGraph(tweets, 64, 16, 9);
+        
+        for (int i = 0; i < 10; i++) {
+            assertEquals("expected all others at bucket size 10", 9, atMost.get("user" + i).size());
+            assertEquals("expected bucket of 10 skipped", Collections.emptySet(), above.get("user" + i));
+        }
+    }
+    
+    @Test
+    public void testDominantHashtag() {
+        List<Tweet> tweets = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            tweets.add(tweet(i, "user" + i, "breaking #news #today"));
+        }
+        tweets.add(tweet(20000, "user0", "#mit #6031"));
+        tweets.add(tweet(20001, "user1", "#MIT #6031"));
+        Map<String, Set<String>> followsGraph = ApproximateSocialNetwork.guessFollowsGraph(tweets);
+        
+        assertEquals("expected every author as a key", 20000, followsGraph.size());
+        assertEquals("expected rare hashtags found", Collections.singleton("user1"), followsGraph.get("user0"));
+        assertEquals("expected popular pair skipped", Collections.emptySet(), followsGraph.get("user2"));
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testMaxBucketSizeNotPositive() {
+        ApproximateSocialNetwork.guessFollowsGraph(Collections.emptyList(), 64, 16, 0);
+    }
+    
+    @Test
+    public void testCountMentionedUsers() {
+        List<Tweet> tweets = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            tweets.add(tweet(i, "alyssa", "@User" + i + " and @user" + i + " again"));
+        }
+        long estimate = ApproximateSocialNetwork.countMentionedUsers(tweets, 12);
+        
+        assertEquals("expected within 5%", 5000, estimate, 250);
+        assertEquals("expected small counts nearly exact", 2,
+                ApproximateSocialNetwork.countMentionedUsers(Arrays.asList(
+                        tweet(1, "alyssa", "@bbitdiddle @BBitdiddle @charlie")), 12));
+    }
+}
@@ -0,0 +1,100 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class CompactFollowsGraphTest {
+
+    /*
+     * Testing strategy:
+     * 
+     * fromMap/toMap: empty graph; user who is a key with an empty set;
+     *     user who is only followed, never a key; users with >1 follows
+     * id/name: username in graph, not in graph
+     * influencers: 0 users; users with 0, 1, >1 followers; ties broken
+     *     alphabetically
+     * influencers(k): k = 0, 0 < k < users, k = users, k > users; many
+     *     ties; followed users who are not keys
+     */
+    
+    private static Map<String, Set<String>> graph() {
+        Map<String, Set<String>> followsGraph = new HashMap<>();
+        followsGraph.put("alyssa", new HashSet<>(Arrays.asList("bbitdiddle", "charlie")));
+        followsGraph.put("bbitdiddle", new HashSet<>(Arrays.asList("alyssa", "charlie")));
+        followsGraph.put("dave", new HashSet<>());
+        followsGraph.put("eve", new HashSet<>(Arrays.asList("zed")));
+        return followsGraph;
+    }
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    @Test
+    public void testRoundTrip() {
+        CompactFollowsGraph compact = CompactFollowsGraph.fromMap(graph());
+        assertEquals(graph(), compact.toMap());
+        assertEquals(6, compact.userCount());
+        assertEquals(5, compact.edgeCount());
+        assertFalse("zed is only followed", compact.toMap().containsKey("zed"));
+    }
+    
+    @Test
+    public void testEmpty() {
+        CompactFollowsGraph compact = CompactFollowsGraph.fromMap(Collections.emptyMap());
+        assertEquals(Collections.emptyMap(), compact.toMap());
+        assertEquals(Collections.emptyList(), compact.influencers());
+    }
+    
+    @Test
+    public void testIdAndName() {
+        CompactFollowsGraph compact = CompactFollowsGraph.fromMap(graph());
+        assertEquals(0, compact.id("alyssa"));
+        assertEquals("zed", compact.name(compact.id("zed")));
+        assertTrue(compact.id("nobody") < 0);
+    }
+    
+    @Test
+    public void testInfluencers() {
+        assertEquals(Arrays.asList("charlie", "alyssa", "bbitdiddle", "zed", "dave", "eve"),
+                CompactFollowsGraph.fromMap(graph()).influencers());
+        assertEquals(SocialNetwork.influencers(graph()),
+                CompactFollowsGraph.fromMap(graph()).influencers());
+    }
+    
+    @Test
+    public void testInfluencersTopK() {
+        CompactFollowsGraph compact = CompactFollowsGraph.fromMap(graph());
+        assertEquals(Collections.emptyList(), compact.influencers(0));
+        assertEquals(Arrays.asList("charlie", "alyssa", "bbitdiddle"), compact.influencers(3));
+        assertEquals(compact.influencers(), compact.influencers(6));
+        assertEquals(compact.influencers(), compact.influencers(100));
+    }
+    
+    @Test
+    public void testInfluencersTopKManyTies() {
+        Map<String, Set<String>> followsGraph = new HashMap<>();
+        for (int user = 0; user < 50; user++) {
+            // an offset of 1..5 modulo 13 never maps a user to itself
+            Set<String> follows = new HashSet<>(Arrays.asList("user" + ((user + 1 + user % 5) % 13)));
+            if (user % 3 == 0) {
+                follows.add("celebrity" + user % 2);
+            }
+            followsGraph.put("user" + user, follows);
+        }
+        List<String> all = SocialNetwork.influencers(followsGraph);
+        for (int k = 0; k <= 53; k++) {
+            assertEquals(all.subList(0, Math.min(k, all.size())), SocialNetwork.influencers(followsGraph, k));
+        }
+    }
+}
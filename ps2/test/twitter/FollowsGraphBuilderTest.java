@@ -0,0 +1,92 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+public class FollowsGraphBuilderTest {
+
+    /*
+     * Testing strategy:
+     * 
+     * number of tweets added: 0, 1, >1; added one at a time, in batches
+     * tweets contain: mentions, self-mentions, mentions of non-authors,
+     *     hashtags shared by 2 users, hashtags shared by more users than
+     *     maxHashtagUsers (crossing the cap after pairs were counted)
+     * maxHashtagUsers: default (unlimited), small
+     * followsGraph() and influencers() match SocialNetwork after each addition
+     * influencers(k): k = 0, k < users, k > users
+     */
+    
+    private static final Instant d1 = Instant.parse("2016-02-17T10:00:00Z");
+    
+    private static List<Tweet> corpus() {
+        List<Tweet> tweets = new ArrayList<>();
+        tweets.add(new Tweet(1, "alyssa", "@bbitdiddle #mit #java", d1));
+        tweets.add(new Tweet(2, "bbitdiddle", "@Alyssa @bbitdiddle #MIT #python", d1));
+        tweets.add(new Tweet(3, "charlie", "#mit #java #python @nonexistentuser", d1));
+        tweets.add(new Tweet(4, "Greg", "#java #news", d1));
+        tweets.add(new Tweet(5, "hank", "#news #java #mit", d1));
+        tweets.add(new Tweet(6, "alyssa", "#news @greg", d1));
+        for (int id = 7; id < 60; id++) {
+            tweets.add(new Tweet(id, "user" + (id % 9),
+                    "@user" + (id % 4) + " #tag" + (id % 5) + " #tag" + (id % 3), d1));
+        }
+        return tweets;
+    }
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    @Test
+    public void testEmpty() {
+        FollowsGraphBuilder builder = new FollowsGraphBuilder();
+        assertTrue(builder.followsGraph().isEmpty());
+        assertTrue(builder.influencers().isEmpty());
+        assertEquals(Collections.emptySet(), builder.follows("alyssa"));
+    }
+    
+    @Test
+    public void testMatchesSocialNetworkAfterEachTweet() {
+        for (int maxHashtagUsers : new int[] { Integer.MAX_VALUE, 2, 3 }) {
+            FollowsGraphBuilder builder = new FollowsGraphBuilder(maxHashtagUsers);
+            List<Tweet> added = new ArrayList<>();
+            for (Tweet tweet : corpus()) {
+                builder.add(tweet);
+                added.add(tweet);
+                assertEquals(SocialNetwork.guessFollowsGraph(added, maxHashtagUsers), builder.followsGraph());
+                assertEquals(SocialNetwork.influencers(builder.followsGraph()), builder.influencers());
+            }
+        }
+    }
+    
+    @Test
+    public void testAddAllInBatches() {
+        List<Tweet> tweets = corpus();
+        Collections.reverse(tweets);
+        FollowsGraphBuilder builder = new FollowsGraphBuilder(3);
+        builder.addAll(tweets.subList(0, 20));
+        builder.addAll(tweets.subList(20, tweets.size()));
+        assertEquals(SocialNetwork.guessFollowsGraph(tweets, 3), builder.followsGraph());
+    }
+    
+    @Test
+    public void testFollowsAndTopK() {
+        FollowsGraphBuilder builder = new FollowsGraphBuilder();
+        builder.addAll(corpus().subList(0, 3));
+        assertTrue(builder.follows("ALYSSA").contains("bbitdiddle"));
+        List<String> all = builder.influencers();
+        assertEquals(Collections.emptyList(), builder.influencers(0));
+        assertEquals(all.subList(0, 2), builder.influencers(2));
+        assertEquals(all, builder.influencers(all.size() + 5));
+        assertEquals(Arrays.asList("alyssa", "bbitdiddle", "charlie"), all.subList(0, 3));
+    }
+}
@@ -0,0 +1,82 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class HyperLogLogTest {
+
+    /*
+     * Testing strategy:
+     * 
+     * estimate: nothing added; few distinct strings; many distinct strings
+     *     (past linear counting); duplicates
+     * addAll: disjoint and overlapping estimates; different precisions
+     * precision: below, at and above the allowed range
+     */
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    @Test
+    public void testEmpty() {
+        assertEquals("expected 0", 0, new HyperLogLog(10).estimate());
+    }
+    
+    @Test
+    public void testSmallAndDuplicates() {
+        HyperLogLog counter = new HyperLogLog(14);
+        for (int repeat = 0; repeat < 3; repeat++) {
+            for (int i = 0; i < 100; i++) {
+                counter.add("user" + i);
+            }
+        }
+        
+        assertEquals("expected about 100", 100, counter.estimate(), 2);
+    }
+    
+    @Test
+    public void testLarge() {
+        HyperLogLog counter = new HyperLogLog(12);
+        for (int i = 0; i < 1_000_000; i++) {
+            counter.add("user" + i);
+        }
+        
+        // standard error is about 1.6% at precision 12
+        assertEquals("expected within 5%", 1_000_000, counter.estimate(), 50_000);
+    }
+    
+    @Test
+    public void testAddAll() {
+        HyperLogLog a = new HyperLogLog(12);
+        HyperLogLog b = new HyperLogLog(12);
+        for (int i = 0; i < 30_000; i++) {
+            a.add("user" + i);
+            b.add("user" + (i + 20_000));
+        }
+        a.addAll(b);
+        
+        assertEquals("expected size of union", 50_000, a.estimate(), 2_500);
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testAddAllDifferentPrecision() {
+        new HyperLogLog(10).addAll(new HyperLogLog(11));
+    }
+    
+    @Test
+    public void testPrecisionRange() {
+        new HyperLogLog(4);
+        new HyperLogLog(18);
+        for (int precision : new int[] { 3, 19 }) {
+            try {
+                new HyperLogLog(precision);
+                fail("expected IllegalArgumentException for " + precision);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+}
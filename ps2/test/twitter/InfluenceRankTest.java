@@ -0,0 +1,137 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class InfluenceRankTest {
+
+    /*
+     * Testing strategy:
+     * 
+     * graph: empty, one user, a cycle, users who follow nobody (dangling),
+     *     followers that are themselves unfollowed vs. followed
+     * scores: sum to 1; exact values for symmetric graphs; maxIterations 1
+     *     vs. converged; parallelism 1 vs. > 1
+     * influencers: ties broken alphabetically; influence differs from
+     *     follower count
+     * bad arguments: negative tolerance, maxIterations 0, parallelism 0
+     */
+    
+    private static final double EPSILON = 1e-9;
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    private static void follow(Map<String, Set<String>> graph, String follower, String... followed) {
+        graph.computeIfAbsent(follower, u -> new HashSet<>()).addAll(Arrays.asList(followed));
+    }
+    
+    @Test
+    public void testEmpty() {
+        CompactFollowsGraph graph = CompactFollowsGraph.fromMap(Collections.emptyMap());
+        
+        assertEquals("expected no scores", 0, InfluenceRank.scores(graph, EPSILON, 10, 1).length);
+        assertTrue("expected no influencers", InfluenceRank.influencers(Collections.emptyMap()).isEmpty());
+    }
+    
+    @Test
+    public void testSingleUser() {
+        Map<String, Set<String>> followsGraph = new HashMap<>();
+        followsGraph.put("alyssa", new HashSet<>());
+        double[] scores = InfluenceRank.scores(CompactFollowsGraph.fromMap(followsGraph), EPSILON, 10, 1);
+        
+        assertArrayEquals("expected all the score", new double[] { 1.0 }, scores, EPSILON);
+    }
+    
+    @Test
+    public void testCycleTies() {
+        Map<String, Set<String>> followsGraph = new HashMap<>();
+        follow(followsGraph, "charlie", "alyssa");
+        follow(followsGraph, "alyssa", "bbitdiddle");
+        follow(followsGraph, "bbitdiddle", "charlie");
+        double[] scores = InfluenceRank.scores(CompactFollowsGraph.fromMap(followsGraph), EPSILON, 100, 2);
+        
+        assertArrayEquals("expected equal scores", new double[] { 1.0 / 3, 1.0 / 3, 1.0 / 3 }, scores, EPSILON);
+        assertEquals("expected alphabetical order among ties",
+                Arrays.asList("alyssa", "bbitdiddle", "charlie"), InfluenceRank.influencers(followsGraph));
+    }
+    
+    @Test
+    public void testFollowersOfFollowersCount() {
+        // celeb has more followers than real, but only unfollowed ones
+        Map<String, Set<String>> followsGraph = new HashMap<>();
+        follow(followsGraph, "spam1", "celeb");
+        follow(followsGraph, "spam2", "celeb");
+        follow(followsGraph, "spam3", "celeb");
+        follow(followsGraph, "a", "real");
+        follow(followsGraph, "b", "real");
+        for (int i = 0; i < 5; i++) {
+            follow(followsGraph, "x" + i, "a");
+            follow(followsGraph, "y" + i, "b");
+        }
+        List<String> byFollowers = SocialNetwork.influencers(followsGraph);
+        List<String> byInfluence = InfluenceRank.influencers(followsGraph);
+        
+        assertTrue("expected celeb before real by follower count",
+                byFollowers.indexOf("celeb") < byFollowers.indexOf("real"));
+        assertEquals("expected real first", "real", byInfluence.get(0));
+        assertTrue("expected real before celeb by influence",
+                byInfluence.indexOf("real") < byInfluence.indexOf("celeb"));
+        assertEquals("expected every user", byFollowers.size(), byInfluence.size());
+    }
+    
+    @Test
+    public void testScoresSumToOneAndParallelAgrees() {
+        Map<String, Set<String>> followsGraph = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 5000; i++) {
+            int follower = random.nextInt(400);
+            int followed = random.nextInt(400);
+            if (follower != followed) {
+                follow(followsGraph, "user" + follower, "user" + followed);
+            }
+        }
+        CompactFollowsGraph graph = CompactFollowsGraph.fromMap(followsGraph);
+        double[] sequential = InfluenceRank.scores(graph, EPSILON, 100, 1);
+        double[] parallel = InfluenceRank.scores(graph, EPSILON, 100, 4);
+        
+        assertEquals("expected scores to sum to 1", 1.0, Arrays.stream(sequential).sum(), 1e-6);
+        assertArrayEquals("expected same scores", sequential, parallel, 1e-12);
+    }
+    
+    @Test
+    public void testIterationCap() {
+        Map<String, Set<String>> followsGraph = new HashMap<>();
+        follow(followsGraph, "alyssa", "bbitdiddle");
+        follow(followsGraph, "charlie", "bbitdiddle");
+        double[] scores = InfluenceRank.scores(CompactFollowsGraph.fromMap(followsGraph), 0, 1, 1);
+        
+        // one step from uniform: bbitdiddle gets both shares, and the
+        // dangling bbitdiddle spreads its third evenly
+        double base = (1 - InfluenceRank.DAMPING) / 3 + InfluenceRank.DAMPING / 9;
+        assertArrayEquals("expected one iteration",
+                new double[] { base, base + InfluenceRank.DAMPING * 2 / 3, base }, scores, EPSILON);
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testNegativeTolerance() {
+        InfluenceRank.scores(CompactFollowsGraph.fromMap(Collections.emptyMap()), -1, 10, 1);
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testZeroParallelism() {
+        InfluenceRank.scores(CompactFollowsGraph.fromMap(Collections.emptyMap()), EPSILON, 10, 0);
+    }
+}
@@ -0,0 +1,88 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+public class KeywordFilterTest {
+
+    /*
+     * Testing strategy for matches:
+     * 
+     * number of words: 0, 1, >1; words that are prefixes, suffixes, or
+     *     substrings of each other
+     * position of match in text: start, middle, end, whole text
+     * case: word and text in different cases, non-ASCII letters
+     * match as a substring of a longer text word only (not a match)
+     * text: empty, only spaces, tabs and newlines as separators
+     * 
+     * Testing strategy for filter:
+     * 
+     * 0, some, all tweets match; result keeps input order
+     */
+    
+    private static final Instant d1 = Instant.parse("2016-02-17T10:00:00Z");
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    @Test
+    public void testMatchesNoWords() {
+        KeywordFilter filter = new KeywordFilter(Collections.emptyList());
+        assertFalse(filter.matches("anything at all"));
+        assertFalse(filter.matches(""));
+    }
+    
+    @Test
+    public void testMatchesPositions() {
+        KeywordFilter filter = new KeywordFilter(Arrays.asList("talk"));
+        assertTrue(filter.matches("talk about rivest"));
+        assertTrue(filter.matches("let's talk about"));
+        assertTrue(filter.matches("we should talk"));
+        assertTrue(filter.matches("talk"));
+        assertFalse(filter.matches(""));
+        assertFalse(filter.matches("   "));
+    }
+    
+    @Test
+    public void testMatchesWholeWordsOnly() {
+        KeywordFilter filter = new KeywordFilter(Arrays.asList("talk"));
+        assertFalse(filter.matches("talking about stalk"));
+        assertFalse(filter.matches("so much talk?"));
+        assertTrue(filter.matches("talking\ttalk\nabout"));
+    }
+    
+    @Test
+    public void testMatchesCaseInsensitive() {
+        KeywordFilter filter = new KeywordFilter(Arrays.asList("Obama", "\u00c9T\u00c9"));
+        assertTrue(filter.matches("hello OBAMA"));
+        assertTrue(filter.matches("un \u00e9t\u00e9 chaud"));
+    }
+    
+    @Test
+    public void testMatchesOverlappingWords() {
+        KeywordFilter filter = new KeywordFilter(Arrays.asList("he", "she", "his", "hers", "ushers"));
+        assertTrue(filter.matches("a hers"));
+        assertTrue(filter.matches("she said"));
+        assertFalse(filter.matches("ushe hi sh"));
+        assertTrue(filter.matches("ushe he"));
+        assertTrue(new KeywordFilter(Arrays.asList("ab", "b")).matches("xab b"));
+        assertFalse(new KeywordFilter(Arrays.asList("abc", "b")).matches("ab bc"));
+    }
+    
+    @Test
+    public void testFilter() {
+        Tweet tweet1 = new Tweet(1, "alyssa", "is it reasonable to talk about rivest so much?", d1);
+        Tweet tweet2 = new Tweet(2, "bbitdiddle", "rivest talk in 30 minutes #hype", d1);
+        Tweet tweet3 = new Tweet(3, "alyssa", "let's talk about MIT", d1);
+        KeywordFilter filter = new KeywordFilter(Arrays.asList("mit", "#HYPE"));
+        assertEquals(Arrays.asList(tweet2, tweet3), filter.filter(Arrays.asList(tweet1, tweet2, tweet3)));
+        assertEquals(Collections.emptyList(), filter.filter(Arrays.asList(tweet1)));
+    }
+}
@@ -0,0 +1,218 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class SnapshotTest {
+
+    /*
+     * Testing strategy:
+     * 
+     * write, read round trip:
+     *     tweets: none, one, many; ids and timestamps increasing,
+     *         decreasing, negative, extreme; repeated authors; non-ASCII and
+     *         empty text
+     *     graph: empty; users that are only followed (not keys); names
+     *         sharing long prefixes
+     * read failures: not a snapshot, other version, flipped byte,
+     *     truncated file
+     * read windows: whole file in one window, windows smaller than an int
+     *     and than a string, so values span windows
+     * write: new file, replacing an existing snapshot, failing to write
+     *     (previous snapshot left intact)
+     */
+    
+    private static final Instant d1 = Instant.parse("2016-02-17T10:00:00Z");
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    private static Snapshot roundTrip(List<Tweet> tweets, Map<String, Set<String>> followsGraph) throws IOException {
+        Path file = Files.createTempFile("snapshot", ".bin");
+        try {
+            new Snapshot(new TweetStore(tweets), CompactFollowsGraph.fromMap(followsGraph)).write(file);
+            return Snapshot.read(file);
+        } finally {
+            Files.delete(file);
+        }
+    }
+    
+    private static void assertSameTweets(List<Tweet> expected, TweetStore actual) {
+        assertEquals("expected same size", expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Tweet tweet = actual.getTweet(i);
+            assertEquals("expected same id", expected.get(i).getId(), tweet.getId());
+            assertEquals("expected same author", expected.get(i).getAuthor(), tweet.getAuthor());
+            assertEquals("expected same text", expected.get(i).getText(), tweet.getText());
+            assertEquals("expected same timestamp", expected.get(i).getTimestamp(), tweet.getTimestamp());
+        }
+    }
+    
+    @Test
+    public void testEmpty() throws IOException {
+        Snapshot snapshot = roundTrip(Collections.emptyList(), Collections.emptyMap());
+        
+        assertEquals("expected no tweets", 0, snapshot.tweets().size());
+        assertEquals("expected no users", 0, snapshot.followsGraph().userCount());
+    }
+    
+    @Test
+    public void testRoundTrip() throws IOException {
+        List<Tweet> tweets = Arrays.asList(
+                new Tweet(5, "alyssa", "caf\u00e9 \ud83d\ude00 @bbitdiddle", d1),
+                new Tweet(-3, "bbitdiddle", "", d1.minusNanos(1)),
+                new Tweet(Long.MAX_VALUE, "alyssa", "#mit", Instant.parse("1970-01-01T00:00:00Z")),
+                new Tweet(Long.MIN_VALUE, "Charlie", "before the epoch", Instant.parse("1969-12-31T23:59:59.999Z")));
+        Map<String, Set<String>> followsGraph = new HashMap<>();
+        followsGraph.put("alyssa", new HashSet<>(Arrays.asList("bbitdiddle", "user1000", "user1001")));
+        followsGraph.put("user1000", new HashSet<>(Arrays.asList("user1001")));
+        followsGraph.put("zed", Collections.emptySet());
+        Snapshot snapshot = roundTrip(tweets, followsGraph);
+        
+        assertSameTweets(tweets, snapshot.tweets());
+        assertEquals("expected same timespan", new TweetStore(tweets).getTimespan(), snapshot.tweets().getTimespan());
+        assertEquals("expected same graph", followsGraph, snapshot.followsGraph().toMap());
+        assertEquals("expected followed-only users", 5, snapshot.followsGraph().userCount());
+    }
+    
+    @Test
+    public void testManyTweets() throws IOException {
+        List<Tweet> tweets = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            tweets.add(new Tweet(i * 3L, "user" + (i % 37), "tweet " + i + " #tag" + (i % 11) + " @user" + (i % 13),
+                    d1.plusMillis(i * 7 % 5000)));
+        }
+        Map<String, Set<String>> followsGraph = SocialNetwork.guessFollowsGraph(tweets);
+        Snapshot snapshot = roundTrip(tweets, followsGraph);
+        
+        assertSameTweets(tweets, snapshot.tweets());
+        assertEquals("expected same graph", followsGraph, snapshot.followsGraph().toMap());
+    }
+    
+    private static Path written() throws IOException {
+        Path file = Files.createTempFile("snapshot", ".bin");
+        List<Tweet> tweets = Arrays.asList(new Tweet(1, "alyssa", "hello @bbitdiddle", d1));
+        new Snapshot(new TweetStore(tweets), CompactFollowsGraph.fromMap(SocialNetwork.guessFollowsGraph(tweets)))
+                .write(file);
+        return file;
+    }
+    
+    private static void assertUnreadable(Path file, byte[] contents) throws IOException {
+        Files.write(file, contents);
+        try {
+            Snapshot.read(file);
+            fail("expected IOException");
+        } catch (IOException e) {
+            // expected
+        } finally {
+            Files.delete(file);
+        }
+    }
+    
+    @Test
+    public void testNotSnapshot() throws IOException {
+        Path file = written();
+        assertUnreadable(file, "this is not a snapshot file".getBytes("UTF-8"));
+    }
+    
+    @Test
+    public void testOtherVersion() throws IOException {
+        Path file = written();
+        byte[] bytes = Files.readAllBytes(file);
+        ByteBuffer.wrap(bytes).putInt(4, Snapshot.VERSION + 1);
+        assertUnreadable(file, bytes);
+    }
+    
+    @Test
+    public void testCorrupt() throws IOException {
+        Path file = written();
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 1;
+        assertUnreadable(file, bytes);
+    }
+    
+    @Test
+    public void testTruncated() throws IOException {
+        Path file = written();
+        byte[] bytes = Files.readAllBytes(file);
+        assertUnreadable(file, Arrays.copyOf(bytes, bytes.length - 5));
+    }
+    
+    @Test
+    public void testSmallWindows() throws IOException {
+        List<Tweet> tweets = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            tweets.add(new Tweet(i * 1000003L, "user" + (i % 17), "caf\u00e9 tweet " + i + " @user" + (i % 5),
+                    d1.plusSeconds(i)));
+        }
+        Map<String, Set<String>> followsGraph = SocialNetwork.guessFollowsGraph(tweets);
+        Path file = Files.createTempFile("snapshot", ".bin");
+        try {
+            new Snapshot(new TweetStore(tweets), CompactFollowsGraph.fromMap(followsGraph)).write(file);
+            for (int windowSize : Arrays.asList(3, 7, 64, 1 << 20)) {
+                Snapshot snapshot = Snapshot.read(file, windowSize);
+                
+                assertSameTweets(tweets, snapshot.tweets());
+                assertEquals("expected same graph", followsGraph, snapshot.followsGraph().toMap());
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+    
+    @Test
+    public void testWriteReplaces() throws IOException {
+        Path file = written();
+        try {
+            List<Tweet> tweets = Arrays.asList(new Tweet(2, "bbitdiddle", "replaced", d1));
+            new Snapshot(new TweetStore(tweets), CompactFollowsGraph.fromMap(Collections.emptyMap())).write(file);
+            
+            assertSameTweets(tweets, Snapshot.read(file).tweets());
+            assertFalse("expected no temporary file",
+                    Files.exists(file.resolveSibling(file.getFileName() + ".tmp")));
+        } finally {
+            Files.delete(file);
+        }
+    }
+    
+    @Test
+    public void testWriteFailureKeepsPrevious() throws IOException {
+        Path file = written();
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        byte[] before = Files.readAllBytes(file);
+        try {
+            // a directory where the temporary file goes makes writing fail
+            Files.createDirectory(temp);
+            List<Tweet> tweets = Arrays.asList(new Tweet(2, "bbitdiddle", "replaced", d1));
+            try {
+                new Snapshot(new TweetStore(tweets), CompactFollowsGraph.fromMap(Collections.emptyMap())).write(file);
+                fail("expected IOException");
+            } catch (IOException e) {
+                // expected
+            }
+            
+            assertArrayEquals("expected previous snapshot", before, Files.readAllBytes(file));
+            assertEquals("expected previous tweet", 1, Snapshot.read(file).tweets().getId(0));
+        } finally {
+            Files.deleteIfExists(temp);
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Tests for the guessFollowsGraph overloads that SocialNetwork adds beyond
+ * its required spec, kept out of SocialNetworkTest so that suite still runs
+ * against any implementation of the required spec.
+ */
+public class SocialNetworkParallelTest {
+
+    /*
+     * Testing strategy for guessFollowsGraph(tweets, maxHashtagUsers):
+     * 
+     * maxHashtagUsers below, equal to, above the number of users of a
+     *     shared hashtag
+     * 
+     * Testing strategy for guessFollowsGraph(tweets, maxHashtagUsers, parallelism):
+     * 
+     * number of tweets: 0, fewer than threads, many more than threads
+     * parallelism: 1, >1
+     * result equals the sequential result
+     */
+    
+    private static final Instant d1 = Instant.parse("2016-02-17T10:00:00Z");
+    
+    private static final Tweet tweet1 = new Tweet(1, "alyssa", "@bbitdiddle #mit #java", d1);
+    private static final Tweet tweet2 = new Tweet(2, "bbitdiddle", "@Alyssa @bbitdiddle #mit #python", d1);
+    private static final Tweet tweet3 = new Tweet(3, "charlie", "#MIT #java #python", d1);
+    private static final Tweet tweet4 = new Tweet(4, "greg", "#java #news", d1);
+    private static final Tweet tweet5 = new Tweet(5, "hank", "#news #java", d1);
+    
+    private static final List<Tweet> tweets = Arrays.asList(tweet1, tweet2, tweet3, tweet4, tweet5);
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    @Test
+    public void testMaxHashtagUsers() {
+        // #java has 4 users, #news 2, #mit 3, #python 2
+        Map<String, Set<String>> all = SocialNetwork.guessFollowsGraph(tweets, Integer.MAX_VALUE);
+        assertTrue(all.get("greg").contains("hank"));
+        assertTrue(all.get("charlie").containsAll(Arrays.asList("alyssa", "bbitdiddle")));
+        
+        Map<String, Set<String>> capped = SocialNetwork.guessFollowsGraph(tweets, 3);
+        assertEquals(Collections.emptySet(), capped.get("greg"));
+        assertEquals(Collections.emptySet(), capped.get("hank"));
+        assertEquals(Collections.singleton("bbitdiddle"), capped.get("charlie"));
+        assertEquals(new HashSet<>(Arrays.asList("alyssa", "charlie")), capped.get("bbitdiddle"));
+    }
+    
+    @Test
+    public void testParallelEmpty() {
+        assertTrue(SocialNetwork.guessFollowsGraph(new ArrayList<>(), Integer.MAX_VALUE, 4).isEmpty());
+    }
+    
+    @Test
+    public void testParallelMatchesSequential() {
+        for (int parallelism : new int[] { 1, 2, 8 }) {
+            assertEquals(SocialNetwork.guessFollowsGraph(tweets),
+                    SocialNetwork.guessFollowsGraph(tweets, Integer.MAX_VALUE, parallelism));
+            assertEquals(SocialNetwork.guessFollowsGraph(tweets, 3),
+                    SocialNetwork.guessFollowsGraph(tweets, 3, parallelism));
+        }
+    }
+    
+    @Test
+    public void testParallelManyTweets() {
+        List<Tweet> many = new ArrayList<>();
+        for (int id = 0; id < 1000; id++) {
+            many.add(new Tweet(id, "user" + (id % 37),
+                    "@user" + (id % 11) + " #tag" + (id % 5) + " #tag" + (id % 7), d1));
+        }
+        assertEquals(SocialNetwork.guessFollowsGraph(many),
+                SocialNetwork.guessFollowsGraph(many, Integer.MAX_VALUE, 3));
+    }
+}
@@ -0,0 +1,166 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TrendingCounterTest {
+
+    /*
+     * Testing strategy:
+     * 
+     * add: no tweets; tweets in one bucket, several buckets; out-of-order
+     *     tweets inside and older than the ring; hashtag or mention repeated
+     *     within a tweet; hashtags and mentions with mixed case
+     * trendingHashtags, trendingMentions: window covering 1 bucket, several
+     *     buckets, buckets that left the ring, including after a gap in the
+     *     timeline that leaves them in their slots; recent duration shorter than
+     *     and longer than one bucket; k = 0, k < candidates, k > candidates;
+     *     ties broken alphabetically
+     * sketch: many more distinct keys than candidates, where the heavy
+     *     hitters must still be found; keys with equal String.hashCode()
+     * bad arguments to the constructor
+     */
+    
+    private static final Instant t0 = Instant.parse("2016-02-17T10:00:00Z");
+    private static final Duration MINUTE = Duration.ofMinutes(1);
+    
+    private static Tweet tweet(long id, Instant timestamp, String text) {
+        return new Tweet(id, "alyssa", text, timestamp);
+    }
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    @Test
+    public void testEmpty() {
+        TrendingCounter counter = new TrendingCounter(MINUTE, 5);
+        
+        assertEquals("expected nothing trending", Collections.emptyList(),
+                counter.trendingHashtags(Duration.ofMinutes(5), 10));
+        assertEquals("expected nothing trending", Collections.emptyList(),
+                counter.trendingMentions(new Timespan(t0, t0.plusSeconds(600)), 10));
+    }
+    
+    @Test
+    public void testOneBucket() {
+        TrendingCounter counter = new TrendingCounter(MINUTE, 5);
+        counter.addAll(Arrays.asList(
+                tweet(1, t0, "#MIT #mit rocks @Bitdiddle"),
+                tweet(2, t0.plusSeconds(10), "#mit #hype @bitdiddle @alyssa"),
+                tweet(3, t0.plusSeconds(20), "#hype #6031")));
+        
+        assertEquals("expected counts of tweets, ties alphabetical",
+                Arrays.asList("hype", "mit", "6031"), counter.trendingHashtags(MINUTE, 3));
+        assertEquals("expected top 1", Arrays.asList("hype"), counter.trendingHashtags(MINUTE, 1));
+        assertEquals("expected none", Collections.emptyList(), counter.trendingHashtags(MINUTE, 0));
+        assertEquals("expected mentions", Arrays.asList("bitdiddle", "alyssa"),
+                counter.trendingMentions(MINUTE, 10));
+    }
+    
+    @Test
+    public void testWindows() {
+        TrendingCounter counter = new TrendingCounter(MINUTE, 3);
+        counter.add(tweet(1, t0, "#old"));
+        counter.add(tweet(2, t0.plusSeconds(60), "#middle"));
+        counter.add(tweet(3, t0.plusSeconds(61), "#middle #new"));
+        counter.add(tweet(4, t0.plusSeconds(120), "#new"));
+        counter.add(tweet(5, t0.plusSeconds(125), "#new"));
+        
+        assertEquals("expected newest bucket only", Arrays.asList("new"),
+                counter.trendingHashtags(Duration.ofSeconds(1), 10));
+        assertEquals("expected last two buckets", Arrays.asList("new", "middle"),
+                counter.trendingHashtags(Duration.ofSeconds(90), 10));
+        assertEquals("expected window rounded to the first bucket", Arrays.asList("old"),
+                counter.trendingHashtags(new Timespan(t0.plusSeconds(30), t0.plusSeconds(59)), 10));
+        
+        // moves the ring past the bucket of #old
+        counter.add(tweet(6, t0.plusSeconds(180), "#newest"));
+        assertEquals("expected #old forgotten", Collections.emptyList(),
+                counter.trendingHashtags(new Timespan(t0, t0.plusSeconds(59)), 10));
+        counter.add(tweet(7, t0.plusSeconds(1), "#late"));
+        assertEquals("expected too-late tweet ignored", Arrays.asList("new", "middle", "newest"),
+                counter.trendingHashtags(Duration.ofHours(1), 10));
+        counter.add(tweet(8, t0.plusSeconds(62), "#late #late"));
+        assertEquals("expected out-of-order tweet counted once", Arrays.asList("middle", "late", "new"),
+                counter.trendingHashtags(new Timespan(t0.plusSeconds(60), t0.plusSeconds(60)), 10));
+    }
+    
+    @Test
+    public void testWindowsAfterGap() {
+        TrendingCounter counter = new TrendingCounter(MINUTE, 3);
+        counter.add(tweet(1, t0, "#old @bitdiddle"));
+        // 10 buckets later, in another slot, so bucket 0 stays in its slot
+        counter.add(tweet(2, t0.plusSeconds(600), "#new @alyssa"));
+        
+        assertEquals("expected bucket left the ring ignored", Arrays.asList("new"),
+                counter.trendingHashtags(new Timespan(t0, t0.plusSeconds(600)), 10));
+        assertEquals("expected bucket left the ring ignored", Arrays.asList("alyssa"),
+                counter.trendingMentions(new Timespan(t0, t0.plusSeconds(600)), 10));
+        assertEquals("expected bucket left the ring ignored", Arrays.asList("new"),
+                counter.trendingHashtags(Duration.ofHours(1), 10));
+        assertEquals("expected bucket left the ring ignored", Collections.emptyList(),
+                counter.trendingMentions(new Timespan(t0, t0.plusSeconds(59)), 10));
+    }
+    
+    @Test
+    public void testKeysWithEqualHashCodes() {
+        // "aan" and "ac0" have the same String.hashCode()
+        assertEquals("aan".hashCode(), "ac0".hashCode());
+        TrendingCounter counter = new TrendingCounter(MINUTE, 1);
+        List<Tweet> tweets = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            tweets.add(tweet(i, t0, "#aan"));
+        }
+        for (int i = 0; i < 50; i++) {
+            tweets.add(tweet(100 + i, t0, "#middle"));
+        }
+        tweets.add(tweet(200, t0, "#ac0"));
+        counter.addAll(tweets);
+        
+        assertEquals("expected colliding hashCodes counted apart", Arrays.asList("aan", "middle", "ac0"),
+                counter.trendingHashtags(MINUTE, 3));
+    }
+    
+    @Test
+    public void testHeavyHittersAmongManyKeys() {
+        TrendingCounter counter = new TrendingCounter(MINUTE, 2, 256, 4, 16);
+        Random random = new Random(5);
+        Map<String, Integer> counts = new HashMap<>();
+        List<Tweet> tweets = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            // 5 popular hashtags, with decreasing popularity, among 5000 rare ones
+            int tag = random.nextInt(10) < 3 ? random.nextInt(5) * random.nextInt(5) / 4 : 5 + random.nextInt(5000);
+            tweets.add(tweet(i, t0.plusMillis(i), "#tag" + tag));
+            counts.merge("tag" + tag, 1, Integer::sum);
+        }
+        counter.addAll(tweets);
+        List<String> expected = new ArrayList<>(counts.keySet());
+        expected.sort((a, b) -> counts.get(b) - counts.get(a));
+        
+        assertEquals("expected the heavy hitters", expected.subList(0, 3),
+                counter.trendingHashtags(MINUTE, 3));
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testZeroBucketWidth() {
+        new TrendingCounter(Duration.ZERO, 5);
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testZeroBuckets() {
+        new TrendingCounter(MINUTE, 0);
+    }
+}
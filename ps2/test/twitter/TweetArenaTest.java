@@ -0,0 +1,169 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class TweetArenaTest {
+
+    /*
+     * Testing strategy:
+     * 
+     * get, getText, getAuthor, getTimestamp: round trip of ASCII, 2-byte,
+     *     3-byte and 4-byte (surrogate pair) UTF-8 text, empty text,
+     *     sub-second timestamps
+     * add: 0, 1, many tweets; enough text to fill several byte pages
+     * asList: equal to the added tweets, reflects later additions, works
+     *     with Extract and Filter
+     * isWrittenBy, positionsWrittenBy: author case differs from query,
+     *     author absent, several authors
+     * positionsContaining: word case differs from text; word at start, middle,
+     *     end of text; word as part of a longer text word; tabs and newlines
+     *     between words; non-ASCII text, including characters that fold to
+     *     ASCII letters; non-ASCII words; no words; agrees with
+     *     Filter.containing
+     */
+    
+    private static final Instant d1 = Instant.parse("2016-02-17T10:00:00Z");
+    private static final Instant d2 = Instant.parse("2016-02-17T11:00:00.000000001Z");
+    
+    private static final Tweet tweet1 = new Tweet(1, "alyssa", "is it reasonable to talk about rivest so much?", d1);
+    private static final Tweet tweet2 = new Tweet(2, "BBitdiddle", "caf\u00e9 \u20ac5 \ud83d\ude00 @Alyssa", d2);
+    private static final Tweet tweet3 = new Tweet(3, "Alyssa", "", d1);
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    @Test
+    public void testEmpty() {
+        TweetArena arena = new TweetArena();
+        
+        assertEquals("expected empty arena", 0, arena.size());
+        assertTrue("expected empty list", arena.asList().isEmpty());
+        assertEquals("expected no positions", 0, arena.positionsWrittenBy("alyssa").length);
+    }
+    
+    @Test
+    public void testRoundTrip() {
+        TweetArena arena = new TweetArena(Arrays.asList(tweet1, tweet2, tweet3));
+        
+        assertEquals("expected 3 tweets", 3, arena.size());
+        List<Tweet> expected = Arrays.asList(tweet1, tweet2, tweet3);
+        for (int i = 0; i < expected.size(); i++) {
+            Tweet tweet = arena.get(i);
+            assertEquals("expected same id", expected.get(i).getId(), tweet.getId());
+            assertEquals("expected same author", expected.get(i).getAuthor(), arena.getAuthor(i));
+            assertEquals("expected same text", expected.get(i).getText(), arena.getText(i));
+            assertEquals("expected same timestamp", expected.get(i).getTimestamp(), arena.getTimestamp(i));
+            assertEquals("expected same text", expected.get(i).getText(), tweet.getText());
+        }
+        assertEquals("expected epoch nanos", 1455703200000000000L, arena.getEpochNanos(0));
+    }
+    
+    @Test
+    public void testManyPages() {
+        TweetArena arena = new TweetArena();
+        List<Tweet> tweets = new ArrayList<>();
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            text.setLength(0);
+            for (int k = 0; k < 140; k++) {
+                text.append((char) ('a' + (i + k) % 26));
+            }
+            text.append(" \u00e9").append(i);
+            Tweet tweet = new Tweet(i, "user" + (i % 7), text.toString(), d1.plusNanos(i));
+            tweets.add(tweet);
+            assertEquals("expected next position", i, arena.add(tweet));
+        }
+        
+        for (int i = 0; i < tweets.size(); i += 997) {
+            assertEquals("expected same text", tweets.get(i).getText(), arena.getText(i));
+            assertEquals("expected same timestamp", tweets.get(i).getTimestamp(), arena.getTimestamp(i));
+        }
+        assertEquals("expected same last text", tweets.get(19999).getText(), arena.getText(19999));
+    }
+    
+    @Test
+    public void testAsList() {
+        TweetArena arena = new TweetArena(Arrays.asList(tweet1, tweet2));
+        List<Tweet> view = arena.asList();
+        
+        assertEquals("expected 2 tweets", 2, view.size());
+        assertEquals("expected Extract to work on the view",
+                new Timespan(d1, d2), Extract.getTimespan(view));
+        assertEquals("expected Filter to work on the view",
+                1, Filter.writtenBy(view, "bbitdiddle").size());
+        
+        arena.add(tweet3);
+        assertEquals("expected view to reflect addition", 3, view.size());
+        assertEquals("expected last tweet", 3, view.get(2).getId());
+    }
+    
+    @Test(expected=UnsupportedOperationException.class)
+    public void testAsListUnmodifiable() {
+        new TweetArena(Arrays.asList(tweet1)).asList().add(tweet2);
+    }
+    
+    @Test
+    public void testWrittenBy() {
+        TweetArena arena = new TweetArena(Arrays.asList(tweet1, tweet2, tweet3));
+        
+        assertTrue("expected case-insensitive match", arena.isWrittenBy(1, "bbitDIDDLE"));
+        assertFalse("expected different author", arena.isWrittenBy(0, "bbitdiddle"));
+        assertFalse("expected different length", arena.isWrittenBy(0, "alyss"));
+        assertArrayEquals("expected both alyssa tweets", new int[] { 0, 2 }, arena.positionsWrittenBy("ALYSSA"));
+        assertArrayEquals("expected no tweets", new int[0], arena.positionsWrittenBy("charlie"));
+    }
+    
+    @Test
+    public void testPositionsContaining() {
+        TweetArena arena = new TweetArena(Arrays.asList(tweet1, tweet2, tweet3,
+                new Tweet(4, "eve", "Talk\tabout\nRIVEST", d1),
+                new Tweet(5, "eve", "rivests talking", d1),
+                new Tweet(6, "eve", "\u212aitten", d1)));
+        
+        assertArrayEquals("expected case-insensitive words", new int[] { 0, 3 },
+                arena.positionsContaining(Arrays.asList("TALK")));
+        assertArrayEquals("expected whole words only", new int[] { 0, 3 },
+                arena.positionsContaining(Arrays.asList("rivest")));
+        assertArrayEquals("expected words at the ends", new int[] { 0, 3 },
+                arena.positionsContaining(Arrays.asList("much?", "is", "rivest")));
+        assertArrayEquals("expected non-ASCII text", new int[] { 1 },
+                arena.positionsContaining(Arrays.asList("CAF\u00c9")));
+        assertArrayEquals("expected Kelvin sign to fold to k", new int[] { 5 },
+                arena.positionsContaining(Arrays.asList("kitten")));
+        assertArrayEquals("expected mention word", new int[] { 1 },
+                arena.positionsContaining(Arrays.asList("@alyssa")));
+        assertArrayEquals("expected no words to match nothing", new int[0],
+                arena.positionsContaining(Arrays.asList()));
+    }
+    
+    @Test
+    public void testPositionsContainingAgreesWithFilter() {
+        List<Tweet> tweets = Arrays.asList(tweet1, tweet2, tweet3,
+                new Tweet(4, "eve", "Talk\tabout\nRIVEST \u00e9t\u00e9", d1),
+                new Tweet(5, "eve", " so  much ", d1));
+        TweetArena arena = new TweetArena(tweets);
+        for (List<String> words : Arrays.asList(Arrays.asList("so"), Arrays.asList("much", "\u00c9T\u00c9"),
+                Arrays.asList("about", "it"), Arrays.asList("\ud83d\ude00"))) {
+            List<Tweet> expected = Filter.containing(tweets, words);
+            int[] positions = arena.positionsContaining(words);
+            assertEquals("expected same count for " + words, expected.size(), positions.length);
+            for (int i = 0; i < positions.length; i++) {
+                assertEquals("expected same tweets for " + words, expected.get(i).getId(), arena.getId(positions[i]));
+            }
+        }
+    }
+    
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void testPositionOutOfRange() {
+        new TweetArena(Arrays.asList(tweet1)).getText(1);
+    }
+}
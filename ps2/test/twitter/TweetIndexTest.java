@@ -0,0 +1,73 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+public class TweetIndexTest {
+
+    /*
+     * Testing strategy:
+     * 
+     * writtenBy: author with 0, 1, >1 tweets; username case differs from author
+     * inTimespan: span covers none, some, all tweets; span endpoints equal to
+     *     tweet timestamps; tweets not in time order in the indexed list
+     * containing, containingAll: 0, 1, >1 query words; word case differs;
+     *     word occurs as a substring but not as a whole word; word repeated
+     *     in a tweet or in the query
+     * all queries: result order matches indexed list order
+     */
+    
+    private static final Instant d1 = Instant.parse("2016-02-17T10:00:00Z");
+    private static final Instant d2 = Instant.parse("2016-02-17T11:00:00Z");
+    private static final Instant d3 = Instant.parse("2016-02-17T09:00:00Z");
+    
+    private static final Tweet tweet1 = new Tweet(1, "alyssa", "is it reasonable to talk about rivest so much?", d1);
+    private static final Tweet tweet2 = new Tweet(2, "bbitdiddle", "rivest talk in 30 minutes #hype", d2);
+    private static final Tweet tweet3 = new Tweet(3, "Alyssa", "talking talking about MIT", d3);
+    
+    private static final TweetIndex index = new TweetIndex(Arrays.asList(tweet1, tweet2, tweet3));
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    @Test
+    public void testWrittenBy() {
+        assertEquals(Arrays.asList(tweet1, tweet3), index.writtenBy("ALYSSA"));
+        assertEquals(Arrays.asList(tweet2), index.writtenBy("bbitdiddle"));
+        assertEquals(Collections.emptyList(), index.writtenBy("nobody"));
+    }
+    
+    @Test
+    public void testInTimespan() {
+        assertEquals(Arrays.asList(tweet1, tweet3), index.inTimespan(new Timespan(d3, d1)));
+        assertEquals(Arrays.asList(tweet1, tweet2, tweet3), index.inTimespan(new Timespan(d3, d2)));
+        assertEquals(Arrays.asList(tweet2), index.inTimespan(new Timespan(d2, d2)));
+        assertEquals(Collections.emptyList(),
+                index.inTimespan(new Timespan(d2.plusSeconds(1), d2.plusSeconds(2))));
+    }
+    
+    @Test
+    public void testContaining() {
+        List<Tweet> containing = index.containing(Arrays.asList("RIVEST", "mit", "rivest"));
+        assertEquals(Arrays.asList(tweet1, tweet2, tweet3), containing);
+        assertEquals(Arrays.asList(tweet1, tweet2), index.containing(Arrays.asList("talk")));
+        assertEquals(Collections.emptyList(), index.containing(Arrays.asList("much")));
+        assertEquals(Collections.emptyList(), index.containing(Collections.emptyList()));
+    }
+    
+    @Test
+    public void testContainingAll() {
+        assertEquals(Arrays.asList(tweet1, tweet2), index.containingAll(Arrays.asList("talk", "Rivest", "TALK")));
+        assertEquals(Arrays.asList(tweet3), index.containingAll(Arrays.asList("talking", "about")));
+        assertEquals(Collections.emptyList(), index.containingAll(Arrays.asList("talk", "mit")));
+        assertEquals(Collections.emptyList(), index.containingAll(Arrays.asList("talk", "nonexistent")));
+    }
+}
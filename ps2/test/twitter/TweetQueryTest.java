@@ -0,0 +1,138 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TweetQueryTest {
+
+    /*
+     * Testing strategy:
+     * 
+     * run: all(); each condition alone; conditions combined; author case
+     *     differs from tweet; no tweets match; order preserved
+     * in, containing: called twice on one query
+     * runAll: 0 queries; 0 tweets; queries of every kind together; two
+     *     queries sharing a word, or words differing only in case; a query
+     *     whose words match a tweet twice; results equal run() for every
+     *     query on a larger random corpus
+     */
+    
+    private static final Instant d1 = Instant.parse("2016-02-17T10:00:00Z");
+    private static final Instant d2 = Instant.parse("2016-02-17T11:00:00Z");
+    private static final Instant d3 = Instant.parse("2016-02-17T12:00:00Z");
+    
+    private static final Tweet tweet1 = new Tweet(1, "alyssa", "is it reasonable to talk about rivest so much?", d1);
+    private static final Tweet tweet2 = new Tweet(2, "bbitdiddle", "rivest talk in 30 minutes #hype", d2);
+    private static final Tweet tweet3 = new Tweet(3, "Alyssa", "talk talk talk", d3);
+    private static final List<Tweet> tweets = Arrays.asList(tweet1, tweet2, tweet3);
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    @Test
+    public void testRunAll() {
+        assertEquals("expected every tweet", tweets, TweetQuery.all().run(tweets));
+    }
+    
+    @Test
+    public void testRunSingleConditions() {
+        assertEquals("expected alyssa's tweets", Arrays.asList(tweet1, tweet3),
+                TweetQuery.by("ALYSSA").run(tweets));
+        assertEquals("expected tweets in span", Arrays.asList(tweet2, tweet3),
+                TweetQuery.all().in(new Timespan(d2, d3)).run(tweets));
+        assertEquals("expected tweets with rivest", Arrays.asList(tweet1, tweet2),
+                TweetQuery.all().containing(Arrays.asList("Rivest")).run(tweets));
+    }
+    
+    @Test
+    public void testRunCombined() {
+        TweetQuery query = TweetQuery.by("alyssa").in(new Timespan(d1, d2)).containing(Arrays.asList("talk"));
+        
+        assertEquals("expected only tweet1", Arrays.asList(tweet1), query.run(tweets));
+        assertTrue("expected match", query.matches(tweet1));
+        assertFalse("expected wrong author", query.matches(tweet2));
+        assertFalse("expected outside span", query.matches(tweet3));
+        assertEquals("expected no tweets", Collections.emptyList(),
+                TweetQuery.by("charlie").containing(Arrays.asList("talk")).run(tweets));
+    }
+    
+    @Test(expected=IllegalStateException.class)
+    public void testTimespanTwice() {
+        TweetQuery.all().in(new Timespan(d1, d2)).in(new Timespan(d2, d3));
+    }
+    
+    @Test(expected=IllegalStateException.class)
+    public void testWordsTwice() {
+        TweetQuery.all().containing(Arrays.asList("a")).containing(Arrays.asList("b"));
+    }
+    
+    @Test
+    public void testRunAllEmpty() {
+        assertEquals("expected no results", Collections.emptyList(),
+                TweetQuery.runAll(Collections.emptyList(), tweets));
+        assertEquals("expected one empty result", Arrays.asList(Collections.emptyList()),
+                TweetQuery.runAll(Arrays.asList(TweetQuery.all()), Collections.emptyList()));
+    }
+    
+    @Test
+    public void testRunAllMixed() {
+        List<TweetQuery> queries = Arrays.asList(
+                TweetQuery.all(),
+                TweetQuery.by("Alyssa"),
+                TweetQuery.all().in(new Timespan(d2, d3)),
+                TweetQuery.all().containing(Arrays.asList("talk", "TALK")),
+                TweetQuery.by("bbitdiddle").containing(Arrays.asList("Talk")),
+                TweetQuery.all().containing(Arrays.asList("nothing")),
+                TweetQuery.all().containing(Collections.emptyList()));
+        List<List<Tweet>> results = TweetQuery.runAll(queries, tweets);
+        
+        assertEquals("expected one result per query", queries.size(), results.size());
+        for (int q = 0; q < queries.size(); q++) {
+            assertEquals("expected same as run: " + queries.get(q), queries.get(q).run(tweets), results.get(q));
+        }
+        assertEquals("expected each tweet once", tweets, results.get(3));
+    }
+    
+    @Test
+    public void testRunAllRandom() {
+        Random random = new Random(3);
+        String[] vocabulary = { "mit", "MIT", "rivest", "talk", "hype", "obama", "6.031", "#mit" };
+        List<Tweet> corpus = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            StringBuilder text = new StringBuilder();
+            for (int k = 0; k < 6; k++) {
+                text.append(vocabulary[random.nextInt(vocabulary.length)]).append(' ');
+            }
+            corpus.add(new Tweet(i, "user" + random.nextInt(10), text.toString(),
+                    d1.plusSeconds(random.nextInt(7200))));
+        }
+        List<TweetQuery> queries = new ArrayList<>();
+        for (int q = 0; q < 200; q++) {
+            TweetQuery query = random.nextBoolean() ? TweetQuery.by("USER" + random.nextInt(12)) : TweetQuery.all();
+            if (random.nextBoolean()) {
+                Instant start = d1.plusSeconds(random.nextInt(7200));
+                query = query.in(new Timespan(start, start.plusSeconds(random.nextInt(3600))));
+            }
+            if (random.nextBoolean()) {
+                query = query.containing(Arrays.asList(vocabulary[random.nextInt(vocabulary.length)],
+                        vocabulary[random.nextInt(vocabulary.length)]));
+            }
+            queries.add(query);
+        }
+        List<List<Tweet>> results = TweetQuery.runAll(queries, corpus);
+        
+        for (int q = 0; q < queries.size(); q++) {
+            assertEquals("expected same as run: " + queries.get(q), queries.get(q).run(corpus), results.get(q));
+        }
+    }
+}
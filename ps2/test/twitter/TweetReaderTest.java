@@ -0,0 +1,147 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+public class TweetReaderTest {
+
+    /*
+     * Testing strategy for TweetReader.read:
+     * 
+     * file: empty, 1 record, >1 records; blank lines; \r\n line endings;
+     *     last line with and without a trailing newline; records that
+     *     cross a mapped window boundary; record longer than a window
+     * record: members in any order, extra members of every JSON type,
+     *     escapes in strings including \\u and non-ASCII text
+     * malformed record: missing member, bad timestamp, bad syntax
+     * 
+     * Testing strategy for TweetStreams:
+     * 
+     * each method agrees with its Extract or Filter counterpart on the
+     *     same tweets; getTimespan on an empty stream
+     */
+    
+    private static final Instant d1 = Instant.parse("2016-02-17T10:00:00Z");
+    private static final Instant d2 = Instant.parse("2016-02-17T11:00:00Z");
+    
+    private static Path write(String contents) throws IOException {
+        Path file = Files.createTempFile("tweets", ".ndjson");
+        file.toFile().deleteOnExit();
+        Files.write(file, contents.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+    
+    private static List<Tweet> readAll(String contents) throws IOException {
+        try (Stream<Tweet> tweets = TweetReader.read(write(contents))) {
+            return tweets.collect(Collectors.toList());
+        }
+    }
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    @Test
+    public void testReadEmpty() throws IOException {
+        assertEquals(Collections.emptyList(), readAll(""));
+        assertEquals(Collections.emptyList(), readAll("\n  \n"));
+    }
+    
+    @Test
+    public void testReadRecords() throws IOException {
+        List<Tweet> tweets = readAll(
+                "{\"id\": 1, \"author\": \"alyssa\", \"text\": \"@bbitdiddle #mit\", \"timestamp\": \"2016-02-17T10:00:00Z\"}\r\n"
+                + "\n"
+                + "{\"timestamp\":\"2016-02-17T11:00:00Z\",\"extra\":[1,{\"a\":null},true],\"text\":\"caf\\u00e9 \\\"quoted\\\"\\n\u00fcber\",\"author\":\"bbitdiddle\",\"id\":-2}");
+        assertEquals(2, tweets.size());
+        Tweet first = tweets.get(0);
+        assertEquals(1, first.getId());
+        assertEquals("alyssa", first.getAuthor());
+        assertEquals("@bbitdiddle #mit", first.getText());
+        assertEquals(d1, first.getTimestamp());
+        Tweet second = tweets.get(1);
+        assertEquals(-2, second.getId());
+        assertEquals("caf\u00e9 \"quoted\"\n\u00fcber", second.getText());
+        assertEquals(d2, second.getTimestamp());
+    }
+    
+    @Test(expected=UncheckedIOException.class)
+    public void testReadMissingMember() throws IOException {
+        readAll("{\"id\": 1, \"author\": \"alyssa\", \"text\": \"hi\"}\n");
+    }
+    
+    @Test(expected=UncheckedIOException.class)
+    public void testReadBadTimestamp() throws IOException {
+        readAll("{\"id\": 1, \"author\": \"alyssa\", \"text\": \"hi\", \"timestamp\": \"yesterday\"}\n");
+    }
+    
+    @Test(expected=UncheckedIOException.class)
+    public void testReadBadSyntax() throws IOException {
+        readAll("{\"id\": 1, \"author\": \"alyssa\"\n");
+    }
+    
+    @Test
+    public void testReadAcrossWindows() throws IOException {
+        StringBuilder contents = new StringBuilder();
+        for (int id = 0; id < 50; id++) {
+            contents.append("{\"id\": ").append(id).append(", \"author\": \"user").append(id)
+                    .append("\", \"text\": \"").append(id % 7 == 0 ? "\u00e9\u00e9" : "plain")
+                    .append("\", \"timestamp\": \"2016-02-17T10:00:00Z\"}\n");
+        }
+        Path file = write(contents.toString());
+        try (Stream<Tweet> tweets = TweetReader.read(file, 128)) {
+            List<Tweet> read = tweets.collect(Collectors.toList());
+            assertEquals(50, read.size());
+            for (int id = 0; id < 50; id++) {
+                assertEquals(id, read.get(id).getId());
+                assertEquals("user" + id, read.get(id).getAuthor());
+            }
+        }
+    }
+    
+    @Test(expected=UncheckedIOException.class)
+    public void testReadRecordLongerThanWindow() throws IOException {
+        Path file = write("{\"id\": 1, \"author\": \"alyssa\", \"text\": \"hi\", \"timestamp\": \"2016-02-17T10:00:00Z\"}\n"
+                + "{\"id\": 2, \"author\": \"alyssa\", \"text\": \"hi\", \"timestamp\": \"2016-02-17T10:00:00Z\"}\n");
+        try (Stream<Tweet> tweets = TweetReader.read(file, 64)) {
+            tweets.count();
+        }
+    }
+    
+    @Test
+    public void testStreamsMatchExtractAndFilter() {
+        List<Tweet> tweets = Arrays.asList(
+                new Tweet(1, "alyssa", "is it reasonable to talk about @rivest so much?", d2),
+                new Tweet(2, "bbitdiddle", "rivest talk in 30 minutes #hype", d1),
+                new Tweet(3, "alyssa", "@bbitdiddle let's talk about @MIT", d1));
+        assertEquals(Extract.getTimespan(tweets), TweetStreams.getTimespan(tweets.stream()));
+        assertEquals(Extract.getMentionedUsers(tweets), TweetStreams.getMentionedUsers(tweets.stream()));
+        assertEquals(Filter.writtenBy(tweets, "ALYSSA"),
+                TweetStreams.writtenBy(tweets.stream(), "ALYSSA").collect(Collectors.toList()));
+        Timespan span = new Timespan(d1, d1);
+        assertEquals(Filter.inTimespan(tweets, span),
+                TweetStreams.inTimespan(tweets.stream(), span).collect(Collectors.toList()));
+        List<String> words = Arrays.asList("Rivest", "hype");
+        assertEquals(Filter.containing(tweets, words),
+                TweetStreams.containing(tweets.stream(), words).collect(Collectors.toList()));
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testStreamsGetTimespanEmpty() {
+        TweetStreams.getTimespan(Stream.empty());
+    }
+}
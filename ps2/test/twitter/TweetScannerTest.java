@@ -0,0 +1,99 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+public class TweetScannerTest {
+
+    /*
+     * Testing strategy for addMentions:
+     * 
+     * partition on number of mentions: 0, 1, >1
+     * partition on position of mention: start of text, middle, end of text
+     * partition on character before "@": none, space/punctuation,
+     *     username character, non-ASCII letter
+     * partition on character after username: none, punctuation,
+     *     non-ASCII letter
+     * partition on case of username: lowercase, mixed case
+     * "@" with no username following it
+     * 
+     * Testing strategy for addHashtags:
+     * 
+     * partition on number of hashtags: 0, 1, >1
+     * partition on character after hashtag: none, punctuation, "#"
+     * partition on case of hashtag: lowercase, mixed case
+     * "#" with no letters or digits following it
+     */
+    
+    private static List<String> mentions(String text) {
+        List<String> mentioned = new ArrayList<>();
+        TweetScanner.addMentions(text, mentioned);
+        return mentioned;
+    }
+    
+    private static List<String> hashtags(String text) {
+        List<String> hashtags = new ArrayList<>();
+        TweetScanner.addHashtags(text, hashtags);
+        return hashtags;
+    }
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    @Test
+    public void testAddMentionsNone() {
+        assertEquals(Collections.emptyList(), mentions("no mentions here"));
+        assertEquals(Collections.emptyList(), mentions(""));
+        assertEquals(Collections.emptyList(), mentions("a lonely @ sign @"));
+    }
+    
+    @Test
+    public void testAddMentionsStartMiddleEnd() {
+        assertEquals(Arrays.asList("alyssa", "ben", "mit"),
+                mentions("@alyssa meet (@Ben) at @MIT"));
+    }
+    
+    @Test
+    public void testAddMentionsPrecededByUsernameChar() {
+        assertEquals(Collections.emptyList(), mentions("bitdiddle@mit.edu"));
+        assertEquals(Collections.emptyList(), mentions("x_@mit -@mit"));
+    }
+    
+    @Test
+    public void testAddMentionsNonAsciiNeighbours() {
+        assertEquals(Collections.emptyList(), mentions("\u00e9@mit"));
+        assertEquals(Collections.emptyList(), mentions("@mit\u00e9"));
+    }
+    
+    @Test
+    public void testAddMentionsAdjacentAtSigns() {
+        assertEquals(Arrays.asList("bob"), mentions("@@bob"));
+        assertEquals(Arrays.asList("bob"), mentions("@bob@alice"));
+    }
+    
+    @Test
+    public void testAddMentionsUsernameChars() {
+        assertEquals(Arrays.asList("a_b-c9"), mentions("hi @A_b-C9!"));
+    }
+    
+    @Test
+    public void testAddHashtagsNone() {
+        assertEquals(Collections.emptyList(), hashtags("no hashtags # here #"));
+    }
+    
+    @Test
+    public void testAddHashtags() {
+        assertEquals(Arrays.asList("mit", "java8", "python"),
+                hashtags("#MIT rocks, #Java8! ##python"));
+        assertEquals(Arrays.asList("a", "b"), hashtags("#a#b"));
+        assertEquals(Arrays.asList("hype"), hashtags("x#hype-train"));
+    }
+}
@@ -0,0 +1,69 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+public class TweetStoreTest {
+
+    /*
+     * Testing strategy:
+     * 
+     * getTimespan: 0, 1, >1 tweets; tweets in and out of time order;
+     *     several tweets with the same timestamp
+     * inTimespan, countInTimespan: span covers none, some, all tweets;
+     *     span endpoints equal to tweet timestamps; span endpoints beyond
+     *     the range of epoch nanoseconds
+     * getTweet: round trip of every field, including sub-second timestamps
+     */
+    
+    private static final Instant d1 = Instant.parse("2016-02-17T10:00:00Z");
+    private static final Instant d2 = Instant.parse("2016-02-17T11:00:00.000000001Z");
+    private static final Instant d3 = Instant.parse("2016-02-17T09:00:00Z");
+    
+    private static final Tweet tweet1 = new Tweet(1, "alyssa", "is it reasonable to talk about rivest so much?", d1);
+    private static final Tweet tweet2 = new Tweet(2, "bbitdiddle", "rivest talk in 30 minutes #hype", d2);
+    private static final Tweet tweet3 = new Tweet(3, "alyssa", "let's talk about MIT", d3);
+    private static final Tweet tweet4 = new Tweet(4, "bbitdiddle", "same time as alyssa", d1);
+    
+    private static final TweetStore store = new TweetStore(Arrays.asList(tweet1, tweet2, tweet3, tweet4));
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    @Test
+    public void testGetTimespan() {
+        assertEquals(new Timespan(d3, d2), store.getTimespan());
+        assertEquals(new Timespan(d1, d1), new TweetStore(Arrays.asList(tweet1)).getTimespan());
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testGetTimespanEmpty() {
+        new TweetStore(Collections.emptyList()).getTimespan();
+    }
+    
+    @Test
+    public void testGetTweet() {
+        Tweet tweet = store.getTweet(1);
+        assertEquals(tweet2.getId(), tweet.getId());
+        assertEquals(tweet2.getAuthor(), tweet.getAuthor());
+        assertEquals(tweet2.getText(), tweet.getText());
+        assertEquals(tweet2.getTimestamp(), tweet.getTimestamp());
+    }
+    
+    @Test
+    public void testInTimespan() {
+        assertEquals(Arrays.asList(tweet1, tweet3, tweet4), store.inTimespan(new Timespan(d3, d1)));
+        assertEquals(Arrays.asList(tweet1, tweet4), store.inTimespan(new Timespan(d1, d1)));
+        assertEquals(Arrays.asList(tweet2), store.inTimespan(new Timespan(d2, d2.plusSeconds(1))));
+        assertEquals(Collections.emptyList(), store.inTimespan(new Timespan(d3.minusSeconds(2), d3.minusSeconds(1))));
+        assertEquals(4, store.countInTimespan(new Timespan(Instant.MIN, Instant.MAX)));
+        assertEquals(2, store.countInTimespan(new Timespan(d1, d1)));
+    }
+}
@@ -0,0 +1,89 @@
+package library;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loading an acquisitions feed into an empty BigLibrary, one buy() per copy
+ * against one buyAll() for the whole feed, then checking out half of the
+ * copies with checkout() against checkoutAll().  Each variant runs a few
+ * times on a fresh library, and the last run is reported, after the JIT has
+ * compiled both.
+ *
+ * Run with -server and a fixed heap (e.g. -Xms4g -Xmx4g for 2M titles), once
+ * with -ea and once without: the batch operations check the rep once per
+ * batch, the single operations once per call.
+ *
+ * Usage: BatchLoadBenchmark [titles [copiesPerTitle [runs]]]
+ */
+public class BatchLoadBenchmark {
+
+    public static void main(String[] args) {
+        final int titles = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        final int copiesPerTitle = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        final int runs = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+
+        final Map<Book, Integer> feed = new LinkedHashMap<>();
+        for (int i = 0; i < titles; i++) {
+            feed.put(new Book("Title " + i, Arrays.asList("Author " + i % 50_000), 1900 + i % 120),
+                    copiesPerTitle);
+        }
+        System.out.printf("%,d titles, %,d copies each%n", titles, copiesPerTitle);
+
+        for (int run = 1; run <= runs; run++) {
+            // each variant's library is garbage before the other one runs
+            System.gc();
+            final double[] single = perCall(feed);
+            System.gc();
+            final double[] batch = batch(feed);
+            if (run == runs) {
+                System.out.printf("buy:      %8.2f s per call   %8.2f s batch   (%.2fx)%n",
+                        single[0], batch[0], single[0] / batch[0]);
+                System.out.printf("checkout: %8.2f s per call   %8.2f s batch   (%.2fx)%n",
+                        single[1], batch[1], single[1] / batch[1]);
+            }
+        }
+    }
+
+    // returns the seconds to buy the feed and to check out half of it
+    private static double[] perCall(Map<Book, Integer> feed) {
+        long start = System.nanoTime();
+        final Library library = new BigLibrary();
+        final List<BookCopy> copies = new ArrayList<>();
+        for (Map.Entry<Book, Integer> entry : feed.entrySet()) {
+            for (int i = 0; i < entry.getValue(); i++) {
+                copies.add(library.buy(entry.getKey()));
+            }
+        }
+        final double buy = seconds(start);
+        start = System.nanoTime();
+        for (int i = 0; i < copies.size(); i += 2) {
+            library.checkout(copies.get(i));
+        }
+        return new double[] { buy, seconds(start) };
+    }
+
+    // returns the seconds to buy the feed and to check out half of it
+    private static double[] batch(Map<Book, Integer> feed) {
+        long start = System.nanoTime();
+        final Library library = new BigLibrary();
+        final Map<Book, List<BookCopy>> bought = library.buyAll(feed);
+        final double buy = seconds(start);
+        final List<BookCopy> half = new ArrayList<>();
+        for (List<BookCopy> copies : bought.values()) {
+            for (int i = 0; i < copies.size(); i += 2) {
+                half.add(copies.get(i));
+            }
+        }
+        start = System.nanoTime();
+        library.checkoutAll(half);
+        return new double[] { buy, seconds(start) };
+    }
+
+    private static double seconds(long start) {
+        return (System.nanoTime() - start) / 1e9;
+    }
+}
@@ -0,0 +1,73 @@
+package library;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Cost of a BigLibrary.allCopies().size() lookup when the caller's Book is
+ * the library's canonical instance, against an equal but distinct Book,
+ * which equals() must compare field by field.  Also reports the cost of
+ * intern().
+ *
+ * Run with -server and without -ea.
+ *
+ * Usage: BookLookupBenchmark [books [authorsPerBook [lookups]]]
+ */
+public class BookLookupBenchmark {
+
+    private static volatile Object sink;
+
+    public static void main(String[] args) {
+        final int books = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        final int authorsPerBook = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        final int lookups = args.length > 2 ? Integer.parseInt(args[2]) : 5_000_000;
+
+        final Library library = new BigLibrary();
+        final List<Book> canonical = new ArrayList<>();
+        final List<Book> equal = new ArrayList<>();
+        for (int i = 0; i < books; i++) {
+            canonical.add(library.buy(book(i, authorsPerBook)).getBook());
+            equal.add(book(i, authorsPerBook));
+        }
+        System.out.printf("%,d books, %d authors each, %,d lookups%n", books, authorsPerBook, lookups);
+        for (int run = 0; run < 3; run++) {
+            final double canonicalNanos = lookups(library, canonical, lookups);
+            final double equalNanos = lookups(library, equal, lookups);
+            final double internNanos = interns(equal, lookups);
+            if (run == 2) {
+                System.out.printf("allCopies, canonical book %8.1f ns%n", canonicalNanos);
+                System.out.printf("allCopies, equal book     %8.1f ns%n", equalNanos);
+                System.out.printf("intern, existing book     %8.1f ns%n", internNanos);
+            }
+        }
+    }
+
+    private static Book book(int i, int authorsPerBook) {
+        final List<String> authors = new ArrayList<>();
+        for (int a = 0; a < authorsPerBook; a++) {
+            authors.add("Author Name " + (i + a) % 100_000);
+        }
+        return new Book("A Reasonably Long Book Title " + i, authors, 1900 + i % 120);
+    }
+
+    // mean nanoseconds per allCopies().size() of a random book
+    private static double lookups(Library library, List<Book> books, int lookups) {
+        final Random random = new Random(1);
+        final long start = System.nanoTime();
+        for (int i = 0; i < lookups; i++) {
+            sink = library.allCopies(books.get(random.nextInt(books.size()))).size();
+        }
+        return (double) (System.nanoTime() - start) / lookups;
+    }
+
+    // mean nanoseconds per intern() of a random book
+    private static double interns(List<Book> books, int lookups) {
+        final Random random = new Random(1);
+        final long start = System.nanoTime();
+        for (int i = 0; i < lookups; i++) {
+            sink = books.get(random.nextInt(books.size())).intern();
+        }
+        return (double) (System.nanoTime() - start) / lookups;
+    }
+}
@@ -0,0 +1,117 @@
+package library;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Throughput of a circulation-desk workload on ConcurrentLibrary, against a
+ * BigLibrary behind one lock, from 1 to 64 threads.  Each thread repeatedly
+ * picks a random copy and checks it out and in again, tests availability,
+ * and every 100 operations runs a find.
+ *
+ * Run with -server and a fixed heap (e.g. -Xms2g -Xmx2g) and without -ea,
+ * since assertions check each touched book's copies on every operation.
+ *
+ * Usage: ConcurrentLibraryBenchmark [books [copiesPerBook [seconds [threads]]]]
+ * where threads is a comma-separated list, by default 1,2,4,8,16,32,64.
+ */
+public class ConcurrentLibraryBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        final int books = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        final int copiesPerBook = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        final double seconds = args.length > 2 ? Double.parseDouble(args[2]) : 2;
+        final int[] threadCounts = Arrays.stream((args.length > 3 ? args[3] : "1,2,4,8,16,32,64")
+                .split(",")).mapToInt(Integer::parseInt).toArray();
+
+        System.out.printf("%,d books, %,d copies each, %d cores%n", books, copiesPerBook,
+                Runtime.getRuntime().availableProcessors());
+        for (int threads : threadCounts) {
+            final double striped = run(new ConcurrentLibrary(), books, copiesPerBook, seconds, threads);
+            final double locked = run(new LockedLibrary(new BigLibrary()), books, copiesPerBook, seconds, threads);
+            System.out.printf("%3d threads: ConcurrentLibrary %,14.0f ops/s   one lock %,14.0f ops/s   (%.2fx)%n",
+                    threads, striped, locked, striped / locked);
+        }
+    }
+
+    /*
+     * Fill library, run the workload on threads for seconds, and return the
+     * operations per second over all threads.
+     */
+    private static double run(Library library, int books, int copiesPerBook, double seconds, int threads)
+            throws InterruptedException {
+        final List<BookCopy> copies = new ArrayList<>();
+        for (int b = 0; b < books; b++) {
+            final Book book = new Book("Title " + b, Arrays.asList("Author " + b % 1000), 1900 + b % 120);
+            for (int c = 0; c < copiesPerBook; c++) {
+                copies.add(library.buy(book));
+            }
+        }
+        final LongAdder operations = new LongAdder();
+        final AtomicBoolean stop = new AtomicBoolean();
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final Random random = new Random(t);
+            final Thread worker = new Thread(() -> {
+                long done = 0;
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                while (!stop.get()) {
+                    final BookCopy copy = copies.get(random.nextInt(copies.size()));
+                    // copies are shared between threads, so this may find
+                    // the copy already checked out by another thread
+                    if (library.isAvailable(copy)) {
+                        library.checkout(copy);
+                        library.checkin(copy);
+                    }
+                    if (done % 100 == 0) {
+                        library.find("Author " + random.nextInt(1000));
+                    }
+                    done += 3;
+                }
+                operations.add(done);
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        final long begin = System.nanoTime();
+        start.countDown();
+        Thread.sleep((long) (seconds * 1000));
+        stop.set(true);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return operations.sum() / ((System.nanoTime() - begin) / 1e9);
+    }
+
+    /*
+     * A Library made thread-safe the simple way, by holding one lock for
+     * every operation.
+     */
+    private static class LockedLibrary implements Library {
+        private final Library library;
+
+        LockedLibrary(Library library) {
+            this.library = library;
+        }
+
+        @Override public synchronized BookCopy buy(Book book) { return library.buy(book); }
+        @Override public synchronized void checkout(BookCopy copy) { library.checkout(copy); }
+        @Override public synchronized void checkin(BookCopy copy) { library.checkin(copy); }
+        @Override public synchronized boolean isAvailable(BookCopy copy) { return library.isAvailable(copy); }
+        @Override public synchronized Set<BookCopy> allCopies(Book book) { return library.allCopies(book); }
+        @Override public synchronized Set<BookCopy> availableCopies(Book book) { return library.availableCopies(book); }
+        @Override public synchronized List<Book> find(String query) { return library.find(query); }
+        @Override public synchronized void lose(BookCopy copy) { library.lose(copy); }
+    }
+}
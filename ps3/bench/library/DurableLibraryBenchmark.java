@@ -0,0 +1,98 @@
+package library;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Cost of durability in DurableLibrary: throughput of checkouts and checkins
+ * under each SyncPolicy, and recovery time of a large library from its log
+ * alone and from a snapshot.  Operations run on one thread, so each waits
+ * for its own force under GROUP_COMMIT as under EVERY_OPERATION; a group
+ * forms only when several threads wait at once.
+ *
+ * Run with -server, a fixed heap large enough for the library (e.g. -Xms4g
+ * -Xmx4g for 5M copies) and without -ea.  Recovery builds a large live
+ * heap quickly, so collectors that copy it (e.g. a small young generation)
+ * can dominate its time; -Xlog:gc shows how much.  Files are written under a new
+ * temporary directory, deleted at the end.
+ *
+ * Usage: DurableLibraryBenchmark [copies [copiesPerBook [operations]]]
+ */
+public class DurableLibraryBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        final int copies = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        final int copiesPerBook = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        final int operations = args.length > 2 ? Integer.parseInt(args[2]) : 20_000;
+        final Path root = Files.createTempDirectory("DurableLibraryBenchmark");
+        try {
+            for (DurableLibrary.SyncPolicy policy : DurableLibrary.SyncPolicy.values()) {
+                final Path directory = root.resolve(policy.name());
+                try (DurableLibrary library = open(directory, policy)) {
+                    final List<BookCopy> bought = new ArrayList<>();
+                    for (int i = 0; i < 1000; i++) {
+                        bought.add(library.buy(book(i)));
+                    }
+                    final long start = System.nanoTime();
+                    for (int i = 0; i < operations; i += 2) {
+                        final BookCopy copy = bought.get(i % bought.size());
+                        library.checkout(copy);
+                        library.checkin(copy);
+                    }
+                    final double seconds = (System.nanoTime() - start) / 1e9;
+                    System.out.printf("%-16s %,12.0f ops/s%n", policy, operations / seconds);
+                }
+            }
+
+            final Path directory = root.resolve("recovery");
+            long start = System.nanoTime();
+            try (DurableLibrary library = open(directory, DurableLibrary.SyncPolicy.NEVER)) {
+                for (int i = 0; i < copies; i++) {
+                    final BookCopy copy = library.buy(book(i / copiesPerBook));
+                    if (i % 2 == 0) {
+                        library.checkout(copy);
+                    }
+                }
+            }
+            System.out.printf("%,d copies logged in %.2f s, log %,d bytes%n", copies,
+                    (System.nanoTime() - start) / 1e9, Files.size(directory.resolve("log-0")));
+
+            start = System.nanoTime();
+            try (DurableLibrary library = open(directory, DurableLibrary.SyncPolicy.NEVER)) {
+                System.out.printf("recovered from log in %.2f s%n", (System.nanoTime() - start) / 1e9);
+                start = System.nanoTime();
+                library.snapshot();
+                System.out.printf("snapshot written in %.2f s, %,d bytes%n", (System.nanoTime() - start) / 1e9,
+                        Files.size(directory.resolve("snapshot")));
+            }
+
+            // repeated, since the first recovery also pays for JIT compilation
+            for (int i = 0; i < 3; i++) {
+                start = System.nanoTime();
+                try (DurableLibrary library = open(directory, DurableLibrary.SyncPolicy.NEVER)) {
+                    System.out.printf("recovered from snapshot in %.2f s, %d copies of the first book%n",
+                            (System.nanoTime() - start) / 1e9, library.allCopies(book(0)).size());
+                }
+            }
+        } finally {
+            try (Stream<Path> files = Files.walk(root)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    private static DurableLibrary open(Path directory, DurableLibrary.SyncPolicy policy) throws IOException {
+        return DurableLibrary.open(directory, new BigLibrary(), policy, DurableLibrary.DEFAULT_GROUP_SIZE,
+                DurableLibrary.DEFAULT_GROUP_MILLIS, Long.MAX_VALUE);
+    }
+
+    private static Book book(int i) {
+        return new Book("Title " + i, Arrays.asList("Author " + i % 10_000), 1900 + i % 120);
+    }
+}
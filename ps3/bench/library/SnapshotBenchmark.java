@@ -0,0 +1,87 @@
+package library;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Cost of BigLibrary.snapshot() on a large library, and of a reporting job
+ * that reads the whole snapshot (every book's copies, and a find per
+ * author) on another thread while the main thread keeps checking copies
+ * out and in.  Checkout throughput is reported without a snapshot, just
+ * after one (when the library copies what it shares with the snapshot), and
+ * while the report runs.
+ *
+ * Run with -server, a fixed heap large enough for the library (e.g. -Xms3g
+ * -Xmx3g for 5M copies) and without -ea.
+ *
+ * Usage: SnapshotBenchmark [copies [copiesPerBook [operations]]]
+ */
+public class SnapshotBenchmark {
+
+    private static volatile Object sink;
+
+    public static void main(String[] args) throws InterruptedException {
+        final int copies = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        final int copiesPerBook = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        final int operations = args.length > 2 ? Integer.parseInt(args[2]) : 2_000_000;
+
+        final BigLibrary library = new BigLibrary();
+        final List<Book> books = new ArrayList<>();
+        final List<BookCopy> bought = new ArrayList<>(copies);
+        for (int i = 0; i < copies / copiesPerBook; i++) {
+            final Book book = new Book("Title " + i, Arrays.asList("Author " + i % 10_000), 1900 + i % 120);
+            books.add(book);
+            for (int c = 0; c < copiesPerBook; c++) {
+                bought.add(library.buy(book));
+            }
+        }
+        System.out.printf("%,d books, %,d copies%n", books.size(), bought.size());
+
+        for (int run = 0; run < 3; run++) {
+            final double steady = checkouts(library, bought, operations);
+            long start = System.nanoTime();
+            Library snapshot = library.snapshot();
+            final double snapshotMicros = (System.nanoTime() - start) / 1e3;
+            final double afterSnapshot = checkouts(library, bought, operations);
+
+            snapshot = library.snapshot();
+            final Library report = snapshot;
+            final long[] reportNanos = new long[1];
+            final Thread reporter = new Thread(() -> {
+                final long reportStart = System.nanoTime();
+                long total = 0;
+                for (Book book : books) {
+                    total += report.allCopies(book).size() + report.availableCopies(book).size();
+                }
+                for (int a = 0; a < 10_000; a += 10) {
+                    total += report.find("Author " + a).size();
+                }
+                sink = total;
+                reportNanos[0] = System.nanoTime() - reportStart;
+            });
+            reporter.start();
+            final double duringReport = checkouts(library, bought, operations);
+            reporter.join();
+            if (run == 2) {
+                System.out.printf("snapshot() %.1f us%n", snapshotMicros);
+                System.out.printf("checkout+checkin: %,.0f ops/s steady, %,.0f ops/s after snapshot,"
+                        + " %,.0f ops/s during report%n", steady, afterSnapshot, duringReport);
+                System.out.printf("report over snapshot %.2f s%n", reportNanos[0] / 1e9);
+            }
+        }
+    }
+
+    // operations per second checking random copies out and in
+    private static double checkouts(Library library, List<BookCopy> copies, int operations) {
+        final Random random = new Random(1);
+        final long start = System.nanoTime();
+        for (int i = 0; i < operations; i += 2) {
+            final BookCopy copy = copies.get(random.nextInt(copies.size()));
+            library.checkout(copy);
+            library.checkin(copy);
+        }
+        return operations / ((System.nanoTime() - start) / 1e9);
+    }
+}
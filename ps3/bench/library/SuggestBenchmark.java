@@ -0,0 +1,87 @@
+package library;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Latency of BigLibrary.suggest() on a large catalog, for prefixes of 1 to 8
+ * characters of random titles and author names, reported as percentiles.
+ * Also reports the cost of a buy() and a lose() of one copy, which keep the
+ * suggestion index up to date.
+ *
+ * Run with -server, a fixed heap large enough for the catalog (e.g. -Xms3g
+ * -Xmx3g for 3M titles) and without -ea.
+ *
+ * Usage: SuggestBenchmark [titles [queries [limit]]]
+ */
+public class SuggestBenchmark {
+
+    private static final String[] WORDS = {
+        "the", "history", "of", "a", "introduction", "to", "art", "war", "and", "peace", "modern",
+        "ancient", "theory", "practice", "programming", "structure", "life", "world", "new", "guide",
+        "principles", "physics", "garden", "river", "night", "city", "journey", "letters", "essays",
+        "collected", "complete", "works", "volume", "second", "edition", "study", "notes", "on",
+    };
+
+    private static volatile Object sink;
+
+    public static void main(String[] args) {
+        final int titles = args.length > 0 ? Integer.parseInt(args[0]) : 3_000_000;
+        final int queries = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+        final int limit = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        final Random random = new Random(6031);
+        final Map<Book, Integer> feed = new LinkedHashMap<>();
+        for (int i = 0; i < titles; i++) {
+            feed.put(book(random, i), 1 + random.nextInt(3));
+        }
+        final Book[] books = feed.keySet().toArray(new Book[titles]);
+        long start = System.nanoTime();
+        final BigLibrary library = new BigLibrary();
+        library.buyAll(feed);
+        System.out.printf("%,d titles loaded in %.2f s%n", titles, (System.nanoTime() - start) / 1e9);
+
+        for (int run = 0; run < 3; run++) {
+            final long[] nanos = new long[queries];
+            for (int i = 0; i < queries; i++) {
+                final Book book = books[random.nextInt(books.length)];
+                final String name = random.nextBoolean() ? book.getTitle() : book.getAuthors().get(0);
+                final String prefix = name.substring(0, Math.min(name.length(), 1 + random.nextInt(8)));
+                start = System.nanoTime();
+                sink = library.suggest(prefix, limit);
+                nanos[i] = System.nanoTime() - start;
+            }
+            Arrays.sort(nanos);
+            System.out.printf("suggest, limit %d: p50 %6.1f us  p99 %6.1f us  p99.9 %7.1f us  max %8.1f us%n",
+                    limit, nanos[queries / 2] / 1e3, nanos[queries * 99 / 100] / 1e3,
+                    nanos[queries * 999 / 1000] / 1e3, nanos[queries - 1] / 1e3);
+        }
+
+        final int changes = Math.min(queries, titles);
+        start = System.nanoTime();
+        final BookCopy[] bought = new BookCopy[changes];
+        for (int i = 0; i < changes; i++) {
+            bought[i] = library.buy(books[i]);
+        }
+        final double buyNanos = (double) (System.nanoTime() - start) / changes;
+        start = System.nanoTime();
+        for (BookCopy copy : bought) {
+            library.lose(copy);
+        }
+        final double loseNanos = (double) (System.nanoTime() - start) / changes;
+        System.out.printf("buy %.2f us, lose %.2f us per copy%n", buyNanos / 1e3, loseNanos / 1e3);
+    }
+
+    private static Book book(Random random, int i) {
+        final StringBuilder title = new StringBuilder();
+        for (int w = 1 + random.nextInt(4); w > 0; w--) {
+            title.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+        }
+        title.append(i);
+        final List<String> authors = Arrays.asList("Author " + random.nextInt(200_000));
+        return new Book(title.toString(), authors, 1800 + random.nextInt(220));
+    }
+}
@@ -1,7 +1,16 @@
 package library;
 
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Supplier;
 
 /**
  * BigLibrary represents a large collection of books that might be held by a city or
@@ -12,72 +21,492 @@ import java.util.Set;
  */
 public class BigLibrary implements Library {
 
-    // TODO: rep
+    // rep
+    private HashTrie<Book, CopySet> copies;
+    private final SearchIndex index;
+    private final SuggestIndex suggestions;
+    private Object edit;
     
-    // TODO: rep invariant
-    // TODO: abstraction function
-    // TODO: safety from rep exposure argument
+    // rep invariant:
+    //    for every entry (book, set) of copies, set.available and
+    //      set.checkedOut are disjoint, and every copy in either has
+    //      getBook() equal to book
+    //    index and suggestions contain exactly the books whose CopySet is
+    //      nonempty
+    //    for every entry (book, set) of copies, set.book equals book
+    //    no snapshot shares a node of copies, or a CopySet, that edit owns
+    //
+    // abstraction function:
+    //    represents the collection of every copy in copies[b].available or
+    //      copies[b].checkedOut for some book b, where the copies in
+    //      available are available and those in checkedOut are checked out
+    //
+    // safety from rep exposure:
+    //    copies, index, suggestions and edit are private and never
+    //    returned; allCopies and availableCopies return unmodifiable views,
+    //    through which clients can read but not change the rep; BookCopy
+    //    objects are shared with clients, but the rep depends only on their
+    //    identity and their immutable getBook(); snapshots share tries and
+    //    CopySets with this library, but snapshot() switches to a new edit
+    //    token first, so this library copies them before changing them
+    //
+    // A CopySet is never removed from copies, even when its book has no
+    // copies left, so the book keeps its canonical instance if it is bought
+    // again.
+    
+    /*
+     * The copies of one book, split by availability, each mapped to itself.
+     * A CopySet may be changed only under the edit token it was made for.
+     */
+    private static class CopySet {
+        private final Book book;
+        private final Object edit;
+        private HashTrie<BookCopy, BookCopy> available;
+        private HashTrie<BookCopy, BookCopy> checkedOut;
+        
+        CopySet(Book book, Object edit, HashTrie<BookCopy, BookCopy> available,
+                HashTrie<BookCopy, BookCopy> checkedOut) {
+            this.book = book;
+            this.edit = edit;
+            this.available = available;
+            this.checkedOut = checkedOut;
+        }
+        
+        int size() {
+            return available.size() + checkedOut.size();
+        }
+        
+        boolean isEmpty() {
+            return available.isEmpty() && checkedOut.isEmpty();
+        }
+    }
+    
+    /*
+     * Read-only view of the copies of a CopySet, found anew on each call.
+     */
+    private static class CopiesView extends AbstractSet<BookCopy> {
+        private final Supplier<CopySet> set;
+        private final boolean availableOnly;
+        
+        CopiesView(Supplier<CopySet> set, boolean availableOnly) {
+            this.set = set;
+            this.availableOnly = availableOnly;
+        }
+        
+        @Override public int size() {
+            final CopySet copies = set.get();
+            return copies == null ? 0 : availableOnly ? copies.available.size() : copies.size();
+        }
+        
+        @Override public boolean contains(Object copy) {
+            final CopySet copies = set.get();
+            return copies != null && (copies.available.containsKey(copy)
+                    || !availableOnly && copies.checkedOut.containsKey(copy));
+        }
+        
+        @Override public Iterator<BookCopy> iterator() {
+            final CopySet copies = set.get();
+            if (copies == null) {
+                return Collections.emptyIterator();
+            }
+            final Iterator<BookCopy> first = copies.available.keySet().iterator();
+            if (availableOnly) {
+                return first;
+            }
+            final Iterator<BookCopy> second = copies.checkedOut.keySet().iterator();
+            return new Iterator<BookCopy>() {
+                @Override public boolean hasNext() {
+                    return first.hasNext() || second.hasNext();
+                }
+                
+                @Override public BookCopy next() {
+                    return first.hasNext() ? first.next() : second.next();
+                }
+            };
+        }
+    }
+    
+    // initial capacity of a hash table that holds expected entries without
+    // resizing
+    private static int capacity(int expected) {
+        return Math.max(16, (int) (expected / 0.75f) + 1);
+    }
     
     public BigLibrary() {
-        throw new RuntimeException("not implemented yet");
+        this.copies = HashTrie.empty();
+        this.index = new SearchIndex();
+        this.suggestions = new SuggestIndex(this::copyCount);
+        this.edit = new Object();
+        checkRep();
     }
     
     // assert the rep invariant
     private void checkRep() {
-        throw new RuntimeException("not implemented yet");
+        assert copies != null;
+        assert index != null;
+        assert suggestions != null;
+        assert edit != null;
+    }
+    
+    // assert the rep invariant for one book's copies, and return true;
+    // costs O(copies of that book), so it is called as "assert checkRep(book)"
+    // and costs nothing when assertions are disabled
+    private boolean checkRep(Book book) {
+        final CopySet set = copies.get(book);
+        if (set == null) {
+            assert !index.contains(book);
+            assert !suggestions.contains(book);
+            return true;
+        }
+        assert set.book.equals(book);
+        assert index.contains(book) == !set.isEmpty();
+        assert suggestions.contains(book) == !set.isEmpty();
+        for (BookCopy copy : set.available.keySet()) {
+            assert !set.checkedOut.containsKey(copy);
+            assert copy.getBook().equals(book);
+        }
+        for (BookCopy copy : set.checkedOut.keySet()) {
+            assert copy.getBook().equals(book);
+        }
+        return true;
+    }
+
+    // assert the rep invariant for the copies of several books, and return
+    // true; called as "assert checkRep(books)"
+    private boolean checkRep(Collection<Book> books) {
+        for (Book book : books) {
+            checkRep(book);
+        }
+        return true;
+    }
+
+    // number of copies of book in this library
+    private int copyCount(Book book) {
+        final CopySet set = copies.get(book);
+        return set == null ? 0 : set.size();
+    }
+
+    // the CopySet of book that edit owns, made if there is none; a new
+    // CopySet is keyed by the canonical instance of book, which its copies
+    // share, so lookups with copy.getBook() or an interned book find the key
+    // by reference
+    private CopySet copySet(Book book) {
+        final CopySet set = copies.get(book);
+        if (set == null) {
+            final Book canonical = book.intern();
+            final CopySet made = new CopySet(canonical, edit, HashTrie.empty(), HashTrie.empty());
+            copies = copies.with(canonical, made, edit);
+            return made;
+        }
+        return owned(set);
+    }
+
+    // set if edit owns it, otherwise a copy of set that replaces it in copies
+    private CopySet owned(CopySet set) {
+        if (set.edit == edit) {
+            return set;
+        }
+        final CopySet copy = new CopySet(set.book, edit, set.available, set.checkedOut);
+        copies = copies.with(set.book, copy, edit);
+        return copy;
     }
 
     @Override
     public BookCopy buy(Book book) {
-        throw new RuntimeException("not implemented yet");
+        final CopySet set = copySet(book);
+        final BookCopy copy = new BookCopy(set.book);
+        final boolean isNew = set.isEmpty();
+        set.available = set.available.with(copy, copy, edit);
+        if (isNew) {
+            index.add(set.book);
+            suggestions.add(set.book);
+        } else {
+            suggestions.update(set.book);
+        }
+        assert checkRep(book);
+        return copy;
+    }
+    
+    /**
+     * {@inheritDoc}
+     * New books are added to the search index together, and the rep is
+     * checked once for the whole batch.
+     */
+    @Override
+    public Map<Book, List<BookCopy>> buyAll(Map<Book, Integer> counts) {
+        final Map<Book, List<BookCopy>> bought = new LinkedHashMap<>(capacity(counts.size()));
+        final List<Book> newBooks = new ArrayList<>();
+        for (Map.Entry<Book, Integer> entry : counts.entrySet()) {
+            final Book book = entry.getKey();
+            final int count = entry.getValue();
+            final CopySet set = copySet(book);
+            final boolean isNew = set.isEmpty();
+            final List<BookCopy> bookCopies = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                final BookCopy copy = new BookCopy(set.book);
+                set.available = set.available.with(copy, copy, edit);
+                bookCopies.add(copy);
+            }
+            bought.put(book, bookCopies);
+            if (count > 0) {
+                if (isNew) {
+                    newBooks.add(set.book);
+                } else {
+                    // suggestions ranks by copy count and updates assume only
+                    // this book's rank has changed, so update it right away
+                    suggestions.update(set.book);
+                }
+            }
+        }
+        index.addAll(newBooks);
+        for (Book book : newBooks) {
+            suggestions.add(book);
+        }
+        assert checkRep(counts.keySet());
+        return bought;
     }
     
     @Override
     public void checkout(BookCopy copy) {
-        throw new RuntimeException("not implemented yet");
+        move(copy, true);
+        assert checkRep(copy.getBook());
     }
     
     @Override
     public void checkin(BookCopy copy) {
-        throw new RuntimeException("not implemented yet");
+        move(copy, false);
+        assert checkRep(copy.getBook());
     }
     
+    // check out copy if it is available and out is true, or check it in if it
+    // is checked out and out is false
+    private void move(BookCopy copy, boolean out) {
+        final CopySet found = copies.get(copy.getBook());
+        if (found == null || !(out ? found.available : found.checkedOut).containsKey(copy)) {
+            return;
+        }
+        final CopySet set = owned(found);
+        if (out) {
+            set.available = set.available.without(copy, edit);
+            set.checkedOut = set.checkedOut.with(copy, copy, edit);
+        } else {
+            set.checkedOut = set.checkedOut.without(copy, edit);
+            set.available = set.available.with(copy, copy, edit);
+        }
+    }
+    
+    /**
+     * {@inheritDoc}
+     * The returned set is an unmodifiable view, which reflects later changes
+     * to this library.
+     */
     @Override
     public Set<BookCopy> allCopies(Book book) {
-        throw new RuntimeException("not implemented yet");
+        return new CopiesView(() -> copies.get(book), false);
     }
 
+    /**
+     * {@inheritDoc}
+     * The returned set is an unmodifiable view, which reflects later changes
+     * to this library.
+     */
     @Override
     public Set<BookCopy> availableCopies(Book book) {
-        throw new RuntimeException("not implemented yet");
+        return new CopiesView(() -> copies.get(book), true);
+    }
+    
+    /**
+     * {@inheritDoc}
+     * The rep is checked once for the whole batch.
+     */
+    @Override
+    public void checkoutAll(Collection<BookCopy> batch) {
+        for (BookCopy copy : batch) {
+            move(copy, true);
+        }
+        assert checkRep(booksOf(batch));
+    }
+    
+    /**
+     * {@inheritDoc}
+     * The rep is checked once for the whole batch.
+     */
+    @Override
+    public void checkinAll(Collection<BookCopy> batch) {
+        for (BookCopy copy : batch) {
+            move(copy, false);
+        }
+        assert checkRep(booksOf(batch));
+    }
+    
+    private static Set<Book> booksOf(Collection<BookCopy> batch) {
+        final Set<Book> books = new HashSet<>();
+        for (BookCopy copy : batch) {
+            books.add(copy.getBook());
+        }
+        return books;
     }
     
     @Override
     public boolean isAvailable(BookCopy copy) {
-        throw new RuntimeException("not implemented yet");
+        final CopySet set = copies.get(copy.getBook());
+        return set != null && set.available.containsKey(copy);
     }
     
+    /**
+     * {@inheritDoc}
+     * Titles, author names and the query are compared case-insensitively as
+     * sequences of words, the maximal runs of letters and digits.  The
+     * results are first the books whose whole title or an author's whole
+     * name matches the query, then the books containing every word of the
+     * query in their title or authors; within each group, newer books come
+     * first.
+     */
     @Override
     public List<Book> find(String query) {
-        throw new RuntimeException("not implemented yet");
+        return index.find(query);
+    }
+    
+    /**
+     * Suggest completions of a partly typed title or author name.
+     * @param prefix prefix typed so far; compared case-insensitively as a
+     *        sequence of words, like the queries of find()
+     * @param limit maximum number of books to return, requires limit >= 0
+     * @return books in this library, each once, whose whole title or some
+     *         author's whole name starts with prefix; newer books come first,
+     *         then books with more copies in this library; at most limit of
+     *         them, the first in that order.  Takes time proportional to the
+     *         length of prefix plus limit when limit <= 16.
+     * @throws IllegalArgumentException if limit < 0
+     */
+    public List<Book> suggest(String prefix, int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("requires limit >= 0");
+        }
+        return suggestions.suggest(prefix, limit);
     }
     
     @Override
     public void lose(BookCopy copy) {
-        throw new RuntimeException("not implemented yet");
+        final CopySet found = copies.get(copy.getBook());
+        if (found != null && (found.available.containsKey(copy) || found.checkedOut.containsKey(copy))) {
+            final CopySet set = owned(found);
+            set.available = set.available.without(copy, edit);
+            set.checkedOut = set.checkedOut.without(copy, edit);
+            if (set.isEmpty()) {
+                index.remove(set.book);
+                suggestions.remove(set.book);
+            } else {
+                suggestions.update(set.book);
+            }
+        }
+        assert checkRep(copy.getBook());
+    }
+
+    /**
+     * Take a snapshot of this library, for long reads while it changes.
+     * @return a Library holding the copies that this library holds now, each
+     *         available or checked out as it is now, with find() as specified
+     *         by BigLibrary; later changes to this library do not affect it.
+     *         Its allCopies() and availableCopies() return unmodifiable sets,
+     *         and its buy(), checkout(), checkin() and lose() throw
+     *         UnsupportedOperationException.  Takes O(1) time; the snapshot
+     *         may be read by any threads while this library changes, and
+     *         this library copies what it shares with the snapshot only when
+     *         it changes it.
+     */
+    public Library snapshot() {
+        // from now on, nodes and CopySets shared with the snapshot are copied
+        // before they are changed
+        edit = new Object();
+        return new Snapshot(copies, index.snapshot());
+    }
+    
+    /*
+     * An unchanging Library: a BigLibrary as it was when snapshot() made it.
+     */
+    private static class Snapshot implements Library {
+        private final HashTrie<Book, CopySet> copies;
+        private final SearchIndex index;
+        
+        // rep invariant:
+        //    as for BigLibrary's copies and index; no edit token that owns a
+        //      node of copies, a CopySet in it, or a node of index, is ever
+        //      used again
+        //
+        // abstraction function:
+        //    as for BigLibrary
+        //
+        // safety from rep exposure:
+        //    fields are private and final, and never returned; allCopies and
+        //    availableCopies return unmodifiable views
+        //
+        // thread safety argument:
+        //    the rep never changes, because no one changes it under its edit
+        //    tokens, and reads do not change it; the fields are final, so
+        //    any thread that sees a Snapshot sees its rep as it was made
+        
+        Snapshot(HashTrie<Book, CopySet> copies, SearchIndex index) {
+            this.copies = copies;
+            this.index = index;
+        }
+        
+        @Override
+        public BookCopy buy(Book book) {
+            throw new UnsupportedOperationException("snapshot is read-only");
+        }
+        
+        @Override
+        public void checkout(BookCopy copy) {
+            throw new UnsupportedOperationException("snapshot is read-only");
+        }
+        
+        @Override
+        public void checkin(BookCopy copy) {
+            throw new UnsupportedOperationException("snapshot is read-only");
+        }
+        
+        @Override
+        public boolean isAvailable(BookCopy copy) {
+            final CopySet set = copies.get(copy.getBook());
+            return set != null && set.available.containsKey(copy);
+        }
+        
+        @Override
+        public Set<BookCopy> allCopies(Book book) {
+            final CopySet set = copies.get(book);
+            return new CopiesView(() -> set, false);
+        }
+        
+        @Override
+        public Set<BookCopy> availableCopies(Book book) {
+            final CopySet set = copies.get(book);
+            return new CopiesView(() -> set, true);
+        }
+        
+        @Override
+        public List<Book> find(String query) {
+            return index.find(query);
+        }
+        
+        @Override
+        public void lose(BookCopy copy) {
+            throw new UnsupportedOperationException("snapshot is read-only");
+        }
+        
+        @Override
+        public String toString() {
+            return "BigLibrary snapshot(" + copies.size() + " books)";
+        }
     }
 
-    // uncomment the following methods if you need to implement equals and hashCode,
-    // or delete them if you don't
-    // @Override
-    // public boolean equals(Object that) {
-    //     throw new RuntimeException("not implemented yet");
-    // }
-    // 
-    // @Override
-    // public int hashCode() {
-    //     throw new RuntimeException("not implemented yet");
-    // }
+    /*
+     * @see Object.toString()
+     */
+    @Override
+    public String toString() {
+        return "BigLibrary(" + copies.size() + " books)";
+    }
 
 
     /* Copyright (c) 2016 MIT 6.005 course staff, all rights reserved.
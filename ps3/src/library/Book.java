@@ -1,6 +1,14 @@
 package library;
 
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Book is an immutable type representing an edition of a book -- not the physical object, 
@@ -10,11 +18,31 @@ import java.util.List;
  */
 public class Book {
 
-    // TODO: rep
+    // rep
+    private final String title;
+    private final List<String> authors;
+    private final int year;
+    private final int hashCode;
     
-    // TODO: rep invariant
-    // TODO: abstraction function
-    // TODO: safety from rep exposure argument
+    // rep invariant:
+    //    title contains a non-space character
+    //    authors is nonempty, and each name contains a non-space character
+    //    year >= 0
+    //    hashCode = Objects.hash(title, authors, year)
+    //
+    // abstraction function:
+    //    represents the edition of the book titled title, written by
+    //      authors in that order, published in year
+    //
+    // safety from rep exposure:
+    //    all fields are private and final; title and the names are immutable
+    //    Strings, and authors is an unmodifiable copy of the caller's list,
+    //    so returning it exposes nothing mutable
+    //
+    // thread safety argument:
+    //    Book is immutable; the pool of canonical books is a ConcurrentMap
+    //    and a ReferenceQueue, which are threadsafe, and intern() only calls
+    //    their atomic operations
     
     /**
      * Make a Book.
@@ -24,33 +52,43 @@ public class Book {
      * @param year Year when this edition was published in the conventional (Common Era) calendar.  Must be nonnegative. 
      */
     public Book(String title, List<String> authors, int year) {
-        throw new RuntimeException("not implemented yet");
+        this.title = title;
+        this.authors = Collections.unmodifiableList(new ArrayList<>(authors));
+        this.year = year;
+        this.hashCode = Objects.hash(title, this.authors, year);
+        checkRep();
     }
     
     // assert the rep invariant
     private void checkRep() {
-        throw new RuntimeException("not implemented yet");
+        assert !title.trim().isEmpty();
+        assert !authors.isEmpty();
+        for (String author : authors) {
+            assert !author.trim().isEmpty();
+        }
+        assert year >= 0;
+        assert hashCode == Objects.hash(title, authors, year);
     }
     
     /**
      * @return the title of this book
      */
     public String getTitle() {
-        throw new RuntimeException("not implemented yet");
+        return title;
     }
     
     /**
      * @return the authors of this book
      */
     public List<String> getAuthors() {
-        throw new RuntimeException("not implemented yet");
+        return authors;
     }
 
     /**
      * @return the year that this book was published
      */
     public int getYear() {
-        throw new RuntimeException("not implemented yet");
+        return year;
     }
 
     /**
@@ -58,20 +96,96 @@ public class Book {
      *    authors, and publication year
      */
     public String toString() {
-        throw new RuntimeException("not implemented yet");
+        return "\"" + title + "\" by " + String.join(", ", authors) + " (" + year + ")";
     }
 
-    // uncomment the following methods if you need to implement equals and hashCode,
-    // or delete them if you don't
-    // @Override
-    // public boolean equals(Object that) {
-    //     throw new RuntimeException("not implemented yet");
-    // }
-    // 
-    // @Override
-    // public int hashCode() {
-    //     throw new RuntimeException("not implemented yet");
-    // }
+    @Override
+    public boolean equals(Object that) {
+        if (this == that) {
+            return true;
+        }
+        if (!(that instanceof Book)) {
+            return false;
+        }
+        final Book thatBook = (Book) that;
+        return hashCode == thatBook.hashCode && year == thatBook.year
+                && title.equals(thatBook.title) && authors.equals(thatBook.authors);
+    }
+    
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+    
+    /**
+     * Get the canonical Book equal to this one.  Like String.intern(), this
+     * lets equal books share one object, so they take the memory of one and
+     * compare equal by reference, which equals() checks first.  The pool of
+     * canonical books holds them weakly: a canonical book that is no longer
+     * used elsewhere may be collected, and a later intern() of an equal book
+     * makes that book canonical instead.  Safe for use by multiple threads.
+     * 
+     * @return a book equal to this one, the same object for all equal books
+     *         interned while it is reachable
+     */
+    public Book intern() {
+        expungeCollected();
+        final Canonical key = new Canonical(this, COLLECTED);
+        while (true) {
+            final Canonical existing = POOL.putIfAbsent(key, key);
+            if (existing == null) {
+                return this;
+            }
+            final Book canonical = existing.get();
+            if (canonical != null) {
+                return canonical;
+            }
+            // collected since it was found; it no longer matches, so retry
+        }
+    }
+    
+    // pool of canonical books, each its own key
+    private static final ConcurrentMap<Canonical, Canonical> POOL = new ConcurrentHashMap<>();
+    private static final ReferenceQueue<Book> COLLECTED = new ReferenceQueue<>();
+    
+    /*
+     * A weak reference to a canonical book, which is equal to another
+     * Canonical referring to an equal book, and only to itself once its book
+     * has been collected.
+     */
+    private static final class Canonical extends WeakReference<Book> {
+        private final int hashCode;
+        
+        Canonical(Book book, ReferenceQueue<Book> queue) {
+            super(book, queue);
+            this.hashCode = book.hashCode;
+        }
+        
+        @Override
+        public boolean equals(Object that) {
+            if (this == that) {
+                return true;
+            }
+            if (!(that instanceof Canonical)) {
+                return false;
+            }
+            final Book book = get();
+            return book != null && book.equals(((Canonical) that).get());
+        }
+        
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+    
+    // remove the pool's entries whose books have been collected
+    private static void expungeCollected() {
+        Reference<? extends Book> collected;
+        while ((collected = COLLECTED.poll()) != null) {
+            POOL.remove(collected);
+        }
+    }
 
 
 
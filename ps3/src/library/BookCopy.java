@@ -6,11 +6,22 @@ package library;
  */
 public class BookCopy {
 
-    // TODO: rep
+    // rep
+    private final Book book;
+    private Condition condition;
     
-    // TODO: rep invariant
-    // TODO: abstraction function
-    // TODO: safety from rep exposure argument
+    // rep invariant:
+    //    book != null and condition != null
+    //
+    // abstraction function:
+    //    represents a physical copy of book, currently in condition
+    //
+    // safety from rep exposure:
+    //    all fields are private; book is immutable and condition is an
+    //    immutable enum value
+    //
+    // BookCopy is mutable, so it keeps Object's identity equality: two
+    // copies of the same book are different copies.
     
     public static enum Condition {
         GOOD, DAMAGED
@@ -21,26 +32,29 @@ public class BookCopy {
      * @param book the Book of which this is a copy
      */
     public BookCopy(Book book) {
-        throw new RuntimeException("not implemented yet");
+        this.book = book;
+        this.condition = Condition.GOOD;
+        checkRep();
     }
     
     // assert the rep invariant
     private void checkRep() {
-        throw new RuntimeException("not implemented yet");
+        assert book != null;
+        assert condition != null;
     }
     
     /**
      * @return the Book of which this is a copy
      */
     public Book getBook() {
-        throw new RuntimeException("not implemented yet");
+        return book;
     }
     
     /**
      * @return the condition of this book copy
      */
     public Condition getCondition() {
-        throw new RuntimeException("not implemented yet");
+        return condition;
     }
 
     /**
@@ -48,7 +62,8 @@ public class BookCopy {
      * @param condition the latest condition of the book copy
      */
     public void setCondition(Condition condition) {
-        throw new RuntimeException("not implemented yet");
+        this.condition = condition;
+        checkRep();
     }
     
     /**
@@ -56,21 +71,9 @@ public class BookCopy {
      *    and the words "good" or "damaged" depending on its condition
      */
     public String toString() {
-        throw new RuntimeException("not implemented yet");
+        return book.toString() + ", " + (condition == Condition.GOOD ? "good" : "damaged");
     }
 
-    // uncomment the following methods if you need to implement equals and hashCode,
-    // or delete them if you don't
-    // @Override
-    // public boolean equals(Object that) {
-    //     throw new RuntimeException("not implemented yet");
-    // }
-    // 
-    // @Override
-    // public int hashCode() {
-    //     throw new RuntimeException("not implemented yet");
-    // }
-
 
     /* Copyright (c) 2016 MIT 6.005 course staff, all rights reserved.
      * Redistribution of original or derived work requires explicit permission.
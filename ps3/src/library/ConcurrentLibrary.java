@@ -0,0 +1,287 @@
+package library;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * ConcurrentLibrary is a Library that is safe for use by multiple threads.
+ * Operations on copies of different books usually proceed in parallel:
+ * each book is guarded by one of a fixed number of locks (lock striping),
+ * chosen by the book's hash code.
+ *
+ * Each operation is atomic.  allCopies, availableCopies and find return
+ * snapshots: new collections, which reflect the library at some moment
+ * during the call and are not changed by later operations.  find uses the
+ * same matching and ranking as BigLibrary.find.
+ */
+public class ConcurrentLibrary implements Library {
+
+    /**
+     * Default number of locks.
+     */
+    public static final int DEFAULT_STRIPES = 64;
+
+    // rep
+    private final Map<Book, CopySet> copies;
+    private final Object[] stripes;
+    private final SearchIndex index;
+    private final ReadWriteLock indexLock;
+
+    // rep invariant:
+    //    stripes.length is a power of 2
+    //    for every entry (book, set) of copies, set.available and
+    //      set.checkedOut are disjoint, and every copy in either has
+    //      getBook() equal to book
+    //    index contains exactly the books whose CopySet is nonempty
+    //    for every entry (book, set) of copies, set.book equals book
+    //
+    // abstraction function:
+    //    represents the collection of every copy in copies[b].available or
+    //      copies[b].checkedOut for some book b, where the copies in
+    //      available are available and those in checkedOut are checked out
+    //
+    // safety from rep exposure:
+    //    all fields are private and final, and never returned; allCopies,
+    //    availableCopies and find return new collections; BookCopy objects
+    //    are shared with clients, but the rep depends only on their identity
+    //    and their immutable getBook()
+    //
+    // thread safety argument:
+    //    copies is a ConcurrentHashMap, and its CopySets are never removed;
+    //    the sets of a CopySet are read and written only while holding
+    //    stripeFor(book); index is read only while holding indexLock's read
+    //    lock, and written only while holding its write lock; a thread that
+    //    holds a stripe may take indexLock, but never the reverse, so there
+    //    is no deadlock
+
+    /*
+     * The copies of one book, split by availability.
+     */
+    private static class CopySet {
+        private final Book book;
+        private final Set<BookCopy> available = new HashSet<>();
+        private final Set<BookCopy> checkedOut = new HashSet<>();
+
+        CopySet(Book book) {
+            this.book = book;
+        }
+
+        boolean isEmpty() {
+            return available.isEmpty() && checkedOut.isEmpty();
+        }
+    }
+
+    /**
+     * Make an empty library with DEFAULT_STRIPES locks.
+     */
+    public ConcurrentLibrary() {
+        this(DEFAULT_STRIPES);
+    }
+
+    /**
+     * Make an empty library.
+     * @param stripes number of locks guarding the books, at least 1; rounded
+     *        up to a power of 2.  More locks allow more parallelism between
+     *        operations on different books.
+     * @throws IllegalArgumentException if stripes < 1 or stripes > 2^30
+     */
+    public ConcurrentLibrary(int stripes) {
+        if (stripes < 1 || stripes > 1 << 30) {
+            throw new IllegalArgumentException("requires 1 <= stripes <= 2^30");
+        }
+        this.copies = new ConcurrentHashMap<>();
+        int size = 1;
+        while (size < stripes) {
+            size <<= 1;
+        }
+        this.stripes = new Object[size];
+        for (int i = 0; i < this.stripes.length; i++) {
+            this.stripes[i] = new Object();
+        }
+        this.index = new SearchIndex();
+        this.indexLock = new ReentrantReadWriteLock();
+        checkRep();
+    }
+
+    // assert the rep invariant
+    private void checkRep() {
+        assert Integer.bitCount(stripes.length) == 1;
+    }
+
+    // assert the rep invariant for one book's copies, and return true;
+    // requires holding stripeFor(book); called as "assert checkRep(book)"
+    // so it costs nothing when assertions are disabled
+    private boolean checkRep(Book book) {
+        final CopySet set = copies.get(book);
+        if (set == null) {
+            return true;
+        }
+        for (BookCopy copy : set.available) {
+            assert !set.checkedOut.contains(copy);
+            assert copy.getBook().equals(book);
+        }
+        for (BookCopy copy : set.checkedOut) {
+            assert copy.getBook().equals(book);
+        }
+        indexLock.readLock().lock();
+        try {
+            assert index.contains(book) == !set.isEmpty();
+        } finally {
+            indexLock.readLock().unlock();
+        }
+        return true;
+    }
+
+    // the lock guarding a book's CopySet
+    private Object stripeFor(Book book) {
+        final int h = book.hashCode();
+        return stripes[(h ^ (h >>> 16)) & (stripes.length - 1)];
+    }
+
+    @Override
+    public BookCopy buy(Book book) {
+        CopySet set = copies.get(book);
+        if (set == null) {
+            // keyed by the canonical instance of book, which its copies
+            // share, so lookups with copy.getBook() find the key by reference
+            set = copies.computeIfAbsent(book.intern(), CopySet::new);
+        }
+        final BookCopy copy = new BookCopy(set.book);
+        synchronized (stripeFor(book)) {
+            if (set.isEmpty()) {
+                updateIndex(set.book, true);
+            }
+            set.available.add(copy);
+            assert checkRep(book);
+        }
+        return copy;
+    }
+
+    @Override
+    public void checkout(BookCopy copy) {
+        final CopySet set = copies.get(copy.getBook());
+        if (set == null) {
+            return;
+        }
+        synchronized (stripeFor(copy.getBook())) {
+            if (set.available.remove(copy)) {
+                set.checkedOut.add(copy);
+            }
+            assert checkRep(copy.getBook());
+        }
+    }
+
+    @Override
+    public void checkin(BookCopy copy) {
+        final CopySet set = copies.get(copy.getBook());
+        if (set == null) {
+            return;
+        }
+        synchronized (stripeFor(copy.getBook())) {
+            if (set.checkedOut.remove(copy)) {
+                set.available.add(copy);
+            }
+            assert checkRep(copy.getBook());
+        }
+    }
+
+    @Override
+    public boolean isAvailable(BookCopy copy) {
+        final CopySet set = copies.get(copy.getBook());
+        if (set == null) {
+            return false;
+        }
+        synchronized (stripeFor(copy.getBook())) {
+            return set.available.contains(copy);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * The returned set is a snapshot, not changed by later operations.
+     */
+    @Override
+    public Set<BookCopy> allCopies(Book book) {
+        final CopySet set = copies.get(book);
+        if (set == null) {
+            return Collections.emptySet();
+        }
+        synchronized (stripeFor(book)) {
+            final Set<BookCopy> all = new HashSet<>(set.available);
+            all.addAll(set.checkedOut);
+            return all;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * The returned set is a snapshot, not changed by later operations.
+     */
+    @Override
+    public Set<BookCopy> availableCopies(Book book) {
+        final CopySet set = copies.get(book);
+        if (set == null) {
+            return Collections.emptySet();
+        }
+        synchronized (stripeFor(book)) {
+            return new HashSet<>(set.available);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Matching and ranking are those of BigLibrary.find.  Books bought or
+     * lost while find runs may or may not be included.
+     */
+    @Override
+    public List<Book> find(String query) {
+        indexLock.readLock().lock();
+        try {
+            return index.find(query);
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void lose(BookCopy copy) {
+        final CopySet set = copies.get(copy.getBook());
+        if (set == null) {
+            return;
+        }
+        synchronized (stripeFor(copy.getBook())) {
+            if ((set.available.remove(copy) || set.checkedOut.remove(copy)) && set.isEmpty()) {
+                updateIndex(copy.getBook(), false);
+            }
+            assert checkRep(copy.getBook());
+        }
+    }
+
+    // add or remove a book from index; requires holding stripeFor(book)
+    private void updateIndex(Book book, boolean add) {
+        indexLock.writeLock().lock();
+        try {
+            if (add) {
+                index.add(book);
+            } else {
+                index.remove(book);
+            }
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+    }
+
+    /*
+     * @see Object.toString()
+     */
+    @Override
+    public String toString() {
+        return "ConcurrentLibrary(" + copies.size() + " books, " + stripes.length + " stripes)";
+    }
+}
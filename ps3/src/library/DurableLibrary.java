@@ -0,0 +1,1079 @@
+package library;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * DurableLibrary is a Library whose state survives the process: it wraps an
+ * in-memory Library, and records every buy, checkout, checkin and lose in a
+ * write-ahead log in a directory, so that open() on the same directory
+ * later recovers the library.
+ *
+ * Every snapshotInterval logged operations, the library writes a snapshot
+ * of its state, only its current copies, and starts a new, empty log, so
+ * recovery time grows with the size of the library and not with its
+ * history.  Recovery reads the latest snapshot and replays the log after
+ * it; a partly written record at the end of the log, from a crash while
+ * appending, is discarded.
+ *
+ * The log is forced to the storage device according to a SyncPolicy.  Only
+ * operations recorded by a completed force survive a crash of the machine;
+ * operations written but not forced survive a crash of the process alone.
+ * The condition of copies is not recorded: recovered copies are in good
+ * condition.
+ *
+ * All operations are serialized by this object's lock, except that under
+ * GROUP_COMMIT an operation waits for the force that commits it without
+ * holding the lock.  allCopies() and availableCopies() return copies made
+ * under the lock, not views.  If writing to the directory fails, the
+ * operation throws UncheckedIOException, and the library must be closed and
+ * reopened.
+ */
+public class DurableLibrary implements Library, Closeable {
+
+    /**
+     * When the log is forced to the storage device.
+     */
+    public enum SyncPolicy {
+        /** Before every operation returns. */
+        EVERY_OPERATION,
+        /**
+         * Before every operation returns, as for EVERY_OPERATION, but one
+         * force commits the operations of every thread waiting for it: while
+         * the log is being forced, other operations proceed, then wait for
+         * the next force, which covers them all.  A force may also wait up
+         * to groupMillis for groupSize operations to join its group.
+         */
+        GROUP_COMMIT,
+        /** Only at snapshots, sync() and close(); left to the OS otherwise. */
+        NEVER
+    }
+
+    /** Default number of waiting operations that starts a delayed group commit. */
+    public static final int DEFAULT_GROUP_SIZE = 1024;
+
+    /**
+     * Default maximum time in milliseconds a group commit waits for more
+     * operations before forcing: none, so a group is the operations that
+     * finish while the previous force runs.
+     */
+    public static final long DEFAULT_GROUP_MILLIS = 0;
+
+    /** Default number of logged operations between snapshots. */
+    public static final long DEFAULT_SNAPSHOT_INTERVAL = 1_000_000;
+
+    private static final int SNAPSHOT_MAGIC = 0x4c425353; // "LBSS"
+    private static final int LOG_MAGIC = 0x4c424c47; // "LBLG"
+    private static final int VERSION = 1;
+
+    private static final String SNAPSHOT = "snapshot";
+    private static final String SNAPSHOT_TEMP = "snapshot.tmp";
+    private static final String LOG_PREFIX = "log-";
+
+    private static final byte BOOK = 1;
+    private static final byte BUY = 2;
+    private static final byte CHECKOUT = 3;
+    private static final byte CHECKIN = 4;
+    private static final byte LOSE = 5;
+
+    // a log record is its payload's length and CRC-32, then the payload
+    private static final int RECORD_HEADER = 8;
+    private static final int LOG_HEADER = 16;
+
+    // rep
+    private final Library library;
+    private final Path directory;
+    private final SyncPolicy policy;
+    private final int groupSize;
+    private final long groupMillis;
+    private final long snapshotInterval;
+    private Map<BookCopy, Long> copyIds = new HashMap<>();
+    private Map<Book, Integer> bookIds = new HashMap<>();
+    private long nextCopyId;
+    private long generation;
+    private FileChannel log;
+    private final ByteBuffer pending = ByteBuffer.allocateDirect(1 << 16);
+    private int pendingRecords;
+    private long writtenRecords;
+    private long durableRecords;
+    private boolean forcing;
+    private IOException forceFailure;
+    private long recordsSinceSnapshot;
+    private ByteBuffer record = ByteBuffer.allocate(256);
+    private final CRC32 crc = new CRC32();
+    private boolean closed;
+
+    // rep invariant:
+    //    groupSize > 0, groupMillis >= 0, snapshotInterval > 0
+    //    copyIds contains exactly the copies in library, with distinct ids
+    //      less than nextCopyId; every copy's book is a key of bookIds
+    //    log is the open file log-<generation> in directory, and pending
+    //      holds pendingRecords complete records not yet written to it
+    //    records are numbered from 1 in the order they are appended since
+    //      open(); the first writtenRecords have been written to the log,
+    //      and the first durableRecords <= writtenRecords have been forced
+    //    forcing iff a thread is forcing log without holding the lock, which
+    //      only happens under GROUP_COMMIT
+    //    forceFailure is the failure of such a force, or null
+    //
+    // abstraction function:
+    //    represents the library represented by library, which is the
+    //      library recovered from directory after writing pending to log
+    //
+    // safety from rep exposure:
+    //    all fields are private and never returned; the copies returned by
+    //    buy are those of library, which are shared with clients as in any
+    //    Library
+    //
+    // thread safety argument:
+    //    every method reads and writes the rep holding this object's lock,
+    //    except that a GROUP_COMMIT leader calls force() on a FileChannel,
+    //    which is thread-safe, outside the lock; other threads may still
+    //    write the log meanwhile, as endRecord() does when pending fills,
+    //    which is safe because FileChannel allows a write concurrent with
+    //    force(), and the leader only marks durable the writtenRecords it
+    //    read before forcing; while forcing is true, commit() waits, so the
+    //    log is not replaced or closed under the leader, and every other
+    //    field the leader reads afterwards was read under the lock first
+
+    /**
+     * Open a durable library with the default group commit and snapshot
+     * interval.
+     *
+     * @param directory directory of the library's files, created if it does
+     *        not exist
+     * @param empty an empty library, to hold the recovered state; must not be
+     *        used by the caller after this call
+     * @return open(directory, empty, SyncPolicy.GROUP_COMMIT,
+     *         DEFAULT_GROUP_SIZE, DEFAULT_GROUP_MILLIS,
+     *         DEFAULT_SNAPSHOT_INTERVAL)
+     * @throws IOException if the directory cannot be read or written, or its
+     *         snapshot is corrupt
+     */
+    public static DurableLibrary open(Path directory, Library empty) throws IOException {
+        return open(directory, empty, SyncPolicy.GROUP_COMMIT, DEFAULT_GROUP_SIZE, DEFAULT_GROUP_MILLIS,
+                DEFAULT_SNAPSHOT_INTERVAL);
+    }
+
+    /**
+     * Open a durable library, recovering the state recorded in directory
+     * into empty.
+     *
+     * @param directory directory of the library's files, created if it does
+     *        not exist
+     * @param empty an empty library, to hold the recovered state; must not be
+     *        used by the caller after this call
+     * @param policy when the log is forced to the storage device
+     * @param groupSize for GROUP_COMMIT, number of waiting operations at
+     *        which a force stops waiting for more; must be positive
+     * @param groupMillis for GROUP_COMMIT, maximum milliseconds a force waits
+     *        for groupSize operations before it starts; 0 to start at once,
+     *        must not be negative
+     * @param snapshotInterval number of logged operations between snapshots;
+     *        must be positive
+     * @return the recovered library, open for writing
+     * @throws IOException if the directory cannot be read or written, or its
+     *         snapshot is corrupt
+     * @throws IllegalArgumentException if a number is out of range
+     */
+    public static DurableLibrary open(Path directory, Library empty, SyncPolicy policy, int groupSize,
+            long groupMillis, long snapshotInterval) throws IOException {
+        if (groupSize <= 0 || groupMillis < 0 || snapshotInterval <= 0) {
+            throw new IllegalArgumentException("requires positive group size and snapshot interval,"
+                    + " and group time >= 0");
+        }
+        Files.createDirectories(directory);
+        final DurableLibrary durable = new DurableLibrary(empty, directory, policy, groupSize, groupMillis,
+                snapshotInterval);
+        try {
+            durable.recover();
+        } catch (IOException | RuntimeException e) {
+            durable.closed = true;
+            if (durable.log != null) {
+                durable.log.close();
+            }
+            throw e;
+        }
+        return durable;
+    }
+
+    private DurableLibrary(Library library, Path directory, SyncPolicy policy, int groupSize,
+            long groupMillis, long snapshotInterval) {
+        this.library = library;
+        this.directory = directory;
+        this.policy = policy;
+        this.groupSize = groupSize;
+        this.groupMillis = groupMillis;
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    // assert the rep invariant, cheaply
+    private void checkRep() {
+        assert groupSize > 0 && groupMillis >= 0 && snapshotInterval > 0;
+        assert nextCopyId >= copyIds.size();
+        assert pendingRecords == 0 || pending.position() > 0;
+        assert durableRecords <= writtenRecords;
+        assert !forcing || policy == SyncPolicy.GROUP_COMMIT;
+    }
+
+    @Override
+    public BookCopy buy(Book book) {
+        final BookCopy copy;
+        final long lastRecord;
+        synchronized (this) {
+            ensureOpen();
+            final long copyId = appendBuy(book);
+            copy = library.buy(book);
+            copyIds.put(copy, copyId);
+            lastRecord = afterOperations(1);
+        }
+        awaitForce(lastRecord);
+        return copy;
+    }
+
+    /**
+     * {@inheritDoc}
+     * The batch is logged and, if the policy forces the log, forced as one
+     * group.
+     */
+    @Override
+    public Map<Book, List<BookCopy>> buyAll(Map<Book, Integer> counts) {
+        final Map<Book, List<BookCopy>> bought;
+        final long lastRecord;
+        synchronized (this) {
+            ensureOpen();
+            // each book's copies get consecutive ids, in the order of its list
+            final Map<Book, Long> firstCopyIds = new HashMap<>();
+            long operations = 0;
+            for (Map.Entry<Book, Integer> entry : counts.entrySet()) {
+                firstCopyIds.put(entry.getKey(), nextCopyId);
+                for (int i = 0; i < entry.getValue(); i++) {
+                    appendBuy(entry.getKey());
+                }
+                operations += entry.getValue();
+            }
+            bought = library.buyAll(counts);
+            for (Map.Entry<Book, List<BookCopy>> entry : bought.entrySet()) {
+                long copyId = firstCopyIds.get(entry.getKey());
+                for (BookCopy copy : entry.getValue()) {
+                    copyIds.put(copy, copyId++);
+                }
+            }
+            lastRecord = afterOperations(operations);
+        }
+        awaitForce(lastRecord);
+        return bought;
+    }
+
+    @Override
+    public void checkout(BookCopy copy) {
+        awaitForce(logCopy(CHECKOUT, copy));
+    }
+
+    /**
+     * {@inheritDoc}
+     * The batch is logged and, if the policy forces the log, forced as one
+     * group.
+     */
+    @Override
+    public void checkoutAll(Collection<BookCopy> copies) {
+        awaitForce(logCopies(CHECKOUT, copies));
+    }
+
+    @Override
+    public void checkin(BookCopy copy) {
+        awaitForce(logCopy(CHECKIN, copy));
+    }
+
+    /**
+     * {@inheritDoc}
+     * The batch is logged and, if the policy forces the log, forced as one
+     * group.
+     */
+    @Override
+    public void checkinAll(Collection<BookCopy> copies) {
+        awaitForce(logCopies(CHECKIN, copies));
+    }
+
+    @Override
+    public synchronized boolean isAvailable(BookCopy copy) {
+        return library.isAvailable(copy);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The returned set is an unmodifiable copy made under this object's
+     * lock, which does not reflect later changes; the wrapped library's
+     * views may not be safe to read while other threads change it.
+     */
+    @Override
+    public synchronized Set<BookCopy> allCopies(Book book) {
+        return Collections.unmodifiableSet(new HashSet<>(library.allCopies(book)));
+    }
+
+    /**
+     * {@inheritDoc}
+     * The returned set is an unmodifiable copy made under this object's
+     * lock, which does not reflect later changes.
+     */
+    @Override
+    public synchronized Set<BookCopy> availableCopies(Book book) {
+        return Collections.unmodifiableSet(new HashSet<>(library.availableCopies(book)));
+    }
+
+    @Override
+    public synchronized List<Book> find(String query) {
+        return library.find(query);
+    }
+
+    @Override
+    public void lose(BookCopy copy) {
+        awaitForce(logCopy(LOSE, copy));
+    }
+
+    // log an operation on a copy and apply it to library, if the copy is in
+    // this library; returns the number of the last record to wait for
+    private synchronized long logCopy(byte type, BookCopy copy) {
+        ensureOpen();
+        if (!appendCopy(type, copy)) {
+            return 0;
+        }
+        apply(type, copy);
+        return afterOperations(1);
+    }
+
+    // log an operation on each copy in this library and apply them to
+    // library as one batch; returns the number of the last record to wait for
+    private synchronized long logCopies(byte type, Collection<BookCopy> copies) {
+        ensureOpen();
+        final List<BookCopy> logged = appendCopies(type, copies);
+        if (type == CHECKOUT) {
+            library.checkoutAll(logged);
+        } else {
+            assert type == CHECKIN;
+            library.checkinAll(logged);
+        }
+        return afterOperations(logged.size());
+    }
+
+    private void apply(byte type, BookCopy copy) {
+        switch (type) {
+        case CHECKOUT:
+            library.checkout(copy);
+            break;
+        case CHECKIN:
+            library.checkin(copy);
+            break;
+        case LOSE:
+            library.lose(copy);
+            copyIds.remove(copy);
+            break;
+        default:
+            throw new AssertionError("not a copy operation: " + type);
+        }
+    }
+
+    /**
+     * Write and force every operation so far to the storage device.
+     * @throws IOException if writing fails
+     */
+    public synchronized void sync() throws IOException {
+        ensureOpen();
+        commit();
+    }
+
+    /**
+     * Write a snapshot of the library and start a new log, as happens
+     * automatically every snapshotInterval operations.
+     * @throws IOException if writing fails
+     */
+    public synchronized void snapshot() throws IOException {
+        ensureOpen();
+        commit();
+        if (closed) {
+            return;
+        }
+        final long nextGeneration = generation + 1;
+        final Path temp = directory.resolve(SNAPSHOT_TEMP);
+        final Map<Book, Integer> liveBookIds = writeSnapshot(temp, nextGeneration);
+        final FileChannel nextLog = createLog(nextGeneration);
+        Files.move(temp, directory.resolve(SNAPSHOT), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        forceDirectory();
+        log.close();
+        Files.deleteIfExists(logPath(generation));
+        log = nextLog;
+        generation = nextGeneration;
+        bookIds = liveBookIds;
+        recordsSinceSnapshot = 0;
+        checkRep();
+    }
+
+    /**
+     * Write and force every operation so far, and release the library's
+     * files.  Later operations other than close() throw IllegalStateException.
+     * @throws IOException if writing fails
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            commit();
+        } finally {
+            closed = true;
+            log.close();
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("library is closed");
+        }
+    }
+
+    // after operations are appended to pending: commit, snapshot, or
+    // neither, as the policy says; returns the number of the last record
+    // appended, for awaitForce()
+    private long afterOperations(long operations) {
+        if (operations == 0) {
+            return 0;
+        }
+        try {
+            recordsSinceSnapshot += operations;
+            if (recordsSinceSnapshot >= snapshotInterval) {
+                snapshot();
+            } else if (policy == SyncPolicy.EVERY_OPERATION) {
+                commit();
+            } else if (policy == SyncPolicy.GROUP_COMMIT && forcing && pendingRecords >= groupSize) {
+                notifyAll(); // a leader waiting for its group to fill
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        checkRep();
+        return writtenRecords + pendingRecords;
+    }
+
+    // under GROUP_COMMIT, wait until a force covers record number
+    // lastRecord; must be called without holding the lock.  The first
+    // waiter to find no force in progress leads one: it writes every pending
+    // record, forces the log without the lock, then wakes the waiters it
+    // covered.  Operations appended meanwhile wait for the next force.
+    private void awaitForce(long lastRecord) {
+        if (policy != SyncPolicy.GROUP_COMMIT) {
+            return;
+        }
+        assert !Thread.holdsLock(this);
+        // FileChannel closes itself if an I/O thread is interrupted, so the
+        // interrupt status is restored only after the force
+        boolean interrupted = false;
+        final FileChannel channel;
+        final long covered;
+        synchronized (this) {
+            while (durableRecords < lastRecord && forcing) {
+                interrupted |= waitUninterruptibly(0);
+            }
+            if (durableRecords >= lastRecord || forceFailure != null) {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+                if (forceFailure != null && durableRecords < lastRecord) {
+                    throw new UncheckedIOException(forceFailure);
+                }
+                return;
+            }
+            forcing = true;
+            try {
+                // give other operations up to groupMillis to join the group
+                final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(groupMillis);
+                for (long left = groupMillis; left > 0 && pendingRecords < groupSize;
+                        left = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())) {
+                    interrupted |= waitUninterruptibly(left);
+                }
+                writePending();
+            } catch (IOException e) {
+                forcing = false;
+                forceFailure = e;
+                notifyAll();
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new UncheckedIOException(e);
+            }
+            channel = log;
+            covered = writtenRecords;
+        }
+        IOException failure = null;
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            failure = e;
+        }
+        synchronized (this) {
+            forcing = false;
+            if (failure == null) {
+                durableRecords = Math.max(durableRecords, covered);
+            } else {
+                forceFailure = failure;
+            }
+            notifyAll();
+            checkRep();
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            throw new UncheckedIOException(failure);
+        }
+    }
+
+    // wait on this object's monitor for up to millis (0 for no limit);
+    // returns true if the thread was interrupted, so the caller can restore
+    // its interrupt status once it has stopped waiting
+    private boolean waitUninterruptibly(long millis) {
+        try {
+            wait(millis);
+            return false;
+        } catch (InterruptedException e) {
+            return true;
+        }
+    }
+
+    // wait until no GROUP_COMMIT force is in progress
+    private void awaitNotForcing() {
+        boolean interrupted = false;
+        while (forcing) {
+            interrupted |= waitUninterruptibly(0);
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // write pending to the log and force it, after any GROUP_COMMIT force
+    // in progress, which must not see the log replaced or closed
+    private void commit() throws IOException {
+        awaitNotForcing();
+        if (closed) {
+            return; // close() committed everything while this thread waited
+        }
+        if (forceFailure != null) {
+            throw forceFailure;
+        }
+        writePending();
+        if (durableRecords < writtenRecords) {
+            log.force(false);
+            durableRecords = writtenRecords;
+            notifyAll();
+        }
+    }
+
+    private void writePending() throws IOException {
+        pending.flip();
+        while (pending.hasRemaining()) {
+            log.write(pending);
+        }
+        pending.clear();
+        writtenRecords += pendingRecords;
+        pendingRecords = 0;
+    }
+
+    /*
+     * Log records
+     */
+
+    private void appendBook(int bookId, Book book) {
+        beginRecord(BOOK).putInt(bookId).putInt(book.getYear()).putInt(book.getAuthors().size());
+        putString(book.getTitle());
+        for (String author : book.getAuthors()) {
+            putString(author);
+        }
+        endRecord();
+    }
+
+    // append the records of buying a copy of book; returns the copy's id
+    private long appendBuy(Book book) {
+        Integer bookId = bookIds.get(book);
+        if (bookId == null) {
+            bookId = bookIds.size();
+            bookIds.put(book, bookId);
+            appendBook(bookId, book);
+        }
+        final long copyId = nextCopyId++;
+        beginRecord(BUY).putInt(bookId).putLong(copyId);
+        endRecord();
+        return copyId;
+    }
+
+    // append an operation on each copy in this library; returns those copies
+    private List<BookCopy> appendCopies(byte type, Collection<BookCopy> copies) {
+        final List<BookCopy> logged = new ArrayList<>(copies.size());
+        for (BookCopy copy : copies) {
+            if (appendCopy(type, copy)) {
+                logged.add(copy);
+            }
+        }
+        return logged;
+    }
+
+    // append an operation on a copy; returns false, appending nothing, if
+    // the copy is not in this library
+    private boolean appendCopy(byte type, BookCopy copy) {
+        final Long copyId = copyIds.get(copy);
+        if (copyId == null) {
+            return false;
+        }
+        beginRecord(type).putLong(copyId);
+        endRecord();
+        return true;
+    }
+
+    private ByteBuffer beginRecord(byte type) {
+        record.clear();
+        return record.put(type);
+    }
+
+    private void putString(String s) {
+        final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        if (record.remaining() < 4 + bytes.length) {
+            final ByteBuffer larger = ByteBuffer.allocate(Math.max(2 * record.capacity(),
+                    record.position() + 4 + bytes.length));
+            record.flip();
+            larger.put(record);
+            record = larger;
+        }
+        record.putInt(bytes.length).put(bytes);
+    }
+
+    // move the record being built to pending
+    private void endRecord() {
+        final int length = record.position();
+        crc.reset();
+        crc.update(record.array(), 0, length);
+        try {
+            if (pending.remaining() < RECORD_HEADER + length) {
+                writePending();
+            }
+            if (pending.remaining() < RECORD_HEADER + length) {
+                // larger than the whole buffer, so write it alone
+                final ByteBuffer large = ByteBuffer.allocate(RECORD_HEADER + length);
+                large.putInt(length).putInt((int) crc.getValue()).put(record.array(), 0, length).flip();
+                while (large.hasRemaining()) {
+                    log.write(large);
+                }
+                writtenRecords++;
+                return;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        pending.putInt(length).putInt((int) crc.getValue()).put(record.array(), 0, length);
+        pendingRecords++;
+    }
+
+    /*
+     * Recovery
+     */
+
+    /*
+     * The copies recovered so far, before any is put in library: the
+     * snapshot's, then changed by each record of the log.  Recovery builds
+     * library from the final state with one batch of each operation, so its
+     * indexes are updated once per book rather than once per record.
+     */
+    private static class Recovered {
+        // books by id, in the order the snapshot and then the log name them
+        final List<Book> books = new ArrayList<>();
+        // copy i has id ids[i], book books[bookIds[i]] and state states[i]
+        long[] ids;
+        int[] bookIds;
+        byte[] states;
+        int size;
+        // index of each copy by id, if made by indexById(), or null
+        Map<Long, Integer> byId;
+        // rep invariant:
+        //    ids, bookIds and states have equal lengths >= size
+        //    ids[0..size) are distinct, and bookIds[0..size) are less than
+        //      books.size(); states[0..size) are AVAILABLE, CHECKED_OUT or
+        //      LOST
+        //    if byId is not null, it maps ids[i] to i for each copy i not LOST
+
+        static final byte AVAILABLE = 0;
+        static final byte CHECKED_OUT = 1;
+        static final byte LOST = 2;
+
+        Recovered(int capacity) {
+            ids = new long[Math.max(16, capacity)];
+            bookIds = new int[ids.length];
+            states = new byte[ids.length];
+        }
+
+        void add(long id, int bookId, byte state) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, 2 * size);
+                bookIds = Arrays.copyOf(bookIds, 2 * size);
+                states = Arrays.copyOf(states, 2 * size);
+            }
+            ids[size] = id;
+            bookIds[size] = bookId;
+            states[size] = state;
+            if (byId != null) {
+                byId.put(id, size);
+            }
+            size++;
+        }
+
+        void indexById() {
+            byId = new HashMap<>(size * 4 / 3 + 16);
+            for (int i = 0; i < size; i++) {
+                if (states[i] != LOST) {
+                    byId.put(ids[i], i);
+                }
+            }
+        }
+
+        // set the state of the copy with id, which must be in byId
+        void set(long id, byte state) throws IOException {
+            final Integer i = state == LOST ? byId.remove(id) : byId.get(id);
+            if (i == null) {
+                throw new IOException("log names unknown copy " + id);
+            }
+            states[i] = state;
+        }
+    }
+
+    private void recover() throws IOException {
+        final Recovered recovered;
+        final Path snapshot = directory.resolve(SNAPSHOT);
+        if (Files.exists(snapshot)) {
+            recovered = readSnapshot(snapshot);
+        } else {
+            recovered = new Recovered(0);
+        }
+        final Path logPath = logPath(generation);
+        if (Files.exists(logPath)) {
+            log = FileChannel.open(logPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            replay(recovered);
+        } else {
+            log = createLog(generation);
+        }
+        // files of an interrupted snapshot
+        Files.deleteIfExists(directory.resolve(SNAPSHOT_TEMP));
+        try (DirectoryStream<Path> logs = Files.newDirectoryStream(directory, LOG_PREFIX + "*")) {
+            for (Path other : logs) {
+                if (!other.equals(logPath)) {
+                    Files.delete(other);
+                }
+            }
+        }
+        rebuild(recovered);
+        for (int id = 0; id < recovered.books.size(); id++) {
+            bookIds.put(recovered.books.get(id), id);
+        }
+        checkRep();
+    }
+
+    // read the snapshot at path, and set generation and nextCopyId from it
+    private Recovered readSnapshot(Path path) throws IOException {
+        final ByteBuffer in;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        // check the whole file before reading it
+        if (in.limit() < 4) {
+            throw new IOException(path + " is corrupt");
+        }
+        final CRC32 checksum = new CRC32();
+        final ByteBuffer body = in.duplicate();
+        body.limit(in.limit() - 4);
+        checksum.update(body);
+        if (in.getInt(in.limit() - 4) != (int) checksum.getValue()) {
+            throw new IOException(path + " is corrupt");
+        }
+        try {
+            if (in.getInt() != SNAPSHOT_MAGIC || in.getInt() != VERSION) {
+                throw new IOException(path + " is not a library snapshot");
+            }
+            generation = in.getLong();
+            nextCopyId = in.getLong();
+            final long copyCount = in.getLong();
+            if (copyCount < 0 || copyCount > Integer.MAX_VALUE - 8) {
+                throw new IOException(path + " is corrupt");
+            }
+            final Recovered recovered = new Recovered((int) copyCount);
+            final int bookCount = in.getInt();
+            final Set<Book> seen = new HashSet<>();
+            for (int b = 0; b < bookCount; b++) {
+                final Book book = getBook(in);
+                recovered.books.add(book);
+                final int bookCopies = in.getInt();
+                if (!seen.add(book) || bookCopies < 0 || bookCopies > copyCount - recovered.size) {
+                    throw new IOException(path + " is corrupt");
+                }
+                for (int c = 0; c < bookCopies; c++) {
+                    final long id = in.getLong();
+                    recovered.add(id, b, in.get() != 0 ? Recovered.AVAILABLE : Recovered.CHECKED_OUT);
+                }
+            }
+            return recovered;
+        } catch (BufferUnderflowException e) {
+            throw new IOException(path + " is corrupt", e);
+        }
+    }
+
+    // apply the records of log to recovered, and truncate the log after the
+    // last complete record
+    private void replay(Recovered recovered) throws IOException {
+        final long size = log.size();
+        final MappedByteBuffer in = log.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        if (size < LOG_HEADER || in.getInt() != LOG_MAGIC || in.getInt() != VERSION
+                || in.getLong() != generation) {
+            throw new IOException(logPath(generation) + " is not the library's log");
+        }
+        final CRC32 checksum = new CRC32();
+        long valid = in.position();
+        // the copies by id, for the records to name them; made only if there
+        // are records
+        if (in.hasRemaining()) {
+            recovered.indexById();
+        }
+        while (in.remaining() >= RECORD_HEADER) {
+            final int length = in.getInt();
+            final int expected = in.getInt();
+            if (length <= 0 || length > in.remaining()) {
+                break; // torn write
+            }
+            final ByteBuffer payload = in.slice();
+            payload.limit(length);
+            checksum.reset();
+            checksum.update(payload.duplicate());
+            if ((int) checksum.getValue() != expected) {
+                break; // torn write
+            }
+            apply(payload, recovered);
+            in.position(in.position() + length);
+            valid = in.position();
+            recordsSinceSnapshot++;
+        }
+        if (valid < size) {
+            log.truncate(valid);
+        }
+        log.position(valid);
+    }
+
+    private void apply(ByteBuffer payload, Recovered recovered) throws IOException {
+        final byte type = payload.get();
+        switch (type) {
+        case BOOK: {
+            final int bookId = payload.getInt();
+            if (bookId != recovered.books.size()) {
+                throw new IOException("log names book " + bookId + " out of order");
+            }
+            recovered.books.add(getBook(payload));
+            break;
+        }
+        case BUY: {
+            final int bookId = payload.getInt();
+            if (bookId < 0 || bookId >= recovered.books.size()) {
+                throw new IOException("log names unknown book " + bookId);
+            }
+            final long copyId = payload.getLong();
+            recovered.add(copyId, bookId, Recovered.AVAILABLE);
+            nextCopyId = Math.max(nextCopyId, copyId + 1);
+            break;
+        }
+        case CHECKOUT:
+            recovered.set(payload.getLong(), Recovered.CHECKED_OUT);
+            break;
+        case CHECKIN:
+            recovered.set(payload.getLong(), Recovered.AVAILABLE);
+            break;
+        case LOSE:
+            recovered.set(payload.getLong(), Recovered.LOST);
+            break;
+        default:
+            throw new IOException("unknown log record type " + type);
+        }
+    }
+
+    // put the copies of recovered that are not lost in library and copyIds,
+    // with one batch of each operation
+    private void rebuild(Recovered recovered) {
+        final List<Book> books = recovered.books;
+        // equal books have one id here, in case the log named a book twice
+        final Map<Book, Integer> firstIds = new HashMap<>(books.size() * 4 / 3 + 16);
+        final int[] canonical = new int[books.size()];
+        for (int b = 0; b < books.size(); b++) {
+            final Integer first = firstIds.putIfAbsent(books.get(b), b);
+            canonical[b] = first == null ? b : first;
+        }
+        final int[] counts = new int[books.size()];
+        int live = 0;
+        for (int i = 0; i < recovered.size; i++) {
+            if (recovered.states[i] != Recovered.LOST) {
+                counts[canonical[recovered.bookIds[i]]]++;
+                live++;
+            }
+        }
+        final Map<Book, Integer> toBuy = new LinkedHashMap<>(books.size() * 4 / 3 + 16);
+        for (int b = 0; b < books.size(); b++) {
+            if (counts[b] > 0) {
+                toBuy.put(books.get(b), counts[b]);
+            }
+        }
+        final Map<Book, List<BookCopy>> bought = library.buyAll(toBuy);
+
+        // hand each book's new copies to its recovered copies in order
+        final List<List<BookCopy>> copiesOf = new ArrayList<>(books.size());
+        for (int b = 0; b < books.size(); b++) {
+            copiesOf.add(counts[b] > 0 ? bought.get(books.get(b)) : null);
+        }
+        final int[] next = new int[books.size()];
+        copyIds = new HashMap<>(live * 4 / 3 + 16);
+        final List<BookCopy> checkedOut = new ArrayList<>();
+        for (int i = 0; i < recovered.size; i++) {
+            if (recovered.states[i] == Recovered.LOST) {
+                continue;
+            }
+            final int b = canonical[recovered.bookIds[i]];
+            final BookCopy copy = copiesOf.get(b).get(next[b]++);
+            copyIds.put(copy, recovered.ids[i]);
+            if (recovered.states[i] == Recovered.CHECKED_OUT) {
+                checkedOut.add(copy);
+            }
+        }
+        library.checkoutAll(checkedOut);
+    }
+
+    // a book as appendBook and writeSnapshot write it
+    private static Book getBook(ByteBuffer in) {
+        final int year = in.getInt();
+        final int authorCount = in.getInt();
+        final String title = getString(in);
+        final List<String> authors = new ArrayList<>(authorCount);
+        for (int a = 0; a < authorCount; a++) {
+            authors.add(getString(in));
+        }
+        return new Book(title, authors, year);
+    }
+
+    private static String getString(ByteBuffer in) {
+        final byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /*
+     * Files
+     */
+
+    private Path logPath(long logGeneration) {
+        return directory.resolve(LOG_PREFIX + logGeneration);
+    }
+
+    private FileChannel createLog(long logGeneration) throws IOException {
+        final FileChannel channel = FileChannel.open(logPath(logGeneration), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        final ByteBuffer header = ByteBuffer.allocate(LOG_HEADER);
+        header.putInt(LOG_MAGIC).putInt(VERSION).putLong(logGeneration).flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+        channel.force(true);
+        return channel;
+    }
+
+    // write the current copies to path, grouped by book; returns the ids of
+    // the books written, which the new log uses
+    private Map<Book, Integer> writeSnapshot(Path path, long snapshotGeneration) throws IOException {
+        final Map<Book, List<Map.Entry<BookCopy, Long>>> byBook = new LinkedHashMap<>();
+        for (Map.Entry<BookCopy, Long> entry : copyIds.entrySet()) {
+            byBook.computeIfAbsent(entry.getKey().getBook(), b -> new ArrayList<>()).add(entry);
+        }
+        final Map<Book, Integer> liveBookIds = new HashMap<>();
+        final CRC32 checksum = new CRC32();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new CheckedOutputStream(Channels.newOutputStream(channel), checksum), 1 << 16));
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(snapshotGeneration);
+            out.writeLong(nextCopyId);
+            out.writeLong(copyIds.size());
+            out.writeInt(byBook.size());
+            for (Map.Entry<Book, List<Map.Entry<BookCopy, Long>>> entry : byBook.entrySet()) {
+                final Book book = entry.getKey();
+                liveBookIds.put(book, liveBookIds.size());
+                out.writeInt(book.getYear());
+                out.writeInt(book.getAuthors().size());
+                writeString(out, book.getTitle());
+                for (String author : book.getAuthors()) {
+                    writeString(out, author);
+                }
+                out.writeInt(entry.getValue().size());
+                for (Map.Entry<BookCopy, Long> copy : entry.getValue()) {
+                    out.writeLong(copy.getValue());
+                    out.writeBoolean(library.isAvailable(copy.getKey()));
+                }
+            }
+            out.flush();
+            out.writeInt((int) checksum.getValue());
+            out.flush();
+            channel.force(true);
+        }
+        return liveBookIds;
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    // make a rename in directory durable, where the platform allows it
+    private void forceDirectory() {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // some platforms cannot open directories; the rename is still atomic
+        }
+    }
+
+    /*
+     * @see Object.toString()
+     */
+    @Override
+    public synchronized String toString() {
+        return "DurableLibrary(" + directory + ", " + copyIds.size() + " copies, " + policy + ")";
+    }
+}
@@ -0,0 +1,472 @@
+package library;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * HashTrie is a persistent hash map, a hash array mapped trie: its versions
+ * share structure, so a change copies only the few nodes on the path to its
+ * key, and an old version stays as it was.
+ *
+ * Changes take an edit token, any object.  A node made under a token is
+ * changed in place by later changes under the same token, and copied by
+ * changes under any other, so a run of changes under one token costs about
+ * as much as on a mutable map.  The map returned by a change replaces the
+ * map it was made from, which may have changed in place too: an owner that
+ * wants to keep a version must switch to a new token first, and then that
+ * version never changes again.
+ *
+ * Keys are compared by equals() and hashCode(), and neither keys nor values
+ * may be null.  Through the Map interface, a HashTrie is unmodifiable.
+ *
+ * Reading a version that no one changes in place is safe from multiple
+ * threads, provided the version was safely published.
+ */
+final class HashTrie<K, V> extends AbstractMap<K, V> {
+
+    // bits of the hash consumed by each level of the trie
+    private static final int BITS = 5;
+    // 32 hash bits take 7 levels, plus a collision node
+    private static final int MAX_DEPTH = 8;
+    private static final Object[] NO_PAIRS = new Object[0];
+    // token of the empty map, never passed to a change
+    private static final Object FROZEN = new Object();
+    private static final HashTrie<?, ?> EMPTY = new HashTrie<>(FROZEN, null, 0);
+
+    /*
+     * A node of the trie.  array holds pairs: a key and its value, or null
+     * and a child node.
+     */
+    private abstract static class Node {
+        final Object edit;
+        Object[] array;
+
+        Node(Object edit, Object[] array) {
+            this.edit = edit;
+            this.array = array;
+        }
+
+        // the value of key, or null if none
+        abstract Object find(int shift, int hash, Object key);
+
+        // this node with key mapped to value; sets added[0] if key is new
+        abstract Node with(Object edit, int shift, int hash, Object key, Object value, boolean[] added);
+
+        // this node without key, or null if that leaves it empty; sets
+        // removed[0] if key was there
+        abstract Node without(Object edit, int shift, int hash, Object key, boolean[] removed);
+    }
+
+    /*
+     * A node whose pairs are the keys, or subtries, of the hashes whose
+     * BITS-bit chunk at its shift is set in bitmap, in the order of the
+     * chunks.
+     */
+    private static final class BitmapNode extends Node {
+        int bitmap;
+
+        BitmapNode(Object edit, int bitmap, Object[] array) {
+            super(edit, array);
+            this.bitmap = bitmap;
+        }
+
+        // index in array of the pair for bit
+        private int index(int bit) {
+            return 2 * Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        // this node if edit owns it, otherwise a copy that edit owns
+        private BitmapNode editable(Object edit) {
+            return this.edit == edit ? this : new BitmapNode(edit, bitmap, array.clone());
+        }
+
+        private BitmapNode set(Object edit, int i, Object item) {
+            final BitmapNode node = editable(edit);
+            node.array[i] = item;
+            return node;
+        }
+
+        @Override
+        Object find(int shift, int hash, Object key) {
+            final int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return null;
+            }
+            final int i = index(bit);
+            final Object k = array[i];
+            if (k == null) {
+                return ((Node) array[i + 1]).find(shift + BITS, hash, key);
+            }
+            return k == key || key.equals(k) ? array[i + 1] : null;
+        }
+
+        @Override
+        Node with(Object edit, int shift, int hash, Object key, Object value, boolean[] added) {
+            final int bit = bit(hash, shift);
+            final int i = index(bit);
+            if ((bitmap & bit) == 0) {
+                added[0] = true;
+                final Object[] grown = new Object[array.length + 2];
+                System.arraycopy(array, 0, grown, 0, i);
+                grown[i] = key;
+                grown[i + 1] = value;
+                System.arraycopy(array, i, grown, i + 2, array.length - i);
+                if (this.edit == edit) {
+                    array = grown;
+                    bitmap |= bit;
+                    return this;
+                }
+                return new BitmapNode(edit, bitmap | bit, grown);
+            }
+            final Object k = array[i];
+            final Object v = array[i + 1];
+            if (k == null) {
+                final Node child = ((Node) v).with(edit, shift + BITS, hash, key, value, added);
+                return child == v ? this : set(edit, i + 1, child);
+            }
+            if (k == key || key.equals(k)) {
+                return v == value ? this : set(edit, i + 1, value);
+            }
+            added[0] = true;
+            final BitmapNode node = editable(edit);
+            node.array[i] = null;
+            node.array[i + 1] = pair(edit, shift + BITS, k, v, hash, key, value);
+            return node;
+        }
+
+        @Override
+        Node without(Object edit, int shift, int hash, Object key, boolean[] removed) {
+            final int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            final int i = index(bit);
+            final Object k = array[i];
+            if (k == null) {
+                final Node child = ((Node) array[i + 1]).without(edit, shift + BITS, hash, key, removed);
+                if (child == array[i + 1]) {
+                    return this;
+                } else if (child != null) {
+                    return set(edit, i + 1, child);
+                }
+            } else if (k == key || key.equals(k)) {
+                removed[0] = true;
+            } else {
+                return this;
+            }
+            // remove the pair at i
+            if (bitmap == bit) {
+                return null;
+            }
+            final Object[] shrunk = new Object[array.length - 2];
+            System.arraycopy(array, 0, shrunk, 0, i);
+            System.arraycopy(array, i + 2, shrunk, i, array.length - i - 2);
+            if (this.edit == edit) {
+                array = shrunk;
+                bitmap ^= bit;
+                return this;
+            }
+            return new BitmapNode(edit, bitmap ^ bit, shrunk);
+        }
+    }
+
+    /*
+     * A node whose keys all have the same whole hash.
+     */
+    private static final class CollisionNode extends Node {
+        final int hash;
+
+        CollisionNode(Object edit, int hash, Object[] array) {
+            super(edit, array);
+            this.hash = hash;
+        }
+
+        // index in array of key, or -1
+        private int indexOf(Object key) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (array[i] == key || key.equals(array[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        Object find(int shift, int hash, Object key) {
+            if (hash != this.hash) {
+                return null;
+            }
+            final int i = indexOf(key);
+            return i < 0 ? null : array[i + 1];
+        }
+
+        @Override
+        Node with(Object edit, int shift, int hash, Object key, Object value, boolean[] added) {
+            if (hash != this.hash) {
+                // the hashes differ from here down, so branch here
+                return new BitmapNode(edit, bit(this.hash, shift), new Object[] { null, this })
+                        .with(edit, shift, hash, key, value, added);
+            }
+            final int i = indexOf(key);
+            final Object[] changed;
+            if (i >= 0) {
+                if (array[i + 1] == value) {
+                    return this;
+                }
+                changed = this.edit == edit ? array : array.clone();
+                changed[i + 1] = value;
+            } else {
+                added[0] = true;
+                changed = new Object[array.length + 2];
+                System.arraycopy(array, 0, changed, 0, array.length);
+                changed[array.length] = key;
+                changed[array.length + 1] = value;
+            }
+            if (this.edit == edit) {
+                array = changed;
+                return this;
+            }
+            return new CollisionNode(edit, hash, changed);
+        }
+
+        @Override
+        Node without(Object edit, int shift, int hash, Object key, boolean[] removed) {
+            final int i = hash == this.hash ? indexOf(key) : -1;
+            if (i < 0) {
+                return this;
+            }
+            removed[0] = true;
+            if (array.length == 2) {
+                return null;
+            }
+            final Object[] shrunk = new Object[array.length - 2];
+            System.arraycopy(array, 0, shrunk, 0, i);
+            System.arraycopy(array, i + 2, shrunk, i, array.length - i - 2);
+            if (this.edit == edit) {
+                array = shrunk;
+                return this;
+            }
+            return new CollisionNode(edit, hash, shrunk);
+        }
+    }
+
+    // a node at shift holding two different keys
+    private static Node pair(Object edit, int shift, Object key1, Object value1, int hash2, Object key2,
+            Object value2) {
+        final int hash1 = hash(key1);
+        if (hash1 == hash2) {
+            return new CollisionNode(edit, hash1, new Object[] { key1, value1, key2, value2 });
+        }
+        final boolean[] added = new boolean[1];
+        return new BitmapNode(edit, 0, NO_PAIRS)
+                .with(edit, shift, hash1, key1, value1, added)
+                .with(edit, shift, hash2, key2, value2, added);
+    }
+
+    private static int hash(Object key) {
+        final int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static int bit(int hash, int shift) {
+        return 1 << ((hash >>> shift) & 31);
+    }
+
+    // rep
+    private final Object edit;
+    private Node root;
+    private int size;
+
+    // rep invariant:
+    //    root is null iff size == 0; otherwise size is the number of keys in
+    //      root's trie
+    //    no node's array is empty; a BitmapNode's array has 2 pairs per bit
+    //      of its bitmap; a CollisionNode has keys whose hashes equal its hash
+    //    a key at depth d of the trie, or in a subtrie at depth d, has the
+    //      hash chunks leading to it; no key appears twice
+    //    if edit owns root, this map is the only one whose trie has it
+    //
+    // abstraction function:
+    //    represents the map from each key in root's trie to the value paired
+    //      with it
+    //
+    // safety from rep exposure:
+    //    all fields are private; nodes are never returned; the Map views
+    //    are unmodifiable
+    //
+    // thread safety argument:
+    //    reads never change the rep; only changes under a token that owns
+    //    a node change it, and a node is owned by at most one token
+
+    private HashTrie(Object edit, Node root, int size) {
+        this.edit = edit;
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * @return the empty map
+     */
+    @SuppressWarnings("unchecked")
+    static <K, V> HashTrie<K, V> empty() {
+        return (HashTrie<K, V>) EMPTY;
+    }
+
+    /**
+     * @param key a key, not null
+     * @param value a value, not null
+     * @param edit edit token, not null
+     * @return this map with key mapped to value, made by changing this map in
+     *         place where edit owns it
+     */
+    HashTrie<K, V> with(K key, V value, Object edit) {
+        final boolean[] added = new boolean[1];
+        final int hash = hash(key);
+        final Node changed = root == null
+                ? new BitmapNode(edit, 0, NO_PAIRS).with(edit, 0, hash, key, value, added)
+                : root.with(edit, 0, hash, key, value, added);
+        if (changed == root && !added[0]) {
+            return this;
+        }
+        return update(edit, changed, added[0] ? size + 1 : size);
+    }
+
+    /**
+     * @param key a key, not null
+     * @param edit edit token, not null
+     * @return this map without key, made by changing this map in place where
+     *         edit owns it
+     */
+    HashTrie<K, V> without(Object key, Object edit) {
+        if (root == null) {
+            return this;
+        }
+        final boolean[] removed = new boolean[1];
+        final Node changed = root.without(edit, 0, hash(key), key, removed);
+        return removed[0] ? update(edit, changed, size - 1) : this;
+    }
+
+    private HashTrie<K, V> update(Object edit, Node root, int size) {
+        if (this.edit == edit) {
+            this.root = root;
+            this.size = size;
+            return this;
+        }
+        return new HashTrie<>(edit, root, size);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        return root == null ? null : (V) root.find(0, hash(key), key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return new AbstractSet<K>() {
+            @Override public int size() {
+                return size;
+            }
+
+            @Override public boolean contains(Object key) {
+                return containsKey(key);
+            }
+
+            @Override public Iterator<K> iterator() {
+                return new TrieIterator<K>() {
+                    @Override K item(Object key, Object value) {
+                        @SuppressWarnings("unchecked") final K k = (K) key;
+                        return k;
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<Entry<K, V>>() {
+            @Override public int size() {
+                return size;
+            }
+
+            @Override public Iterator<Entry<K, V>> iterator() {
+                return new TrieIterator<Entry<K, V>>() {
+                    @Override @SuppressWarnings("unchecked")
+                    Entry<K, V> item(Object key, Object value) {
+                        return new SimpleImmutableEntry<>((K) key, (V) value);
+                    }
+                };
+            }
+        };
+    }
+
+    /*
+     * Iterates over the pairs of the trie, depth first.
+     */
+    private abstract class TrieIterator<T> implements Iterator<T> {
+        private final Object[][] arrays = new Object[MAX_DEPTH][];
+        private final int[] positions = new int[MAX_DEPTH];
+        private int depth = -1;
+        private Object nextKey;
+        private Object nextValue;
+
+        TrieIterator() {
+            if (root != null) {
+                arrays[++depth] = root.array;
+            }
+            advance();
+        }
+
+        abstract T item(Object key, Object value);
+
+        // move nextKey and nextValue to the next pair, or nextKey to null
+        private void advance() {
+            while (depth >= 0) {
+                final Object[] array = arrays[depth];
+                final int i = positions[depth];
+                if (i == array.length) {
+                    positions[depth--] = 0;
+                    continue;
+                }
+                positions[depth] = i + 2;
+                if (array[i] == null) {
+                    arrays[++depth] = ((Node) array[i + 1]).array;
+                } else {
+                    nextKey = array[i];
+                    nextValue = array[i + 1];
+                    return;
+                }
+            }
+            nextKey = null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextKey != null;
+        }
+
+        @Override
+        public T next() {
+            if (nextKey == null) {
+                throw new NoSuchElementException();
+            }
+            final T result = item(nextKey, nextValue);
+            advance();
+            return result;
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package library;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -72,6 +76,49 @@ public interface Library {
      */
     public void lose(BookCopy copy);
 
+    
+    /**
+     * Buy new copies of several books and add them to the library's collection, as if by calling
+     * buy() once per copy, but possibly faster.
+     * @param counts number of copies to buy of each book; each count must be nonnegative
+     * @return map from each book in counts to a list of its new, good-condition copies, which are now
+     * available in this library; the list of book b has counts.get(b) copies.  The map iterates over
+     * books in the order counts does.
+     */
+    public default Map<Book, List<BookCopy>> buyAll(Map<Book, Integer> counts) {
+        final Map<Book, List<BookCopy>> bought = new LinkedHashMap<>();
+        for (Map.Entry<Book, Integer> entry : counts.entrySet()) {
+            final List<BookCopy> copies = new ArrayList<>(entry.getValue());
+            for (int i = 0; i < entry.getValue(); i++) {
+                copies.add(buy(entry.getKey()));
+            }
+            bought.put(entry.getKey(), copies);
+        }
+        return bought;
+    }
+    
+    /**
+     * Check out several copies, as if by calling checkout() on each, but possibly faster.
+     * @param copies Copies to check out.  Requires that each copy be available in this library, and
+     * appear at most once.
+     */
+    public default void checkoutAll(Collection<BookCopy> copies) {
+        for (BookCopy copy : copies) {
+            checkout(copy);
+        }
+    }
+    
+    /**
+     * Check in several copies, as if by calling checkin() on each, but possibly faster.
+     * @param copies Copies to check in.  Requires that each copy be checked out of this library, and
+     * appear at most once.
+     */
+    public default void checkinAll(Collection<BookCopy> copies) {
+        for (BookCopy copy : copies) {
+            checkin(copy);
+        }
+    }
+
 
     /* Copyright (c) 2016 MIT 6.005 course staff, all rights reserved.
      * Redistribution of original or derived work requires explicit permission.
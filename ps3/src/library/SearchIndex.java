@@ -0,0 +1,281 @@
+package library;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * SearchIndex is a mutable inverted index over the titles and authors of a
+ * set of books, answering the queries of Library.find() without scanning
+ * the books.
+ *
+ * Titles and author names are normalized by lowercasing them and splitting
+ * them into tokens, the maximal runs of letters and digits.  A query matches
+ * a book if every token of the query appears in the book's title or authors,
+ * or if the whole normalized query equals the book's whole normalized title
+ * or an author's whole normalized name.
+ *
+ * The index is kept in HashTries, so snapshot() makes an unchanging copy in
+ * O(1), which later changes to this index do not affect.
+ *
+ * SearchIndex is not safe for use by multiple threads, except that a
+ * snapshot may be read by any threads while its original changes.
+ */
+class SearchIndex {
+
+    // rep
+    private HashTrie<String, HashTrie<Book, Book>> postings = HashTrie.empty();
+    private HashTrie<String, HashTrie<Book, Book>> exact = HashTrie.empty();
+    private Object edit = new Object();
+
+    // rep invariant:
+    //    no set in postings or exact is empty
+    //    for some set of books B: each book b in B is in postings[t] for
+    //      every token t of b, and in exact[n] for its normalized title and
+    //      each normalized author name n, and no set contains other books;
+    //      each set maps every book to itself
+    //    no other SearchIndex shares a node that edit owns
+    //
+    // abstraction function:
+    //    represents the set of books B
+    //
+    // safety from rep exposure:
+    //    all fields are private and never returned; find() returns a new
+    //    list; a snapshot shares tries with this index, but this index
+    //    switches to a new edit token first, so neither changes the other's
+    //    nodes
+    //
+    // thread safety argument:
+    //    a snapshot is never changed, because its edit token is never used
+    //    and no other token owns its nodes, so HashTrie's reads of it are
+    //    safe from any threads
+
+    /**
+     * Order of results among equally good matches: newest first, then by
+     * title and authors so results are deterministic.
+     */
+    static final Comparator<Book> NEWEST_FIRST = Comparator
+            .comparingInt(Book::getYear).reversed()
+            .thenComparing(Book::getTitle)
+            .thenComparing(book -> String.join("\n", book.getAuthors()));
+
+    // assert the rep invariant for one book, and return true; called as
+    // "assert checkRep(book)" so it costs nothing when assertions are disabled
+    private boolean checkRep(Book book) {
+        final boolean indexed = contains(book);
+        for (String token : tokens(book)) {
+            final HashTrie<Book, Book> books = postings.get(token);
+            assert indexed == (books != null && books.containsKey(book));
+        }
+        return true;
+    }
+
+    /**
+     * @param book a book
+     * @return true iff book is in this index
+     */
+    boolean contains(Book book) {
+        final HashTrie<Book, Book> books = exact.get(normalize(book.getTitle()));
+        return books != null && books.containsKey(book);
+    }
+
+    /**
+     * @return an index of the books in this index, which later changes to
+     *         this index do not affect; takes O(1) time
+     */
+    SearchIndex snapshot() {
+        // from now on, nodes shared with the snapshot are copied before they
+        // are changed
+        edit = new Object();
+        final SearchIndex snapshot = new SearchIndex();
+        snapshot.postings = postings;
+        snapshot.exact = exact;
+        return snapshot;
+    }
+
+    /**
+     * Add a book to this index, if it is not already there.
+     * @param book book to add
+     */
+    void add(Book book) {
+        addName(book.getTitle(), book);
+        for (String author : book.getAuthors()) {
+            addName(author, book);
+        }
+        assert checkRep(book);
+    }
+
+    /**
+     * Add several books to this index, as if by add() on each.
+     * @param books books to add
+     */
+    void addAll(Collection<Book> books) {
+        for (Book book : books) {
+            addName(book.getTitle(), book);
+            for (String author : book.getAuthors()) {
+                addName(author, book);
+            }
+        }
+        assert checkRep(books);
+    }
+
+    // assert the rep invariant for several books, and return true
+    private boolean checkRep(Collection<Book> books) {
+        for (Book book : books) {
+            checkRep(book);
+        }
+        return true;
+    }
+
+    private void addName(String name, Book book) {
+        final List<String> tokens = tokenize(name);
+        for (String token : tokens) {
+            postings = addTo(postings, token, book);
+        }
+        exact = addTo(exact, String.join(" ", tokens), book);
+    }
+
+    private HashTrie<String, HashTrie<Book, Book>> addTo(HashTrie<String, HashTrie<Book, Book>> index,
+            String key, Book book) {
+        final HashTrie<Book, Book> books = index.get(key);
+        final HashTrie<Book, Book> added = (books == null ? HashTrie.<Book, Book>empty() : books)
+                .with(book, book, edit);
+        return added == books ? index : index.with(key, added, edit);
+    }
+
+    /**
+     * Remove a book from this index, if it is there.
+     * @param book book to remove
+     */
+    void remove(Book book) {
+        removeName(book.getTitle(), book);
+        for (String author : book.getAuthors()) {
+            removeName(author, book);
+        }
+        assert checkRep(book);
+    }
+
+    private void removeName(String name, Book book) {
+        final List<String> tokens = tokenize(name);
+        for (String token : tokens) {
+            postings = removeFrom(postings, token, book);
+        }
+        exact = removeFrom(exact, String.join(" ", tokens), book);
+    }
+
+    private HashTrie<String, HashTrie<Book, Book>> removeFrom(HashTrie<String, HashTrie<Book, Book>> index,
+            String key, Book book) {
+        final HashTrie<Book, Book> books = index.get(key);
+        if (books == null) {
+            return index;
+        }
+        final HashTrie<Book, Book> removed = books.without(book, edit);
+        if (removed.isEmpty()) {
+            return index.without(key, edit);
+        }
+        return removed == books ? index : index.with(key, removed, edit);
+    }
+
+    /**
+     * Search this index.
+     * @param query search string
+     * @return the books in this index that match query, each once: first those
+     *         whose normalized title or an author's normalized name equals the
+     *         normalized query, then those matching every token of query; each
+     *         group ordered by NEWEST_FIRST
+     */
+    List<Book> find(String query) {
+        final HashTrie<Book, Book> exactMap = exact.get(normalize(query));
+        final Set<Book> exactHits = exactMap == null ? Collections.emptySet() : exactMap.keySet();
+        final List<Book> results = new ArrayList<>(exactHits);
+        results.sort(NEWEST_FIRST);
+
+        final List<Set<Book>> lists = new ArrayList<>();
+        for (String token : tokenize(query)) {
+            final HashTrie<Book, Book> books = postings.get(token);
+            if (books == null) {
+                return results; // no book has every token
+            }
+            lists.add(books.keySet());
+        }
+        if (lists.isEmpty()) {
+            return results;
+        }
+        // intersect starting from the shortest posting list
+        lists.sort(Comparator.comparingInt(Set::size));
+        final List<Book> tokenHits = new ArrayList<>();
+        candidates:
+        for (Book book : lists.get(0)) {
+            for (int i = 1; i < lists.size(); i++) {
+                if (!lists.get(i).contains(book)) {
+                    continue candidates;
+                }
+            }
+            if (!exactHits.contains(book)) {
+                tokenHits.add(book);
+            }
+        }
+        tokenHits.sort(NEWEST_FIRST);
+        results.addAll(tokenHits);
+        return results;
+    }
+
+    /**
+     * @param text a title, author name or query
+     * @return text lowercased, with runs of characters other than letters and
+     *         digits replaced by one space, and without leading or trailing
+     *         spaces
+     */
+    static String normalize(String text) {
+        return String.join(" ", tokenize(text));
+    }
+
+    /**
+     * @param text a title, author name or query
+     * @return the maximal runs of letters and digits in text, lowercased, in
+     *         order
+     */
+    static List<String> tokenize(String text) {
+        final List<String> tokens = new ArrayList<>();
+        final String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i < lower.length(); ) {
+            final int c = lower.codePointAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (start < 0) {
+                    start = i;
+                }
+            } else if (start >= 0) {
+                tokens.add(lower.substring(start, i));
+                start = -1;
+            }
+            i += Character.charCount(c);
+        }
+        if (start >= 0) {
+            tokens.add(lower.substring(start));
+        }
+        return tokens;
+    }
+
+    // distinct tokens of a book's title and authors
+    private static Set<String> tokens(Book book) {
+        final Set<String> tokens = new HashSet<>(tokenize(book.getTitle()));
+        for (String author : book.getAuthors()) {
+            tokens.addAll(tokenize(author));
+        }
+        return tokens;
+    }
+
+    /*
+     * @see Object.toString()
+     */
+    @Override
+    public String toString() {
+        return "SearchIndex(" + postings.size() + " tokens)";
+    }
+}
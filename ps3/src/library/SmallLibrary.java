@@ -1,5 +1,9 @@
 package library;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -26,68 +30,106 @@ public class SmallLibrary implements Library {
     //      where if a book copy is in inLibrary then it is available,
     //      and if a copy is in checkedOut then it is checked out
 
-    // TODO: safety from rep exposure argument
+    // safety from rep exposure:
+    //    inLibrary and checkedOut are private and never returned; allCopies
+    //    and availableCopies return new sets, and find returns a new list;
+    //    BookCopy objects are shared with clients, but the rep depends only
+    //    on their identity
     
     public SmallLibrary() {
-        throw new RuntimeException("not implemented yet");
+        inLibrary = new HashSet<>();
+        checkedOut = new HashSet<>();
+        checkRep();
     }
     
     // assert the rep invariant
     private void checkRep() {
-        throw new RuntimeException("not implemented yet");
+        for (BookCopy copy : inLibrary) {
+            assert !checkedOut.contains(copy);
+        }
     }
 
     @Override
     public BookCopy buy(Book book) {
-        throw new RuntimeException("not implemented yet");
+        final BookCopy copy = new BookCopy(book);
+        inLibrary.add(copy);
+        checkRep();
+        return copy;
     }
     
     @Override
     public void checkout(BookCopy copy) {
-        throw new RuntimeException("not implemented yet");
+        if (inLibrary.remove(copy)) {
+            checkedOut.add(copy);
+        }
+        checkRep();
     }
     
     @Override
     public void checkin(BookCopy copy) {
-        throw new RuntimeException("not implemented yet");
+        if (checkedOut.remove(copy)) {
+            inLibrary.add(copy);
+        }
+        checkRep();
     }
     
     @Override
     public boolean isAvailable(BookCopy copy) {
-        throw new RuntimeException("not implemented yet");
+        return inLibrary.contains(copy);
     }
     
     @Override
     public Set<BookCopy> allCopies(Book book) {
-        throw new RuntimeException("not implemented yet");
+        final Set<BookCopy> copies = availableCopies(book);
+        for (BookCopy copy : checkedOut) {
+            if (copy.getBook().equals(book)) {
+                copies.add(copy);
+            }
+        }
+        return copies;
     }
     
     @Override
     public Set<BookCopy> availableCopies(Book book) {
-        throw new RuntimeException("not implemented yet");
+        final Set<BookCopy> copies = new HashSet<>();
+        for (BookCopy copy : inLibrary) {
+            if (copy.getBook().equals(book)) {
+                copies.add(copy);
+            }
+        }
+        return copies;
     }
 
     @Override
     public List<Book> find(String query) {
-        throw new RuntimeException("not implemented yet");
+        final Set<Book> books = new HashSet<>();
+        for (Set<BookCopy> copies : Arrays.asList(inLibrary, checkedOut)) {
+            for (BookCopy copy : copies) {
+                final Book book = copy.getBook();
+                if (book.getTitle().equals(query) || book.getAuthors().contains(query)) {
+                    books.add(book);
+                }
+            }
+        }
+        final List<Book> matches = new ArrayList<>(books);
+        matches.sort(Comparator.comparingInt(Book::getYear).reversed());
+        return matches;
     }
     
     @Override
     public void lose(BookCopy copy) {
-        throw new RuntimeException("not implemented yet");
+        inLibrary.remove(copy);
+        checkedOut.remove(copy);
+        checkRep();
     }
 
-    // uncomment the following methods if you need to implement equals and hashCode,
-    // or delete them if you don't
-    // @Override
-    // public boolean equals(Object that) {
-    //     throw new RuntimeException("not implemented yet");
-    // }
-    // 
-    // @Override
-    // public int hashCode() {
-    //     throw new RuntimeException("not implemented yet");
-    // }
+    /*
+     * @see Object.toString()
+     */
+    @Override
+    public String toString() {
+        return "SmallLibrary(" + inLibrary.size() + " available, " + checkedOut.size() + " checked out)";
+    }
     
 
     /* Copyright (c) 2016 MIT 6.005 course staff, all rights reserved.
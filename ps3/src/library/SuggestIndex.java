@@ -0,0 +1,568 @@
+package library;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+
+/**
+ * SuggestIndex is a mutable autocomplete index over the titles and authors
+ * of a set of books: given a prefix, it returns the best-ranked books with
+ * a title or an author name that starts with it.
+ *
+ * Names and prefixes are normalized as by SearchIndex.normalize().  Books
+ * are ranked newest first, then by decreasing number of copies, as told by
+ * a function given at construction; when a book's number of copies
+ * changes, the index must be told by update().
+ *
+ * The names are stored in a radix trie: each edge is labeled by a string,
+ * and no node other than the root has a single child and no books.  Every
+ * node whose subtree holds more than CACHED names keeps the best CACHED
+ * books of its subtree, so suggest() with limit <= CACHED costs the length
+ * of the prefix plus the limit, whatever the size of the index.  Changes
+ * touch these lists only along the paths of the changed book's names, and
+ * only where the book is or enters the list.
+ *
+ * SuggestIndex is not safe for use by multiple threads.
+ */
+class SuggestIndex {
+
+    /**
+     * Number of best books kept at each large node; suggest() with a larger
+     * limit walks the prefix's whole subtree.
+     */
+    static final int CACHED = 16;
+
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    /*
+     * A node of the trie, reached from its parent by the edge label.
+     */
+    private static class Node {
+        private String label;
+        // sorted by the first char of their labels, which are distinct
+        private Node[] children = NO_CHILDREN;
+        // books with a name equal to the labels from the root to here, or
+        // null if none
+        private Set<Book> books;
+        // number of (name, book) entries in this subtree
+        private int count;
+        // best books of this subtree by rank, at most CACHED, if count >
+        // CACHED; otherwise null
+        private Book[] top;
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        // index in children of the child whose label starts with c, or
+        // -(insertion point) - 1
+        int find(char c) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                final int mid = (low + high) >>> 1;
+                final char midChar = children[mid].label.charAt(0);
+                if (midChar < c) {
+                    low = mid + 1;
+                } else if (midChar > c) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+    }
+
+    // rep
+    private final Node root = new Node("");
+    private final Comparator<Book> rank;
+
+    // rep invariant:
+    //    root.label is empty; every other node's label is nonempty, and
+    //      siblings' labels start with distinct chars, in sorted order
+    //    every node other than root has books or at least 2 children
+    //    every node's count is the size of its books plus the counts of its
+    //      children
+    //    every node's top is null if count <= CACHED, and otherwise holds
+    //      the min(CACHED, distinct books in the subtree) books of the
+    //      subtree that come first by rank, in rank order
+    //
+    // abstraction function:
+    //    represents the set of books B that appear in some node's books,
+    //      where the names of each book b in B are the labels from the root
+    //      to each node whose books include b
+    //
+    // safety from rep exposure:
+    //    all fields are private and never returned; suggest() returns a new
+    //    list
+
+    /**
+     * Make an empty index.
+     * @param copies number of copies of a book, used to rank books of the
+     *        same year
+     */
+    SuggestIndex(ToIntFunction<Book> copies) {
+        this.rank = Comparator.comparingInt(Book::getYear).reversed()
+                .thenComparing(Comparator.comparingInt(copies).reversed())
+                .thenComparing(SearchIndex.NEWEST_FIRST);
+    }
+
+    // assert the rep invariant for the nodes of some paths, and return
+    // true; called as "assert checkRep(paths)"
+    private boolean checkRep(List<List<Node>> paths) {
+        for (List<Node> path : paths) {
+            for (Node node : path) {
+                checkRep(node);
+            }
+        }
+        return true;
+    }
+
+    // assert the rep invariant for one node
+    private void checkRep(Node node) {
+        int count = node.books == null ? 0 : node.books.size();
+        for (int i = 0; i < node.children.length; i++) {
+            assert !node.children[i].label.isEmpty();
+            assert i == 0 || node.children[i - 1].label.charAt(0) < node.children[i].label.charAt(0);
+            count += node.children[i].count;
+        }
+        assert node.count == count;
+        assert node == root || node.books != null || node.children.length >= 2;
+        assert (node.top == null) == (node.count <= CACHED);
+        if (node.top != null) {
+            for (int i = 1; i < node.top.length; i++) {
+                assert rank.compare(node.top[i - 1], node.top[i]) < 0;
+            }
+        }
+    }
+
+    /**
+     * @param book a book
+     * @return true iff book is in this index
+     */
+    boolean contains(Book book) {
+        final List<Node> path = pathTo(SearchIndex.normalize(book.getTitle()));
+        if (path == null) {
+            return false;
+        }
+        final Set<Book> books = path.get(path.size() - 1).books;
+        return books != null && books.contains(book);
+    }
+
+    /**
+     * Add a book to this index, if it is not already there.
+     * @param book book to add
+     */
+    void add(Book book) {
+        final Set<String> names = names(book);
+        boolean added = false;
+        for (String name : names) {
+            added |= insert(name, book);
+        }
+        if (added) {
+            updateTops(names, book, false);
+        }
+    }
+
+    /**
+     * Remove a book from this index, if it is there.
+     * @param book book to remove
+     */
+    void remove(Book book) {
+        final Set<String> names = names(book);
+        boolean removed = false;
+        for (String name : names) {
+            removed |= delete(name, book);
+        }
+        if (removed) {
+            updateTops(names, book, true);
+        }
+    }
+
+    /**
+     * Tell this index that the number of copies of a book has changed.
+     * @param book a book in this index
+     */
+    void update(Book book) {
+        updateTops(names(book), book, false);
+    }
+
+    /**
+     * Suggest books for a prefix.
+     * @param prefix prefix typed so far
+     * @param limit maximum number of books to return, requires limit >= 0
+     * @return the books in this index with a normalized title or author name
+     *         that starts with the normalized prefix, each once, newest
+     *         first, then by decreasing number of copies; at most limit of
+     *         them, the first in that order
+     */
+    List<Book> suggest(String prefix, int limit) {
+        final Node node = subtree(SearchIndex.normalize(prefix));
+        if (node == null || limit == 0) {
+            return new ArrayList<>();
+        }
+        if (node.top != null && limit <= CACHED) {
+            return new ArrayList<>(Arrays.asList(node.top).subList(0, Math.min(limit, node.top.length)));
+        }
+        final List<Book> books = new ArrayList<>(collect(node, new LinkedHashSet<>()));
+        books.sort(rank);
+        return books.size() <= limit ? books : new ArrayList<>(books.subList(0, limit));
+    }
+
+    // normalized names of a book
+    private static Set<String> names(Book book) {
+        final Set<String> names = new LinkedHashSet<>();
+        names.add(SearchIndex.normalize(book.getTitle()));
+        for (String author : book.getAuthors()) {
+            names.add(SearchIndex.normalize(author));
+        }
+        return names;
+    }
+
+    // the node whose subtree holds exactly the names that start with prefix,
+    // or null if there are none
+    private Node subtree(String prefix) {
+        Node node = root;
+        String rest = prefix;
+        while (!rest.isEmpty()) {
+            final int i = node.find(rest.charAt(0));
+            if (i < 0) {
+                return null;
+            }
+            final Node child = node.children[i];
+            final int common = commonPrefix(child.label, rest);
+            if (common == rest.length()) {
+                return child; // the prefix ends on this edge
+            } else if (common < child.label.length()) {
+                return null;
+            }
+            node = child;
+            rest = rest.substring(common);
+        }
+        return node;
+    }
+
+    // the nodes from the root to the node of name, or null if there is none
+    private List<Node> pathTo(String name) {
+        final List<Node> path = pathToward(name);
+        int length = 0;
+        for (Node node : path) {
+            length += node.label.length();
+        }
+        return length == name.length() ? path : null;
+    }
+
+    // the nodes from the root toward the node of name, as far as they go
+    private List<Node> pathToward(String name) {
+        final List<Node> path = new ArrayList<>();
+        Node node = root;
+        String rest = name;
+        path.add(node);
+        while (!rest.isEmpty()) {
+            final int i = node.find(rest.charAt(0));
+            if (i < 0 || !rest.startsWith(node.children[i].label)) {
+                break;
+            }
+            node = node.children[i];
+            rest = rest.substring(node.label.length());
+            path.add(node);
+        }
+        return path;
+    }
+
+    // add an entry for name and book, and count it, unless it is there;
+    // returns true iff it was added
+    private boolean insert(String name, Book book) {
+        final List<Node> path = new ArrayList<>();
+        Node node = root;
+        String rest = name;
+        while (true) {
+            path.add(node);
+            if (rest.isEmpty()) {
+                if (node.books == null) {
+                    node.books = new HashSet<>(2);
+                }
+                if (!node.books.add(book)) {
+                    return false;
+                }
+                break;
+            }
+            final int i = node.find(rest.charAt(0));
+            if (i < 0) {
+                final Node leaf = new Node(rest);
+                leaf.books = new HashSet<>(2);
+                leaf.books.add(book);
+                node.children = insertAt(node.children, -(i + 1), leaf);
+                path.add(leaf);
+                break;
+            }
+            Node child = node.children[i];
+            final int common = commonPrefix(child.label, rest);
+            if (common < child.label.length()) {
+                // split the edge: the middle node has the same subtree
+                final Node middle = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                middle.children = new Node[] { child };
+                middle.count = child.count;
+                middle.top = child.top;
+                node.children[i] = middle;
+                child = middle;
+            }
+            node = child;
+            rest = rest.substring(common);
+        }
+        for (Node onPath : path) {
+            onPath.count++;
+        }
+        return true;
+    }
+
+    // remove the entry for name and book, and uncount it, if it is there;
+    // returns true iff it was removed
+    private boolean delete(String name, Book book) {
+        final List<Node> path = pathTo(name);
+        if (path == null) {
+            return false;
+        }
+        final Node node = path.get(path.size() - 1);
+        if (node.books == null || !node.books.remove(book)) {
+            return false;
+        }
+        if (node.books.isEmpty()) {
+            node.books = null;
+        }
+        for (Node onPath : path) {
+            onPath.count--;
+        }
+        // restore "books or at least 2 children" at the node and its parent
+        for (int depth = path.size() - 1; depth >= 1 && depth >= path.size() - 2; depth--) {
+            final Node child = path.get(depth);
+            final Node parent = path.get(depth - 1);
+            if (child.books != null || child.children.length >= 2) {
+                continue;
+            }
+            final int i = parent.find(child.label.charAt(0));
+            if (child.children.length == 0) {
+                parent.children = removeAt(parent.children, i);
+            } else {
+                // merge child with its only child
+                final Node grandchild = child.children[0];
+                grandchild.label = child.label + grandchild.label;
+                parent.children[i] = grandchild;
+            }
+            path.remove(depth);
+        }
+        return true;
+    }
+
+    /*
+     * Bring the tops up to date after book was added to or removed from the
+     * nodes of names, or its rank changed; counts must already be up to
+     * date.  The nodes on the paths to names are visited deepest first, so
+     * a node's children are up to date before it.  A book that was added
+     * or ranks better can only move up, so it is merged into the old top;
+     * only a book that leaves a full top, or falls to its end, needs the top
+     * recomputed from the children.  Where book neither was nor is among a
+     * node's top, the tops above are unaffected by it, but may still need to
+     * be made or dropped as counts cross CACHED.
+     */
+    private void updateTops(Set<String> names, Book book, boolean removed) {
+        final List<List<Node>> paths = new ArrayList<>(names.size());
+        int height = 0;
+        for (String name : names) {
+            final List<Node> path = pathToward(name);
+            paths.add(path);
+            height = Math.max(height, path.size());
+        }
+        // nodes whose subtree's top may have changed because of book
+        final Set<Node> relevant = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (List<Node> path : paths) {
+            relevant.add(path.get(path.size() - 1));
+        }
+        final Set<Node> done = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int depth = height - 1; depth >= 0; depth--) {
+            for (List<Node> path : paths) {
+                if (depth >= path.size() || !done.add(path.get(depth))) {
+                    continue;
+                }
+                final Node node = path.get(depth);
+                if (updateTop(node, book, removed, relevant.contains(node)) && depth > 0) {
+                    relevant.add(path.get(depth - 1));
+                }
+            }
+        }
+        assert checkRep(paths);
+    }
+
+    // bring node's top up to date, given whether book may have changed it;
+    // returns true iff the parent's top may have changed because of book
+    private boolean updateTop(Node node, Book book, boolean removed, boolean relevant) {
+        if (node.count <= CACHED) {
+            node.top = null;
+            return relevant;
+        }
+        if (node.top == null) {
+            recompute(node);
+            return true;
+        }
+        if (!relevant) {
+            return false;
+        }
+        final Book[] old = node.top;
+        final boolean had = contains(old, book);
+        // a top that is not full holds every book of the subtree
+        final boolean full = old.length == CACHED;
+        if (removed) {
+            if (had && full) {
+                recompute(node);
+            } else if (had) {
+                node.top = without(old, book);
+            }
+        } else if (had) {
+            final Book[] rest = without(old, book);
+            if (!full || rank.compare(book, rest[rest.length - 1]) < 0) {
+                node.top = with(rest, book);
+            } else {
+                recompute(node);
+            }
+        } else if (!full || rank.compare(book, old[old.length - 1]) < 0) {
+            node.top = with(old, book);
+        }
+        return had || contains(node.top, book);
+    }
+
+    // a new top: book inserted into sorted top, which does not contain it,
+    // keeping at most CACHED books
+    private Book[] with(Book[] top, Book book) {
+        int at = 0;
+        while (at < top.length && rank.compare(top[at], book) < 0) {
+            at++;
+        }
+        final Book[] result = new Book[Math.min(CACHED, top.length + 1)];
+        System.arraycopy(top, 0, result, 0, at);
+        if (at < result.length) {
+            result[at] = book;
+            System.arraycopy(top, at, result, at + 1, result.length - at - 1);
+        }
+        return result;
+    }
+
+    // a new top: top without book, which it contains
+    private static Book[] without(Book[] top, Book book) {
+        final Book[] result = new Book[top.length - 1];
+        int i = 0;
+        for (Book b : top) {
+            if (!b.equals(book)) {
+                result[i++] = b;
+            }
+        }
+        return result;
+    }
+
+    private static boolean contains(Book[] top, Book book) {
+        return contains(top, top.length, book);
+    }
+
+    // whether book is among the first size books of top
+    private static boolean contains(Book[] top, int size, Book book) {
+        for (int i = 0; i < size; i++) {
+            if (top[i].equals(book)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // compute node.top by merging the sorted lists of its own books and of
+    // each child's top, or whole subtree if the child has no top
+    private void recompute(Node node) {
+        final List<Book[]> lists = new ArrayList<>(node.children.length + 1);
+        if (node.books != null) {
+            lists.add(sorted(node.books));
+        }
+        for (Node child : node.children) {
+            lists.add(child.top != null ? child.top : sorted(collect(child, new HashSet<>())));
+        }
+        final int[] next = new int[lists.size()];
+        final Book[] top = new Book[CACHED];
+        int size = 0;
+        while (size < CACHED) {
+            int best = -1;
+            for (int i = 0; i < next.length; i++) {
+                if (next[i] < lists.get(i).length
+                        && (best < 0 || rank.compare(lists.get(i)[next[i]], lists.get(best)[next[best]]) < 0)) {
+                    best = i;
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            final Book book = lists.get(best)[next[best]++];
+            // a book with several names in the subtree is in several lists
+            if (!contains(top, size, book)) {
+                top[size++] = book;
+            }
+        }
+        node.top = size == CACHED ? top : Arrays.copyOf(top, size);
+    }
+
+    private Book[] sorted(Set<Book> books) {
+        final Book[] sorted = books.toArray(new Book[books.size()]);
+        Arrays.sort(sorted, rank);
+        return sorted;
+    }
+
+    // add the books of node's subtree to books; returns books
+    private static Set<Book> collect(Node node, Set<Book> books) {
+        if (node.books != null) {
+            books.addAll(node.books);
+        }
+        for (Node child : node.children) {
+            collect(child, books);
+        }
+        return books;
+    }
+
+    private static int commonPrefix(String a, String b) {
+        final int max = Math.min(a.length(), b.length());
+        int i = 0;
+        while (i < max && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static Node[] insertAt(Node[] nodes, int index, Node node) {
+        final Node[] result = new Node[nodes.length + 1];
+        System.arraycopy(nodes, 0, result, 0, index);
+        result[index] = node;
+        System.arraycopy(nodes, index, result, index + 1, nodes.length - index);
+        return result;
+    }
+
+    private static Node[] removeAt(Node[] nodes, int index) {
+        if (nodes.length == 1) {
+            return NO_CHILDREN;
+        }
+        final Node[] result = new Node[nodes.length - 1];
+        System.arraycopy(nodes, 0, result, 0, index);
+        System.arraycopy(nodes, index + 1, result, index, nodes.length - index - 1);
+        return result;
+    }
+
+    /*
+     * @see Object.toString()
+     */
+    @Override
+    public String toString() {
+        return "SuggestIndex(" + root.count + " names)";
+    }
+}
@@ -3,8 +3,15 @@ package library;
 import org.junit.Test;
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Test suite for BigLibrary's stronger specs.
@@ -12,7 +19,8 @@ import java.util.Collections;
 public class BigLibraryTest {
     
     /* 
-     * NOTE: use this file only for tests of BigLibrary.find()'s stronger spec.
+     * NOTE: use this file only for tests of BigLibrary's stronger specs and
+     * its own operations, such as suggest().
      * Tests of all other Library operations should be in LibraryTest.java 
      */
 
@@ -20,11 +28,133 @@ public class BigLibraryTest {
      * Testing strategy
      * ==================
      * 
-     * TODO: your testing strategy for BigLibrary.find() should go here.
-     * Make sure you have partitions.
+     * find():
+     *   results: none, one, several with different years
+     *   query: exact title, exact author, one word of a title or author,
+     *     several words from title and authors, words in any order,
+     *     different case or punctuation, a word no book has
+     *   ranking: whole title/author matches before word matches
+     *   a book whose copies are all lost is not found, and is found again
+     *     when bought again
+     * 
+     * allCopies(), availableCopies() (unmodifiable views):
+     *   client tries to modify the returned set
+     *   library changes after the call: buy, checkout, lose
+     * 
+     * buy():
+     *   copies of equal books share the canonical Book
+     * 
+     * suggest():
+     *   prefix: empty, part of a word, whole words, ends mid-word, different
+     *     case or punctuation, matches nothing, matches only inside a name
+     *   match: title, author, both for one book
+     *   ranking: different years, same year with different copy counts,
+     *     counts changed by buy, buyAll of several books already in the
+     *     library, and lose
+     *   limit: 0, less than matches, more than matches, negative
+     *   a book whose copies are all lost is not suggested
+     * 
+     * snapshot():
+     *   live library changes after the snapshot: buy (new book, more
+     *     copies), checkout, checkin, lose (last copy, not last)
+     *   several snapshots taken between changes
+     *   snapshot's find() before and after the library changes
+     *   snapshot's mutators, and modifying its returned sets
+     *   snapshot read by another thread while the library changes
      */
     
-    // TODO: put JUnit @Test methods here that you developed from your testing strategy
+    @Test
+    public void testFindNewestFirst() {
+        Library library = new BigLibrary();
+        Book first = new Book("Algorithms", Arrays.asList("Sedgewick"), 1983);
+        Book fourth = new Book("Algorithms", Arrays.asList("Sedgewick", "Wayne"), 2011);
+        Book second = new Book("Algorithms", Arrays.asList("Sedgewick"), 1988);
+        library.buy(first);
+        library.buy(fourth);
+        library.buy(second);
+        assertEquals(Arrays.asList(fourth, second, first), library.find("Algorithms"));
+        assertEquals(Arrays.asList(fourth, second, first), library.find("Sedgewick"));
+        assertEquals(Arrays.asList(fourth), library.find("Wayne"));
+    }
+    
+    @Test
+    public void testFindWords() {
+        Library library = new BigLibrary();
+        Book sicp = new Book("Structure and Interpretation of Computer Programs",
+                Arrays.asList("Harold Abelson", "Gerald Jay Sussman"), 1985);
+        Book tcp = new Book("The Art of Computer Programming", Arrays.asList("Donald Knuth"), 1968);
+        library.buy(sicp);
+        library.buy(tcp);
+        assertEquals(Arrays.asList(sicp, tcp), library.find("computer"));
+        assertEquals(Arrays.asList(sicp), library.find("Computer Abelson"));
+        assertEquals(Arrays.asList(sicp), library.find("programs interpretation"));
+        assertEquals(Arrays.asList(tcp), library.find("KNUTH, donald"));
+        assertEquals(Collections.emptyList(), library.find("computer knuth sussman"));
+        assertEquals(Collections.emptyList(), library.find("compiler"));
+        assertEquals(Collections.emptyList(), library.find(""));
+    }
+    
+    @Test
+    public void testFindWholeMatchesFirst() {
+        Library library = new BigLibrary();
+        Book walden = new Book("Walden", Arrays.asList("Henry David Thoreau"), 1854);
+        Book waldenTwo = new Book("Walden Two", Arrays.asList("B. F. Skinner"), 1948);
+        library.buy(walden);
+        library.buy(waldenTwo);
+        assertEquals(Arrays.asList(walden, waldenTwo), library.find("Walden"));
+        assertEquals(Arrays.asList(waldenTwo), library.find("walden two"));
+    }
+    
+    @Test
+    public void testFindTitleWithoutWords() {
+        Library library = new BigLibrary();
+        Book book = new Book("?!", Arrays.asList("Anonymous"), 2000);
+        library.buy(book);
+        assertEquals(Arrays.asList(book), library.find("?!"));
+    }
+    
+    @Test
+    public void testFindLostThenBoughtAgain() {
+        Library library = new BigLibrary();
+        Book book = new Book("Walden", Arrays.asList("Henry David Thoreau"), 1854);
+        library.lose(library.buy(book));
+        assertEquals(Collections.emptyList(), library.find("Walden"));
+        library.buy(book);
+        assertEquals(Arrays.asList(book), library.find("Walden"));
+    }
+    
+    @Test(expected=UnsupportedOperationException.class)
+    public void testAllCopiesUnmodifiable() {
+        Library library = new BigLibrary();
+        Book book = new Book("Walden", Arrays.asList("Henry David Thoreau"), 1854);
+        library.buy(book);
+        library.allCopies(book).clear();
+    }
+    
+    @Test(expected=UnsupportedOperationException.class)
+    public void testAvailableCopiesUnmodifiable() {
+        Library library = new BigLibrary();
+        Book book = new Book("Walden", Arrays.asList("Henry David Thoreau"), 1854);
+        library.buy(book);
+        library.availableCopies(book).clear();
+    }
+    
+    @Test
+    public void testCopiesAreLiveViews() {
+        Library library = new BigLibrary();
+        Book book = new Book("Walden", Arrays.asList("Henry David Thoreau"), 1854);
+        BookCopy first = library.buy(book);
+        Set<BookCopy> all = library.allCopies(book);
+        Set<BookCopy> available = library.availableCopies(book);
+        BookCopy second = library.buy(book);
+        library.checkout(first);
+        assertEquals(new HashSet<>(Arrays.asList(first, second)), all);
+        assertEquals(Collections.singleton(second), available);
+        library.lose(second);
+        assertEquals(Collections.singleton(first), all);
+        assertEquals(Collections.emptySet(), available);
+    }
+    
     @Test
     public void testExampleTest() {
         // this is just an example test, you should delete it
@@ -32,6 +162,192 @@ public class BigLibraryTest {
         assertEquals(Collections.emptyList(), library.find("This Test Is Just An Example"));
     }
 
+    @Test
+    public void testCopiesShareCanonicalBook() {
+        Library library = new BigLibrary();
+        String title = "Canonical Test " + System.nanoTime();
+        Book book = new Book(title, Arrays.asList("Henry David Thoreau"), 1854);
+        Book same = new Book(title, Arrays.asList("Henry David Thoreau"), 1854);
+        BookCopy first = library.buy(book);
+        BookCopy second = library.buy(same);
+        assertSame(first.getBook(), second.getBook());
+        assertSame(book.intern(), first.getBook());
+    }
+    
+    @Test
+    public void testSuggestTitlesAndAuthors() {
+        BigLibrary library = new BigLibrary();
+        Book walden = new Book("Walden", Arrays.asList("Henry David Thoreau"), 1854);
+        Book waldenTwo = new Book("Walden Two", Arrays.asList("B. F. Skinner"), 1948);
+        Book sicp = new Book("Structure and Interpretation of Computer Programs",
+                Arrays.asList("Harold Abelson", "Gerald Jay Sussman"), 1985);
+        Book wallace = new Book("Infinite Jest", Arrays.asList("David Foster Wallace"), 1996);
+        library.buy(walden);
+        library.buy(waldenTwo);
+        library.buy(sicp);
+        library.buy(wallace);
+        
+        assertEquals(Arrays.asList(waldenTwo, walden), library.suggest("wald", 10));
+        assertEquals(Arrays.asList(waldenTwo, walden), library.suggest("WA", 10));
+        assertEquals(Arrays.asList(wallace), library.suggest("david f", 10));
+        assertEquals(Arrays.asList(waldenTwo), library.suggest("walden t", 10));
+        assertEquals(Arrays.asList(sicp), library.suggest("Gerald J.", 10));
+        assertEquals(Arrays.asList(sicp), library.suggest("struct", 10));
+        assertEquals(Collections.emptyList(), library.suggest("thoreau", 10));
+        assertEquals(Collections.emptyList(), library.suggest("waldo", 10));
+        assertEquals(Arrays.asList(wallace, sicp, waldenTwo, walden), library.suggest("", 10));
+        assertEquals(Arrays.asList(wallace, sicp), library.suggest("", 2));
+        assertEquals(Collections.emptyList(), library.suggest("w", 0));
+    }
+    
+    @Test
+    public void testSuggestMoreCopiesFirst() {
+        BigLibrary library = new BigLibrary();
+        Book tom = new Book("Tom Sawyer", Arrays.asList("Mark Twain"), 1876);
+        Book tomThumb = new Book("Tom Thumb", Arrays.asList("Anonymous"), 1876);
+        library.buy(tom);
+        BookCopy thumb = library.buy(tomThumb);
+        library.buy(tomThumb);
+        assertEquals(Arrays.asList(tomThumb, tom), library.suggest("tom", 10));
+        
+        library.lose(thumb);
+        library.buy(tom);
+        library.buy(tom);
+        assertEquals(Arrays.asList(tom, tomThumb), library.suggest("tom", 10));
+    }
+    
+    @Test
+    public void testSuggestAfterBuyAllOfExistingBooks() {
+        BigLibrary library = new BigLibrary();
+        List<Book> books = new ArrayList<>();
+        for (int i = 10; i < 30; i++) {
+            Book book = new Book("ax" + i, Arrays.asList("Author"), 2000);
+            books.add(book);
+            library.buy(book);
+        }
+        Book ax25 = books.get(15);
+        Book ax29 = books.get(19);
+        Book ax99 = new Book("ax99", Arrays.asList("Author"), 2000);
+        Map<Book, Integer> counts = new LinkedHashMap<>();
+        counts.put(ax29, 5);
+        counts.put(ax25, 10);
+        counts.put(ax99, 7);
+        library.buyAll(counts);
+        assertEquals(Arrays.asList(ax25, ax99, ax29), library.suggest("ax", 3));
+        assertEquals(Arrays.asList(ax25, ax99, ax29, books.get(0)), library.suggest("ax", 4));
+        assertEquals(library.suggest("ax", 21).subList(0, 3), library.suggest("ax", 3));
+    }
+    
+    @Test
+    public void testSuggestLostThenBoughtAgain() {
+        BigLibrary library = new BigLibrary();
+        Book book = new Book("Walden", Arrays.asList("Henry David Thoreau"), 1854);
+        BookCopy copy = library.buy(book);
+        library.lose(copy);
+        assertEquals(Collections.emptyList(), library.suggest("walden", 10));
+        library.buy(book);
+        assertEquals(Arrays.asList(book), library.suggest("henry", 10));
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testSuggestNegativeLimit() {
+        new BigLibrary().suggest("a", -1);
+    }
+    
+    @Test
+    public void testSnapshotUnchangedByLaterChanges() {
+        BigLibrary library = new BigLibrary();
+        Book walden = new Book("Walden", Arrays.asList("Henry David Thoreau"), 1854);
+        Book waldenTwo = new Book("Walden Two", Arrays.asList("B. F. Skinner"), 1948);
+        BookCopy first = library.buy(walden);
+        BookCopy second = library.buy(walden);
+        BookCopy two = library.buy(waldenTwo);
+        library.checkout(second);
+        
+        Library before = library.snapshot();
+        library.checkout(first);
+        library.checkin(second);
+        library.lose(two);
+        BookCopy third = library.buy(walden);
+        Library after = library.snapshot();
+        library.lose(first);
+        Book sicp = new Book("Structure and Interpretation of Computer Programs",
+                Arrays.asList("Harold Abelson", "Gerald Jay Sussman", "Julie Sussman"), 1985);
+        library.buy(sicp);
+        
+        assertEquals(new HashSet<>(Arrays.asList(first, second)), before.allCopies(walden));
+        assertEquals(Collections.singleton(first), before.availableCopies(walden));
+        assertTrue(before.isAvailable(first));
+        assertFalse(before.isAvailable(second));
+        assertEquals(Collections.singleton(two), before.allCopies(waldenTwo));
+        assertEquals(Arrays.asList(walden, waldenTwo), before.find("walden"));
+        assertEquals(Collections.emptyList(), before.find("sicp"));
+        assertEquals(Collections.emptySet(), before.allCopies(sicp));
+        
+        assertEquals(new HashSet<>(Arrays.asList(first, second, third)), after.allCopies(walden));
+        assertEquals(new HashSet<>(Arrays.asList(second, third)), after.availableCopies(walden));
+        assertEquals(Collections.emptySet(), after.allCopies(waldenTwo));
+        assertEquals(Arrays.asList(walden), after.find("walden"));
+        
+        assertEquals(new HashSet<>(Arrays.asList(second, third)), library.allCopies(walden));
+        assertEquals(Arrays.asList(sicp), library.find("sussman"));
+    }
+    
+    @Test(expected=UnsupportedOperationException.class)
+    public void testSnapshotBuyUnsupported() {
+        new BigLibrary().snapshot().buy(new Book("Walden", Arrays.asList("Henry David Thoreau"), 1854));
+    }
+    
+    @Test(expected=UnsupportedOperationException.class)
+    public void testSnapshotCheckoutUnsupported() {
+        BigLibrary library = new BigLibrary();
+        BookCopy copy = library.buy(new Book("Walden", Arrays.asList("Henry David Thoreau"), 1854));
+        library.snapshot().checkout(copy);
+    }
+    
+    @Test(expected=UnsupportedOperationException.class)
+    public void testSnapshotCopiesUnmodifiable() {
+        BigLibrary library = new BigLibrary();
+        Book book = new Book("Walden", Arrays.asList("Henry David Thoreau"), 1854);
+        BookCopy copy = library.buy(book);
+        library.snapshot().allCopies(book).remove(copy);
+    }
+    
+    @Test
+    public void testSnapshotReadWhileLibraryChanges() throws InterruptedException {
+        BigLibrary library = new BigLibrary();
+        List<Book> books = new ArrayList<>();
+        List<BookCopy> copies = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            books.add(new Book("Title " + i, Arrays.asList("Author " + i % 10), 1900 + i));
+            copies.add(library.buy(books.get(i)));
+        }
+        Library snapshot = library.snapshot();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            try {
+                for (int round = 0; round < 200; round++) {
+                    for (Book book : books) {
+                        assertEquals(1, snapshot.allCopies(book).size());
+                        assertEquals(1, snapshot.availableCopies(book).size());
+                    }
+                    assertEquals(20, snapshot.find("author 3").size());
+                }
+            } catch (Throwable t) {
+                failure.set(t);
+            }
+        });
+        reader.start();
+        for (int round = 0; reader.isAlive(); round++) {
+            BookCopy copy = copies.get(round % copies.size());
+            library.checkout(copy);
+            library.lose(library.buy(copy.getBook()));
+            library.checkin(copy);
+        }
+        reader.join();
+        assertNull(failure.get());
+    }
+    
     @Test(expected=AssertionError.class)
     public void testAssertionsEnabled() {
         assert false; // make sure assertions are enabled with VM argument: -ea
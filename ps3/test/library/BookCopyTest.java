@@ -14,11 +14,55 @@ public class BookCopyTest {
      * Testing strategy
      * ==================
      * 
-     * TODO: your testing strategy for this ADT should go here.
-     * Make sure you have partitions.
+     * BookCopy(), getBook(), getCondition():
+     *   new copy
+     * 
+     * setCondition():
+     *   GOOD -> DAMAGED, DAMAGED -> GOOD, unchanged
+     * 
+     * equals():
+     *   same copy, distinct copies of the same book
+     * 
+     * toString():
+     *   condition: GOOD, DAMAGED
      */
     
-    // TODO: put JUnit @Test methods here that you developed from your testing strategy
+    @Test
+    public void testNewCopyIsGood() {
+        Book book = new Book("Walden", Arrays.asList("Henry David Thoreau"), 1854);
+        BookCopy copy = new BookCopy(book);
+        assertEquals(book, copy.getBook());
+        assertEquals(BookCopy.Condition.GOOD, copy.getCondition());
+    }
+    
+    @Test
+    public void testSetCondition() {
+        BookCopy copy = new BookCopy(new Book("Walden", Arrays.asList("Henry David Thoreau"), 1854));
+        copy.setCondition(BookCopy.Condition.DAMAGED);
+        assertEquals(BookCopy.Condition.DAMAGED, copy.getCondition());
+        copy.setCondition(BookCopy.Condition.DAMAGED);
+        assertEquals(BookCopy.Condition.DAMAGED, copy.getCondition());
+        copy.setCondition(BookCopy.Condition.GOOD);
+        assertEquals(BookCopy.Condition.GOOD, copy.getCondition());
+    }
+    
+    @Test
+    public void testCopiesOfSameBookDistinct() {
+        Book book = new Book("Walden", Arrays.asList("Henry David Thoreau"), 1854);
+        BookCopy copy = new BookCopy(book);
+        assertEquals(copy, copy);
+        assertNotEquals(copy, new BookCopy(book));
+    }
+    
+    @Test
+    public void testToStringShowsCondition() {
+        BookCopy copy = new BookCopy(new Book("Walden", Arrays.asList("Henry David Thoreau"), 1854));
+        assertTrue(copy.toString().contains("Walden"));
+        assertTrue(copy.toString().contains("good"));
+        copy.setCondition(BookCopy.Condition.DAMAGED);
+        assertTrue(copy.toString().contains("damaged"));
+    }
+    
     @Test
     public void testExampleTest() {
         Book book = new Book("This Test Is Just An Example", Arrays.asList("You Should", "Replace It", "With Your Own Tests"), 1990);
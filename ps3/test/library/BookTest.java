@@ -1,9 +1,16 @@
 package library;
 
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.Test;
 import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
 
 /**
  * Test suite for Book ADT.
@@ -14,17 +21,144 @@ public class BookTest {
      * Testing strategy
      * ==================
      * 
-     * TODO: your testing strategy for this ADT should go here.
-     * Make sure you have partitions.
+     * Book(), getTitle(), getAuthors(), getYear():
+     *   authors: 1, > 1
+     *   title and authors: contain spaces, don't
+     * 
+     * equals(), hashCode():
+     *   books equal, differ in title, differ in authors (content, order),
+     *     differ in year
+     * 
+     * getAuthors():
+     *   later changes to the list passed to Book(): yes, no
+     *   client tries to modify the returned list
+     * 
+     * toString():
+     *   authors: 1, > 1
+     * 
+     * intern():
+     *   equal book interned before: no, yes, yes but since collected
+     *   book already canonical; unequal books with equal titles
+     *   called from several threads at once
      */
     
-    // TODO: put JUnit @Test methods here that you developed from your testing strategy
+    @Test
+    public void testGettersOneAuthor() {
+        Book book = new Book("Walden", Arrays.asList("Henry David Thoreau"), 1854);
+        assertEquals("Walden", book.getTitle());
+        assertEquals(Arrays.asList("Henry David Thoreau"), book.getAuthors());
+        assertEquals(1854, book.getYear());
+    }
+    
+    @Test
+    public void testGettersManyAuthorsKeepOrder() {
+        Book book = new Book("SICP", Arrays.asList("Abelson", "Sussman"), 1985);
+        assertEquals(Arrays.asList("Abelson", "Sussman"), book.getAuthors());
+    }
+    
+    @Test
+    public void testAuthorsCopiedFromArgument() {
+        List<String> authors = new ArrayList<>(Arrays.asList("Abelson", "Sussman"));
+        Book book = new Book("SICP", authors, 1985);
+        authors.add("Someone Else");
+        assertEquals(Arrays.asList("Abelson", "Sussman"), book.getAuthors());
+    }
+    
+    @Test(expected=UnsupportedOperationException.class)
+    public void testAuthorsUnmodifiable() {
+        Book book = new Book("SICP", Arrays.asList("Abelson", "Sussman"), 1985);
+        book.getAuthors().add("Someone Else");
+    }
+    
+    @Test
+    public void testEqualBooks() {
+        Book book = new Book("SICP", Arrays.asList("Abelson", "Sussman"), 1985);
+        Book same = new Book("SICP", new ArrayList<>(Arrays.asList("Abelson", "Sussman")), 1985);
+        assertEquals(book, same);
+        assertEquals(same, book);
+        assertEquals(book.hashCode(), same.hashCode());
+    }
+    
+    @Test
+    public void testUnequalBooks() {
+        Book book = new Book("SICP", Arrays.asList("Abelson", "Sussman"), 1985);
+        assertNotEquals(book, new Book("SICP 2e", Arrays.asList("Abelson", "Sussman"), 1985));
+        assertNotEquals(book, new Book("SICP", Arrays.asList("Abelson"), 1985));
+        assertNotEquals(book, new Book("SICP", Arrays.asList("Sussman", "Abelson"), 1985));
+        assertNotEquals(book, new Book("SICP", Arrays.asList("Abelson", "Sussman"), 1996));
+        assertNotEquals(book, "SICP");
+    }
+    
+    @Test
+    public void testToString() {
+        Book book = new Book("SICP", Arrays.asList("Abelson", "Sussman"), 1985);
+        String string = book.toString();
+        assertTrue(string.contains("SICP"));
+        assertTrue(string.contains("Abelson"));
+        assertTrue(string.contains("Sussman"));
+        assertTrue(string.contains("1985"));
+    }
+    
     @Test
     public void testExampleTest() {
         Book book = new Book("This Test Is Just An Example", Arrays.asList("You Should", "Replace It", "With Your Own Tests"), 1990);
         assertEquals("This Test Is Just An Example", book.getTitle());
     }
     
+    @Test
+    public void testInternEqualBooks() {
+        Book book = new Book("Intern Test " + System.nanoTime(), Arrays.asList("Abelson"), 1985);
+        Book same = new Book(book.getTitle(), Arrays.asList("Abelson"), 1985);
+        Book canonical = book.intern();
+        assertSame(book, canonical);
+        assertSame(canonical, same.intern());
+        assertSame(canonical, canonical.intern());
+        assertEquals(same, canonical);
+    }
+    
+    @Test
+    public void testInternUnequalBooks() {
+        String title = "Intern Test " + System.nanoTime();
+        Book first = new Book(title, Arrays.asList("Abelson"), 1985).intern();
+        Book second = new Book(title, Arrays.asList("Abelson"), 1996).intern();
+        assertNotSame(first, second);
+        assertNotEquals(first, second);
+    }
+    
+    @Test
+    public void testInternHoldsBooksWeakly() throws InterruptedException {
+        String title = "Intern Test " + System.nanoTime();
+        Book book = new Book(title, Arrays.asList("Abelson"), 1985).intern();
+        WeakReference<Book> reference = new WeakReference<>(book);
+        book = null;
+        for (int i = 0; i < 50 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assumeTrue("book was not collected", reference.get() == null);
+        Book later = new Book(title, Arrays.asList("Abelson"), 1985);
+        assertSame(later, later.intern());
+    }
+    
+    @Test
+    public void testInternConcurrently() throws Exception {
+        final String title = "Intern Test " + System.nanoTime();
+        final int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Book>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(pool.submit(() -> new Book(title, Arrays.asList("Abelson"), 1985).intern()));
+            }
+            Book canonical = results.get(0).get();
+            for (Future<Book> result : results) {
+                assertSame(canonical, result.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+    
     @Test(expected=AssertionError.class)
     public void testAssertionsEnabled() {
         assert false; // make sure assertions are enabled with VM argument: -ea
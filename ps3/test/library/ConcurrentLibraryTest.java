@@ -0,0 +1,145 @@
+package library;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+/**
+ * Test suite for ConcurrentLibrary's stronger specs: snapshots and thread
+ * safety.  Tests of the Library spec are in LibraryTest.java.
+ */
+public class ConcurrentLibraryTest {
+
+    /*
+     * Testing strategy
+     * ==================
+     *
+     * ConcurrentLibrary():
+     *   stripes: 1, not a power of 2, < 1
+     *
+     * allCopies(), availableCopies(), find():
+     *   library changes after the call
+     *
+     * all operations, from several threads at once:
+     *   threads work on the same books, on different books
+     *   copies bought, checked out, checked in, lost
+     *   readers (find, availableCopies) run during writes
+     */
+
+    private static final int THREADS = 8;
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testNoStripes() {
+        new ConcurrentLibrary(0);
+    }
+
+    @Test
+    public void testStripeCounts() {
+        for (int stripes : new int[] { 1, 3, 64 }) {
+            Library library = new ConcurrentLibrary(stripes);
+            Book book = new Book("Walden", Arrays.asList("Henry David Thoreau"), 1854);
+            BookCopy copy = library.buy(book);
+            library.checkout(copy);
+            assertEquals(Collections.singleton(copy), library.allCopies(book));
+            assertFalse(library.isAvailable(copy));
+        }
+    }
+
+    @Test
+    public void testSnapshots() {
+        Library library = new ConcurrentLibrary();
+        Book book = new Book("Walden", Arrays.asList("Henry David Thoreau"), 1854);
+        BookCopy first = library.buy(book);
+        Set<BookCopy> all = library.allCopies(book);
+        Set<BookCopy> available = library.availableCopies(book);
+        List<Book> found = library.find("Walden");
+        library.buy(book);
+        library.checkout(first);
+        library.lose(first);
+        assertEquals(Collections.singleton(first), all);
+        assertEquals(Collections.singleton(first), available);
+        assertEquals(Arrays.asList(book), found);
+    }
+
+    @Test
+    public void testStress() throws Exception {
+        final Library library = new ConcurrentLibrary(4);
+        final List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            books.add(new Book("Book " + i, Arrays.asList("Author " + (i % 3)), 1990 + i));
+        }
+        final int rounds = 2000;
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Callable<List<BookCopy>>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            final int thread = t;
+            workers.add(() -> {
+                // returns the copies this thread kept
+                final List<BookCopy> kept = new ArrayList<>();
+                start.await();
+                for (int i = 0; i < rounds; i++) {
+                    final Book book = books.get((thread + i) % books.size());
+                    final BookCopy copy = library.buy(book);
+                    library.checkout(copy);
+                    assertFalse(library.isAvailable(copy));
+                    assertTrue(library.allCopies(book).contains(copy));
+                    library.checkin(copy);
+                    assertTrue(library.isAvailable(copy));
+                    if (i % 2 == 0) {
+                        library.lose(copy);
+                        assertFalse(library.allCopies(book).contains(copy));
+                    } else {
+                        kept.add(copy);
+                    }
+                    if (i % 10 == 0) {
+                        for (Book found : library.find("Author " + thread % 3)) {
+                            assertEquals(Arrays.asList("Author " + thread % 3), found.getAuthors());
+                        }
+                        library.availableCopies(book).size();
+                    }
+                }
+                return kept;
+            });
+        }
+        final ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        final List<Future<List<BookCopy>>> results = new ArrayList<>();
+        try {
+            for (Callable<List<BookCopy>> worker : workers) {
+                results.add(pool.submit(worker));
+            }
+            start.countDown();
+            final Set<BookCopy> kept = new HashSet<>();
+            for (Future<List<BookCopy>> result : results) {
+                kept.addAll(result.get());
+            }
+
+            final Set<BookCopy> all = new HashSet<>();
+            for (Book book : books) {
+                assertEquals(library.allCopies(book), library.availableCopies(book));
+                all.addAll(library.allCopies(book));
+            }
+            assertEquals(kept, all);
+            assertEquals(THREADS * rounds / 2, all.size());
+            assertEquals(books.size(), library.find("Book").size());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+}
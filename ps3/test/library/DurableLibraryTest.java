@@ -0,0 +1,320 @@
+package library;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test suite for DurableLibrary: recovery of the state of a closed or
+ * crashed library.
+ */
+public class DurableLibraryTest {
+
+    /*
+     * Testing strategy
+     * ==================
+     *
+     * open():
+     *   directory: missing, empty, with log only, with snapshot and log
+     *   policy: EVERY_OPERATION, GROUP_COMMIT, NEVER
+     *   log ends with: complete record, partly written record
+     *   snapshot: valid, corrupt
+     *   arguments out of range: snapshot interval, group time
+     *
+     * GROUP_COMMIT:
+     *   group time 0, positive; one thread, several threads at once, with
+     *   snapshots while other threads wait for a force
+     *
+     * allCopies(), availableCopies():
+     *   result unchanged by later operations; unmodifiable
+     *
+     * recovered state:
+     *   copies: available, checked out, lost, never bought
+     *   books: one copy, several; all copies lost; title with non-ASCII text
+     *
+     * snapshot():
+     *   explicit, automatic after snapshotInterval operations, several in a
+     *   row; operations after a snapshot
+     *
+     * buyAll(), checkoutAll(), checkinAll():
+     *   recovered from log, from snapshot; copies not in this library
+     *
+     * after close(): operations throw IllegalStateException
+     */
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final Book WALDEN = new Book("Walden", Arrays.asList("Henry David Thoreau"), 1854);
+    private static final Book SICP = new Book("SICP", Arrays.asList("Abelson", "Sussman"), 1985);
+    private static final Book GEB = new Book("G\u00f6del, Escher, Bach", Arrays.asList("Hofstadter"), 1979);
+
+    private DurableLibrary open(Path directory, DurableLibrary.SyncPolicy policy, long snapshotInterval)
+            throws IOException {
+        return DurableLibrary.open(directory, new BigLibrary(), policy, 16, 5, snapshotInterval);
+    }
+
+    // buy copies of several books and leave them in different states:
+    // WALDEN 1 available + 1 checked out, SICP 1 checked out, GEB all lost
+    private static void populate(Library library) {
+        BookCopy walden = library.buy(WALDEN);
+        library.buy(WALDEN);
+        library.checkout(walden);
+        BookCopy sicp = library.buy(SICP);
+        library.checkout(sicp);
+        library.checkin(sicp);
+        library.checkout(sicp);
+        BookCopy geb = library.buy(GEB);
+        library.checkout(geb);
+        library.lose(geb);
+    }
+
+    private static void assertPopulated(Library library) {
+        assertEquals(2, library.allCopies(WALDEN).size());
+        assertEquals(1, library.availableCopies(WALDEN).size());
+        assertEquals(1, library.allCopies(SICP).size());
+        assertEquals(Collections.emptySet(), library.availableCopies(SICP));
+        assertEquals(Collections.emptySet(), library.allCopies(GEB));
+        assertEquals(Arrays.asList(SICP), library.find("Sussman"));
+        assertEquals(Collections.emptyList(), library.find("Hofstadter"));
+    }
+
+    @Test
+    public void testEmptyDirectory() throws IOException {
+        Path directory = folder.getRoot().toPath().resolve("missing");
+        try (DurableLibrary library = open(directory, DurableLibrary.SyncPolicy.EVERY_OPERATION, 1000)) {
+            assertEquals(Collections.emptySet(), library.allCopies(WALDEN));
+        }
+        try (DurableLibrary library = open(directory, DurableLibrary.SyncPolicy.EVERY_OPERATION, 1000)) {
+            assertEquals(Collections.emptyList(), library.find("Walden"));
+        }
+    }
+
+    @Test
+    public void testRecoverFromLog() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        for (DurableLibrary.SyncPolicy policy : DurableLibrary.SyncPolicy.values()) {
+            Path sub = directory.resolve(policy.name());
+            try (DurableLibrary library = open(sub, policy, 1000)) {
+                populate(library);
+                assertPopulated(library);
+            }
+            try (DurableLibrary library = open(sub, policy, 1000)) {
+                assertPopulated(library);
+            }
+        }
+    }
+
+    @Test
+    public void testRecoveredCopiesUsable() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        try (DurableLibrary library = open(directory, DurableLibrary.SyncPolicy.NEVER, 1000)) {
+            populate(library);
+        }
+        try (DurableLibrary library = open(directory, DurableLibrary.SyncPolicy.NEVER, 1000)) {
+            for (BookCopy copy : library.allCopies(WALDEN)) {
+                if (!library.isAvailable(copy)) {
+                    library.checkin(copy);
+                }
+            }
+            BookCopy extra = library.buy(WALDEN);
+            library.lose(extra);
+            library.buy(GEB);
+        }
+        try (DurableLibrary library = open(directory, DurableLibrary.SyncPolicy.NEVER, 1000)) {
+            assertEquals(2, library.availableCopies(WALDEN).size());
+            assertEquals(2, library.allCopies(WALDEN).size());
+            assertEquals(1, library.allCopies(GEB).size());
+            assertEquals(Arrays.asList(GEB), library.find("G\u00f6del, Escher, Bach"));
+        }
+    }
+
+    @Test
+    public void testRecoverFromSnapshots() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        try (DurableLibrary library = open(directory, DurableLibrary.SyncPolicy.GROUP_COMMIT, 3)) {
+            populate(library);
+            library.snapshot();
+            library.snapshot();
+            library.buy(SICP);
+        }
+        Set<String> files = new HashSet<>();
+        for (Path file : Files.newDirectoryStream(directory)) {
+            files.add(file.getFileName().toString());
+        }
+        assertTrue(files.contains("snapshot"));
+        assertEquals(2, files.size()); // the snapshot and one log
+        try (DurableLibrary library = open(directory, DurableLibrary.SyncPolicy.GROUP_COMMIT, 3)) {
+            assertEquals(2, library.allCopies(SICP).size());
+            assertEquals(1, library.availableCopies(SICP).size());
+            assertEquals(2, library.allCopies(WALDEN).size());
+            assertEquals(Collections.emptySet(), library.allCopies(GEB));
+        }
+    }
+
+    @Test
+    public void testRecoverBatches() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        Map<Book, Integer> counts = new HashMap<>();
+        counts.put(WALDEN, 3);
+        counts.put(SICP, 2);
+        try (DurableLibrary library = open(directory, DurableLibrary.SyncPolicy.EVERY_OPERATION, 1000)) {
+            Map<Book, List<BookCopy>> bought = library.buyAll(counts);
+            library.checkoutAll(Arrays.asList(bought.get(WALDEN).get(0), bought.get(WALDEN).get(1),
+                    bought.get(SICP).get(0), new BookCopy(GEB)));
+            library.checkinAll(Arrays.asList(bought.get(WALDEN).get(1)));
+        }
+        for (int i = 0; i < 2; i++) {
+            try (DurableLibrary library = open(directory, DurableLibrary.SyncPolicy.EVERY_OPERATION, 1000)) {
+                assertEquals(3, library.allCopies(WALDEN).size());
+                assertEquals(2, library.availableCopies(WALDEN).size());
+                assertEquals(2, library.allCopies(SICP).size());
+                assertEquals(1, library.availableCopies(SICP).size());
+                // the second time, recover from the snapshot
+                library.snapshot();
+            }
+        }
+    }
+
+    @Test
+    public void testTornRecordDiscarded() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        try (DurableLibrary library = open(directory, DurableLibrary.SyncPolicy.EVERY_OPERATION, 1000)) {
+            populate(library);
+        }
+        Path log = directory.resolve("log-0");
+        long size = Files.size(log);
+        // a crash in the middle of appending a checkin
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[] { 0, 0, 0, 9, 1, 2 }));
+        }
+        try (DurableLibrary library = open(directory, DurableLibrary.SyncPolicy.EVERY_OPERATION, 1000)) {
+            assertPopulated(library);
+            library.buy(GEB);
+        }
+        assertTrue(Files.size(log) > size);
+        try (DurableLibrary library = open(directory, DurableLibrary.SyncPolicy.EVERY_OPERATION, 1000)) {
+            assertEquals(1, library.allCopies(GEB).size());
+        }
+    }
+
+    @Test(expected=IOException.class)
+    public void testCorruptSnapshot() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        try (DurableLibrary library = open(directory, DurableLibrary.SyncPolicy.EVERY_OPERATION, 1000)) {
+            populate(library);
+            library.snapshot();
+        }
+        Path snapshot = directory.resolve("snapshot");
+        byte[] bytes = Files.readAllBytes(snapshot);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(snapshot, bytes);
+        open(directory, DurableLibrary.SyncPolicy.EVERY_OPERATION, 1000);
+    }
+
+    @Test
+    public void testGroupCommitConcurrent() throws IOException, InterruptedException {
+        Path directory = folder.getRoot().toPath();
+        final int threads = 8;
+        final int copiesPerThread = 100;
+        for (long groupMillis : new long[] { 0, 2 }) {
+            Path sub = directory.resolve("millis" + groupMillis);
+            try (DurableLibrary library = DurableLibrary.open(sub, new BigLibrary(),
+                    DurableLibrary.SyncPolicy.GROUP_COMMIT, 4, groupMillis, 150)) {
+                List<Thread> running = new ArrayList<>();
+                List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+                for (int t = 0; t < threads; t++) {
+                    Book book = new Book("Book " + t, Arrays.asList("Author " + t), 2000 + t);
+                    Thread thread = new Thread(() -> {
+                        try {
+                            for (int i = 0; i < copiesPerThread; i++) {
+                                BookCopy copy = library.buy(book);
+                                if (i % 2 == 0) {
+                                    library.checkout(copy);
+                                }
+                            }
+                        } catch (Throwable e) {
+                            failures.add(e);
+                        }
+                    });
+                    running.add(thread);
+                    thread.start();
+                }
+                for (Thread thread : running) {
+                    thread.join();
+                }
+                assertEquals(Collections.emptyList(), failures);
+            }
+            try (DurableLibrary library = open(sub, DurableLibrary.SyncPolicy.NEVER, 1000)) {
+                for (int t = 0; t < threads; t++) {
+                    Book book = new Book("Book " + t, Arrays.asList("Author " + t), 2000 + t);
+                    assertEquals(copiesPerThread, library.allCopies(book).size());
+                    assertEquals(copiesPerThread / 2, library.availableCopies(book).size());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCopiesNotViews() throws IOException {
+        try (DurableLibrary library = open(folder.getRoot().toPath(), DurableLibrary.SyncPolicy.NEVER, 1000)) {
+            BookCopy copy = library.buy(WALDEN);
+            Set<BookCopy> all = library.allCopies(WALDEN);
+            Set<BookCopy> available = library.availableCopies(WALDEN);
+            library.buy(WALDEN);
+            library.checkout(copy);
+            assertEquals(Collections.singleton(copy), all);
+            assertEquals(Collections.singleton(copy), available);
+            assertEquals(2, library.allCopies(WALDEN).size());
+        }
+    }
+
+    @Test(expected=UnsupportedOperationException.class)
+    public void testCopiesUnmodifiable() throws IOException {
+        try (DurableLibrary library = open(folder.getRoot().toPath(), DurableLibrary.SyncPolicy.NEVER, 1000)) {
+            library.buy(WALDEN);
+            library.allCopies(WALDEN).clear();
+        }
+    }
+
+    @Test(expected=IllegalStateException.class)
+    public void testClosed() throws IOException {
+        DurableLibrary library = open(folder.getRoot().toPath(), DurableLibrary.SyncPolicy.GROUP_COMMIT, 1000);
+        library.close();
+        library.close();
+        library.buy(WALDEN);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testBadSnapshotInterval() throws IOException {
+        open(folder.getRoot().toPath(), DurableLibrary.SyncPolicy.NEVER, 0);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testNegativeGroupMillis() throws IOException {
+        DurableLibrary.open(folder.getRoot().toPath(), new BigLibrary(), DurableLibrary.SyncPolicy.GROUP_COMMIT,
+                16, -1, 1000);
+    }
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+}
@@ -0,0 +1,188 @@
+package library;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Test suite for HashTrie.
+ */
+public class HashTrieTest {
+
+    /*
+     * Testing strategy
+     * ==================
+     *
+     * with(), without():
+     *   map: empty, one key, many keys (several levels)
+     *   key: new, present with the same or another value; absent for without
+     *   hashes: distinct, equal in low bits, wholly equal (collisions)
+     *   edit token: owns the map, does not own it
+     *
+     * versions:
+     *   a version kept before switching tokens never changes afterwards
+     *   the empty map never changes
+     *
+     * get(), containsKey(), size(), keySet(), entrySet():
+     *   compared against HashMap over random changes
+     *   Map mutators throw UnsupportedOperationException
+     */
+
+    // key whose hash is chosen, to force collisions
+    private static class Key {
+        private final String name;
+        private final int hash;
+
+        Key(String name, int hash) {
+            this.name = name;
+            this.hash = hash;
+        }
+
+        @Override public boolean equals(Object that) {
+            return that instanceof Key && ((Key) that).name.equals(name);
+        }
+
+        @Override public int hashCode() {
+            return hash;
+        }
+
+        @Override public String toString() {
+            return name;
+        }
+    }
+
+    @Test
+    public void testWithWithout() {
+        Object edit = new Object();
+        HashTrie<String, Integer> map = HashTrie.empty();
+        map = map.with("a", 1, edit);
+        map = map.with("b", 2, edit);
+        map = map.with("a", 3, edit);
+        assertEquals(2, map.size());
+        assertEquals(Integer.valueOf(3), map.get("a"));
+        assertTrue(map.containsKey("b"));
+        assertFalse(map.containsKey("c"));
+
+        map = map.without("c", edit);
+        map = map.without("a", edit);
+        assertEquals(1, map.size());
+        assertNull(map.get("a"));
+        map = map.without("b", edit);
+        assertTrue(map.isEmpty());
+        assertEquals(Collections.emptyMap(), map);
+        assertTrue(HashTrie.empty().isEmpty());
+    }
+
+    @Test
+    public void testCollisions() {
+        Object edit = new Object();
+        HashTrie<Key, Integer> map = HashTrie.empty();
+        List<Key> keys = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            // the same whole hash for pairs, and the same low bits for all
+            keys.add(new Key("k" + i, (i / 2) << 28));
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            map = map.with(keys.get(i), i, edit);
+        }
+        assertEquals(10, map.size());
+        for (int i = 0; i < keys.size(); i++) {
+            assertEquals(Integer.valueOf(i), map.get(keys.get(i)));
+        }
+        assertNull(map.get(new Key("other", 0)));
+        assertEquals(new HashSet<>(keys), map.keySet());
+
+        for (int i = 0; i < keys.size(); i += 2) {
+            map = map.without(keys.get(i), edit);
+        }
+        assertEquals(5, map.size());
+        for (int i = 0; i < keys.size(); i++) {
+            assertEquals(i % 2 == 0 ? null : Integer.valueOf(i), map.get(keys.get(i)));
+        }
+    }
+
+    @Test
+    public void testVersionsUnchangedUnderNewToken() {
+        Object edit = new Object();
+        HashTrie<Integer, Integer> map = HashTrie.empty();
+        for (int i = 0; i < 1000; i++) {
+            map = map.with(i, i, edit);
+        }
+        HashTrie<Integer, Integer> kept = map;
+        Map<Integer, Integer> expected = new HashMap<>(kept);
+
+        edit = new Object();
+        for (int i = 0; i < 1000; i += 3) {
+            map = map.without(i, edit);
+            map = map.with(i + 1, -i, edit);
+        }
+        map = map.with(5000, 5000, edit);
+        assertNotSame(kept, map);
+        assertEquals(expected, kept);
+        assertEquals(1000, kept.size());
+        assertEquals(Integer.valueOf(3), kept.get(3));
+        assertNull(map.get(3));
+        assertEquals(Integer.valueOf(-3), map.get(4));
+    }
+
+    @Test
+    public void testChangesInPlaceUnderOwnToken() {
+        Object edit = new Object();
+        HashTrie<Integer, Integer> map = HashTrie.<Integer, Integer>empty().with(1, 1, edit);
+        assertSame(map, map.with(2, 2, edit));
+        assertSame(map, map.without(1, edit));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void testRandomAgainstHashMap() {
+        Random random = new Random(6031);
+        Map<Key, Integer> expected = new HashMap<>();
+        HashTrie<Key, Integer> map = HashTrie.empty();
+        List<HashTrie<Key, Integer>> versions = new ArrayList<>();
+        List<Map<Key, Integer>> expectedVersions = new ArrayList<>();
+        Object edit = new Object();
+        for (int step = 0; step < 20000; step++) {
+            // few distinct hashes, so collisions are common
+            int n = random.nextInt(3000);
+            Key key = new Key("k" + n, random.nextBoolean() ? n : n % 97);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.without(key, edit);
+            } else {
+                expected.put(key, step);
+                map = map.with(key, step, edit);
+            }
+            if (step % 2000 == 0) {
+                versions.add(map);
+                expectedVersions.add(new HashMap<>(expected));
+                edit = new Object();
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        assertEquals(expected, map);
+        assertEquals(expected.keySet(), map.keySet());
+        for (int i = 0; i < versions.size(); i++) {
+            assertEquals(expectedVersions.get(i), versions.get(i));
+        }
+    }
+
+    @Test(expected=UnsupportedOperationException.class)
+    public void testMapUnmodifiable() {
+        HashTrie<String, Integer> map = HashTrie.<String, Integer>empty().with("a", 1, new Object());
+        map.keySet().remove("a");
+    }
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+}
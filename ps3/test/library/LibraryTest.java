@@ -1,9 +1,14 @@
 package library;
 
-import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.*;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -32,7 +37,8 @@ public class LibraryTest {
     public static Object[] allImplementationClassNames() {
         return new Object[] { 
             "library.SmallLibrary", 
-            "library.BigLibrary"
+            "library.BigLibrary",
+            "library.ConcurrentLibrary"
         }; 
     }
 
@@ -66,11 +72,150 @@ public class LibraryTest {
      * Testing strategy
      * ==================
      * 
-     * TODO: your testing strategy for this ADT should go here.
-     * Make sure you have partitions.
+     * buy():
+     *   copies of the book already in the library: 0, > 0
+     * 
+     * checkout(), checkin():
+     *   other copies of the book: none, available, checked out
+     * 
+     * isAvailable():
+     *   copy available, checked out, lost, never bought here
+     * 
+     * allCopies(), availableCopies():
+     *   book never bought, bought and all copies lost
+     *   copies: 1, > 1; some checked out: yes, no
+     * 
+     * find():
+     *   matches: none, title, author (first, later), several books
+     *   books with the same title and author: same year, different years
+     *   a book with several copies appears once
+     *   matching book checked out, all copies lost
+     * 
+     * lose():
+     *   copy available, checked out
+     * 
+     * buyAll():
+     *   books: none, one, several; count: 0, 1, > 1
+     *   book already has copies: yes, no
+     * 
+     * checkoutAll(), checkinAll():
+     *   copies: none, one, several; of one book, of several books
      */
     
-    // TODO: put JUnit @Test methods here that you developed from your testing strategy
+    private static final Book WALDEN = new Book("Walden", Arrays.asList("Henry David Thoreau"), 1854);
+    private static final Book SICP = new Book("SICP", Arrays.asList("Abelson", "Sussman"), 1985);
+    private static final Book SICP_2E = new Book("SICP", Arrays.asList("Abelson", "Sussman"), 1996);
+    
+    @Test
+    public void testBuyFirstCopy() {
+        Library library = makeLibrary();
+        BookCopy copy = library.buy(WALDEN);
+        assertEquals(WALDEN, copy.getBook());
+        assertEquals(BookCopy.Condition.GOOD, copy.getCondition());
+        assertTrue(library.isAvailable(copy));
+        assertEquals(Collections.singleton(copy), library.allCopies(WALDEN));
+        assertEquals(Collections.singleton(copy), library.availableCopies(WALDEN));
+    }
+    
+    @Test
+    public void testBuyMoreCopies() {
+        Library library = makeLibrary();
+        BookCopy first = library.buy(WALDEN);
+        BookCopy second = library.buy(WALDEN);
+        assertNotSame(first, second);
+        assertEquals(new HashSet<>(Arrays.asList(first, second)), library.allCopies(WALDEN));
+        assertEquals(new HashSet<>(Arrays.asList(first, second)), library.availableCopies(WALDEN));
+    }
+    
+    @Test
+    public void testCheckoutAndCheckin() {
+        Library library = makeLibrary();
+        BookCopy out = library.buy(WALDEN);
+        BookCopy in = library.buy(WALDEN);
+        library.checkout(out);
+        assertFalse(library.isAvailable(out));
+        assertTrue(library.isAvailable(in));
+        assertEquals(new HashSet<>(Arrays.asList(out, in)), library.allCopies(WALDEN));
+        assertEquals(Collections.singleton(in), library.availableCopies(WALDEN));
+        
+        library.checkout(in);
+        assertEquals(Collections.emptySet(), library.availableCopies(WALDEN));
+        assertEquals(2, library.allCopies(WALDEN).size());
+        
+        library.checkin(out);
+        assertTrue(library.isAvailable(out));
+        assertEquals(Collections.singleton(out), library.availableCopies(WALDEN));
+    }
+    
+    @Test
+    public void testCopyNeverBoughtHere() {
+        Library library = makeLibrary();
+        library.buy(WALDEN);
+        assertFalse(library.isAvailable(new BookCopy(WALDEN)));
+        assertFalse(library.isAvailable(new BookCopy(SICP)));
+        assertEquals(Collections.emptySet(), library.allCopies(SICP));
+    }
+    
+    @Test
+    public void testLoseAvailableAndCheckedOut() {
+        Library library = makeLibrary();
+        BookCopy available = library.buy(WALDEN);
+        BookCopy checkedOut = library.buy(WALDEN);
+        BookCopy kept = library.buy(WALDEN);
+        library.checkout(checkedOut);
+        library.lose(available);
+        library.lose(checkedOut);
+        assertFalse(library.isAvailable(available));
+        assertFalse(library.isAvailable(checkedOut));
+        assertEquals(Collections.singleton(kept), library.allCopies(WALDEN));
+        assertEquals(Collections.singleton(kept), library.availableCopies(WALDEN));
+    }
+    
+    @Test
+    public void testAllCopiesLost() {
+        Library library = makeLibrary();
+        library.lose(library.buy(WALDEN));
+        assertEquals(Collections.emptySet(), library.allCopies(WALDEN));
+        assertEquals(Collections.emptySet(), library.availableCopies(WALDEN));
+        assertEquals(Collections.emptyList(), library.find("Walden"));
+    }
+    
+    @Test
+    public void testFindNoMatch() {
+        Library library = makeLibrary();
+        library.buy(WALDEN);
+        assertEquals(Collections.emptyList(), library.find("Moby Dick"));
+    }
+    
+    @Test
+    public void testFindByTitleAndAuthors() {
+        Library library = makeLibrary();
+        library.buy(WALDEN);
+        library.buy(SICP);
+        library.buy(SICP);
+        assertEquals(Arrays.asList(WALDEN), library.find("Walden"));
+        assertEquals(Arrays.asList(WALDEN), library.find("Henry David Thoreau"));
+        assertEquals(Arrays.asList(SICP), library.find("SICP"));
+        assertEquals(Arrays.asList(SICP), library.find("Abelson"));
+        assertEquals(Arrays.asList(SICP), library.find("Sussman"));
+    }
+    
+    @Test
+    public void testFindCheckedOut() {
+        Library library = makeLibrary();
+        library.checkout(library.buy(WALDEN));
+        assertEquals(Arrays.asList(WALDEN), library.find("Walden"));
+    }
+    
+    @Test
+    public void testFindNewerEditionFirst() {
+        Library library = makeLibrary();
+        library.buy(SICP);
+        library.buy(SICP_2E);
+        assertEquals(Arrays.asList(SICP_2E, SICP), library.find("SICP"));
+        assertEquals(Arrays.asList(SICP_2E, SICP), library.find("Sussman"));
+    }
+    
     @Test
     public void testExampleTest() {
         Library library = makeLibrary();
@@ -79,6 +224,65 @@ public class LibraryTest {
     }
     
     
+    @Test
+    public void testBuyAllEmpty() {
+        Library library = makeLibrary();
+        assertEquals(Collections.emptyMap(), library.buyAll(Collections.emptyMap()));
+        library.checkoutAll(Collections.emptyList());
+        library.checkinAll(Collections.emptyList());
+        assertEquals(Collections.emptyList(), library.find("Walden"));
+    }
+    
+    @Test
+    public void testBuyAll() {
+        Library library = makeLibrary();
+        BookCopy old = library.buy(SICP);
+        Map<Book, Integer> counts = new HashMap<>();
+        counts.put(WALDEN, 3);
+        counts.put(SICP, 1);
+        counts.put(SICP_2E, 0);
+        Map<Book, List<BookCopy>> bought = library.buyAll(counts);
+        assertEquals(counts.keySet(), bought.keySet());
+        assertEquals(3, new HashSet<>(bought.get(WALDEN)).size());
+        assertEquals(new HashSet<>(bought.get(WALDEN)), library.availableCopies(WALDEN));
+        assertEquals(Collections.emptyList(), bought.get(SICP_2E));
+        Set<BookCopy> sicp = new HashSet<>(bought.get(SICP));
+        sicp.add(old);
+        assertEquals(2, sicp.size());
+        assertEquals(sicp, library.allCopies(SICP));
+        for (List<BookCopy> copies : bought.values()) {
+            for (BookCopy copy : copies) {
+                assertEquals(BookCopy.Condition.GOOD, copy.getCondition());
+                assertTrue(library.isAvailable(copy));
+            }
+        }
+        assertEquals(Arrays.asList(WALDEN), library.find("Walden"));
+        assertEquals(Arrays.asList(SICP), library.find("SICP"));
+    }
+    
+    @Test
+    public void testCheckoutAllCheckinAll() {
+        Library library = makeLibrary();
+        Map<Book, Integer> counts = new HashMap<>();
+        counts.put(WALDEN, 2);
+        counts.put(SICP, 2);
+        Map<Book, List<BookCopy>> bought = library.buyAll(counts);
+        BookCopy walden = bought.get(WALDEN).get(0);
+        List<BookCopy> out = Arrays.asList(walden, bought.get(SICP).get(0), bought.get(SICP).get(1));
+        library.checkoutAll(out);
+        for (BookCopy copy : out) {
+            assertFalse(library.isAvailable(copy));
+        }
+        assertEquals(Collections.singleton(bought.get(WALDEN).get(1)), library.availableCopies(WALDEN));
+        assertEquals(Collections.emptySet(), library.availableCopies(SICP));
+        assertEquals(2, library.allCopies(SICP).size());
+        
+        library.checkinAll(Arrays.asList(walden));
+        assertTrue(library.isAvailable(walden));
+        assertEquals(2, library.availableCopies(WALDEN).size());
+        assertEquals(Collections.emptySet(), library.availableCopies(SICP));
+    }
+    
     @Test(expected=AssertionError.class)
     public void testAssertionsEnabled() {
         assert false; // make sure assertions are enabled with VM argument: -ea
@@ -0,0 +1,71 @@
+package library;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+/**
+ * Test suite for SearchIndex.
+ */
+public class SearchIndexTest {
+
+    /*
+     * Testing strategy
+     * ==================
+     * 
+     * tokenize(), normalize():
+     *   text: empty, only separators, one word, several words
+     *   separators: spaces, punctuation, leading/trailing, repeated
+     *   case: lower, upper, mixed; letters: ASCII, non-ASCII; digits
+     * 
+     * add(), remove(), contains():
+     *   book: not indexed, indexed; add twice; remove absent book
+     *   other books sharing tokens stay indexed
+     */
+    
+    @Test
+    public void testTokenize() {
+        assertEquals(Collections.emptyList(), SearchIndex.tokenize(""));
+        assertEquals(Collections.emptyList(), SearchIndex.tokenize(" ?! "));
+        assertEquals(Arrays.asList("walden"), SearchIndex.tokenize("Walden"));
+        assertEquals(Arrays.asList("b", "f", "skinner"), SearchIndex.tokenize("  B. F.  SKINNER! "));
+        assertEquals(Arrays.asList("catch", "22"), SearchIndex.tokenize("Catch-22"));
+        assertEquals(Arrays.asList("g\u00f6del", "escher", "bach"),
+                SearchIndex.tokenize("G\u00d6DEL, Escher, Bach"));
+    }
+    
+    @Test
+    public void testNormalize() {
+        assertEquals("", SearchIndex.normalize("..."));
+        assertEquals("b f skinner", SearchIndex.normalize("  B. F.  SKINNER! "));
+    }
+    
+    @Test
+    public void testAddRemove() {
+        SearchIndex index = new SearchIndex();
+        Book walden = new Book("Walden", Arrays.asList("Henry David Thoreau"), 1854);
+        Book waldenTwo = new Book("Walden Two", Arrays.asList("B. F. Skinner"), 1948);
+        assertFalse(index.contains(walden));
+        
+        index.add(walden);
+        index.add(walden);
+        index.add(waldenTwo);
+        assertTrue(index.contains(walden));
+        assertEquals(Arrays.asList(walden, waldenTwo), index.find("walden"));
+        
+        index.remove(walden);
+        index.remove(walden);
+        assertFalse(index.contains(walden));
+        assertTrue(index.contains(waldenTwo));
+        assertEquals(Arrays.asList(waldenTwo), index.find("walden"));
+        assertEquals(Collections.emptyList(), index.find("thoreau"));
+    }
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+}
@@ -0,0 +1,154 @@
+package library;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Test suite for SuggestIndex.
+ */
+public class SuggestIndexTest {
+
+    /*
+     * Testing strategy
+     * ==================
+     *
+     * add(), remove(), contains():
+     *   book: not indexed, indexed; add twice; remove absent book
+     *   names: one is a prefix of another, share a prefix, title equal to
+     *     an author's name
+     *   removal leaves a node with one child or none
+     *
+     * suggest():
+     *   subtree with fewer or more than CACHED names
+     *   limit: less than, equal to, more than CACHED
+     *   update(): copy count rises into and falls out of a cached top
+     *   many random adds, removes and updates, against a brute force
+     */
+
+    @Test
+    public void testAddRemove() {
+        Map<Book, Integer> copies = new HashMap<>();
+        SuggestIndex index = new SuggestIndex(book -> copies.getOrDefault(book, 0));
+        Book walden = new Book("Walden", Arrays.asList("Henry David Thoreau"), 1854);
+        Book waldenTwo = new Book("Walden Two", Arrays.asList("B. F. Skinner"), 1948);
+        Book skinner = new Book("Skinner", Arrays.asList("Skinner"), 1900);
+        assertFalse(index.contains(walden));
+
+        index.add(walden);
+        index.add(walden);
+        index.add(waldenTwo);
+        index.add(skinner);
+        assertTrue(index.contains(walden));
+        assertEquals(Arrays.asList(waldenTwo, walden), index.suggest("walden", 10));
+        assertEquals(Arrays.asList(skinner), index.suggest("s", 10));
+        assertEquals(Arrays.asList(waldenTwo), index.suggest("b f s", 10));
+
+        index.remove(walden);
+        index.remove(walden);
+        assertFalse(index.contains(walden));
+        assertTrue(index.contains(waldenTwo));
+        assertEquals(Arrays.asList(waldenTwo), index.suggest("walden", 10));
+        assertEquals(Collections.emptyList(), index.suggest("henry", 10));
+
+        index.remove(waldenTwo);
+        index.remove(skinner);
+        assertEquals(Collections.emptyList(), index.suggest("", 10));
+    }
+
+    @Test
+    public void testUpdateCachedTop() {
+        Map<Book, Integer> copies = new HashMap<>();
+        SuggestIndex index = new SuggestIndex(book -> copies.getOrDefault(book, 0));
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 3 * SuggestIndex.CACHED; i++) {
+            Book book = new Book("Title " + i, Arrays.asList("Author " + i), 2000);
+            books.add(book);
+            copies.put(book, 1);
+            index.add(book);
+        }
+        Book last = books.get(books.size() - 1);
+        assertFalse(index.suggest("title", 1).contains(last));
+
+        copies.put(last, 5);
+        index.update(last);
+        assertEquals(Arrays.asList(last), index.suggest("title", 1));
+        assertEquals(Arrays.asList(last), index.suggest("author", 1));
+
+        copies.put(last, 0);
+        index.update(last);
+        assertFalse(index.suggest("title", SuggestIndex.CACHED).contains(last));
+        assertEquals(last, index.suggest("title", 100).get(books.size() - 1));
+    }
+
+    @Test
+    public void testRandomAgainstBruteForce() {
+        Random random = new Random(6031);
+        Map<Book, Integer> copies = new HashMap<>();
+        SuggestIndex index = new SuggestIndex(book -> copies.getOrDefault(book, 0));
+        List<Book> all = new ArrayList<>();
+        String[] words = { "a", "ab", "abc", "b", "ba", "bab", "c" };
+        for (int i = 0; i < 300; i++) {
+            all.add(new Book(words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)]
+                    + " " + i, Arrays.asList(words[random.nextInt(words.length)]), 2000 + random.nextInt(3)));
+        }
+        String[] prefixes = { "", "a", "ab", "ab a", "b", "ba", "bab c", "c ", "c c 1", "d" };
+        for (int step = 0; step < 3000; step++) {
+            Book book = all.get(random.nextInt(all.size()));
+            int count = copies.getOrDefault(book, 0);
+            int change = random.nextInt(3) - 1;
+            if (count + change <= 0) {
+                copies.remove(book);
+                index.remove(book);
+            } else {
+                copies.put(book, count + change);
+                if (count == 0) {
+                    index.add(book);
+                } else {
+                    index.update(book);
+                }
+            }
+            String prefix = prefixes[random.nextInt(prefixes.length)];
+            int limit = random.nextInt(2 * SuggestIndex.CACHED);
+            assertEquals("step " + step + ", prefix \"" + prefix + "\", limit " + limit,
+                    bruteForce(copies, prefix, limit), index.suggest(prefix, limit));
+        }
+    }
+
+    // the suggestions that SuggestIndex's spec requires
+    private static List<Book> bruteForce(Map<Book, Integer> copies, String prefix, int limit) {
+        List<Book> matches = new ArrayList<>();
+        for (Book book : copies.keySet()) {
+            Set<String> names = new LinkedHashSet<>();
+            names.add(SearchIndex.normalize(book.getTitle()));
+            for (String author : book.getAuthors()) {
+                names.add(SearchIndex.normalize(author));
+            }
+            for (String name : names) {
+                if (name.startsWith(SearchIndex.normalize(prefix))) {
+                    matches.add(book);
+                    break;
+                }
+            }
+        }
+        matches.sort((a, b) -> a.getYear() != b.getYear() ? b.getYear() - a.getYear()
+                : copies.get(a) != copies.get(b).intValue() ? copies.get(b) - copies.get(a)
+                : SearchIndex.NEWEST_FIRST.compare(a, b));
+        return matches.subList(0, Math.min(limit, matches.size()));
+    }
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+}